@@ -0,0 +1,153 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import ru.yandex.practicum.filmorate.exception.TooManyRequestsException;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+import ru.yandex.practicum.filmorate.util.TokenBuckets;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// Допуск изменяющих запросов до контроллера. Любой POST, PUT или DELETE занимает место в общем лимите
+// одновременных изменений, затем методы с @RateLimited проверяют token bucket пары (пользователь, класс
+// запроса): токен не тратится на запрос, который всё равно отклонят по перегрузке. Оба отказа — 429
+// с Retry-After ещё до сервиса и хранилища; лимит мест не ждёт освобождения, поэтому перегрузка
+// срезается сразу, а не копится очередью потоков.
+@Component
+public class AdmissionControl implements HandlerInterceptor, WebMvcConfigurer {
+
+    private static final String PERMIT = AdmissionControl.class.getName() + ".permit";
+
+    private final boolean enabled;
+
+    private final UserStorage userStorage;
+
+    private final Map<RateLimited.Endpoint, TokenBuckets> buckets = new EnumMap<>(RateLimited.Endpoint.class);
+
+    // null — без ограничения
+    private final Semaphore permits;
+
+    private final Counter rateLimited;
+
+    private final Counter concurrencyLimited;
+
+    @Autowired
+    public AdmissionControl(MeterRegistry registry, UserStorage userStorage,
+                            @Value("${filmorate.ratelimit.enabled:true}") boolean enabled,
+                            @Value("${filmorate.ratelimit.likes.rate:20}") double likesRate,
+                            @Value("${filmorate.ratelimit.likes.burst:40}") int likesBurst,
+                            @Value("${filmorate.ratelimit.friends.rate:10}") double friendsRate,
+                            @Value("${filmorate.ratelimit.friends.burst:20}") int friendsBurst,
+                            @Value("${filmorate.ratelimit.max-buckets:100000}") int maxBuckets,
+                            @Value("${filmorate.ratelimit.max-concurrent:256}") int maxConcurrent) {
+        this.enabled = enabled;
+        this.userStorage = userStorage;
+        buckets.put(RateLimited.Endpoint.LIKES, new TokenBuckets(likesRate, likesBurst, maxBuckets));
+        buckets.put(RateLimited.Endpoint.FRIENDS, new TokenBuckets(friendsRate, friendsBurst, maxBuckets));
+        permits = maxConcurrent > 0 ? new Semaphore(maxConcurrent) : null;
+        rateLimited = registry.counter("filmorate.admission.rejected", "reason", "rate");
+        concurrencyLimited = registry.counter("filmorate.admission.rejected", "reason", "concurrency");
+        buckets.forEach((endpoint, table) -> Gauge.builder("filmorate.admission.buckets", table, TokenBuckets::size)
+                .description("Корзины token bucket в памяти")
+                .tag("endpoint", endpoint.name().toLowerCase())
+                .register(registry));
+        if (permits != null) {
+            Gauge.builder("filmorate.admission.in-flight", permits, p -> maxConcurrent - p.availablePermits())
+                    .description("Изменяющие запросы в обработке")
+                    .register(registry);
+        }
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(this);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!enabled || !(handler instanceof HandlerMethod method) || !isMutation(request)) {
+            return true;
+        }
+        if (permits != null && !permits.tryAcquire()) {
+            concurrencyLimited.increment();
+            throw new TooManyRequestsException("Сервис перегружен, повторите запрос позже", 1);
+        }
+        RateLimited limited = method.getMethodAnnotation(RateLimited.class);
+        try {
+            if (limited != null) {
+                checkRate(limited, request);
+            }
+        } catch (TooManyRequestsException e) {
+            // после отказа в preHandle afterCompletion не вызывается, место возвращается здесь
+            if (permits != null) {
+                permits.release();
+            }
+            throw e;
+        }
+        if (permits != null) {
+            request.setAttribute(PERMIT, Boolean.TRUE);
+        }
+        return true;
+    }
+
+    // Вызывается и после исключения в обработчике, но не после отказа в самом preHandle
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        if (request.getAttribute(PERMIT) != null) {
+            request.removeAttribute(PERMIT);
+            permits.release();
+        }
+    }
+
+    private void checkRate(RateLimited limited, HttpServletRequest request) {
+        @SuppressWarnings("unchecked")
+        Map<String, String> variables = (Map<String, String>) request.getAttribute(
+                HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        String user = variables != null ? variables.get(limited.user()) : null;
+        int userId;
+        try {
+            userId = Integer.parseInt(user);
+        } catch (NumberFormatException e) {
+            // некорректный id отклонит сам контроллер
+            return;
+        }
+        // корзина заводится только для существующего пользователя: иначе перебор несуществующих id
+        // заполнил бы таблицу до max-buckets и вытеснил настоящих пользователей в общую корзину.
+        // Проверка только по ключу, без загрузки записи и друзей; неизвестного пользователя сервис отклонит с 404
+        if (userStorage.existingIds(new int[]{userId}).length == 0) {
+            return;
+        }
+        long waitNanos = buckets.get(limited.value()).tryAcquire(userId);
+        if (waitNanos > 0) {
+            rateLimited.increment();
+            throw new TooManyRequestsException("Слишком много запросов от пользователя " + user
+                    + ", повторите позже", Math.max(1, ceilSeconds(waitNanos)));
+        }
+    }
+
+    private static long ceilSeconds(long nanos) {
+        long second = TimeUnit.SECONDS.toNanos(1);
+        return (nanos + second - 1) / second;
+    }
+
+    private static boolean isMutation(HttpServletRequest request) {
+        String method = request.getMethod();
+        return HttpMethod.POST.matches(method) || HttpMethod.PUT.matches(method) || HttpMethod.DELETE.matches(method);
+    }
+}
@@ -1,12 +1,23 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.model.BatchItemResult;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.service.BulkImportService;
 import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.storage.VersionTracker;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
@@ -16,34 +27,127 @@ import java.util.List;
 public class FilmController {
 
     private final FilmService filmService;
+    private final BulkImportService bulkImportService;
+    private final ObjectMapper objectMapper;
+    private final VersionTracker versionTracker;
+
+    // Популярные читаются часто и меняются только с лайками: готовые байты живут до следующего изменения
+    private final ResponseBytesCache popularResponses = new ResponseBytesCache(64);
 
     @PostMapping
     public Film add(@Valid @RequestBody Film film) {
         return filmService.addFilm(film);
     }
 
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public List<BatchItemResult> addBatch(@RequestBody List<Film> films) {
+        return bulkImportService.addFilms(films);
+    }
+
+    @PostMapping(value = "/batch", consumes = NdjsonStreams.MEDIA_TYPE)
+    public List<BatchItemResult> addBatchNdjson(InputStream body) throws IOException {
+        return bulkImportService.addFilms(NdjsonStreams.read(objectMapper, body, Film.class));
+    }
+
     @PutMapping
     public Film update(@Valid @RequestBody Film film) {
         return filmService.updateFilm(film);
     }
 
+    // При совпадении If-None-Match с версией отвечаем 304 без чтения хранилища и сериализации.
+    // view=summary и fields=... — проекции ответа (см. Projection)
     @GetMapping
-    public List<Film> getAll() {
-        return filmService.getAllFilms();
+    public Projection.View<Film> getAll(@RequestParam(defaultValue = "0") int afterId,
+                                        @RequestParam(required = false) Integer limit,
+                                        @RequestParam(required = false) String view,
+                                        @RequestParam(required = false) String fields,
+                                        WebRequest request) {
+        // некорректные параметры — 400, даже если ETag совпал
+        filmService.checkPageLimit(limit);
+        List<Projection.Field<Film>> selected = Projection.FILMS.select(view, fields);
+        if (request.checkNotModified(versionTracker.filmsTag())) {
+            return null;
+        }
+        List<Film> films = limit == null ? filmService.getAllFilms() : filmService.getFilmsPage(afterId, limit);
+        return new Projection.View<>(films, selected);
+    }
+
+    @GetMapping(value = "/stream", produces = NdjsonStreams.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        return NdjsonStreams.stream(objectMapper, filmService::getFilmsPage, Film::getId);
     }
 
     @PutMapping("/{id}/like/{userId}")
+    @RateLimited(value = RateLimited.Endpoint.LIKES, user = "userId")
     public void addLike(@PathVariable int id, @PathVariable int userId) {
         filmService.addLike(id, userId);
     }
 
+    @PutMapping(value = "/likes/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public List<BatchItemResult> addLikes(@RequestBody List<FilmLike> likes) {
+        return bulkImportService.addLikes(likes);
+    }
+
+    @PutMapping(value = "/likes/batch", consumes = NdjsonStreams.MEDIA_TYPE)
+    public List<BatchItemResult> addLikesNdjson(InputStream body) throws IOException {
+        return bulkImportService.addLikes(NdjsonStreams.read(objectMapper, body, FilmLike.class));
+    }
+
     @DeleteMapping("/{id}/like/{userId}")
+    @RateLimited(value = RateLimited.Endpoint.LIKES, user = "userId")
     public void removeLike(@PathVariable int id, @PathVariable int userId) {
         filmService.removeLike(id, userId);
     }
 
     @GetMapping("/popular")
-    public List<Film> getPopular(@RequestParam(defaultValue = "10") int count) {
-        return filmService.getPopularFilms(count);
+    public ResponseEntity<byte[]> getPopular(@RequestParam(defaultValue = "10") int count,
+                                             @RequestParam(required = false) Integer genreId,
+                                             @RequestParam(required = false) Integer year,
+                                             @RequestParam(required = false) String view,
+                                             @RequestParam(required = false) String fields,
+                                             WebRequest request) throws IOException {
+        // неизвестный жанр — 404, даже если ETag совпал
+        filmService.checkGenre(genreId);
+        List<Projection.Field<Film>> selected = Projection.FILMS.select(view, fields);
+        if (!filmService.isPopularCurrent(genreId, year)) {
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(objectMapper.writeValueAsBytes(
+                    new Projection.View<>(filmService.getPopularFilms(count, genreId, year), selected)));
+        }
+        String tag = versionTracker.filmsTag();
+        if (request.checkNotModified(tag)) {
+            return null;
+        }
+        String key = count + ":" + genreId + ":" + year + ":" + Projection.key(selected);
+        byte[] body = popularResponses.get(tag, key);
+        if (body == null) {
+            body = objectMapper.writeValueAsBytes(new Projection.View<>(
+                    filmService.getPopularFilms(count, genreId, year), selected));
+            popularResponses.put(tag, key, body);
+        }
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    // Лайки за последний час, сутки или неделю; зависит от времени, поэтому без ETag
+    @GetMapping("/trending")
+    public Projection.View<Film> getTrending(@RequestParam(defaultValue = "24h") String window,
+                                             @RequestParam(defaultValue = "10") int count,
+                                             @RequestParam(required = false) String view,
+                                             @RequestParam(required = false) String fields) {
+        List<Projection.Field<Film>> selected = Projection.FILMS.select(view, fields);
+        return new Projection.View<>(filmService.getTrendingFilms(window, count), selected);
+    }
+
+    @GetMapping("/search")
+    public Projection.View<Film> search(@RequestParam String q,
+                                        @RequestParam(defaultValue = "10") int limit,
+                                        @RequestParam(required = false) String view,
+                                        @RequestParam(required = false) String fields) {
+        List<Projection.Field<Film>> selected = Projection.FILMS.select(view, fields);
+        return new Projection.View<>(filmService.searchFilms(q, limit), selected);
+    }
+
+    @GetMapping("/suggest")
+    public List<String> suggest(@RequestParam String prefix, @RequestParam(defaultValue = "10") int limit) {
+        return filmService.suggestWords(prefix, limit);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,63 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.ToIntFunction;
+
+// Работа с NDJSON: потоковая выдача коллекции (данные читаются из хранилища страницами и пишутся
+// по одному объекту в строке, поэтому весь каталог не собирается в один список) и разбор пакетных загрузок
+final class NdjsonStreams {
+
+    static final String MEDIA_TYPE = "application/x-ndjson";
+
+    static final int PAGE_SIZE = 500;
+
+    private NdjsonStreams() {
+    }
+
+    // Читает NDJSON (или любую последовательность JSON-объектов, разделённых пробелами) в список
+    static <T> List<T> read(ObjectMapper mapper, InputStream in, Class<T> type) throws IOException {
+        try (MappingIterator<T> iterator = mapper.readerFor(type).readValues(in)) {
+            return iterator.readAll();
+        }
+    }
+
+    static <T> ResponseEntity<StreamingResponseBody> stream(ObjectMapper mapper,
+                                                            BiFunction<Integer, Integer, List<T>> pageLoader,
+                                                            ToIntFunction<T> idOf) {
+        // по умолчанию writeValue сбрасывает генератор после каждого объекта — по записи в сокет на строку;
+        // сброс нужен только раз за страницу
+        ObjectWriter writer = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody body = out -> {
+            JsonGenerator generator = mapper.getFactory().createGenerator(out);
+            generator.setRootValueSeparator(new SerializedString("\n"));
+            int afterId = 0;
+            List<T> page;
+            do {
+                page = pageLoader.apply(afterId, PAGE_SIZE);
+                for (T item : page) {
+                    writer.writeValue(generator, item);
+                    afterId = idOf.applyAsInt(item);
+                }
+                generator.flush();
+            } while (page.size() == PAGE_SIZE);
+            generator.writeRaw('\n');
+            generator.close();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(MEDIA_TYPE))
+                .body(body);
+    }
+}
@@ -0,0 +1,169 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.stream.Collectors;
+
+// Проекции ответов со списками фильмов и пользователей: view=summary заменяет множество лайков или друзей
+// его размером (likesCount, friendsCount), fields=id,name,... оставляет только перечисленные поля в их порядке.
+// Поля пишутся прямо в JsonGenerator, поэтому для счётчика множество не копируется и не обходится.
+// Полный вид (по умолчанию) — это обычная сериализация модели через ObjectMapper, поэтому новое поле
+// модели или его аннотация Jackson попадают в ответ без правок здесь
+final class Projection<T> {
+
+    @FunctionalInterface
+    interface FieldWriter<T> {
+        void write(JsonGenerator generator, T item) throws IOException;
+    }
+
+    record Field<T>(String name, FieldWriter<T> writer) {
+    }
+
+    // Список с выбранными полями, сериализуется как JSON-массив объектов; fields == null — полный вид
+    record View<T>(List<T> items, List<Field<T>> fields) implements JsonSerializable {
+
+        @Override
+        public void serialize(JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeStartArray(items, items.size());
+            for (T item : items) {
+                if (fields == null) {
+                    provider.defaultSerializeValue(item, generator);
+                    continue;
+                }
+                generator.writeStartObject(item);
+                for (Field<T> field : fields) {
+                    generator.writeFieldName(field.name());
+                    field.writer().write(generator, item);
+                }
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+        }
+
+        // информация о типах в ответы не пишется (default typing не включён)
+        @Override
+        public void serializeWithType(JsonGenerator generator, SerializerProvider provider,
+                                      TypeSerializer typeSerializer) throws IOException {
+            serialize(generator, provider);
+        }
+    }
+
+    static final Projection<Film> FILMS = new Projection<Film>()
+            .field("id", (generator, film) -> generator.writeNumber(film.getId()))
+            .field("name", (generator, film) -> generator.writeString(film.getName()))
+            .field("description", (generator, film) -> generator.writeString(film.getDescription()))
+            .field("releaseDate", (generator, film) -> generator.writeString(
+                    film.getReleaseDate() != null ? film.getReleaseDate().toString() : null))
+            .field("duration", (generator, film) -> generator.writeNumber(film.getDuration()))
+            .field("likes", (generator, film) -> {
+                int[] likes = film.getLikes().toArray();
+                generator.writeArray(likes, 0, likes.length);
+            })
+            .field("likesCount", (generator, film) -> generator.writeNumber(film.getLikes().size()))
+            .field("mpa", (generator, film) -> writeMpa(generator, film.getMpa()))
+            .field("genres", (generator, film) -> {
+                generator.writeStartArray(film.getGenres(), film.getGenres().size());
+                for (Genre genre : film.getGenres()) {
+                    writeReference(generator, genre, genre.id(), genre.name());
+                }
+                generator.writeEndArray();
+            })
+            .view("summary", "id", "name", "description", "releaseDate", "duration", "likesCount", "mpa",
+                    "genres");
+
+    static final Projection<User> USERS = new Projection<User>()
+            .field("id", (generator, user) -> generator.writeNumber(user.getId()))
+            .field("email", (generator, user) -> generator.writeString(user.getEmail()))
+            .field("login", (generator, user) -> generator.writeString(user.getLogin()))
+            .field("name", (generator, user) -> generator.writeString(user.getName()))
+            .field("birthday", (generator, user) -> generator.writeString(
+                    user.getBirthday() != null ? user.getBirthday().toString() : null))
+            .field("friends", (generator, user) -> {
+                int[] friends = user.getFriends().toArray();
+                generator.writeArray(friends, 0, friends.length);
+            })
+            .field("friendsCount", (generator, user) -> generator.writeNumber(user.getFriends().size()))
+            .view("summary", "id", "email", "login", "name", "birthday", "friendsCount");
+
+    private final Map<String, Field<T>> fields = new LinkedHashMap<>();
+
+    private final Map<String, List<Field<T>>> views = new HashMap<>();
+
+    private Projection() {
+    }
+
+    private Projection<T> field(String name, FieldWriter<T> writer) {
+        fields.put(name, new Field<>(name, writer));
+        return this;
+    }
+
+    private Projection<T> view(String name, String... fieldNames) {
+        views.put(name, Arrays.stream(fieldNames).map(fields::get).toList());
+        return this;
+    }
+
+    // fields важнее view; без обоих параметров — полный вид (null)
+    List<Field<T>> select(String view, String fieldNames) {
+        if (fieldNames != null) {
+            Set<String> names = new LinkedHashSet<>();
+            for (String name : fieldNames.split(",")) {
+                if (!name.isBlank()) {
+                    names.add(name.trim());
+                }
+            }
+            if (names.isEmpty()) {
+                throw new ValidationException("Список полей ответа пуст.");
+            }
+            List<Field<T>> selected = new ArrayList<>(names.size());
+            for (String name : names) {
+                Field<T> field = fields.get(name);
+                if (field == null) {
+                    throw new ValidationException("Неизвестное поле ответа: " + name + ". Доступны: "
+                            + String.join(", ", fields.keySet()) + ".");
+                }
+                selected.add(field);
+            }
+            return selected;
+        }
+        if (view == null || view.equals("full")) {
+            return null;
+        }
+        List<Field<T>> selected = views.get(view);
+        if (selected == null) {
+            throw new ValidationException("Неизвестный вид ответа: " + view + ". Доступны: full, summary.");
+        }
+        return selected;
+    }
+
+    private static void writeMpa(JsonGenerator generator, Mpa mpa) throws IOException {
+        if (mpa == null) {
+            generator.writeNull();
+        } else {
+            writeReference(generator, mpa, mpa.id(), mpa.name());
+        }
+    }
+
+    // Значение справочника: {"id": ..., "name": ...}, как его пишет сериализация записи
+    private static void writeReference(JsonGenerator generator, Object value, int id, String name)
+            throws IOException {
+        generator.writeStartObject(value);
+        generator.writeNumberField("id", id);
+        generator.writeStringField("name", name);
+        generator.writeEndObject();
+    }
+
+    // Ключ набора полей для кэша готовых ответов
+    static String key(List<? extends Field<?>> fields) {
+        return fields == null ? "full" : fields.stream().map(Field::name).collect(Collectors.joining(","));
+    }
+}
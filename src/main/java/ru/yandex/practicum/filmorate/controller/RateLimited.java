@@ -0,0 +1,22 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Изменение, частота которого ограничивается на пользователя из переменной пути user (см. AdmissionControl)
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@interface RateLimited {
+
+    // Класс запросов: у каждого свои корзины и свои лимиты
+    enum Endpoint {
+        LIKES,
+        FRIENDS
+    }
+
+    Endpoint value();
+
+    String user();
+}
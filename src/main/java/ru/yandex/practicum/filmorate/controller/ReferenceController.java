@@ -0,0 +1,101 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.service.ReferenceService;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Справочники жанров и рейтингов MPA не меняются до перезапуска, поэтому все ответы сериализуются
+// один раз при старте. ETag — хеш содержимого: он совпадает между запусками с теми же справочниками,
+// и клиент с закэшированной копией получает 304
+@RestController
+public class ReferenceController {
+
+    private static final CacheControl CACHE_CONTROL = CacheControl.maxAge(1, TimeUnit.HOURS).cachePublic();
+
+    private final ReferenceService referenceService;
+
+    private final byte[] genres;
+
+    private final Map<Integer, byte[]> genresById = new HashMap<>();
+
+    private final byte[] mpaRatings;
+
+    private final Map<Integer, byte[]> mpaById = new HashMap<>();
+
+    private final String tag;
+
+    @Autowired
+    public ReferenceController(ReferenceService referenceService, ObjectMapper objectMapper)
+            throws JsonProcessingException {
+        this.referenceService = referenceService;
+        List<Genre> genreList = referenceService.getGenres();
+        List<Mpa> mpaList = referenceService.getMpaRatings();
+        genres = objectMapper.writeValueAsBytes(genreList);
+        mpaRatings = objectMapper.writeValueAsBytes(mpaList);
+        for (Genre genre : genreList) {
+            genresById.put(genre.id(), objectMapper.writeValueAsBytes(genre));
+        }
+        for (Mpa mpa : mpaList) {
+            mpaById.put(mpa.id(), objectMapper.writeValueAsBytes(mpa));
+        }
+        byte[] all = new byte[genres.length + mpaRatings.length];
+        System.arraycopy(genres, 0, all, 0, genres.length);
+        System.arraycopy(mpaRatings, 0, all, genres.length, mpaRatings.length);
+        tag = "\"ref-" + DigestUtils.md5DigestAsHex(all) + "\"";
+    }
+
+    @GetMapping("/genres")
+    public ResponseEntity<byte[]> getGenres(WebRequest request) {
+        return respond(genres, request);
+    }
+
+    @GetMapping("/genres/{id}")
+    public ResponseEntity<byte[]> getGenre(@PathVariable int id, WebRequest request) {
+        byte[] body = genresById.get(id);
+        if (body == null) {
+            // бросает NoSuchElementException с сообщением для 404
+            referenceService.getGenre(id);
+        }
+        return respond(body, request);
+    }
+
+    @GetMapping("/mpa")
+    public ResponseEntity<byte[]> getMpaRatings(WebRequest request) {
+        return respond(mpaRatings, request);
+    }
+
+    @GetMapping("/mpa/{id}")
+    public ResponseEntity<byte[]> getMpa(@PathVariable int id, WebRequest request) {
+        byte[] body = mpaById.get(id);
+        if (body == null) {
+            referenceService.getMpa(id);
+        }
+        return respond(body, request);
+    }
+
+    private ResponseEntity<byte[]> respond(byte[] body, WebRequest request) {
+        if (request.checkNotModified(tag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(CACHE_CONTROL)
+                .body(body);
+    }
+}
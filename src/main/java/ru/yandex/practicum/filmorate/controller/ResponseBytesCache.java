@@ -0,0 +1,38 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Готовые байты ответов, действительные до следующего изменения данных. Записи хранятся под тегом версии
+// (VersionTracker), с которым был прочитан ответ; запрос с другим тегом начинает новое поколение,
+// а старое целиком уходит сборщику. Число записей в поколении ограничено: параметры запроса задаёт клиент
+final class ResponseBytesCache {
+
+    private record Generation(String tag, Map<String, byte[]> responses) {
+    }
+
+    private final int maxEntries;
+
+    private volatile Generation current = new Generation("", new ConcurrentHashMap<>());
+
+    ResponseBytesCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    byte[] get(String tag, String key) {
+        Generation generation = current;
+        return generation.tag().equals(tag) ? generation.responses().get(key) : null;
+    }
+
+    // Тег читается до данных, поэтому ответ под тегом не старше версии, которую тег обозначает
+    void put(String tag, String key, byte[] body) {
+        Generation generation = current;
+        if (!generation.tag().equals(tag)) {
+            generation = new Generation(tag, new ConcurrentHashMap<>());
+            current = generation;
+        }
+        if (generation.responses().size() < maxEntries) {
+            generation.responses().put(key, body);
+        }
+    }
+}
@@ -1,11 +1,23 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.model.BatchItemResult;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Friendship;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.BulkImportService;
 import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.VersionTracker;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
@@ -14,20 +26,50 @@ import java.util.List;
 public class UserController {
 
     private final UserService userService;
+    private final BulkImportService bulkImportService;
+    private final ObjectMapper objectMapper;
+    private final VersionTracker versionTracker;
 
     @PostMapping
     public User createUser(@Valid @RequestBody User user) {
         return userService.createUser(user);
     }
 
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public List<BatchItemResult> createUsers(@RequestBody List<User> users) {
+        return bulkImportService.addUsers(users);
+    }
+
+    @PostMapping(value = "/batch", consumes = NdjsonStreams.MEDIA_TYPE)
+    public List<BatchItemResult> createUsersNdjson(InputStream body) throws IOException {
+        return bulkImportService.addUsers(NdjsonStreams.read(objectMapper, body, User.class));
+    }
+
     @PutMapping
     public User updateUser(@Valid @RequestBody User user) {
         return userService.updateUser(user);
     }
 
+    // view=summary и fields=... — проекции ответа (см. Projection)
     @GetMapping
-    public List<User> getAllUsers() {
-        return userService.getAllUsers();
+    public Projection.View<User> getAllUsers(@RequestParam(defaultValue = "0") int afterId,
+                                             @RequestParam(required = false) Integer limit,
+                                             @RequestParam(required = false) String view,
+                                             @RequestParam(required = false) String fields,
+                                             WebRequest request) {
+        // некорректные параметры — 400, даже если ETag совпал
+        userService.checkPageLimit(limit);
+        List<Projection.Field<User>> selected = Projection.USERS.select(view, fields);
+        if (request.checkNotModified(versionTracker.usersTag())) {
+            return null;
+        }
+        List<User> users = limit == null ? userService.getAllUsers() : userService.getUsersPage(afterId, limit);
+        return new Projection.View<>(users, selected);
+    }
+
+    @GetMapping(value = "/stream", produces = NdjsonStreams.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> streamAllUsers() {
+        return NdjsonStreams.stream(objectMapper, userService::getUsersPage, User::getId);
     }
 
     @GetMapping("/{id}")
@@ -35,23 +77,67 @@ public class UserController {
         return userService.getUserById(id);
     }
 
+    @GetMapping("/by-login/{login}")
+    public User getUserByLogin(@PathVariable String login) {
+        return userService.getUserByLogin(login);
+    }
+
+    // .+ — иначе часть email после последней точки отрезается как расширение
+    @GetMapping("/by-email/{email:.+}")
+    public User getUserByEmail(@PathVariable String email) {
+        return userService.getUserByEmail(email);
+    }
+
     @PutMapping("/{id}/friends/{friendId}")
+    @RateLimited(value = RateLimited.Endpoint.FRIENDS, user = "id")
     public void addFriend(@PathVariable int id, @PathVariable int friendId) {
         userService.addFriend(id, friendId);
     }
 
+    @PutMapping(value = "/friends/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public List<BatchItemResult> addFriends(@RequestBody List<Friendship> friendships) {
+        return bulkImportService.addFriends(friendships);
+    }
+
+    @PutMapping(value = "/friends/batch", consumes = NdjsonStreams.MEDIA_TYPE)
+    public List<BatchItemResult> addFriendsNdjson(InputStream body) throws IOException {
+        return bulkImportService.addFriends(NdjsonStreams.read(objectMapper, body, Friendship.class));
+    }
+
     @DeleteMapping("/{id}/friends/{friendId}")
+    @RateLimited(value = RateLimited.Endpoint.FRIENDS, user = "id")
     public void removeFriend(@PathVariable int id, @PathVariable int friendId) {
         userService.removeFriend(id, friendId);
     }
 
     @GetMapping("/{id}/friends")
-    public List<User> getFriends(@PathVariable int id) {
-        return userService.getFriends(id);
+    public Projection.View<User> getFriends(@PathVariable int id,
+                                            @RequestParam(required = false) String view,
+                                            @RequestParam(required = false) String fields,
+                                            WebRequest request) {
+        // пользователи не удаляются, поэтому версия, выданная с ответом 200, всегда относится к существующему
+        if (request.checkNotModified(versionTracker.friendsTag(id))) {
+            return null;
+        }
+        List<Projection.Field<User>> selected = Projection.USERS.select(view, fields);
+        return new Projection.View<>(userService.getFriends(id), selected);
+    }
+
+    @GetMapping("/{id}/recommendations")
+    public List<User> getRecommendations(@PathVariable int id, @RequestParam(defaultValue = "10") int count) {
+        return userService.getFriendRecommendations(id, count);
+    }
+
+    @GetMapping("/{id}/recommended-films")
+    public List<Film> getRecommendedFilms(@PathVariable int id, @RequestParam(defaultValue = "10") int count) {
+        return userService.getRecommendedFilms(id, count);
     }
 
     @GetMapping("/{id}/friends/common/{otherId}")
-    public List<User> getCommonFriends(@PathVariable int id, @PathVariable int otherId) {
-        return userService.getCommonFriends(id, otherId);
+    public Projection.View<User> getCommonFriends(@PathVariable int id, @PathVariable int otherId,
+                                                  @RequestParam(required = false) String view,
+                                                  @RequestParam(required = false) String fields) {
+        List<Projection.Field<User>> selected = Projection.USERS.select(view, fields);
+        return new Projection.View<>(userService.getCommonFriends(id, otherId), selected);
     }
 }
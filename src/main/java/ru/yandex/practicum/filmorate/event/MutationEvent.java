@@ -0,0 +1,42 @@
+package ru.yandex.practicum.filmorate.event;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.util.IntSet;
+
+// Изменения в хранилищах, на которые подписаны производные индексы. Событие публикуется только
+// после того, как изменение записано в хранилище и действительно что-то поменяло, под блокировкой
+// MutationOrder: события одной сущности идут в порядке её изменений
+public sealed interface MutationEvent {
+
+    // Лайки здесь и в FilmUpdated — снимки на момент публикации, а не живые множества фильма: к обработке
+    // события фильм может получить лайки, о которых подписчик узнает из следующих LikeAdded.
+    // Лайк, поставленный между записью нового фильма и публикацией FilmAdded, есть и в снимке, и в
+    // LikeAdded перед ним: подписчики пропускают лайки неизвестных фильмов или учитывают их идемпотентно
+    record FilmAdded(Film film, IntSet likes) implements MutationEvent {
+    }
+
+    record FilmUpdated(Film film, IntSet oldLikes, IntSet newLikes) implements MutationEvent {
+    }
+
+    record LikeAdded(int filmId, int userId) implements MutationEvent {
+    }
+
+    record LikeRemoved(int filmId, int userId) implements MutationEvent {
+    }
+
+    // Друзья — снимок на момент публикации, как лайки в FilmAdded
+    record UserAdded(User user, IntSet friends) implements MutationEvent {
+    }
+
+    // Обновление заменяет список друзей целиком
+    record UserUpdated(User user) implements MutationEvent {
+    }
+
+    // Связь в обе стороны, как её создаёт UserService.addFriend
+    record FriendAdded(int userId, int friendId) implements MutationEvent {
+    }
+
+    record FriendRemoved(int userId, int friendId) implements MutationEvent {
+    }
+}
@@ -0,0 +1,218 @@
+package ru.yandex.practicum.filmorate.event;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.BackpressureException;
+import ru.yandex.practicum.filmorate.util.RingBuffer;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// Конвейер событий изменений: сервисы публикуют события в RingBuffer, один поток разбирает его
+// пакетами и раздаёт подписчикам, поэтому запись в хранилище не ждёт обновления производных индексов.
+// Если очередь полна, backpressure=block заставляет писателя ждать места, а reject отклоняет новые
+// изменения ещё до записи (admit) с 503. consistency=read-your-writes заставляет чтения производных
+// индексов (awaitReadable) дождаться обработки всего, что опубликовано до начала чтения.
+// async=false раздаёт события прямо в потоке писателя, как до появления конвейера.
+@Slf4j
+@Component
+public class MutationEvents implements DisposableBean {
+
+    public enum Backpressure {
+        BLOCK,
+        REJECT
+    }
+
+    public enum Consistency {
+        EVENTUAL,
+        READ_YOUR_WRITES
+    }
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static final long WAIT_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(20);
+
+    private final List<MutationListener> listeners;
+
+    private final RingBuffer<MutationEvent> ring;
+
+    private final int batchSize;
+
+    private final Backpressure backpressure;
+
+    private final Consistency consistency;
+
+    private final Thread consumer;
+
+    private final MutationOrder order = new MutationOrder();
+
+    private volatile boolean running = true;
+
+    // читатель уснул на пустой очереди, писатель будит его после публикации
+    private volatile boolean idle;
+
+    private final Counter published;
+
+    private final Counter rejected;
+
+    private final Counter blocked;
+
+    private final Counter failures;
+
+    private final Timer batches;
+
+    private final Timer lag;
+
+    @Autowired
+    public MutationEvents(List<MutationListener> listeners,
+                          MeterRegistry registry,
+                          @Value("${filmorate.events.async:true}") boolean async,
+                          @Value("${filmorate.events.capacity:65536}") int capacity,
+                          @Value("${filmorate.events.batch-size:256}") int batchSize,
+                          @Value("${filmorate.events.backpressure:block}") Backpressure backpressure,
+                          @Value("${filmorate.events.consistency:read-your-writes}") Consistency consistency) {
+        this.listeners = List.copyOf(listeners);
+        this.batchSize = batchSize;
+        this.backpressure = backpressure;
+        this.consistency = consistency;
+        published = registry.counter("filmorate.events.published");
+        rejected = registry.counter("filmorate.events.rejected");
+        blocked = registry.counter("filmorate.events.blocked");
+        failures = registry.counter("filmorate.events.failures");
+        batches = Timer.builder("filmorate.events.batch")
+                .description("Обработка пакета событий всеми подписчиками")
+                .register(registry);
+        lag = Timer.builder("filmorate.events.lag")
+                .description("Время от публикации первого события пакета до начала его обработки")
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+        if (async) {
+            ring = new RingBuffer<>(capacity);
+            Gauge.builder("filmorate.events.queue.depth", ring, RingBuffer::size)
+                    .description("События, опубликованные и ещё не обработанные")
+                    .register(registry);
+            Gauge.builder("filmorate.events.consumer.lag", ring, r -> r.oldestAgeNanos() / 1e9)
+                    .description("Возраст самого старого необработанного события, с")
+                    .baseUnit("seconds")
+                    .register(registry);
+            consumer = Thread.ofPlatform().name("filmorate-events").daemon().start(this::consume);
+        } else {
+            ring = null;
+            consumer = null;
+        }
+    }
+
+    // Синхронная раздача без отдельного потока: для тестов и бенчмарков сервисов
+    public static MutationEvents direct(MutationListener... listeners) {
+        return new MutationEvents(List.of(listeners), new SimpleMeterRegistry(), false, 1, 1,
+                Backpressure.BLOCK, Consistency.EVENTUAL);
+    }
+
+    // Блокировки, под которыми сервисы меняют хранилище и публикуют событие об этом
+    public MutationOrder order() {
+        return order;
+    }
+
+    // Вызывается до записи в хранилище: при backpressure=reject и полной очереди изменение отклоняется
+    public void admit() {
+        if (ring != null && backpressure == Backpressure.REJECT && ring.size() >= ring.capacity()) {
+            rejected.increment();
+            throw new BackpressureException("Сервис перегружен, повторите запрос позже");
+        }
+    }
+
+    public void publish(MutationEvent event) {
+        published.increment();
+        if (ring == null) {
+            dispatch(event);
+            return;
+        }
+        if (ring.offer(event) < 0) {
+            // очередь полна: ждём, пока читатель освободит место (при reject сюда попадают только
+            // изменения, прошедшие admit одновременно с заполнением очереди)
+            blocked.increment();
+            do {
+                wakeConsumer();
+                LockSupport.parkNanos(WAIT_PARK_NANOS);
+            } while (ring.offer(event) < 0);
+        }
+        wakeConsumer();
+    }
+
+    // Видит ли чтение после awaitReadable все уже записанные изменения: при consistency=eventual
+    // производный индекс может отставать от хранилища и от его версии в VersionTracker
+    public boolean readYourWrites() {
+        return ring == null || consistency == Consistency.READ_YOUR_WRITES;
+    }
+
+    // Вызывается перед чтением производного индекса
+    public void awaitReadable() {
+        if (ring != null && consistency == Consistency.READ_YOUR_WRITES) {
+            awaitProcessed(ring.published());
+        }
+    }
+
+    // Ждёт, пока будут обработаны все события с номерами меньше sequence
+    private void awaitProcessed(long sequence) {
+        while (ring.consumed() < sequence && running) {
+            wakeConsumer();
+            LockSupport.parkNanos(WAIT_PARK_NANOS);
+        }
+    }
+
+    private void consume() {
+        while (running || ring.size() > 0) {
+            long ageNanos = ring.oldestAgeNanos();
+            long start = System.nanoTime();
+            int drained = ring.drain(this::dispatch, batchSize);
+            if (drained > 0) {
+                lag.record(ageNanos, TimeUnit.NANOSECONDS);
+                batches.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            } else {
+                idle = true;
+                // повторная проверка после флага: публикация между drain и флагом не потеряется
+                if (ring.size() == 0 && running) {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+                idle = false;
+            }
+        }
+    }
+
+    private void dispatch(MutationEvent event) {
+        for (MutationListener listener : listeners) {
+            try {
+                listener.onEvent(event);
+            } catch (RuntimeException e) {
+                // ошибка одного подписчика не должна останавливать остальных и весь конвейер
+                failures.increment();
+                log.error("Подписчик {} не обработал событие {}", listener.getClass().getSimpleName(), event, e);
+            }
+        }
+    }
+
+    private void wakeConsumer() {
+        if (idle) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    // Остановка дорабатывает уже опубликованные события
+    @Override
+    public void destroy() throws InterruptedException {
+        if (consumer != null) {
+            running = false;
+            LockSupport.unpark(consumer);
+            consumer.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+}
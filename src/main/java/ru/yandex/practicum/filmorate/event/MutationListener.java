@@ -0,0 +1,8 @@
+package ru.yandex.practicum.filmorate.event;
+
+// Производный индекс, который обновляется по событиям. В асинхронном режиме вызовы идут из одного
+// потока в порядке публикации, в синхронном — из потоков запросов; в обоих случаях параллельно с чтениями
+public interface MutationListener {
+
+    void onEvent(MutationEvent event);
+}
@@ -0,0 +1,85 @@
+package ru.yandex.practicum.filmorate.event;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Порядок событий одной сущности. Сервис меняет хранилище и публикует событие под блокировкой полосы
+// сущности, поэтому подписчики получают события фильма или пользователя в порядке изменений.
+// Лайк берёт полосу фильма на чтение — лайки разных пользователей одного фильма не ждут друг друга
+// (и фиксацию журнала друг друга), — а полосу пользователя исключительно: лайк и снятие одной пары не
+// обгоняют друг друга. Замена фильма целиком берёт полосу фильма исключительно: ни один лайк не попадёт
+// между записью фильма и снимком его лайков в событии. Полосы фильмов всегда берутся раньше полос
+// пользователей, внутри группы — по возрастанию номера, поэтому взаимных блокировок нет.
+public final class MutationOrder {
+
+    private static final int STRIPES = 1024;
+
+    private final ReentrantReadWriteLock[] films = new ReentrantReadWriteLock[STRIPES];
+
+    private final ReentrantLock[] users = new ReentrantLock[STRIPES];
+
+    MutationOrder() {
+        for (int i = 0; i < STRIPES; i++) {
+            films[i] = new ReentrantReadWriteLock();
+            users[i] = new ReentrantLock();
+        }
+    }
+
+    public void like(int filmId, int userId, Runnable change) {
+        run(change, films[stripe(filmId)].readLock(), users[stripe(userId)]);
+    }
+
+    // Пакет лайков: полосы всех фильмов и пользователей пакета
+    public void likes(int[] filmIds, int[] userIds, Runnable change) {
+        int[] filmStripes = stripes(filmIds);
+        int[] userStripes = stripes(userIds);
+        Lock[] locks = new Lock[filmStripes.length + userStripes.length];
+        for (int i = 0; i < filmStripes.length; i++) {
+            locks[i] = films[filmStripes[i]].readLock();
+        }
+        for (int i = 0; i < userStripes.length; i++) {
+            locks[filmStripes.length + i] = users[userStripes[i]];
+        }
+        run(change, locks);
+    }
+
+    public void film(int filmId, Runnable change) {
+        run(change, films[stripe(filmId)].writeLock());
+    }
+
+    public void films(int[] filmIds, Runnable change) {
+        run(change, Arrays.stream(stripes(filmIds)).mapToObj(stripe -> films[stripe].writeLock())
+                .toArray(Lock[]::new));
+    }
+
+    // Пользователь целиком или дружба: полосы всех участников
+    public void users(int[] userIds, Runnable change) {
+        run(change, Arrays.stream(stripes(userIds)).mapToObj(stripe -> users[stripe]).toArray(Lock[]::new));
+    }
+
+    private static void run(Runnable change, Lock... locks) {
+        int locked = 0;
+        try {
+            while (locked < locks.length) {
+                locks[locked].lock();
+                locked++;
+            }
+            change.run();
+        } finally {
+            while (locked > 0) {
+                locks[--locked].unlock();
+            }
+        }
+    }
+
+    private static int stripe(int id) {
+        return id & (STRIPES - 1);
+    }
+
+    // Номера полос без повторов, по возрастанию
+    private static int[] stripes(int[] ids) {
+        return Arrays.stream(ids).map(MutationOrder::stripe).sorted().distinct().toArray();
+    }
+}
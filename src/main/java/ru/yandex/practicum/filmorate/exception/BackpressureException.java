@@ -0,0 +1,8 @@
+package ru.yandex.practicum.filmorate.exception;
+
+// Очередь событий для производных индексов заполнена, изменение отклонено до записи в хранилище
+public class BackpressureException extends RuntimeException {
+    public BackpressureException(String message) {
+        super(message);
+    }
+}
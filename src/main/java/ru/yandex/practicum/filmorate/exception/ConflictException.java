@@ -0,0 +1,8 @@
+package ru.yandex.practicum.filmorate.exception;
+
+// Нарушение уникальности (email или логин уже заняты другим пользователем)
+public class ConflictException extends RuntimeException {
+    public ConflictException(String message) {
+        super(message);
+    }
+}
@@ -1,6 +1,10 @@
 package ru.yandex.practicum.filmorate.exception;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
@@ -14,10 +18,32 @@ import jakarta.validation.ConstraintViolationException;
 @RestControllerAdvice
 public class ErrorHandler {
 
+    private final Counter validationErrors;
+
+    private final Counter notFoundErrors;
+
+    private final Counter conflictErrors;
+
+    private final Counter overloadErrors;
+
+    private final Counter rateLimitErrors;
+
+    private final Counter serverErrors;
+
+    public ErrorHandler(MeterRegistry registry) {
+        validationErrors = registry.counter("filmorate.errors", "type", "validation");
+        notFoundErrors = registry.counter("filmorate.errors", "type", "not_found");
+        conflictErrors = registry.counter("filmorate.errors", "type", "conflict");
+        overloadErrors = registry.counter("filmorate.errors", "type", "overload");
+        rateLimitErrors = registry.counter("filmorate.errors", "type", "rate_limited");
+        serverErrors = registry.counter("filmorate.errors", "type", "server");
+    }
+
     // Ошибки валидации (@Valid, @Email, @NotBlank и т.д.)
     @ExceptionHandler(MethodArgumentNotValidException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public Map<String, String> handleValidationException(MethodArgumentNotValidException e) {
+        validationErrors.increment();
         Map<String, String> errors = new HashMap<>();
         e.getBindingResult().getFieldErrors().forEach(err ->
                 errors.put(err.getField(), err.getDefaultMessage())
@@ -29,6 +55,7 @@ public class ErrorHandler {
     @ExceptionHandler(ConstraintViolationException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public Map<String, String> handleConstraintViolation(ConstraintViolationException e) {
+        validationErrors.increment();
         Map<String, String> errors = new HashMap<>();
         e.getConstraintViolations().forEach(violation ->
                 errors.put(violation.getPropertyPath().toString(), violation.getMessage())
@@ -40,6 +67,7 @@ public class ErrorHandler {
     @ExceptionHandler(ValidationException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public Map<String, String> handleCustomValidation(ValidationException e) {
+        validationErrors.increment();
         Map<String, String> error = new HashMap<>();
         error.put("error", e.getMessage());
         return error;
@@ -49,15 +77,48 @@ public class ErrorHandler {
     @ExceptionHandler(NoSuchElementException.class)
     @ResponseStatus(HttpStatus.NOT_FOUND)
     public Map<String, String> handleNotFound(NoSuchElementException e) {
+        notFoundErrors.increment();
+        Map<String, String> error = new HashMap<>();
+        error.put("error", e.getMessage());
+        return error;
+    }
+
+    // Email или логин уже занят другим пользователем
+    @ExceptionHandler(ConflictException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public Map<String, String> handleConflict(ConflictException e) {
+        conflictErrors.increment();
         Map<String, String> error = new HashMap<>();
         error.put("error", e.getMessage());
         return error;
     }
 
+    // Производные индексы не успевают за изменениями (filmorate.events.backpressure=reject)
+    @ExceptionHandler(BackpressureException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public Map<String, String> handleBackpressure(BackpressureException e) {
+        overloadErrors.increment();
+        Map<String, String> error = new HashMap<>();
+        error.put("error", e.getMessage());
+        return error;
+    }
+
+    // Превышен лимит частоты пользователя или одновременных изменений (см. AdmissionControl)
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<Map<String, String>> handleTooManyRequests(TooManyRequestsException e) {
+        rateLimitErrors.increment();
+        Map<String, String> error = new HashMap<>();
+        error.put("error", e.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(e.getRetryAfterSeconds()))
+                .body(error);
+    }
+
     // Ловим все остальные исключения
     @ExceptionHandler(Exception.class)
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public Map<String, String> handleAll(Exception e) {
+        serverErrors.increment();
         e.printStackTrace();
         Map<String, String> error = new HashMap<>();
         error.put("error", "Ошибка сервера");
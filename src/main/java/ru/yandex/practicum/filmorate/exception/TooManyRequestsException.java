@@ -0,0 +1,14 @@
+package ru.yandex.practicum.filmorate.exception;
+
+import lombok.Getter;
+
+// Запрос отклонён ограничением частоты или числа одновременных изменений; повторить через retryAfterSeconds
+@Getter
+public class TooManyRequestsException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,41 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+// Таймеры вокруг методов сервисов и журнал медленных операций — один замер на запрос, а не на каждое
+// обращение к хранилищу (хранилища см. StorageMetricsAspect).
+// HTTP-запросы замеряет сам Spring (http.server.requests), здесь для них только журнал медленных.
+@Aspect
+@Component
+public class OperationMetricsAspect {
+
+    private final OperationTimers timers;
+
+    public OperationMetricsAspect(MeterRegistry registry,
+                                  @Value("${filmorate.metrics.slow-threshold:200ms}") Duration slowThreshold) {
+        this.timers = new OperationTimers(registry, slowThreshold);
+    }
+
+    @Around("within(ru.yandex.practicum.filmorate.service..*) && execution(public * *(..))")
+    public Object timeService(ProceedingJoinPoint point) throws Throwable {
+        return timers.timed("filmorate.service", point);
+    }
+
+    @Around("within(ru.yandex.practicum.filmorate.controller..*)"
+            + " && @within(org.springframework.web.bind.annotation.RestController)")
+    public Object logSlowRequest(ProceedingJoinPoint point) throws Throwable {
+        long start = System.nanoTime();
+        try {
+            return point.proceed();
+        } finally {
+            timers.logIfSlow("Запрос", point, System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Таймеры по методам и журнал медленных операций, общие для аспектов метрик
+@Slf4j
+final class OperationTimers {
+
+    private final MeterRegistry registry;
+
+    private final long slowThresholdNanos;
+
+    // Таймеры создаются один раз на метод: поиск в реестре по тегам на каждом вызове заметно дороже
+    private final Map<Method, Timer[]> timers = new ConcurrentHashMap<>();
+
+    OperationTimers(MeterRegistry registry, Duration slowThreshold) {
+        this.registry = registry;
+        this.slowThresholdNanos = slowThreshold.toNanos();
+    }
+
+    Object timed(String name, ProceedingJoinPoint point) throws Throwable {
+        Method method = ((MethodSignature) point.getSignature()).getMethod();
+        Timer[] outcomes = timers.computeIfAbsent(method, m -> register(name, point));
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            Object result = point.proceed();
+            failed = false;
+            return result;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            outcomes[failed ? 1 : 0].record(elapsed, TimeUnit.NANOSECONDS);
+            logIfSlow("Операция", point, elapsed);
+        }
+    }
+
+    void logIfSlow(String kind, ProceedingJoinPoint point, long elapsedNanos) {
+        if (elapsedNanos >= slowThresholdNanos) {
+            log.warn("{} {}.{} выполнялась {} мс", kind, point.getTarget().getClass().getSimpleName(),
+                    point.getSignature().getName(), TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        }
+    }
+
+    // [0] — успешные вызовы, [1] — завершившиеся исключением
+    private Timer[] register(String name, ProceedingJoinPoint point) {
+        String className = point.getTarget().getClass().getSimpleName();
+        String methodName = point.getSignature().getName();
+        Timer[] outcomes = new Timer[2];
+        for (int i = 0; i < outcomes.length; i++) {
+            outcomes[i] = Timer.builder(name)
+                    .tag("class", className)
+                    .tag("method", methodName)
+                    .tag("outcome", i == 0 ? "success" : "error")
+                    .register(registry);
+        }
+        return outcomes;
+    }
+}
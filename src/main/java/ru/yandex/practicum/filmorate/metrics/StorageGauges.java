@@ -0,0 +1,46 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.film.ColumnarFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+// Размеры хранилищ; значения читаются при каждом опросе метрик
+@Component
+@RequiredArgsConstructor
+public class StorageGauges implements MeterBinder {
+
+    private final FilmStorage filmStorage;
+
+    private final UserStorage userStorage;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("filmorate.films", filmStorage, FilmStorage::count)
+                .description("Количество фильмов")
+                .register(registry);
+        Gauge.builder("filmorate.users", userStorage, UserStorage::count)
+                .description("Количество пользователей")
+                .register(registry);
+        Gauge.builder("filmorate.likes", filmStorage, FilmStorage::countLikes)
+                .description("Общее количество лайков")
+                .register(registry);
+        Gauge.builder("filmorate.friendships", userStorage, UserStorage::countFriendships)
+                .description("Количество связей дружбы (по направлениям)")
+                .register(registry);
+        if (filmStorage instanceof ColumnarFilmStorage columnar) {
+            Gauge.builder("filmorate.films.offheap", columnar, ColumnarFilmStorage::offHeapBytes)
+                    .description("Память вне кучи под строками фильмов")
+                    .baseUnit("bytes")
+                    .register(registry);
+            Gauge.builder("filmorate.films.offheap.wasted", columnar, ColumnarFilmStorage::offHeapWastedBytes)
+                    .description("Память вне кучи под версиями строк, которые ждут пересборки")
+                    .baseUnit("bytes")
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package ru.yandex.practicum.filmorate.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+// Результат обработки одного элемента пакетного запроса; index — позиция элемента во входных данных
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BatchItemResult(int index, Integer id, Status status, String error) {
+
+    public enum Status {
+        CREATED,
+        ADDED,
+        UNCHANGED,
+        INVALID,
+        CONFLICT,
+        NOT_FOUND
+    }
+
+    public static BatchItemResult success(int index, Integer id, Status status) {
+        return new BatchItemResult(index, id, status, null);
+    }
+
+    public static BatchItemResult failure(int index, Status status, String error) {
+        return new BatchItemResult(index, null, status, error);
+    }
+}
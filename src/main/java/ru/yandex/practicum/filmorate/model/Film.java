@@ -2,11 +2,12 @@ package ru.yandex.practicum.filmorate.model;
 
 import jakarta.validation.constraints.*;
 import lombok.*;
+import ru.yandex.practicum.filmorate.util.IntSet;
 import ru.yandex.practicum.filmorate.validation.ReleaseDateConstraint;
 
 import java.time.LocalDate;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.List;
 
 @Data
 @NoArgsConstructor
@@ -29,5 +30,20 @@ public class Film {
     private int duration;
 
     @Builder.Default
-    private Set<Integer> likes = new HashSet<>();
+    private IntSet likes = new IntSet();
+
+    private Mpa mpa;
+
+    // Без повторов, по возрастанию id (см. ReferenceService.resolve)
+    @Builder.Default
+    private List<Genre> genres = new ArrayList<>();
+
+    // "likes": null в запросе трактуем как пустое множество
+    public void setLikes(IntSet likes) {
+        this.likes = likes != null ? likes : new IntSet();
+    }
+
+    public void setGenres(List<Genre> genres) {
+        this.genres = genres != null ? genres : new ArrayList<>();
+    }
 }
@@ -0,0 +1,5 @@
+package ru.yandex.practicum.filmorate.model;
+
+// Жанр из справочника; в запросах на фильм достаточно id, название подставляется из справочника
+public record Genre(int id, String name) {
+}
@@ -0,0 +1,5 @@
+package ru.yandex.practicum.filmorate.model;
+
+// Возрастной рейтинг MPA из справочника; в запросах на фильм достаточно id
+public record Mpa(int id, String name) {
+}
@@ -2,10 +2,9 @@ package ru.yandex.practicum.filmorate.model;
 
 import jakarta.validation.constraints.*;
 import lombok.*;
+import ru.yandex.practicum.filmorate.util.IntSet;
 
 import java.time.LocalDate;
-import java.util.HashSet;
-import java.util.Set;
 
 @Data
 @NoArgsConstructor
@@ -29,7 +28,12 @@ public class User {
     private LocalDate birthday;
 
     @Builder.Default
-    private Set<Integer> friends = new HashSet<>();
+    private IntSet friends = new IntSet();
+
+    // "friends": null в запросе трактуем как пустое множество
+    public void setFriends(IntSet friends) {
+        this.friends = friends != null ? friends : new IntSet();
+    }
 
     public void fillNameIfEmpty() {
         if (name == null || name.isBlank()) {
@@ -0,0 +1,290 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.event.MutationEvent;
+import ru.yandex.practicum.filmorate.event.MutationEvents;
+import ru.yandex.practicum.filmorate.exception.ConflictException;
+import ru.yandex.practicum.filmorate.model.BatchItemResult;
+import ru.yandex.practicum.filmorate.model.BatchItemResult.Status;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.VersionTracker;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+import ru.yandex.practicum.filmorate.util.IntSet;
+
+import java.util.*;
+import java.util.function.IntPredicate;
+import java.util.function.ToIntFunction;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+// Пакетная загрузка: элементы проверяются все сразу, корректные записываются одним вызовом хранилища,
+// а ошибка в одном элементе не отменяет остальные
+@Service
+@RequiredArgsConstructor
+public class BulkImportService {
+
+    private final FilmStorage filmStorage;
+    private final UserStorage userStorage;
+    private final ReferenceService referenceService;
+    private final Validator validator;
+    private final MutationEvents events;
+    private final VersionTracker versionTracker;
+
+    public List<BatchItemResult> addFilms(List<Film> films) {
+        events.admit();
+        BatchItemResult[] results = new BatchItemResult[films.size()];
+        List<Film> valid = new ArrayList<>();
+        List<Integer> validIndexes = new ArrayList<>();
+        for (int i = 0; i < films.size(); i++) {
+            String error = validate(films.get(i));
+            if (error != null) {
+                results[i] = BatchItemResult.failure(i, Status.INVALID, error);
+            } else if ((error = resolveReferences(films.get(i))) != null) {
+                results[i] = BatchItemResult.failure(i, Status.NOT_FOUND, error);
+            } else {
+                valid.add(films.get(i));
+                validIndexes.add(i);
+            }
+        }
+        List<Film> saved = filmStorage.addAll(valid);
+        events.order().films(saved.stream().mapToInt(Film::getId).toArray(), () -> {
+            for (Film film : saved) {
+                events.publish(new MutationEvent.FilmAdded(film, IntSet.of(film.getLikes().toArray())));
+            }
+        });
+        if (!saved.isEmpty()) {
+            versionTracker.filmsChanged();
+        }
+        for (int i = 0; i < saved.size(); i++) {
+            results[validIndexes.get(i)] = BatchItemResult.success(validIndexes.get(i), saved.get(i).getId(),
+                    Status.CREATED);
+        }
+        return Arrays.asList(results);
+    }
+
+    public List<BatchItemResult> addUsers(List<User> users) {
+        events.admit();
+        BatchItemResult[] results = new BatchItemResult[users.size()];
+        List<Integer> checked = new ArrayList<>();
+        for (int i = 0; i < users.size(); i++) {
+            User user = users.get(i);
+            if (user != null) {
+                user.fillNameIfEmpty();
+            }
+            String error = validate(user);
+            if (error != null) {
+                results[i] = BatchItemResult.failure(i, Status.INVALID, error);
+            } else {
+                checked.add(i);
+            }
+        }
+        // занятые email и логины всего пакета — одним вызовом хранилища
+        UserStorage.Keys taken = userStorage.existingKeys(
+                checked.stream().map(i -> users.get(i).getEmail()).toList(),
+                checked.stream().map(i -> users.get(i).getLogin()).toList());
+        List<User> valid = new ArrayList<>();
+        List<Integer> validIndexes = new ArrayList<>();
+        Set<String> emails = new HashSet<>();
+        Set<String> logins = new HashSet<>();
+        for (int i : checked) {
+            User user = users.get(i);
+            String error = findConflict(user, emails, logins, taken);
+            if (error != null) {
+                results[i] = BatchItemResult.failure(i, Status.CONFLICT, error);
+            } else {
+                valid.add(user);
+                validIndexes.add(i);
+            }
+        }
+        boolean anySaved = false;
+        try {
+            userStorage.addAll(valid);
+            publishAdded(valid);
+            for (int i = 0; i < valid.size(); i++) {
+                created(results, validIndexes.get(i), valid.get(i));
+            }
+            anySaved = !valid.isEmpty();
+        } catch (ConflictException e) {
+            // email или логин занял параллельный запрос уже после проверки: пакет не сохранён,
+            // поэтому пользователи добавляются по одному и конфликт получает только свой элемент
+            for (int i = 0; i < valid.size(); i++) {
+                int index = validIndexes.get(i);
+                try {
+                    userStorage.add(valid.get(i));
+                    publishAdded(List.of(valid.get(i)));
+                    created(results, index, valid.get(i));
+                    anySaved = true;
+                } catch (ConflictException conflict) {
+                    results[index] = BatchItemResult.failure(index, Status.CONFLICT, conflict.getMessage());
+                }
+            }
+        }
+        if (anySaved) {
+            versionTracker.usersChanged();
+        }
+        return Arrays.asList(results);
+    }
+
+    // Под блокировками пользователей и со снимками друзей, как UserService.createUser
+    private void publishAdded(List<User> users) {
+        events.order().users(users.stream().mapToInt(User::getId).toArray(), () -> {
+            for (User user : users) {
+                events.publish(new MutationEvent.UserAdded(user, IntSet.of(user.getFriends().toArray())));
+            }
+        });
+    }
+
+    private static void created(BatchItemResult[] results, int index, User user) {
+        results[index] = BatchItemResult.success(index, user.getId(), Status.CREATED);
+    }
+
+    public List<BatchItemResult> addLikes(List<FilmLike> likes) {
+        events.admit();
+        BatchItemResult[] results = new BatchItemResult[likes.size()];
+        IntPredicate filmExists = existing(likes, FilmLike::filmId, filmStorage::existingIds);
+        IntPredicate userExists = existing(likes, FilmLike::userId, userStorage::existingIds);
+        List<FilmLike> valid = new ArrayList<>();
+        List<Integer> validIndexes = new ArrayList<>();
+        for (int i = 0; i < likes.size(); i++) {
+            FilmLike like = likes.get(i);
+            if (like == null) {
+                results[i] = BatchItemResult.failure(i, Status.INVALID, "Пустой элемент");
+            } else if (!filmExists.test(like.filmId())) {
+                results[i] = BatchItemResult.failure(i, Status.NOT_FOUND,
+                        "Фильм с id " + like.filmId() + " не найден.");
+            } else if (!userExists.test(like.userId())) {
+                results[i] = BatchItemResult.failure(i, Status.NOT_FOUND,
+                        "Пользователь с id " + like.userId() + " не найден.");
+            } else {
+                valid.add(like);
+                validIndexes.add(i);
+            }
+        }
+        // запись и события пакета под блокировками MutationOrder, как у одиночных лайков
+        boolean[] added = new boolean[valid.size()];
+        events.order().likes(valid.stream().mapToInt(FilmLike::filmId).toArray(),
+                valid.stream().mapToInt(FilmLike::userId).toArray(), () -> {
+                    System.arraycopy(filmStorage.addLikes(valid), 0, added, 0, added.length);
+                    for (int i = 0; i < added.length; i++) {
+                        if (added[i]) {
+                            events.publish(new MutationEvent.LikeAdded(valid.get(i).filmId(),
+                                    valid.get(i).userId()));
+                        }
+                    }
+                });
+        boolean anyAdded = false;
+        for (int i = 0; i < added.length; i++) {
+            anyAdded |= added[i];
+            results[validIndexes.get(i)] = BatchItemResult.success(validIndexes.get(i), null,
+                    added[i] ? Status.ADDED : Status.UNCHANGED);
+        }
+        if (anyAdded) {
+            versionTracker.filmsChanged();
+        }
+        return Arrays.asList(results);
+    }
+
+    // Дружба взаимная, как и в UserService.addFriend: каждая пара записывается в обе стороны
+    public List<BatchItemResult> addFriends(List<Friendship> friendships) {
+        events.admit();
+        BatchItemResult[] results = new BatchItemResult[friendships.size()];
+        IntPredicate userExists = existing(friendships, Friendship::userId, userStorage::existingIds);
+        IntPredicate friendExists = existing(friendships, Friendship::friendId, userStorage::existingIds);
+        List<Friendship> valid = new ArrayList<>();
+        List<Integer> validIndexes = new ArrayList<>();
+        for (int i = 0; i < friendships.size(); i++) {
+            Friendship friendship = friendships.get(i);
+            if (friendship == null) {
+                results[i] = BatchItemResult.failure(i, Status.INVALID, "Пустой элемент");
+            } else if (!userExists.test(friendship.userId())) {
+                results[i] = BatchItemResult.failure(i, Status.NOT_FOUND,
+                        "Пользователь с id " + friendship.userId() + " не найден.");
+            } else if (!friendExists.test(friendship.friendId())) {
+                results[i] = BatchItemResult.failure(i, Status.NOT_FOUND,
+                        "Пользователь с id " + friendship.friendId() + " не найден.");
+            } else {
+                valid.add(friendship);
+                valid.add(new Friendship(friendship.friendId(), friendship.userId()));
+                validIndexes.add(i);
+            }
+        }
+        boolean[] added = new boolean[valid.size()];
+        events.order().users(valid.stream().mapToInt(Friendship::userId).toArray(), () -> {
+            System.arraycopy(userStorage.addFriends(valid), 0, added, 0, added.length);
+            for (int i = 0; i < validIndexes.size(); i++) {
+                if (added[2 * i] || added[2 * i + 1]) {
+                    Friendship friendship = valid.get(2 * i);
+                    events.publish(new MutationEvent.FriendAdded(friendship.userId(), friendship.friendId()));
+                }
+            }
+        });
+        boolean anyChanged = false;
+        for (int i = 0; i < validIndexes.size(); i++) {
+            boolean changed = added[2 * i] || added[2 * i + 1];
+            anyChanged |= changed;
+            results[validIndexes.get(i)] = BatchItemResult.success(validIndexes.get(i), null,
+                    changed ? Status.ADDED : Status.UNCHANGED);
+        }
+        // пакет затрагивает списки друзей многих пользователей сразу, точечный подъём версий тут дороже
+        if (anyChanged) {
+            versionTracker.usersChanged();
+            versionTracker.allFriendsChanged();
+        }
+        return Arrays.asList(results);
+    }
+
+    // Сообщение об отсутствующем жанре или рейтинге, null — если все ссылки найдены в справочниках
+    private String resolveReferences(Film film) {
+        try {
+            referenceService.resolve(film);
+            return null;
+        } catch (NoSuchElementException e) {
+            return e.getMessage();
+        }
+    }
+
+    private String validate(Object item) {
+        if (item == null) {
+            return "Пустой элемент";
+        }
+        Set<? extends ConstraintViolation<?>> violations = validator.validate(item);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    // Email и логин не должны совпадать ни с сохранёнными пользователями, ни с предыдущими элементами пакета
+    private static String findConflict(User user, Set<String> emails, Set<String> logins, UserStorage.Keys taken) {
+        if (!emails.add(user.getEmail()) || taken.emails().contains(user.getEmail())) {
+            return "Пользователь с email " + user.getEmail() + " уже существует.";
+        }
+        if (!logins.add(user.getLogin()) || taken.logins().contains(user.getLogin())) {
+            emails.remove(user.getEmail());
+            return "Пользователь с логином " + user.getLogin() + " уже существует.";
+        }
+        return null;
+    }
+
+    // Существование всех уникальных id пакета проверяется одним запросом только по ключам
+    private static <T> IntPredicate existing(List<T> items, ToIntFunction<T> idOf,
+                                             UnaryOperator<int[]> existingIds) {
+        IntSet requested = new IntSet();
+        for (T item : items) {
+            if (item != null) {
+                requested.add(idOf.applyAsInt(item));
+            }
+        }
+        return IntSet.of(existingIds.apply(requested.toArray()))::contains;
+    }
+}
@@ -0,0 +1,249 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.event.MutationEvent;
+import ru.yandex.practicum.filmorate.event.MutationListener;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.util.IntIntMap;
+import ru.yandex.practicum.filmorate.util.IntSet;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Рекомендации фильмов по совместным лайкам (item-item). Для каждого фильма хранится не больше
+// MAX_NEIGHBOURS соседей со счётчиком совместных лайков; модель обновляется на каждом лайке,
+// а запрос стоит O(лайки пользователя × MAX_NEIGHBOURS) и не зависит от размера каталога
+@Service
+@RequiredArgsConstructor
+public class FilmRecommendationService implements MutationListener {
+
+    static final int MAX_NEIGHBOURS = 64;
+
+    private final FilmStorage filmStorage;
+
+    // Обратный индекс: пользователь -> фильмы, которые он лайкнул. В хранилище лайки лежат у фильмов,
+    // и фильмы пользователя оттуда можно достать только обходом каталога, а на каждый лайк нужны именно
+    // они. Кроме того, это лайки в том виде, в каком их видела модель: хранилище может уже опережать
+    // очередь событий, и пары, посчитанные по нему, разошлись бы со снятием тех же лайков позже
+    private final Map<Integer, IntSet> userLikes = new ConcurrentHashMap<>();
+
+    private final Map<Integer, Neighbours> neighbours = new ConcurrentHashMap<>();
+
+    // Изменения модели идут по одному, счётчик пары меняется у обоих фильмов сразу. В асинхронном
+    // режиме событий писатель и так один. Чтения берут только блокировку нужного фильма
+    private final ReentrantLock writes = new ReentrantLock();
+
+    // Лайки, которые уже есть в хранилище (например, в БД), попадают в модель при старте
+    @PostConstruct
+    public void loadExistingLikes() {
+        for (Film film : filmStorage.getAll()) {
+            film.getLikes().forEach(userId -> onLikeAdded(film.getId(), userId));
+        }
+    }
+
+    @Override
+    public void onEvent(MutationEvent event) {
+        switch (event) {
+            case MutationEvent.FilmAdded added ->
+                    added.likes().forEach(userId -> onLikeAdded(added.film().getId(), userId));
+            case MutationEvent.FilmUpdated updated ->
+                    onLikesReplaced(updated.film().getId(), updated.oldLikes(), updated.newLikes());
+            case MutationEvent.LikeAdded like -> onLikeAdded(like.filmId(), like.userId());
+            case MutationEvent.LikeRemoved like -> onLikeRemoved(like.filmId(), like.userId());
+            default -> {
+            }
+        }
+    }
+
+    public void onLikeAdded(int filmId, int userId) {
+        writes.lock();
+        try {
+            IntSet films = userLikes.computeIfAbsent(userId, id -> new IntSet());
+            if (films.contains(filmId)) {
+                return;
+            }
+            neighboursOf(filmId).changeLikes(1);
+            for (int other : films.toArray()) {
+                addPair(filmId, other);
+            }
+            films.add(filmId);
+        } finally {
+            writes.unlock();
+        }
+    }
+
+    public void onLikeRemoved(int filmId, int userId) {
+        writes.lock();
+        try {
+            IntSet films = userLikes.get(userId);
+            if (films == null || !films.remove(filmId)) {
+                return;
+            }
+            neighboursOf(filmId).changeLikes(-1);
+            for (int other : films.toArray()) {
+                removePair(filmId, other);
+            }
+        } finally {
+            writes.unlock();
+        }
+    }
+
+    // Лайки фильма заменены целиком (PUT /films): переводим разницу в отдельные события
+    public void onLikesReplaced(int filmId, IntSet oldLikes, IntSet newLikes) {
+        for (int userId : oldLikes.toArray()) {
+            if (!newLikes.contains(userId)) {
+                onLikeRemoved(filmId, userId);
+            }
+        }
+        for (int userId : newLikes.toArray()) {
+            if (!oldLikes.contains(userId)) {
+                onLikeAdded(filmId, userId);
+            }
+        }
+    }
+
+    public List<Film> getRecommendations(int userId, int count) {
+        IntSet liked = userLikes.get(userId);
+        if (liked == null || liked.isEmpty() || count <= 0) {
+            return List.of();
+        }
+        // Кандидат -> индекс в массиве scores; сумма сходств по Жаккару со всеми лайкнутыми фильмами
+        IntIntMap slots = new IntIntMap();
+        double[] scores = new double[64];
+        int[] candidates = new int[64];
+        int size = 0;
+        for (int filmId : liked.toArray()) {
+            Neighbours film = neighbours.get(filmId);
+            if (film == null) {
+                continue;
+            }
+            for (long pair : film.snapshot()) {
+                int other = (int) (pair >>> 32);
+                int together = (int) pair;
+                if (liked.contains(other) || together <= 0) {
+                    continue;
+                }
+                Neighbours otherFilm = neighbours.get(other);
+                int union = film.likes() + (otherFilm != null ? otherFilm.likes() : 0) - together;
+                double similarity = union > 0 ? (double) together / union : 0;
+                int slot = slots.get(other, -1);
+                if (slot < 0) {
+                    if (size == scores.length) {
+                        scores = Arrays.copyOf(scores, size * 2);
+                        candidates = Arrays.copyOf(candidates, size * 2);
+                    }
+                    slot = size++;
+                    slots.put(other, slot);
+                    candidates[slot] = other;
+                }
+                scores[slot] += similarity;
+            }
+        }
+        // Сортируем упакованные ключи (оценка по убыванию, id по возрастанию); биты неотрицательного
+        // float монотонны, поэтому порядок ключей совпадает с порядком оценок
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++) {
+            int scoreBits = Float.floatToIntBits((float) scores[i]);
+            keys[i] = ((long) (Integer.MAX_VALUE - scoreBits) << 32) | (candidates[i] & 0xFFFFFFFFL);
+        }
+        Arrays.sort(keys);
+        int[] ids = new int[Math.min(count, size)];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = (int) keys[i];
+        }
+        return filmStorage.getByIds(ids);
+    }
+
+    private Neighbours neighboursOf(int filmId) {
+        return neighbours.computeIfAbsent(filmId, id -> new Neighbours());
+    }
+
+    private void addPair(int filmId, int otherId) {
+        neighboursOf(filmId).increment(otherId);
+        neighboursOf(otherId).increment(filmId);
+    }
+
+    private void removePair(int filmId, int otherId) {
+        neighboursOf(filmId).decrement(otherId);
+        neighboursOf(otherId).decrement(filmId);
+    }
+
+    // Ограниченный список соседей фильма — сводка Space-Saving по потоку его совместных лайков.
+    // Новая пара всегда попадает в список, при переполнении вытесняя пару с наименьшим счётчиком,
+    // и наследует этот счётчик как ошибку: счётчик — верхняя оценка совместных лайков, счётчик минус
+    // ошибка — нижняя. Частая пара поэтому не застревает за редкими, а вытесненная и вернувшаяся не
+    // начинает с нуля. Сводки двух фильмов независимы: у каждого свой поток, и вытеснение у одного не
+    // снимает пару у другого — иначе активные фильмы опустошали бы списки тех, у кого новых пар нет.
+    // Меняется только под writes, собственная блокировка защищает чтения
+    private static final class Neighbours {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final IntIntMap together = new IntIntMap();
+        private final IntIntMap errors = new IntIntMap();
+        private volatile int likes;
+
+        int likes() {
+            return likes;
+        }
+
+        void changeLikes(int delta) {
+            likes += delta;
+        }
+
+        void increment(int other) {
+            lock.lock();
+            try {
+                if (together.containsKey(other)) {
+                    together.addTo(other, 1);
+                    return;
+                }
+                int error = 0;
+                if (together.size() >= MAX_NEIGHBOURS) {
+                    int weakest = together.minValueKey();
+                    error = together.get(weakest, 0);
+                    together.remove(weakest);
+                    errors.remove(weakest);
+                }
+                together.put(other, error + 1);
+                if (error > 0) {
+                    errors.put(other, error);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // Без гарантированных совместных лайков пара ничего не говорит о сходстве и уходит из списка
+        void decrement(int other) {
+            lock.lock();
+            try {
+                if (together.containsKey(other) && together.addTo(other, -1) <= errors.get(other, 0)) {
+                    together.remove(other);
+                    errors.remove(other);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // Пары (сосед, гарантированные совместные лайки), упакованные в long
+        long[] snapshot() {
+            lock.lock();
+            try {
+                long[] pairs = new long[together.size()];
+                int[] index = new int[1];
+                together.forEach((other, count) -> {
+                    int guaranteed = count - errors.get(other, 0);
+                    pairs[index[0]++] = ((long) other << 32) | (guaranteed & 0xFFFFFFFFL);
+                });
+                return pairs;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,398 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.event.MutationEvent;
+import ru.yandex.practicum.filmorate.event.MutationListener;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.util.IntCounters;
+import ru.yandex.practicum.filmorate.util.PostingList;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+// Полнотекстовый поиск по названию и описанию фильмов. Обратный индекс: термин -> отсортированные
+// списки id фильмов, где он встречается (везде и отдельно в названии); упорядоченная копия словаря
+// служит для автодополнения по префиксу. Изменения фильма идут через compute по его id, поэтому
+// старые термины снимаются ровно с той версии, что была проиндексирована. Списки термина меняются
+// под compute по его слову: термин, у которого не осталось фильмов, уходит из обоих словарей,
+// и параллельное добавление не попадёт в уже удалённую запись.
+@Service
+@RequiredArgsConstructor
+public class FilmSearchService implements MutationListener {
+
+    // Совпадение в названии весит больше, чем в описании
+    private static final double NAME_WEIGHT = 3;
+
+    private static final double DESCRIPTION_WEIGHT = 1;
+
+    // Оценка умножается на 1 + ln(1 + лайки) * LIKES_BOOST
+    private static final double LIKES_BOOST = 0.1;
+
+    private static final int INDEX_PAGE = 10_000;
+
+    private final FilmStorage filmStorage;
+
+    // Точный поиск термина идёт по хеш-таблице, упорядоченный словарь нужен только для префиксов
+    private final Map<String, Term> terms = new ConcurrentHashMap<>();
+
+    private final ConcurrentNavigableMap<String, Term> dictionary = new ConcurrentSkipListMap<>();
+
+    private final Map<Integer, Document> documents = new ConcurrentHashMap<>();
+
+    // Лайки по id фильма для поправки к оценке
+    private final IntCounters likes = new IntCounters();
+
+    // Верхняя граница лайков у одного фильма для отсечения кандидатов; не уменьшается
+    private final AtomicInteger maxLikes = new AtomicInteger();
+
+    // Термины фильма — ссылки на записи словаря, чтобы строки не дублировались на каждый фильм
+    private record Document(Term[] name, Term[] all) {
+    }
+
+    private record Term(String word, PostingList all, PostingList name) {
+
+        Term(String word) {
+            this(word, new PostingList(), new PostingList());
+        }
+
+        boolean isEmpty() {
+            return all.size() == 0 && name.size() == 0;
+        }
+    }
+
+    private record Suggestion(String word, int names, int all) {
+    }
+
+    // Лучше — раньше: больше фильмов со словом в названии, затем всего, затем по алфавиту
+    private static final Comparator<Suggestion> SUGGESTION_ORDER = Comparator.comparingInt(Suggestion::names)
+            .thenComparingInt(Suggestion::all)
+            .reversed()
+            .thenComparing(Suggestion::word);
+
+    // Фильмы из хранилища индексируются страницами по возрастанию id: так списки только дописываются
+    @PostConstruct
+    public void indexExistingFilms() {
+        int afterId = 0;
+        List<Film> page;
+        while (!(page = filmStorage.getPage(afterId, INDEX_PAGE)).isEmpty()) {
+            page.forEach(this::onFilmSaved);
+            afterId = page.get(page.size() - 1).getId();
+        }
+    }
+
+    @Override
+    public void onEvent(MutationEvent event) {
+        switch (event) {
+            case MutationEvent.FilmAdded added -> onFilmSaved(added.film(), added.likes().size());
+            case MutationEvent.FilmUpdated updated -> onFilmSaved(updated.film(), updated.newLikes().size());
+            case MutationEvent.LikeAdded like -> onLikeAdded(like.filmId());
+            case MutationEvent.LikeRemoved like -> onLikeRemoved(like.filmId());
+            default -> {
+            }
+        }
+    }
+
+    public void onFilmSaved(Film film) {
+        onFilmSaved(film, film.getLikes().size());
+    }
+
+    // Новый фильм или новая версия существующего: в индексе меняются только разошедшиеся термины.
+    // Число лайков передаётся отдельно: из события приходит снимок на момент записи
+    private void onFilmSaved(Film film, int likeCount) {
+        List<String> nameWords = tokenize(film.getName());
+        Set<String> allWords = new LinkedHashSet<>(nameWords);
+        allWords.addAll(tokenize(film.getDescription()));
+        documents.compute(film.getId(), (id, old) -> {
+            // сначала все слова: слово названия к этому моменту уже есть в словаре
+            Term[] all = update(id, old != null ? old.all() : new Term[0], allWords, Term::all);
+            Term[] name = update(id, old != null ? old.name() : new Term[0], nameWords, Term::name);
+            likes.set(id, likeCount);
+            return new Document(name, all);
+        });
+        maxLikes.accumulateAndGet(likeCount, Math::max);
+    }
+
+    public void onLikeAdded(int filmId) {
+        maxLikes.accumulateAndGet(likes.add(filmId, 1), Math::max);
+    }
+
+    public void onLikeRemoved(int filmId) {
+        likes.add(filmId, -1);
+    }
+
+    // Фильмы, содержащие все слова запроса, по убыванию TF-IDF-подобной оценки с поправкой на лайки.
+    // Сначала смотрим фильмы, где все слова есть в названии: у них наибольшая оценка по тексту.
+    // Остальных перебираем, только если кто-то из них ещё может попасть в ответ по верхней границе.
+    public List<Film> search(String query, int limit) {
+        checkLimit(limit);
+        List<Term> queryTerms = new ArrayList<>();
+        for (String word : tokenize(query)) {
+            Term term = terms.get(word);
+            if (term == null || term.all().size() == 0) {
+                return List.of();
+            }
+            queryTerms.add(term);
+        }
+        if (queryTerms.isEmpty()) {
+            return List.of();
+        }
+        int count = queryTerms.size();
+        PostingList.View[] all = new PostingList.View[count];
+        PostingList.View[] names = new PostingList.View[count];
+        for (int i = 0; i < count; i++) {
+            all[i] = queryTerms.get(i).all().view();
+            names[i] = queryTerms.get(i).name().view();
+        }
+        int total = Math.max(documents.size(), 1);
+        double[] idf = new double[count];
+        double nameScore = 0;
+        double minIdf = Double.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            idf[i] = Math.log(1 + (double) total / Math.max(all[i].size(), 1));
+            nameScore += NAME_WEIGHT * idf[i];
+            minIdf = Math.min(minIdf, idf[i]);
+        }
+        double maxBoost = boost(maxLikes.get());
+        TopScores top = new TopScores(limit);
+
+        PostingList.View[] byName = sortedBySize(names);
+        int[] cursors = new int[count];
+        PostingList.View nameLead = byName[0];
+        nameCandidates:
+        for (int p = 0; p < nameLead.end(); p = nameLead.next(p)) {
+            // при равной оценке выше меньший id, а id идут по возрастанию
+            if (top.isFull() && top.minScore() >= nameScore * maxBoost) {
+                break;
+            }
+            int filmId = nameLead.get(p);
+            for (int k = 1; k < count; k++) {
+                cursors[k] = byName[k].seek(cursors[k], filmId);
+                if (cursors[k] >= byName[k].end()) {
+                    break nameCandidates;
+                }
+                if (byName[k].get(cursors[k]) != filmId) {
+                    continue nameCandidates;
+                }
+            }
+            offer(top, filmId, nameScore);
+        }
+
+        // хотя бы одно слово только в описании: теряется не меньше разницы весов самого частого слова
+        double restBound = (nameScore - (NAME_WEIGHT - DESCRIPTION_WEIGHT) * minIdf) * maxBoost;
+        if (!top.isFull() || top.minScore() < restBound) {
+            scanRest(top, all, names, idf, maxBoost);
+        }
+        return filmStorage.getByIds(top.ids());
+    }
+
+    // Кандидаты — список самого редкого слова, остальные списки догоняются галопом по возрастанию id;
+    // фильмы, где все слова в названии, уже учтены
+    private void scanRest(TopScores top, PostingList.View[] all, PostingList.View[] names, double[] idf,
+                          double maxBoost) {
+        int count = all.length;
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingInt(i -> all[i].size()));
+        int[] cursors = new int[count];
+        int[] nameCursors = new int[count];
+        PostingList.View lead = all[order[0]];
+        candidates:
+        for (int p = 0; p < lead.end(); p = lead.next(p)) {
+            int filmId = lead.get(p);
+            double score = 0;
+            boolean allInName = true;
+            for (int k = 0; k < count; k++) {
+                int i = order[k];
+                if (k > 0) {
+                    cursors[i] = all[i].seek(cursors[i], filmId);
+                    if (cursors[i] >= all[i].end()) {
+                        break candidates;
+                    }
+                    if (all[i].get(cursors[i]) != filmId) {
+                        continue candidates;
+                    }
+                }
+                nameCursors[i] = names[i].seek(nameCursors[i], filmId);
+                boolean inName = nameCursors[i] < names[i].end() && names[i].get(nameCursors[i]) == filmId;
+                score += (inName ? NAME_WEIGHT : DESCRIPTION_WEIGHT) * idf[i];
+                allInName &= inName;
+            }
+            if (!allInName && (!top.isFull() || score * maxBoost >= top.minScore())) {
+                offer(top, filmId, score);
+            }
+        }
+    }
+
+    private void offer(TopScores top, int filmId, double textScore) {
+        top.offer(filmId, textScore * boost(likes.get(filmId)));
+    }
+
+    private static PostingList.View[] sortedBySize(PostingList.View[] views) {
+        PostingList.View[] sorted = views.clone();
+        Arrays.sort(sorted, Comparator.comparingInt(PostingList.View::size));
+        return sorted;
+    }
+
+    // Слова из названий и описаний, начинающиеся с префикса, по числу фильмов с этим словом в названии.
+    // Короткий префикс совпадает с большой частью словаря, поэтому держим только limit лучших
+    public List<String> suggest(String prefix, int limit) {
+        checkLimit(limit);
+        List<String> words = tokenize(prefix);
+        if (words.isEmpty()) {
+            return List.of();
+        }
+        String start = words.get(words.size() - 1);
+        // в голове кучи худшее из отобранных; размеры читаются один раз, чтобы порядок в куче не менялся
+        PriorityQueue<Suggestion> best = new PriorityQueue<>(Math.min(limit, 1024) + 1, SUGGESTION_ORDER.reversed());
+        for (Term term : dictionary.subMap(start, start + Character.MAX_VALUE).values()) {
+            Suggestion suggestion = new Suggestion(term.word(), term.name().size(), term.all().size());
+            if (suggestion.all() == 0) {
+                continue;
+            }
+            if (best.size() < limit) {
+                best.add(suggestion);
+            } else if (SUGGESTION_ORDER.compare(suggestion, best.peek()) < 0) {
+                best.poll();
+                best.add(suggestion);
+            }
+        }
+        return best.stream().sorted(SUGGESTION_ORDER).map(Suggestion::word).toList();
+    }
+
+    int termCount() {
+        return terms.size();
+    }
+
+    // Слова из букв и цифр в нижнем регистре, ё приравнивается к е; повторы внутри текста убираются
+    static List<String> tokenize(String text) {
+        if (text == null || text.isEmpty()) {
+            return List.of();
+        }
+        Set<String> words = new LinkedHashSet<>();
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = text.codePointAt(i);
+            i += Character.charCount(codePoint);
+            if (Character.isLetterOrDigit(codePoint)) {
+                int lower = Character.toLowerCase(codePoint);
+                word.appendCodePoint(lower == 'ё' ? 'е' : lower);
+            } else if (!word.isEmpty()) {
+                words.add(word.toString());
+                word.setLength(0);
+            }
+        }
+        if (!word.isEmpty()) {
+            words.add(word.toString());
+        }
+        return new ArrayList<>(words);
+    }
+
+    // Термины новой версии фильма: прежние переиспользуются, новые получают фильм в списки, а термины,
+    // из которых слово ушло, теряют его и удаляются из словаря, если опустели
+    private Term[] update(int filmId, Term[] oldTerms, Collection<String> words,
+                          Function<Term, PostingList> postings) {
+        Term[] result = new Term[words.size()];
+        int i = 0;
+        for (String word : words) {
+            Term term = find(oldTerms, word);
+            result[i++] = term != null ? term : terms.compute(word, (key, existing) -> {
+                Term target = existing != null ? existing : new Term(key);
+                if (existing == null) {
+                    dictionary.put(key, target);
+                }
+                postings.apply(target).add(filmId);
+                return target;
+            });
+        }
+        for (Term term : oldTerms) {
+            if (!words.contains(term.word())) {
+                // у термина остался этот фильм, поэтому запись в словаре — та же самая
+                terms.computeIfPresent(term.word(), (key, existing) -> {
+                    postings.apply(existing).remove(filmId);
+                    if (existing.isEmpty()) {
+                        dictionary.remove(key, existing);
+                        return null;
+                    }
+                    return existing;
+                });
+            }
+        }
+        return result;
+    }
+
+    private static Term find(Term[] terms, String word) {
+        for (Term term : terms) {
+            if (term.word().equals(word)) {
+                return term;
+            }
+        }
+        return null;
+    }
+
+    private static double boost(int likes) {
+        return 1 + Math.log1p(Math.max(likes, 0)) * LIKES_BOOST;
+    }
+
+    private void checkLimit(int limit) {
+        if (limit <= 0) {
+            throw new ValidationException("Количество результатов должно быть положительным");
+        }
+    }
+
+    // limit лучших оценок: минимальная куча, при равенстве оценок выше меньший id
+    private static final class TopScores {
+
+        private final int limit;
+
+        private final PriorityQueue<double[]> heap;
+
+        TopScores(int limit) {
+            this.limit = limit;
+            this.heap = new PriorityQueue<>(Math.min(limit, 1024) + 1, TopScores::compare);
+        }
+
+        boolean isFull() {
+            return heap.size() >= limit;
+        }
+
+        double minScore() {
+            return heap.peek()[0];
+        }
+
+        void offer(int filmId, double score) {
+            double[] entry = {score, filmId};
+            if (heap.size() < limit) {
+                heap.add(entry);
+            } else if (compare(entry, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(entry);
+            }
+        }
+
+        int[] ids() {
+            double[][] entries = heap.toArray(new double[0][]);
+            Arrays.sort(entries, (a, b) -> compare(b, a));
+            int[] ids = new int[entries.length];
+            for (int i = 0; i < entries.length; i++) {
+                ids[i] = (int) entries[i][1];
+            }
+            return ids;
+        }
+
+        // Больше — лучше
+        private static int compare(double[] a, double[] b) {
+            int byScore = Double.compare(a[0], b[0]);
+            return byScore != 0 ? byScore : Double.compare(b[1], a[1]);
+        }
+    }
+}
@@ -2,12 +2,16 @@ package ru.yandex.practicum.filmorate.service;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.event.MutationEvent;
+import ru.yandex.practicum.filmorate.event.MutationEvents;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.VersionTracker;
 import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+import ru.yandex.practicum.filmorate.util.IntSet;
 
 import java.util.*;
-import java.util.stream.Collectors;
 import java.util.NoSuchElementException;
 
 @Service
@@ -16,36 +20,120 @@ public class FilmService {
 
     private final FilmStorage filmStorage;
     private final UserStorage userStorage;
+    private final TrendingService trendingService;
+    private final FilmSearchService filmSearchService;
+    private final FilteredPopularityService filteredPopularityService;
+    private final ReferenceService referenceService;
+    // Рекомендации, тренды и поиск обновляются по событиям отсюда, а не в потоке запроса
+    private final MutationEvents events;
+    private final VersionTracker versionTracker;
 
     public Film addFilm(Film film) {
-        return filmStorage.add(film);
+        events.admit();
+        referenceService.resolve(film);
+        Film created = filmStorage.add(film);
+        // id известен только после записи, поэтому снимок лайков берётся уже под блокировкой фильма
+        events.order().film(created.getId(), () ->
+                events.publish(new MutationEvent.FilmAdded(created, IntSet.of(created.getLikes().toArray()))));
+        versionTracker.filmsChanged();
+        return created;
     }
 
     public Film updateFilm(Film film) {
-        return filmStorage.update(film);
+        events.admit();
+        referenceService.resolve(film);
+        Film[] updated = new Film[1];
+        events.order().film(film.getId(), () -> {
+            IntSet oldLikes = filmStorage.getById(film.getId())
+                    .map(Film::getLikes)
+                    .orElseGet(IntSet::new);
+            updated[0] = filmStorage.update(film);
+            events.publish(new MutationEvent.FilmUpdated(updated[0], IntSet.of(oldLikes.toArray()),
+                    IntSet.of(updated[0].getLikes().toArray())));
+        });
+        versionTracker.filmsChanged();
+        return updated[0];
     }
 
     public List<Film> getAllFilms() {
         return filmStorage.getAll();
     }
 
+    public List<Film> getFilmsPage(int afterId, int limit) {
+        checkPageLimit(limit);
+        return filmStorage.getPage(afterId, limit);
+    }
+
     public void addLike(int filmId, int userId) {
-        Film film = getFilmById(filmId);
+        events.admit();
+        getFilmById(filmId);
         checkUserExists(userId);
-        film.getLikes().add(userId);
+        events.order().like(filmId, userId, () -> {
+            if (filmStorage.addLike(filmId, userId)) {
+                events.publish(new MutationEvent.LikeAdded(filmId, userId));
+                versionTracker.filmsChanged();
+            }
+        });
     }
 
     public void removeLike(int filmId, int userId) {
-        Film film = getFilmById(filmId);
+        events.admit();
+        getFilmById(filmId);
         checkUserExists(userId);
-        film.getLikes().remove(userId);
+        events.order().like(filmId, userId, () -> {
+            if (filmStorage.removeLike(filmId, userId)) {
+                events.publish(new MutationEvent.LikeRemoved(filmId, userId));
+                versionTracker.filmsChanged();
+            }
+        });
     }
 
     public List<Film> getPopularFilms(int count) {
-        return filmStorage.getAll().stream()
-                .sorted(Comparator.comparingInt((Film f) -> f.getLikes().size()).reversed())
-                .limit(count)
-                .collect(Collectors.toList());
+        return filmStorage.getPopular(count);
+    }
+
+    // Без фильтров рейтинг берётся из хранилища, с жанром и/или годом — из производного индекса
+    public List<Film> getPopularFilms(int count, Integer genreId, Integer year) {
+        if (genreId == null && year == null) {
+            return getPopularFilms(count);
+        }
+        checkGenre(genreId);
+        events.awaitReadable();
+        return filmStorage.getByIds(filteredPopularityService.top(count, genreId, year));
+    }
+
+    public void checkGenre(Integer genreId) {
+        if (genreId != null) {
+            referenceService.getGenre(genreId);
+        }
+    }
+
+    // Соответствует ли рейтинг текущей версии фильмов: фильтрованный при consistency=eventual может
+    // отставать от неё, и ответ, сохранённый под этой версией, пережил бы догнавший индекс
+    public boolean isPopularCurrent(Integer genreId, Integer year) {
+        return genreId == null && year == null || events.readYourWrites();
+    }
+
+    public List<Film> getTrendingFilms(String window, int count) {
+        events.awaitReadable();
+        return trendingService.getTrending(TrendingService.Window.parse(window), count);
+    }
+
+    public List<Film> searchFilms(String query, int limit) {
+        events.awaitReadable();
+        return filmSearchService.search(query, limit);
+    }
+
+    public List<String> suggestWords(String prefix, int limit) {
+        events.awaitReadable();
+        return filmSearchService.suggest(prefix, limit);
+    }
+
+    // Контроллер проверяет размер страницы ещё до сверки ETag: некорректный запрос — 400, а не 304
+    public void checkPageLimit(Integer limit) {
+        if (limit != null && limit <= 0) {
+            throw new ValidationException("Размер страницы должен быть положительным");
+        }
     }
 
     private Film getFilmById(int id) {
@@ -0,0 +1,153 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.event.MutationEvent;
+import ru.yandex.practicum.filmorate.event.MutationListener;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.PopularityIndex;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Популярные фильмы с фильтром по жанру и году выпуска. У каждого жанра и каждого года свой
+// PopularityIndex только с его фильмами, поэтому top-N с одним фильтром читает первые N ключей своего
+// рейтинга, а не отбирает подходящие фильмы из общего. С обоими фильтрами обходится меньший из двух
+// рейтингов, а второе условие проверяется по жанрам и году фильма. Все изменения фильма идут
+// через compute по его id, как в FilmSearchService.
+@Service
+@RequiredArgsConstructor
+public class FilteredPopularityService implements MutationListener {
+
+    private static final int INDEX_PAGE = 10_000;
+
+    private static final int NO_YEAR = Integer.MIN_VALUE;
+
+    private final FilmStorage filmStorage;
+
+    private final Map<Integer, PopularityIndex> byGenre = new ConcurrentHashMap<>();
+
+    private final Map<Integer, PopularityIndex> byYear = new ConcurrentHashMap<>();
+
+    private final Map<Integer, Document> documents = new ConcurrentHashMap<>();
+
+    // Год и жанры, по которым фильм разложен сейчас, и число его лайков
+    private record Document(int year, int[] genres, int likes) {
+
+        boolean hasGenre(int genreId) {
+            return contains(genres, genreId);
+        }
+    }
+
+    @PostConstruct
+    public void indexExistingFilms() {
+        int afterId = 0;
+        List<Film> page;
+        while (!(page = filmStorage.getPage(afterId, INDEX_PAGE)).isEmpty()) {
+            page.forEach(film -> onFilmSaved(film, film.getLikes().size()));
+            afterId = page.get(page.size() - 1).getId();
+        }
+    }
+
+    @Override
+    public void onEvent(MutationEvent event) {
+        switch (event) {
+            case MutationEvent.FilmAdded added -> onFilmSaved(added.film(), added.likes().size());
+            case MutationEvent.FilmUpdated updated -> onFilmSaved(updated.film(), updated.newLikes().size());
+            case MutationEvent.LikeAdded like -> onLikesChanged(like.filmId(), 1);
+            case MutationEvent.LikeRemoved like -> onLikesChanged(like.filmId(), -1);
+            default -> {
+            }
+        }
+    }
+
+    // id первых count фильмов жанра и/или года в порядке рейтинга; хотя бы один фильтр задан
+    public int[] top(int count, Integer genreId, Integer year) {
+        if (count <= 0) {
+            return new int[0];
+        }
+        PopularityIndex genreRanking = genreId != null ? byGenre.get(genreId) : null;
+        PopularityIndex yearRanking = year != null ? byYear.get(year) : null;
+        if ((genreId != null && genreRanking == null) || (year != null && yearRanking == null)) {
+            return new int[0];
+        }
+        if (yearRanking == null) {
+            return toArray(genreRanking.top(count));
+        }
+        if (genreRanking == null) {
+            return toArray(yearRanking.top(count));
+        }
+        if (yearRanking.size() <= genreRanking.size()) {
+            return yearRanking.top(count, filmId -> {
+                Document document = documents.get(filmId);
+                return document != null && document.hasGenre(genreId);
+            });
+        }
+        return genreRanking.top(count, filmId -> {
+            Document document = documents.get(filmId);
+            return document != null && document.year() == year;
+        });
+    }
+
+    // Число лайков передаётся отдельно: из события приходит снимок на момент записи
+    private void onFilmSaved(Film film, int likes) {
+        int year = film.getReleaseDate() != null ? film.getReleaseDate().getYear() : NO_YEAR;
+        int[] genres = film.getGenres().stream().mapToInt(Genre::id).distinct().toArray();
+        documents.compute(film.getId(), (id, old) -> {
+            if (old != null) {
+                if (old.year() != year) {
+                    remove(byYear, old.year(), id);
+                }
+                for (int genre : old.genres()) {
+                    if (!contains(genres, genre)) {
+                        remove(byGenre, genre, id);
+                    }
+                }
+            }
+            Document document = new Document(year, genres, likes);
+            rank(document, id);
+            return document;
+        });
+    }
+
+    private void onLikesChanged(int filmId, int delta) {
+        documents.computeIfPresent(filmId, (id, old) -> {
+            Document document = new Document(old.year(), old.genres(), Math.max(old.likes() + delta, 0));
+            rank(document, id);
+            return document;
+        });
+    }
+
+    private void rank(Document document, int filmId) {
+        if (document.year() != NO_YEAR) {
+            byYear.computeIfAbsent(document.year(), key -> new PopularityIndex()).put(filmId, document.likes());
+        }
+        for (int genre : document.genres()) {
+            byGenre.computeIfAbsent(genre, key -> new PopularityIndex()).put(filmId, document.likes());
+        }
+    }
+
+    private static void remove(Map<Integer, PopularityIndex> partitions, int key, int filmId) {
+        PopularityIndex ranking = partitions.get(key);
+        if (ranking != null) {
+            ranking.remove(filmId);
+        }
+    }
+
+    private static boolean contains(int[] values, int value) {
+        for (int candidate : values) {
+            if (candidate == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int[] toArray(List<Integer> ids) {
+        return ids.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
@@ -0,0 +1,274 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.event.MutationEvent;
+import ru.yandex.practicum.filmorate.event.MutationListener;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+import ru.yandex.practicum.filmorate.util.IntSet;
+
+import java.util.*;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// "Возможно, вы знакомы": друзья друзей, ранжированные по числу общих друзей.
+// Списки друзей всех друзей загружаются одним getByIds в массивы int, затем подсчёт идёт в
+// переиспользуемом массиве счётчиков по id, у пользователей с большим числом друзей — параллельно
+// в ForkJoinPool: в задачи попадает только счёт, без обращений к хранилищу. Готовый рейтинг кешируется до изменения графа дружбы рядом с пользователем;
+// кэш ограничен суммарной длиной рейтингов, подсчёт идёт вне блокировок кэша.
+@Service
+@RequiredArgsConstructor
+public class FriendRecommendationService implements MutationListener {
+
+    // Начиная с этого числа друзей обход друзей друзей делится между ядрами
+    private static final int PARALLEL_THRESHOLD = 512;
+
+    private static final int CHUNK_SIZE = 128;
+
+    private static final int MAX_CACHED = 1000;
+
+    // Суммарная длина кэшированных рейтингов: до 16 МБ id
+    private static final long MAX_CACHED_IDS = 4L << 20;
+
+    private static final int STAMP_STRIPES = 1024;
+
+    // Пул вместо ThreadLocal: на виртуальных потоках каждый запрос идёт в новом потоке,
+    // и ThreadLocal заново выделял бы массив счётчиков размером с максимальный id. Счётчиков в пуле не
+    // больше, чем ядер: лишние после всплеска параллельных запросов не держат память
+    private static final Queue<Counter> COUNTERS = new ConcurrentLinkedQueue<>();
+
+    private static final int MAX_POOLED = Runtime.getRuntime().availableProcessors();
+
+    private static final AtomicInteger POOLED = new AtomicInteger();
+
+    private final UserStorage userStorage;
+
+    private final Cache<Integer, int[]> cache = Caffeine.newBuilder()
+            .maximumWeight(MAX_CACHED_IDS)
+            .<Integer, int[]>weigher((id, ranked) -> ranked.length + 1)
+            .build();
+
+    // Номера инвалидаций по полосам id: invalidate поднимает номер до сброса ключа (см. cacheIfCurrent)
+    private final AtomicLongArray stamps = new AtomicLongArray(STAMP_STRIPES);
+
+    public List<User> getRecommendations(int userId, int count) {
+        int[] ranked = cache.getIfPresent(userId);
+        if (ranked == null) {
+            long stamp = stamps.get(stripe(userId));
+            // пользователь читается после номера: изменение, которое он не увидел, поднимет номер позже
+            User user = userStorage.getById(userId)
+                    .orElseThrow(() -> new NoSuchElementException("Пользователь с id " + userId + " не найден."));
+            ranked = rank(user);
+            cacheIfCurrent(userId, ranked, stamp);
+        }
+        return userStorage.getByIds(Arrays.copyOf(ranked, Math.max(Math.min(count, ranked.length), 0)));
+    }
+
+    @Override
+    public void onEvent(MutationEvent event) {
+        switch (event) {
+            case MutationEvent.FriendAdded friend -> onFriendshipChanged(friend.userId(), friend.friendId());
+            case MutationEvent.FriendRemoved friend -> onFriendshipChanged(friend.userId(), friend.friendId());
+            case MutationEvent.UserAdded added -> {
+                if (!added.friends().isEmpty()) {
+                    invalidateAll();
+                }
+            }
+            // обновление заменяет список друзей целиком, поэтому точечная инвалидация здесь не подходит
+            case MutationEvent.UserUpdated updated -> invalidateAll();
+            default -> {
+            }
+        }
+    }
+
+    // Ребро (userId, friendId) влияет на рекомендации обоих концов и всех их друзей
+    public void onFriendshipChanged(int userId, int friendId) {
+        invalidateAround(userId);
+        invalidateAround(friendId);
+    }
+
+    public void invalidateAll() {
+        for (int i = 0; i < STAMP_STRIPES; i++) {
+            stamps.incrementAndGet(i);
+        }
+        cache.invalidateAll();
+    }
+
+    private void invalidateAround(int userId) {
+        invalidate(userId);
+        userStorage.getById(userId).ifPresent(user -> user.getFriends().forEach(this::invalidate));
+    }
+
+    private void invalidate(int userId) {
+        stamps.incrementAndGet(stripe(userId));
+        cache.invalidate(userId);
+    }
+
+    // Рейтинг кладётся в кэш и снимается обратно, если номер полосы успел измениться: invalidate,
+    // закончившийся до проверки, уже поднял номер, а начавшийся после неё сбросит и это значение
+    private void cacheIfCurrent(int userId, int[] ranked, long stamp) {
+        cache.put(userId, ranked);
+        if (stamps.get(stripe(userId)) != stamp) {
+            cache.asMap().remove(userId, ranked);
+        }
+    }
+
+    private static int stripe(int userId) {
+        return userId & (STAMP_STRIPES - 1);
+    }
+
+    private int[] rank(User user) {
+        int[][] adjacency = adjacency(user.getFriends().toArray());
+        Counter counter = acquireCounter();
+        try {
+            if (adjacency.length >= PARALLEL_THRESHOLD) {
+                int[] pairs = ForkJoinPool.commonPool().invoke(new CountTask(adjacency, 0, adjacency.length));
+                for (int i = 0; i < pairs.length; i += 2) {
+                    counter.add(pairs[i], pairs[i + 1]);
+                }
+            } else {
+                countFriendsOfFriends(adjacency, 0, adjacency.length, counter);
+            }
+            return counter.top(user.getId(), user.getFriends(), MAX_CACHED);
+        } finally {
+            releaseCounter(counter);
+        }
+    }
+
+    private static Counter acquireCounter() {
+        Counter counter = COUNTERS.poll();
+        if (counter == null) {
+            return new Counter();
+        }
+        POOLED.decrementAndGet();
+        return counter;
+    }
+
+    private static void releaseCounter(Counter counter) {
+        if (POOLED.incrementAndGet() > MAX_POOLED) {
+            POOLED.decrementAndGet();
+            return;
+        }
+        counter.reset();
+        COUNTERS.offer(counter);
+    }
+
+    // Друзья каждого друга одним запросом к хранилищу: в режиме БД блокирующий JDBC не попадает
+    // в потоки общего ForkJoinPool
+    private int[][] adjacency(int[] friends) {
+        List<User> loaded = userStorage.getByIds(friends);
+        int[][] adjacency = new int[loaded.size()][];
+        for (int i = 0; i < adjacency.length; i++) {
+            adjacency[i] = loaded.get(i).getFriends().toArray();
+        }
+        return adjacency;
+    }
+
+    private static void countFriendsOfFriends(int[][] adjacency, int from, int to, Counter counter) {
+        for (int i = from; i < to; i++) {
+            for (int id : adjacency[i]) {
+                counter.add(id, 1);
+            }
+        }
+    }
+
+    private static final class CountTask extends RecursiveTask<int[]> {
+
+        private final int[][] adjacency;
+        private final int from;
+        private final int to;
+
+        private CountTask(int[][] adjacency, int from, int to) {
+            this.adjacency = adjacency;
+            this.from = from;
+            this.to = to;
+        }
+
+        // Возвращает разреженный результат: пары (id, количество) подряд
+        @Override
+        protected int[] compute() {
+            if (to - from <= CHUNK_SIZE) {
+                Counter counter = acquireCounter();
+                try {
+                    countFriendsOfFriends(adjacency, from, to, counter);
+                    return counter.toPairs();
+                } finally {
+                    releaseCounter(counter);
+                }
+            }
+            int middle = (from + to) >>> 1;
+            CountTask left = new CountTask(adjacency, from, middle);
+            left.fork();
+            int[] right = new CountTask(adjacency, middle, to).compute();
+            int[] leftPairs = left.join();
+            int[] merged = Arrays.copyOf(leftPairs, leftPairs.length + right.length);
+            System.arraycopy(right, 0, merged, leftPairs.length, right.length);
+            return merged;
+        }
+    }
+
+    // Массив счётчиков по id пользователя плюс список затронутых id, чтобы сбрасывать только их
+    private static final class Counter {
+
+        private int[] counts = new int[1024];
+        private int[] touched = new int[256];
+        private int touchedSize;
+
+        void add(int id, int delta) {
+            if (id < 0) {
+                return;
+            }
+            if (id >= counts.length) {
+                counts = Arrays.copyOf(counts, Math.max(id + 1, counts.length * 2));
+            }
+            if (counts[id] == 0) {
+                if (touchedSize == touched.length) {
+                    touched = Arrays.copyOf(touched, touched.length * 2);
+                }
+                touched[touchedSize++] = id;
+            }
+            counts[id] += delta;
+        }
+
+        int[] toPairs() {
+            int[] pairs = new int[touchedSize * 2];
+            for (int i = 0; i < touchedSize; i++) {
+                pairs[2 * i] = touched[i];
+                pairs[2 * i + 1] = counts[touched[i]];
+            }
+            return pairs;
+        }
+
+        // Кандидаты без самого пользователя и его друзей: по убыванию счётчика, при равенстве по id
+        int[] top(int userId, IntSet friends, int limit) {
+            long[] keys = new long[touchedSize];
+            int size = 0;
+            for (int i = 0; i < touchedSize; i++) {
+                int id = touched[i];
+                if (id != userId && !friends.contains(id)) {
+                    keys[size++] = ((long) (Integer.MAX_VALUE - counts[id]) << 32) | id;
+                }
+            }
+            Arrays.sort(keys, 0, size);
+            int[] result = new int[Math.min(size, limit)];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = (int) keys[i];
+            }
+            return result;
+        }
+
+        void reset() {
+            for (int i = 0; i < touchedSize; i++) {
+                counts[touched[i]] = 0;
+            }
+            touchedSize = 0;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.reference.ReferenceStorage;
+
+import java.util.*;
+import java.util.NoSuchElementException;
+
+@Service
+@RequiredArgsConstructor
+public class ReferenceService {
+
+    private final ReferenceStorage referenceStorage;
+
+    public List<Genre> getGenres() {
+        return referenceStorage.getGenres();
+    }
+
+    public Genre getGenre(int id) {
+        return referenceStorage.getGenre(id)
+                .orElseThrow(() -> new NoSuchElementException("Жанр с id " + id + " не найден."));
+    }
+
+    public List<Mpa> getMpaRatings() {
+        return referenceStorage.getMpaRatings();
+    }
+
+    public Mpa getMpa(int id) {
+        return referenceStorage.getMpa(id)
+                .orElseThrow(() -> new NoSuchElementException("Рейтинг MPA с id " + id + " не найден."));
+    }
+
+    // Заменяет рейтинг и жанры из запроса (там важен только id) объектами справочника: жанры без повторов
+    // и по возрастанию id. Хранилища и индексы дальше работают с уже проверенными значениями
+    public void resolve(Film film) {
+        if (film.getMpa() != null) {
+            film.setMpa(getMpa(film.getMpa().id()));
+        }
+        SortedMap<Integer, Genre> genres = new TreeMap<>();
+        for (Genre genre : film.getGenres()) {
+            if (genre != null) {
+                genres.computeIfAbsent(genre.id(), this::getGenre);
+            }
+        }
+        film.setGenres(new ArrayList<>(genres.values()));
+    }
+}
@@ -0,0 +1,249 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.event.MutationEvent;
+import ru.yandex.practicum.filmorate.event.MutationListener;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.PopularityIndex;
+import ru.yandex.practicum.filmorate.util.IntIntMap;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+// Популярность за последний час, сутки и неделю. У фильма с недавними лайками есть кольца
+// поминутных и почасовых корзин; все изменения фильма идут через compute по его id, общей блокировки нет.
+// Суммы окон лежат в PopularityIndex на каждое окно, поэтому top-N читает первые N ключей,
+// не перебирая фильмы. Корзины устаревают лениво: для корзины с лайками ставится срок,
+// и первый вызов после него пересчитывает окна этого фильма.
+@Service
+public class TrendingService implements MutationListener {
+
+    public enum Window {
+        HOUR("1h"),
+        // текущий час и 23 предыдущих: сутки считаются по почасовым корзинам
+        DAY("24h"),
+        WEEK("7d");
+
+        private final String code;
+
+        Window(String code) {
+            this.code = code;
+        }
+
+        public static Window parse(String code) {
+            for (Window window : values()) {
+                if (window.code.equals(code)) {
+                    return window;
+                }
+            }
+            throw new ValidationException("Окно должно быть одним из: 1h, 24h, 7d");
+        }
+    }
+
+    private static final int MINUTES = 60;
+
+    private static final int HOURS = 7 * 24;
+
+    private final FilmStorage filmStorage;
+
+    private final Clock clock;
+
+    private final Map<Integer, Activity> activities = new ConcurrentHashMap<>();
+
+    private final PopularityIndex[] rankings = new PopularityIndex[Window.values().length];
+
+    // Сроки пересчёта окон: (минута << 32) | id фильма, по возрастанию времени
+    private final ConcurrentSkipListSet<Long> deadlines = new ConcurrentSkipListSet<>();
+
+    @Autowired
+    public TrendingService(FilmStorage filmStorage) {
+        this(filmStorage, Clock.systemUTC());
+    }
+
+    public TrendingService(FilmStorage filmStorage, Clock clock) {
+        this.filmStorage = filmStorage;
+        this.clock = clock;
+        for (int i = 0; i < rankings.length; i++) {
+            rankings[i] = new PopularityIndex();
+        }
+    }
+
+    // Лайк попадает в корзину минуты обработки события, а не записи: отставание конвейера —
+    // доли секунды, на минутных корзинах это незаметно
+    @Override
+    public void onEvent(MutationEvent event) {
+        switch (event) {
+            case MutationEvent.LikeAdded like -> onLikeAdded(like.filmId(), like.userId());
+            case MutationEvent.LikeRemoved like -> onLikeRemoved(like.filmId(), like.userId());
+            // лайки, снятые через PUT, уходят и из окон популярности
+            case MutationEvent.FilmUpdated updated -> updated.oldLikes().forEach(userId -> {
+                if (!updated.newLikes().contains(userId)) {
+                    onLikeRemoved(updated.film().getId(), userId);
+                }
+            });
+            default -> {
+            }
+        }
+    }
+
+    public void onLikeAdded(int filmId, int userId) {
+        int now = currentMinute();
+        expire(now);
+        activities.compute(filmId, (id, activity) -> {
+            Activity film = activity != null ? activity : new Activity();
+            if (film.add(userId, now)) {
+                int hour = now / MINUTES;
+                deadlines.add(deadline(now + MINUTES, id));
+                deadlines.add(deadline((hour + 24) * MINUTES, id));
+                deadlines.add(deadline((hour + HOURS) * MINUTES, id));
+                publish(id, film, now);
+            }
+            return film;
+        });
+    }
+
+    public void onLikeRemoved(int filmId, int userId) {
+        int now = currentMinute();
+        expire(now);
+        activities.computeIfPresent(filmId, (id, film) -> {
+            if (film.remove(userId)) {
+                publish(id, film, now);
+            }
+            return film.isEmpty() ? null : film;
+        });
+    }
+
+    public List<Film> getTrending(Window window, int count) {
+        if (count <= 0) {
+            throw new ValidationException("Количество фильмов должно быть положительным");
+        }
+        expire(currentMinute());
+        int[] ids = rankings[window.ordinal()].top(count).stream().mapToInt(Integer::intValue).toArray();
+        return filmStorage.getByIds(ids);
+    }
+
+    // Пересчитывает фильмы, у которых к минуте now вышла из окна хотя бы одна корзина
+    private void expire(int now) {
+        Long first;
+        while ((first = deadlines.ceiling(0L)) != null && (first >>> 32) <= now) {
+            // срок снимает ровно один поток, он и пересчитывает фильм
+            if (deadlines.remove(first)) {
+                activities.computeIfPresent((int) first.longValue(), (id, film) -> {
+                    film.prune(now);
+                    publish(id, film, now);
+                    return film.isEmpty() ? null : film;
+                });
+            }
+        }
+    }
+
+    // Вызывается внутри compute по id фильма, поэтому обновления рейтингов фильма не переупорядочиваются
+    private void publish(int filmId, Activity film, int now) {
+        for (Window window : Window.values()) {
+            int likes = film.count(window, now);
+            if (likes > 0) {
+                rankings[window.ordinal()].put(filmId, likes);
+            } else {
+                rankings[window.ordinal()].remove(filmId);
+            }
+        }
+    }
+
+    private int currentMinute() {
+        return (int) (clock.millis() / 60_000);
+    }
+
+    private static long deadline(int minute, int filmId) {
+        return ((long) minute << 32) | (filmId & 0xFFFFFFFFL);
+    }
+
+    // Лайки фильма за последнюю неделю; доступ только внутри compute по id фильма
+    private static final class Activity {
+
+        // Корзина: (номер минуты или часа << 32) | лайки; ячейка — номер по модулю длины кольца
+        private final long[] minutes = new long[MINUTES];
+
+        private final long[] hours = new long[HOURS];
+
+        // Когда поставлен каждый недавний лайк, чтобы при удалении снять его с нужных корзин
+        private final IntIntMap likedAt = new IntIntMap();
+
+        boolean add(int userId, int minute) {
+            if (likedAt.containsKey(userId)) {
+                return false;
+            }
+            likedAt.put(userId, minute);
+            bump(minutes, minute, 1);
+            bump(hours, minute / MINUTES, 1);
+            return true;
+        }
+
+        boolean remove(int userId) {
+            if (!likedAt.containsKey(userId)) {
+                return false;
+            }
+            int minute = likedAt.get(userId, 0);
+            likedAt.remove(userId);
+            bump(minutes, minute, -1);
+            bump(hours, minute / MINUTES, -1);
+            return true;
+        }
+
+        int count(Window window, int now) {
+            int hour = now / MINUTES;
+            return switch (window) {
+                case HOUR -> sum(minutes, now - MINUTES, now);
+                case DAY -> sum(hours, hour - 24, hour);
+                case WEEK -> sum(hours, hour - HOURS, hour);
+            };
+        }
+
+        // Забывает время лайков, которые вышли из недельного окна
+        void prune(int now) {
+            int oldest = (now / MINUTES - HOURS + 1) * MINUTES;
+            List<Integer> stale = new ArrayList<>();
+            likedAt.forEach((userId, minute) -> {
+                if (minute < oldest) {
+                    stale.add(userId);
+                }
+            });
+            stale.forEach(likedAt::remove);
+        }
+
+        boolean isEmpty() {
+            return likedAt.size() == 0;
+        }
+
+        // Корзину с другим номером в той же ячейке занимает новая; снять лайк можно только со своей корзины
+        private static void bump(long[] ring, int epoch, int delta) {
+            int slot = epoch % ring.length;
+            long value = ring[slot];
+            if ((int) (value >>> 32) != epoch) {
+                if (delta < 0) {
+                    return;
+                }
+                value = (long) epoch << 32;
+            }
+            ring[slot] = value + delta;
+        }
+
+        // Сумма корзин с номерами в (from, to]
+        private static int sum(long[] ring, int from, int to) {
+            int total = 0;
+            for (long value : ring) {
+                int epoch = (int) (value >>> 32);
+                if (epoch > from && epoch <= to) {
+                    total += (int) value;
+                }
+            }
+            return total;
+        }
+    }
+}
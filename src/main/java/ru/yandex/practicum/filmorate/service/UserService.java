@@ -2,11 +2,16 @@ package ru.yandex.practicum.filmorate.service;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.event.MutationEvent;
+import ru.yandex.practicum.filmorate.event.MutationEvents;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.VersionTracker;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+import ru.yandex.practicum.filmorate.util.IntSet;
 
 import java.util.*;
-import java.util.stream.Collectors;
 import java.util.NoSuchElementException;
 
 @Service
@@ -14,54 +19,123 @@ import java.util.NoSuchElementException;
 public class UserService {
 
     private final UserStorage userStorage;
+    private final FriendRecommendationService friendRecommendationService;
+    private final FilmRecommendationService filmRecommendationService;
+    private final MutationEvents events;
+    private final VersionTracker versionTracker;
 
     public User createUser(User user) {
+        events.admit();
         user.fillNameIfEmpty();
-        return userStorage.add(user);
+        User created = userStorage.add(user);
+        // как и FilmAdded: снимок друзей под блокировкой пользователя, чтобы параллельная дружба
+        // не обогнала событие о создании и не попала в него наполовину
+        events.order().users(new int[]{created.getId()}, () ->
+                events.publish(new MutationEvent.UserAdded(created, IntSet.of(created.getFriends().toArray()))));
+        versionTracker.usersChanged();
+        return created;
     }
 
     public User updateUser(User user) {
+        events.admit();
         user.fillNameIfEmpty();
-        return userStorage.update(user);
+        User[] updated = new User[1];
+        events.order().users(new int[]{user.getId()}, () -> {
+            updated[0] = userStorage.update(user);
+            events.publish(new MutationEvent.UserUpdated(updated[0]));
+        });
+        // пользователь мог попасть в чужие списки друзей через своё поле friends — сбрасываем их все
+        versionTracker.usersChanged();
+        versionTracker.allFriendsChanged();
+        return updated[0];
     }
 
     public List<User> getAllUsers() {
         return userStorage.getAll();
     }
 
+    public List<User> getUsersPage(int afterId, int limit) {
+        checkPageLimit(limit);
+        return userStorage.getPage(afterId, limit);
+    }
+
+    // См. FilmService.checkPageLimit
+    public void checkPageLimit(Integer limit) {
+        if (limit != null && limit <= 0) {
+            throw new ValidationException("Размер страницы должен быть положительным");
+        }
+    }
+
     public User getUserById(int id) {
         return userStorage.getById(id)
                 .orElseThrow(() -> new NoSuchElementException("Пользователь с id " + id + " не найден."));
     }
 
+    public User getUserByEmail(String email) {
+        return userStorage.getByEmail(email)
+                .orElseThrow(() -> new NoSuchElementException("Пользователь с email " + email + " не найден."));
+    }
+
+    public User getUserByLogin(String login) {
+        return userStorage.getByLogin(login)
+                .orElseThrow(() -> new NoSuchElementException("Пользователь с логином " + login + " не найден."));
+    }
+
     public void addFriend(int userId, int friendId) {
-        User user = getUserById(userId);
-        User friend = getUserById(friendId);
-        user.getFriends().add(friendId);
-        friend.getFriends().add(userId);
+        events.admit();
+        getUserById(userId);
+        getUserById(friendId);
+        events.order().users(new int[]{userId, friendId}, () -> {
+            boolean changed = userStorage.addFriend(userId, friendId) | userStorage.addFriend(friendId, userId);
+            if (changed) {
+                events.publish(new MutationEvent.FriendAdded(userId, friendId));
+                onFriendshipVersionChanged(userId, friendId);
+            }
+        });
     }
 
     public void removeFriend(int userId, int friendId) {
-        User user = getUserById(userId);
-        User friend = getUserById(friendId);
-        user.getFriends().remove(friendId);
-        friend.getFriends().remove(userId);
+        events.admit();
+        getUserById(userId);
+        getUserById(friendId);
+        events.order().users(new int[]{userId, friendId}, () -> {
+            boolean changed = userStorage.removeFriend(userId, friendId) | userStorage.removeFriend(friendId, userId);
+            if (changed) {
+                events.publish(new MutationEvent.FriendRemoved(userId, friendId));
+                onFriendshipVersionChanged(userId, friendId);
+            }
+        });
     }
 
     public List<User> getFriends(int userId) {
-        Set<Integer> friendIds = getUserById(userId).getFriends();
-        return friendIds.stream()
-                .map(this::getUserById)
-                .collect(Collectors.toList());
+        return userStorage.getByIds(getUserById(userId).getFriends().toArray());
     }
 
     public List<User> getCommonFriends(int userId, int otherId) {
-        Set<Integer> userFriends = getUserById(userId).getFriends();
-        Set<Integer> otherFriends = getUserById(otherId).getFriends();
+        IntSet userFriends = getUserById(userId).getFriends();
+        IntSet otherFriends = getUserById(otherId).getFriends();
+        return userStorage.getByIds(userFriends.intersect(otherFriends));
+    }
+
+    public List<User> getFriendRecommendations(int userId, int count) {
+        events.awaitReadable();
+        return friendRecommendationService.getRecommendations(userId, count);
+    }
+
+    public List<Film> getRecommendedFilms(int userId, int count) {
+        getUserById(userId);
+        events.awaitReadable();
+        return filmRecommendationService.getRecommendations(userId, count);
+    }
 
-        return userFriends.stream()
-                .filter(otherFriends::contains)
-                .map(this::getUserById)
-                .collect(Collectors.toList());
+    // Ответ /friends содержит друзей вместе с их полем friends, поэтому изменение дружбы меняет его
+    // у обоих участников и у всех их друзей
+    private void onFriendshipVersionChanged(int userId, int friendId) {
+        versionTracker.usersChanged();
+        versionTracker.friendsChanged(userId);
+        versionTracker.friendsChanged(friendId);
+        for (User user : userStorage.getByIds(new int[]{userId, friendId})) {
+            user.getFriends().forEach(versionTracker::friendsChanged);
+        }
     }
 }
\ No newline at end of file
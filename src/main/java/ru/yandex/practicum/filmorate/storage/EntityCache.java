@@ -0,0 +1,124 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+// Кэш сущностей по id перед хранилищем в БД. Вытеснение — W-TinyLFU Caffeine по суммарному весу:
+// вес записи растёт с размером множества лайков или друзей, чтобы пара «тяжёлых» сущностей
+// не вытесняла тысячи лёгких. Отсутствие сущности тоже кэшируется, но ненадолго.
+// Хранилище читается вне блокировок кэша: запрос к БД под блокировкой ключа Caffeine держал бы
+// её (и виртуальный поток на несущем) всё время запроса.
+public final class EntityCache<T> {
+
+    private static final int STAMP_STRIPES = 4096;
+
+    private final Cache<Integer, Optional<T>> cache;
+
+    private final ToIntFunction<T> idOf;
+
+    // Номера invalidate по полосам id: загруженное значение остаётся в кэше, только если номер
+    // полосы его id не изменился за время чтения из хранилища (см. cacheIfCurrent)
+    private final AtomicLongArray stamps = new AtomicLongArray(STAMP_STRIPES);
+
+    public EntityCache(String name, long maxWeight, Duration negativeTtl, ToIntFunction<T> idOf,
+                       ToIntFunction<T> setSize, MeterRegistry registry) {
+        this.idOf = idOf;
+        long negativeNanos = negativeTtl.toNanos();
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .<Integer, Optional<T>>weigher((id, value) -> 1 + value.map(setSize::applyAsInt).orElse(0) / 16)
+                .expireAfter(new Expiry<Integer, Optional<T>>() {
+                    @Override
+                    public long expireAfterCreate(Integer id, Optional<T> value, long now) {
+                        return value.isPresent() ? Long.MAX_VALUE : negativeNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Integer id, Optional<T> value, long now, long remaining) {
+                        return expireAfterCreate(id, value, now);
+                    }
+
+                    @Override
+                    public long expireAfterRead(Integer id, Optional<T> value, long now, long remaining) {
+                        return remaining;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, cache, name);
+    }
+
+    // Одновременные промахи по одному id читают хранилище каждый сам: это дешевле, чем держать
+    // остальных читателей ключа на блокировке на время запроса
+    public Optional<T> get(int id, IntFunction<Optional<T>> loader) {
+        Optional<T> cached = cache.getIfPresent(id);
+        if (cached != null) {
+            return cached;
+        }
+        long stamp = stamps.get(stripe(id));
+        Optional<T> loaded = loader.apply(id);
+        cacheIfCurrent(id, loaded, stamp);
+        return loaded;
+    }
+
+    // Сущности с id из ids в их порядке, отсутствующие пропускаются. Промахи читаются одним вызовом
+    // loader, каждый кладётся в кэш по номеру своей полосы: изменение другого id пакет не отбрасывает
+    public List<T> getAll(int[] ids, Function<int[], List<T>> loader) {
+        Map<Integer, Optional<T>> found = new HashMap<>(cache.getAllPresent(Arrays.stream(ids).boxed().toList()));
+        int[] missing = Arrays.stream(ids).filter(id -> !found.containsKey(id)).distinct().toArray();
+        if (missing.length > 0) {
+            long[] missingStamps = new long[missing.length];
+            for (int i = 0; i < missing.length; i++) {
+                missingStamps[i] = stamps.get(stripe(missing[i]));
+                found.put(missing[i], Optional.empty());
+            }
+            for (T entity : loader.apply(missing)) {
+                found.put(idOf.applyAsInt(entity), Optional.of(entity));
+            }
+            for (int i = 0; i < missing.length; i++) {
+                cacheIfCurrent(missing[i], found.get(missing[i]), missingStamps[i]);
+            }
+        }
+        List<T> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            found.get(id).ifPresent(result::add);
+        }
+        return result;
+    }
+
+    // Вызывается после того, как изменение зафиксировано в хранилище
+    public void invalidate(int id) {
+        stamps.incrementAndGet(stripe(id));
+        cache.invalidate(id);
+    }
+
+    // invalidate поднимает номер до сброса ключа. Если изменение, которое чтение не увидело, подняло
+    // номер до проверки — значение снимается здесь, если после — его сбросит сам invalidate
+    private void cacheIfCurrent(int id, Optional<T> loaded, long stamp) {
+        if (cache.asMap().putIfAbsent(id, loaded) == null && stamps.get(stripe(id)) != stamp) {
+            cache.asMap().remove(id, loaded);
+        }
+    }
+
+    private static int stripe(int id) {
+        return id & (STAMP_STRIPES - 1);
+    }
+
+    public long hitCount() {
+        return cache.stats().hitCount();
+    }
+
+    public long missCount() {
+        return cache.stats().missCount();
+    }
+}
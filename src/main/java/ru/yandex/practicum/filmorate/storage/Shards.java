@@ -0,0 +1,54 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.function.IntConsumer;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.IntStream;
+
+// Общие части шардированных хранилищ в памяти: сущность с идентификатором id живёт в шарде id % shards
+public final class Shards {
+
+    // Пакет меньше shards * PARALLEL_BATCH_PER_SHARD элементов не стоит раздачи задач пулу
+    private static final int PARALLEL_BATCH_PER_SHARD = 64;
+
+    private Shards() {
+    }
+
+    // filmorate.storage.shards=0 — по числу ядер
+    public static int count(int configured) {
+        return configured > 0 ? configured : Runtime.getRuntime().availableProcessors();
+    }
+
+    public static int index(int id, int shards) {
+        return Math.floorMod(id, shards);
+    }
+
+    // Раскладывает позиции 0..size-1 пакета по шардам (по id из idOf) и обрабатывает шарды параллельно
+    // в общем ForkJoinPool, внутри шарда — в исходном порядке позиций. Действия одного шарда идут в одном
+    // потоке, а завершение метода видит все их записи
+    public static void forEach(int shards, int size, IntUnaryOperator idOf, IntConsumer action) {
+        if (shards == 1 || size < shards * PARALLEL_BATCH_PER_SHARD) {
+            for (int position = 0; position < size; position++) {
+                action.accept(position);
+            }
+            return;
+        }
+        int[][] byShard = new int[shards][];
+        int[] sizes = new int[shards];
+        for (int position = 0; position < size; position++) {
+            sizes[index(idOf.applyAsInt(position), shards)]++;
+        }
+        for (int shard = 0; shard < shards; shard++) {
+            byShard[shard] = new int[sizes[shard]];
+            sizes[shard] = 0;
+        }
+        for (int position = 0; position < size; position++) {
+            int shard = index(idOf.applyAsInt(position), shards);
+            byShard[shard][sizes[shard]++] = position;
+        }
+        IntStream.range(0, shards).parallel().forEach(shard -> {
+            for (int position : byShard[shard]) {
+                action.accept(position);
+            }
+        });
+    }
+}
@@ -0,0 +1,64 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Версии данных для ETag. Все версии выдаются одним глобальным счётчиком, поэтому значение не повторяется,
+// а эпоха (время старта) отличает версии разных запусков. Версия поднимается после изменения,
+// и ответ, прочитанный после версии, никогда не бывает старше её.
+@Component
+public class VersionTracker {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    private final AtomicLong global = new AtomicLong();
+
+    // Фильмы целиком: список, страницы и популярные (лайки входят в ответ)
+    private final AtomicLong films = new AtomicLong();
+
+    private final AtomicLong users = new AtomicLong();
+
+    // Нижняя граница версий списков друзей: поднимается, когда затронуты сразу все списки
+    private final AtomicLong friendsFloor = new AtomicLong();
+
+    private final Map<Integer, Long> friends = new ConcurrentHashMap<>();
+
+    public long global() {
+        return global.get();
+    }
+
+    public void filmsChanged() {
+        films.accumulateAndGet(global.incrementAndGet(), Math::max);
+    }
+
+    public void usersChanged() {
+        users.accumulateAndGet(global.incrementAndGet(), Math::max);
+    }
+
+    public void friendsChanged(int userId) {
+        friends.merge(userId, global.incrementAndGet(), Math::max);
+    }
+
+    public void allFriendsChanged() {
+        friendsFloor.accumulateAndGet(global.incrementAndGet(), Math::max);
+    }
+
+    public String filmsTag() {
+        return tag("films", films.get());
+    }
+
+    public String usersTag() {
+        return tag("users", users.get());
+    }
+
+    public String friendsTag(int userId) {
+        return tag("friends", Math.max(friends.getOrDefault(userId, 0L), friendsFloor.get()));
+    }
+
+    private String tag(String kind, long version) {
+        return kind + "-" + epoch + "-" + version;
+    }
+}
@@ -0,0 +1,129 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.storage.EntityCache;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+// Кэш getById перед FilmDbStorage. Изменения сначала фиксируются в БД, затем запись кэша
+// сбрасывается; списки и популярные фильмы читаются из БД напрямую.
+@Primary
+@Component
+@ConditionalOnExpression("'${filmorate.storage:memory}' == 'db' and ${filmorate.cache.enabled:true}")
+public class CachingFilmStorage implements FilmStorage {
+
+    private final FilmStorage delegate;
+
+    private final EntityCache<Film> cache;
+
+    public CachingFilmStorage(FilmDbStorage delegate,
+                              MeterRegistry registry,
+                              @Value("${filmorate.cache.films.max-weight:100000}") long maxWeight,
+                              @Value("${filmorate.cache.negative-ttl:1m}") Duration negativeTtl) {
+        this.delegate = delegate;
+        this.cache = new EntityCache<>("films", maxWeight, negativeTtl, Film::getId,
+                film -> film.getLikes().size(), registry);
+    }
+
+    @Override
+    public Film add(Film film) {
+        Film added = delegate.add(film);
+        // мог быть закэширован промах по этому id
+        cache.invalidate(added.getId());
+        return added;
+    }
+
+    @Override
+    public Film update(Film film) {
+        try {
+            return delegate.update(film);
+        } finally {
+            cache.invalidate(film.getId());
+        }
+    }
+
+    @Override
+    public List<Film> addAll(List<Film> films) {
+        List<Film> added = delegate.addAll(films);
+        added.forEach(film -> cache.invalidate(film.getId()));
+        return added;
+    }
+
+    @Override
+    public List<Film> getAll() {
+        return delegate.getAll();
+    }
+
+    @Override
+    public List<Film> getPage(int afterId, int limit) {
+        return delegate.getPage(afterId, limit);
+    }
+
+    @Override
+    public Optional<Film> getById(int id) {
+        return cache.get(id, delegate::getById);
+    }
+
+    @Override
+    public List<Film> getByIds(int[] ids) {
+        return cache.getAll(ids, delegate::getByIds);
+    }
+
+    // Запрос только по ключам дешевле загрузки промахов кэша, поэтому идёт мимо кэша
+    @Override
+    public int[] existingIds(int[] ids) {
+        return delegate.existingIds(ids);
+    }
+
+    @Override
+    public boolean addLike(int filmId, int userId) {
+        boolean added = delegate.addLike(filmId, userId);
+        if (added) {
+            cache.invalidate(filmId);
+        }
+        return added;
+    }
+
+    @Override
+    public boolean removeLike(int filmId, int userId) {
+        boolean removed = delegate.removeLike(filmId, userId);
+        if (removed) {
+            cache.invalidate(filmId);
+        }
+        return removed;
+    }
+
+    @Override
+    public boolean[] addLikes(List<FilmLike> likes) {
+        boolean[] added = delegate.addLikes(likes);
+        for (int i = 0; i < added.length; i++) {
+            if (added[i]) {
+                cache.invalidate(likes.get(i).filmId());
+            }
+        }
+        return added;
+    }
+
+    @Override
+    public List<Film> getPopular(int count) {
+        return delegate.getPopular(count);
+    }
+
+    @Override
+    public int count() {
+        return delegate.count();
+    }
+
+    @Override
+    public long countLikes() {
+        return delegate.countLikes();
+    }
+}
@@ -0,0 +1,532 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.util.IntSet;
+import ru.yandex.practicum.filmorate.util.StringArena;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+
+// Хранилище фильмов для очень больших каталогов: поля фиксированной ширины лежат в примитивных столбцах
+// страницами по PAGE_SIZE фильмов, название и описание — в StringArena вне кучи. Объект Film собирается
+// только при выдаче наружу, поэтому живой набор в куче — несколько массивов на страницу, а не
+// пять-шесть объектов на фильм. Лайки хранятся в IntSet только у фильмов, которые их получили.
+// Рейтинг и жанры — номера в словарях значений справочника: short на рейтинг и битовая маска на жанры.
+// Строка переписывается в арену, только если изменилась; когда отпущенные версии занимают больше половины
+// записанного, живые строки пересобираются в новую арену (см. compactIfWasteful). Поэтому арена держит
+// не больше удвоенного объёма живых строк плюс порог сборки.
+// Журнал на диск для этой раскладки не поддерживается.
+@Component
+@ConditionalOnProperty(name = "filmorate.storage", havingValue = "columnar")
+public class ColumnarFilmStorage implements FilmStorage {
+
+    private static final int PAGE_BITS = 14;
+
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+    private static final int LOCK_STRIPES = 64;
+
+    private static final long COMPACTION_MIN_WASTE = 16L << 20;
+
+    private static final class Page {
+        final boolean[] present = new boolean[PAGE_SIZE];
+        final long[] name = new long[PAGE_SIZE];
+        final long[] description = new long[PAGE_SIZE];
+        final int[] releaseDay = new int[PAGE_SIZE];
+        final int[] duration = new int[PAGE_SIZE];
+        final int[] likeCount = new int[PAGE_SIZE];
+        final IntSet[] likes = new IntSet[PAGE_SIZE];
+        final short[] mpa = new short[PAGE_SIZE];
+        final long[] genres = new long[PAGE_SIZE];
+    }
+
+    // Значения столбцов одного фильма, прочитанные согласованно; строки разворачиваются уже после чтения
+    // из арены, к которой относятся ссылки
+    private record Row(StringArena strings, long name, long description, int releaseDay, int duration,
+                       IntSet likes, short mpa, long genres) {
+    }
+
+    // Различные значения справочника, встреченные в фильмах: в столбце лежит номер (0 — нет значения),
+    // объект один на все фильмы. Значений единицы, поэтому поиск номера линейный
+    private static final class Dictionary<T> {
+
+        private final int limit;
+
+        private volatile Object[] values = new Object[0];
+
+        private final ReentrantLock additions = new ReentrantLock();
+
+        Dictionary(int limit) {
+            this.limit = limit;
+        }
+
+        int code(T value) {
+            Object[] current = values;
+            for (int i = 0; i < current.length; i++) {
+                if (current[i].equals(value)) {
+                    return i + 1;
+                }
+            }
+            return add(value);
+        }
+
+        private int add(T value) {
+            additions.lock();
+            try {
+                Object[] current = values;
+                for (int i = 0; i < current.length; i++) {
+                    if (current[i].equals(value)) {
+                        return i + 1;
+                    }
+                }
+                if (current.length >= limit) {
+                    throw new IllegalStateException("Слишком много различных значений справочника: " + limit);
+                }
+                Object[] extended = Arrays.copyOf(current, current.length + 1);
+                extended[current.length] = value;
+                values = extended;
+                return extended.length;
+            } finally {
+                additions.unlock();
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        T get(int code) {
+            return (T) values[code - 1];
+        }
+    }
+
+    // Заменяется только при сборке, под блокировками записи всех полос
+    private volatile StringArena strings = new StringArena();
+
+    private final ReentrantLock compaction = new ReentrantLock();
+
+    private final long compactionMinWaste;
+
+    private final Dictionary<Mpa> mpaCodes = new Dictionary<>(Short.MAX_VALUE);
+
+    // номер жанра — бит маски, поэтому различных жанров не больше 64
+    private final Dictionary<Genre> genreCodes = new Dictionary<>(Long.SIZE);
+
+    // Каталог страниц копируется только при добавлении страницы (см. IntCounters)
+    private volatile Page[] pages = new Page[0];
+
+    private final ReentrantLock pageGrowth = new ReentrantLock();
+
+    // Запись фильма меняется под блокировкой его полосы, чтение — оптимистично с повтором под блокировкой
+    private final StampedLock[] locks = new StampedLock[LOCK_STRIPES];
+
+    private final AtomicInteger currentId = new AtomicInteger(1);
+
+    // Рейтинг только фильмов с лайками, ключ как в PopularityIndex; фильмы без лайков дописываются
+    // в ответ getPopular по возрастанию id прямо из столбцов, без записи на каждый фильм
+    private final ConcurrentSkipListSet<Long> ranking = new ConcurrentSkipListSet<>();
+
+    private final AtomicInteger filmsCount = new AtomicInteger();
+
+    private final AtomicLong likesCount = new AtomicLong();
+
+    public ColumnarFilmStorage() {
+        this(COMPACTION_MIN_WASTE);
+    }
+
+    ColumnarFilmStorage(long compactionMinWaste) {
+        this.compactionMinWaste = compactionMinWaste;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new StampedLock();
+        }
+    }
+
+    @Override
+    public Film add(Film film) {
+        insert(film);
+        return film;
+    }
+
+    @Override
+    public List<Film> addAll(List<Film> films) {
+        for (Film film : films) {
+            insert(film);
+        }
+        return films;
+    }
+
+    @Override
+    public Film update(Film film) {
+        int id = film.getId();
+        Page page = page(id);
+        StampedLock lock = lock(id);
+        long stamp = lock.writeLock();
+        try {
+            if (page == null || !page.present[slot(id)]) {
+                throw new NoSuchElementException("Фильм с id " + id + " не найден.");
+            }
+            int oldLikes = page.likeCount[slot(id)];
+            write(page, slot(id), film);
+            rank(id, oldLikes, film.getLikes().size());
+            likesCount.addAndGet(film.getLikes().size() - oldLikes);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        compactIfWasteful();
+        return film;
+    }
+
+    @Override
+    public List<Film> getAll() {
+        return getPage(0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Film> getPage(int afterId, int limit) {
+        // id выдаются подряд и не удаляются, как и в InMemoryFilmStorage
+        List<Film> result = new ArrayList<>(Math.min(limit, filmsCount.get()));
+        int lastId = currentId.get();
+        for (int id = Math.max(afterId, 0) + 1; id < lastId && result.size() < limit; id++) {
+            Film film = materialize(id);
+            if (film != null) {
+                result.add(film);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Optional<Film> getById(int id) {
+        return Optional.ofNullable(materialize(id));
+    }
+
+    @Override
+    public List<Film> getByIds(int[] ids) {
+        List<Film> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            Film film = materialize(id);
+            if (film != null) {
+                result.add(film);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public int[] existingIds(int[] ids) {
+        return Arrays.stream(ids).filter(this::exists).distinct().toArray();
+    }
+
+    @Override
+    public boolean addLike(int filmId, int userId) {
+        return changeLike(filmId, userId, true);
+    }
+
+    @Override
+    public boolean removeLike(int filmId, int userId) {
+        return changeLike(filmId, userId, false);
+    }
+
+    @Override
+    public boolean[] addLikes(List<FilmLike> likes) {
+        boolean[] added = new boolean[likes.size()];
+        for (int i = 0; i < likes.size(); i++) {
+            added[i] = changeLike(likes.get(i).filmId(), likes.get(i).userId(), true);
+        }
+        return added;
+    }
+
+    @Override
+    public List<Film> getPopular(int count) {
+        List<Film> result = new ArrayList<>(Math.max(Math.min(count, filmsCount.get()), 0));
+        IntSet added = new IntSet();
+        // ключ переносится добавлением нового и удалением старого, фильм может встретиться дважды
+        for (long key : ranking) {
+            if (result.size() >= count) {
+                return result;
+            }
+            int filmId = (int) key;
+            Film film = added.contains(filmId) ? null : materialize(filmId);
+            if (film != null && !film.getLikes().isEmpty()) {
+                added.add(filmId);
+                result.add(film);
+            }
+        }
+        int lastId = currentId.get();
+        for (int id = 1; id < lastId && result.size() < count; id++) {
+            Page page = page(id);
+            // счётчик лайков читается из столбца, фильм собирается только для ответа
+            if (page != null && page.likeCount[slot(id)] == 0 && !added.contains(id)) {
+                Film film = materialize(id);
+                if (film != null && film.getLikes().isEmpty()) {
+                    result.add(film);
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public int count() {
+        return filmsCount.get();
+    }
+
+    @Override
+    public long countLikes() {
+        return likesCount.get();
+    }
+
+    // Байт вне кучи под строками фильмов
+    public long offHeapBytes() {
+        return strings.allocatedBytes();
+    }
+
+    // Из них занято версиями строк, на которые уже нет ссылок
+    public long offHeapWastedBytes() {
+        return strings.wastedBytes();
+    }
+
+    private void insert(Film film) {
+        int id = currentId.getAndIncrement();
+        film.setId(id);
+        Page page = ensurePage(id);
+        StampedLock lock = lock(id);
+        long stamp = lock.writeLock();
+        try {
+            write(page, slot(id), film);
+            page.present[slot(id)] = true;
+            rank(id, 0, film.getLikes().size());
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        filmsCount.incrementAndGet();
+        likesCount.addAndGet(film.getLikes().size());
+    }
+
+    // Вызывается под блокировкой записи полосы фильма
+    // Слот нового фильма пуст, и replace для него просто дописывает строку
+    private void write(Page page, int slot, Film film) {
+        page.name[slot] = strings.replace(page.name[slot], film.getName());
+        page.description[slot] = strings.replace(page.description[slot], film.getDescription());
+        page.releaseDay[slot] = (int) film.getReleaseDate().toEpochDay();
+        page.duration[slot] = film.getDuration();
+        page.likeCount[slot] = film.getLikes().size();
+        page.mpa[slot] = (short) (film.getMpa() != null ? mpaCodes.code(film.getMpa()) : 0);
+        long genres = 0;
+        for (Genre genre : film.getGenres()) {
+            genres |= 1L << (genreCodes.code(genre) - 1);
+        }
+        page.genres[slot] = genres;
+        // собственная копия: у объекта из запроса остаётся своё множество
+        page.likes[slot] = film.getLikes().isEmpty() ? null : IntSet.of(film.getLikes().toArray());
+    }
+
+    private boolean changeLike(int filmId, int userId, boolean add) {
+        Page page = page(filmId);
+        StampedLock lock = lock(filmId);
+        long stamp = lock.writeLock();
+        try {
+            int slot = slot(filmId);
+            if (page == null || !page.present[slot]) {
+                throw new NoSuchElementException("Фильм с id " + filmId + " не найден.");
+            }
+            IntSet likes = page.likes[slot];
+            if (likes == null) {
+                if (!add) {
+                    return false;
+                }
+                likes = new IntSet();
+                page.likes[slot] = likes;
+            }
+            if (!(add ? likes.add(userId) : likes.remove(userId))) {
+                return false;
+            }
+            int old = page.likeCount[slot];
+            page.likeCount[slot] = likes.size();
+            rank(filmId, old, likes.size());
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        likesCount.addAndGet(add ? 1 : -1);
+        return true;
+    }
+
+    // Сначала новый ключ, потом удаление старого: читатель рейтинга не теряет фильм (см. PopularityIndex)
+    private void rank(int filmId, int oldLikes, int likes) {
+        if (likes > 0) {
+            ranking.add(key(likes, filmId));
+        }
+        if (oldLikes > 0 && oldLikes != likes) {
+            ranking.remove(key(oldLikes, filmId));
+        }
+    }
+
+    // Все полосы берутся на запись по возрастанию, как и одна полоса в остальных изменениях, поэтому ни
+    // одна запись не идёт параллельно. Читатель, прочитавший ссылки до переключения, разворачивает их из
+    // прежней арены: её блоки освобождаются сборщиком вместе с последним таким читателем
+    private void compactIfWasteful() {
+        if (!wasteful(strings) || !compaction.tryLock()) {
+            return;
+        }
+        try {
+            long[] stamps = new long[LOCK_STRIPES];
+            for (int i = 0; i < LOCK_STRIPES; i++) {
+                stamps[i] = locks[i].writeLock();
+            }
+            try {
+                StringArena old = strings;
+                if (!wasteful(old)) {
+                    return;
+                }
+                StringArena fresh = new StringArena();
+                for (Page page : pages) {
+                    if (page == null) {
+                        continue;
+                    }
+                    for (int slot = 0; slot < PAGE_SIZE; slot++) {
+                        if (page.present[slot]) {
+                            page.name[slot] = fresh.put(old.get(page.name[slot]));
+                            page.description[slot] = fresh.put(old.get(page.description[slot]));
+                        }
+                    }
+                }
+                strings = fresh;
+            } finally {
+                for (int i = LOCK_STRIPES - 1; i >= 0; i--) {
+                    locks[i].unlockWrite(stamps[i]);
+                }
+            }
+        } finally {
+            compaction.unlock();
+        }
+    }
+
+    private boolean wasteful(StringArena arena) {
+        long wasted = arena.wastedBytes();
+        return wasted >= compactionMinWaste && wasted * 2 > arena.usedBytes();
+    }
+
+    private Film materialize(int id) {
+        Page page = page(id);
+        if (page == null) {
+            return null;
+        }
+        int slot = slot(id);
+        StampedLock lock = lock(id);
+        long stamp = lock.tryOptimisticRead();
+        Row row = read(page, slot);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                row = read(page, slot);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        if (row == null) {
+            return null;
+        }
+        // множество лайков отдаётся без копирования, как живой объект из InMemoryFilmStorage: у популярных
+        // фильмов оно огромное, а копия на каждое чтение превращает getById в O(лайков)
+        return Film.builder()
+                .id(id)
+                .name(row.strings().get(row.name()))
+                .description(row.strings().get(row.description()))
+                .releaseDate(LocalDate.ofEpochDay(row.releaseDay()))
+                .duration(row.duration())
+                .likes(row.likes() != null ? row.likes() : new IntSet())
+                .mpa(row.mpa() != 0 ? mpaCodes.get(row.mpa()) : null)
+                .genres(genres(row.genres()))
+                .build();
+    }
+
+    // Жанры по маске в порядке возрастания id, как их отдают остальные хранилища
+    private List<Genre> genres(long mask) {
+        List<Genre> genres = new ArrayList<>(Long.bitCount(mask));
+        for (long rest = mask; rest != 0; rest &= rest - 1) {
+            genres.add(genreCodes.get(Long.numberOfTrailingZeros(rest) + 1));
+        }
+        if (genres.size() > 1) {
+            genres.sort(Comparator.comparingInt(Genre::id));
+        }
+        return genres;
+    }
+
+    // Флаг присутствия без чтения строки: фильмы не удаляются, поэтому достаточно оптимистичного чтения
+    private boolean exists(int id) {
+        Page page = page(id);
+        if (page == null) {
+            return false;
+        }
+        int slot = slot(id);
+        StampedLock lock = lock(id);
+        long stamp = lock.tryOptimisticRead();
+        boolean present = page.present[slot];
+        if (lock.validate(stamp)) {
+            return present;
+        }
+        stamp = lock.readLock();
+        try {
+            return page.present[slot];
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private Row read(Page page, int slot) {
+        if (!page.present[slot]) {
+            return null;
+        }
+        return new Row(strings, page.name[slot], page.description[slot], page.releaseDay[slot],
+                page.duration[slot], page.likes[slot], page.mpa[slot], page.genres[slot]);
+    }
+
+    private Page page(int id) {
+        Page[] current = pages;
+        int index = id >>> PAGE_BITS;
+        return id > 0 && index < current.length ? current[index] : null;
+    }
+
+    private Page ensurePage(int id) {
+        Page page = page(id);
+        return page != null ? page : addPage(id >>> PAGE_BITS);
+    }
+
+    private Page addPage(int index) {
+        pageGrowth.lock();
+        try {
+            Page[] current = pages;
+            if (index >= current.length) {
+                current = Arrays.copyOf(current, Math.max(index + 1, current.length * 2));
+            }
+            if (current[index] == null) {
+                current[index] = new Page();
+            }
+            // повторная запись volatile-поля публикует и новую страницу внутри прежнего массива
+            pages = current;
+            return current[index];
+        } finally {
+            pageGrowth.unlock();
+        }
+    }
+
+    private StampedLock lock(int id) {
+        return locks[id & (LOCK_STRIPES - 1)];
+    }
+
+    private static int slot(int id) {
+        return id & (PAGE_SIZE - 1);
+    }
+
+    private static long key(int likes, int filmId) {
+        return ((long) (Integer.MAX_VALUE - likes) << 32) | (filmId & 0xFFFFFFFFL);
+    }
+}
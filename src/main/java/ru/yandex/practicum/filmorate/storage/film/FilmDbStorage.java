@@ -0,0 +1,367 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.reference.ReferenceStorage;
+import ru.yandex.practicum.filmorate.util.IntSet;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.*;
+import java.util.NoSuchElementException;
+
+@Component
+@ConditionalOnProperty(name = "filmorate.storage", havingValue = "db")
+@RequiredArgsConstructor
+public class FilmDbStorage implements FilmStorage {
+
+    private static final String SELECT_FILMS =
+            "SELECT film_id, name, description, release_date, duration, rating_id FROM films";
+
+    private static final String INSERT_FILM =
+            "INSERT INTO films (name, description, release_date, duration, rating_id) VALUES (?, ?, ?, ?, ?)";
+
+    private static final String INSERT_GENRE = "INSERT INTO film_genre (film_id, genre_id) VALUES (?, ?)";
+
+    // Пользователь, которого нет в users, пропускается, а не роняет весь batch на внешнем ключе
+    private static final String INSERT_LIKE =
+            "INSERT INTO film_likes (film_id, user_id) SELECT ?, user_id FROM users WHERE user_id = ?";
+
+    private static final String ADD_LIKE =
+            "INSERT INTO film_likes (film_id, user_id) SELECT ?, ? WHERE NOT EXISTS "
+                    + "(SELECT 1 FROM film_likes WHERE film_id = ? AND user_id = ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    // Названия жанров и рейтингов берутся из справочника в памяти, а не соединением с таблицами
+    private final ReferenceStorage referenceStorage;
+
+    @Override
+    @Transactional
+    public Film add(Film film) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(INSERT_FILM, new String[]{"film_id"});
+            setFilmParameters(ps, film);
+            return ps;
+        }, keyHolder);
+        film.setId(Objects.requireNonNull(keyHolder.getKey()).intValue());
+        insertGenres(List.of(film));
+        insertLikes(likesOf(List.of(film)));
+        return film;
+    }
+
+    @Override
+    @Transactional
+    public List<Film> addAll(List<Film> films) {
+        if (films.isEmpty()) {
+            return films;
+        }
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT_FILM, new String[]{"film_id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        setFilmParameters(ps, films.get(i));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return films.size();
+                    }
+                }, keyHolder);
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < films.size(); i++) {
+            films.get(i).setId(((Number) keys.get(i).values().iterator().next()).intValue());
+        }
+        insertGenres(films);
+        insertLikes(likesOf(films));
+        return films;
+    }
+
+    @Override
+    @Transactional
+    public Film update(Film film) {
+        int updated = jdbcTemplate.update(
+                "UPDATE films SET name = ?, description = ?, release_date = ?, duration = ?, rating_id = ? "
+                        + "WHERE film_id = ?",
+                film.getName(), film.getDescription(), Date.valueOf(film.getReleaseDate()),
+                film.getDuration(), film.getMpa() != null ? film.getMpa().id() : null, film.getId());
+        if (updated == 0) {
+            throw new NoSuchElementException("Фильм с id " + film.getId() + " не найден.");
+        }
+        jdbcTemplate.update("DELETE FROM film_genre WHERE film_id = ?", film.getId());
+        insertGenres(List.of(film));
+        jdbcTemplate.update("DELETE FROM film_likes WHERE film_id = ?", film.getId());
+        insertLikes(likesOf(List.of(film)));
+        return film;
+    }
+
+    @Override
+    public List<Film> getAll() {
+        List<Film> films = jdbcTemplate.query(SELECT_FILMS + " ORDER BY film_id", this::mapFilm);
+        Map<Integer, IntSet> likes = new HashMap<>();
+        jdbcTemplate.query("SELECT film_id, user_id FROM film_likes", rs -> {
+            likes.computeIfAbsent(rs.getInt("film_id"), id -> new IntSet()).add(rs.getInt("user_id"));
+        });
+        Map<Integer, List<Genre>> genres = new HashMap<>();
+        jdbcTemplate.query("SELECT film_id, genre_id FROM film_genre ORDER BY film_id, genre_id", rs -> {
+            genres.computeIfAbsent(rs.getInt("film_id"), id -> new ArrayList<>()).add(genreOf(rs));
+        });
+        for (Film film : films) {
+            film.setLikes(likes.get(film.getId()));
+            film.setGenres(genres.get(film.getId()));
+        }
+        return films;
+    }
+
+    @Override
+    public List<Film> getPage(int afterId, int limit) {
+        List<Film> films = jdbcTemplate.query(SELECT_FILMS + " WHERE film_id > ? ORDER BY film_id LIMIT ?",
+                this::mapFilm, afterId, limit);
+        loadLikes(films);
+        loadGenres(films);
+        return films;
+    }
+
+    @Override
+    public Optional<Film> getById(int id) {
+        List<Film> films = jdbcTemplate.query(SELECT_FILMS + " WHERE film_id = ?", this::mapFilm, id);
+        if (films.isEmpty()) {
+            return Optional.empty();
+        }
+        loadLikes(films);
+        loadGenres(films);
+        return Optional.of(films.get(0));
+    }
+
+    // Один запрос IN по различным id, по одному на их лайки и жанры, затем раскладка в порядке ids
+    @Override
+    public List<Film> getByIds(int[] ids) {
+        if (ids.length == 0) {
+            return new ArrayList<>();
+        }
+        List<Film> films = namedJdbcTemplate.query(SELECT_FILMS + " WHERE film_id IN (:ids)",
+                Map.of("ids", Arrays.stream(ids).distinct().boxed().toList()), this::mapFilm);
+        loadLikes(films);
+        loadGenres(films);
+        Map<Integer, Film> byId = new HashMap<>();
+        for (Film film : films) {
+            byId.put(film.getId(), film);
+        }
+        List<Film> result = new ArrayList<>(films.size());
+        for (int id : ids) {
+            Film film = byId.get(id);
+            if (film != null) {
+                result.add(film);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public int[] existingIds(int[] ids) {
+        if (ids.length == 0) {
+            return ids;
+        }
+        return namedJdbcTemplate.queryForList("SELECT film_id FROM films WHERE film_id IN (:ids)",
+                        Map.of("ids", Arrays.stream(ids).distinct().boxed().toList()), Integer.class)
+                .stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    @Override
+    public boolean addLike(int filmId, int userId) {
+        try {
+            return jdbcTemplate.update(ADD_LIKE, filmId, userId, filmId, userId) > 0;
+        } catch (DuplicateKeyException e) {
+            // параллельный запрос успел поставить тот же лайк
+            return false;
+        } catch (DataIntegrityViolationException e) {
+            throw new NoSuchElementException("Фильм с id " + filmId + " не найден.");
+        }
+    }
+
+    @Override
+    public boolean removeLike(int filmId, int userId) {
+        return jdbcTemplate.update("DELETE FROM film_likes WHERE film_id = ? AND user_id = ?", filmId, userId) > 0;
+    }
+
+    @Override
+    @Transactional
+    public boolean[] addLikes(List<FilmLike> likes) {
+        boolean[] added = new boolean[likes.size()];
+        int[] counts = jdbcTemplate.batchUpdate(ADD_LIKE, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                FilmLike like = likes.get(i);
+                ps.setInt(1, like.filmId());
+                ps.setInt(2, like.userId());
+                ps.setInt(3, like.filmId());
+                ps.setInt(4, like.userId());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return likes.size();
+            }
+        });
+        for (int i = 0; i < counts.length; i++) {
+            added[i] = counts[i] > 0;
+        }
+        return added;
+    }
+
+    @Override
+    public List<Film> getPopular(int count) {
+        List<Film> films = jdbcTemplate.query(
+                "SELECT f.film_id, f.name, f.description, f.release_date, f.duration, f.rating_id FROM films f "
+                        + "LEFT JOIN (SELECT film_id, COUNT(*) AS likes_count FROM film_likes GROUP BY film_id) l "
+                        + "ON f.film_id = l.film_id "
+                        + "ORDER BY COALESCE(l.likes_count, 0) DESC, f.film_id LIMIT ?",
+                this::mapFilm, Math.max(count, 0));
+        loadLikes(films);
+        loadGenres(films);
+        return films;
+    }
+
+    @Override
+    public int count() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM films", Integer.class);
+    }
+
+    @Override
+    public long countLikes() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM film_likes", Long.class);
+    }
+
+    // Лайки для набора фильмов одним запросом вместо запроса на каждый фильм
+    private void loadLikes(List<Film> films) {
+        if (films.isEmpty()) {
+            return;
+        }
+        Map<Integer, Film> byId = new HashMap<>();
+        for (Film film : films) {
+            byId.put(film.getId(), film);
+        }
+        namedJdbcTemplate.query("SELECT film_id, user_id FROM film_likes WHERE film_id IN (:ids)",
+                Map.of("ids", byId.keySet()),
+                rs -> {
+                    byId.get(rs.getInt("film_id")).getLikes().add(rs.getInt("user_id"));
+                });
+    }
+
+    // Жанры для набора фильмов одним запросом, по возрастанию id жанра
+    private void loadGenres(List<Film> films) {
+        if (films.isEmpty()) {
+            return;
+        }
+        Map<Integer, Film> byId = new HashMap<>();
+        for (Film film : films) {
+            byId.put(film.getId(), film);
+        }
+        namedJdbcTemplate.query("SELECT film_id, genre_id FROM film_genre WHERE film_id IN (:ids) "
+                        + "ORDER BY film_id, genre_id",
+                Map.of("ids", byId.keySet()),
+                rs -> {
+                    byId.get(rs.getInt("film_id")).getGenres().add(genreOf(rs));
+                });
+    }
+
+    private void insertGenres(List<Film> films) {
+        List<int[]> rows = new ArrayList<>();
+        for (Film film : films) {
+            for (Genre genre : film.getGenres()) {
+                rows.add(new int[]{film.getId(), genre.id()});
+            }
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_GENRE, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setInt(1, rows.get(i)[0]);
+                ps.setInt(2, rows.get(i)[1]);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+    }
+
+    private void insertLikes(List<FilmLike> likes) {
+        if (likes.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_LIKE, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setInt(1, likes.get(i).filmId());
+                ps.setInt(2, likes.get(i).userId());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return likes.size();
+            }
+        });
+    }
+
+    private static List<FilmLike> likesOf(List<Film> films) {
+        List<FilmLike> likes = new ArrayList<>();
+        for (Film film : films) {
+            for (int userId : film.getLikes().toArray()) {
+                likes.add(new FilmLike(film.getId(), userId));
+            }
+        }
+        return likes;
+    }
+
+    private static void setFilmParameters(PreparedStatement ps, Film film) throws SQLException {
+        ps.setString(1, film.getName());
+        ps.setString(2, film.getDescription());
+        ps.setDate(3, Date.valueOf(film.getReleaseDate()));
+        ps.setInt(4, film.getDuration());
+        if (film.getMpa() != null) {
+            ps.setInt(5, film.getMpa().id());
+        } else {
+            ps.setNull(5, Types.INTEGER);
+        }
+    }
+
+    private Genre genreOf(ResultSet rs) throws SQLException {
+        int genreId = rs.getInt("genre_id");
+        return referenceStorage.getGenre(genreId).orElse(new Genre(genreId, null));
+    }
+
+    private Film mapFilm(ResultSet rs, int rowNum) throws SQLException {
+        int ratingId = rs.getInt("rating_id");
+        Mpa mpa = rs.wasNull() ? null : referenceStorage.getMpa(ratingId).orElse(new Mpa(ratingId, null));
+        return Film.builder()
+                .id(rs.getInt("film_id"))
+                .name(rs.getString("name"))
+                .description(rs.getString("description"))
+                .releaseDate(rs.getDate("release_date").toLocalDate())
+                .duration(rs.getInt("duration"))
+                .mpa(mpa)
+                .build();
+    }
+}
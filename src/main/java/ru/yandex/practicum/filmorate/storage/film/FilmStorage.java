@@ -1,6 +1,7 @@
 package ru.yandex.practicum.filmorate.storage.film;
 
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmLike;
 
 import java.util.List;
 import java.util.Optional;
@@ -11,7 +12,37 @@ public interface FilmStorage {
 
     Film update(Film film);
 
+    // Пакетное добавление; фильмы получают id в порядке следования в списке
+    List<Film> addAll(List<Film> films);
+
     List<Film> getAll();
 
+    // Keyset-пагинация: до limit фильмов с id > afterId по возрастанию id
+    List<Film> getPage(int afterId, int limit);
+
     Optional<Film> getById(int id);
+
+    // Фильмы с указанными id в порядке ids, за один проход вместо getById на каждый id;
+    // id, которых нет в хранилище, пропускаются без исключения
+    List<Film> getByIds(int[] ids);
+
+    // Какие из ids есть в хранилище (без повторов) — проверка существования без загрузки фильмов
+    int[] existingIds(int[] ids);
+
+    // true, если лайк действительно добавлен (его ещё не было)
+    boolean addLike(int filmId, int userId);
+
+    // true, если лайк действительно удалён
+    boolean removeLike(int filmId, int userId);
+
+    // Пакетное добавление лайков к существующим фильмам; элемент результата true, если лайк добавлен
+    boolean[] addLikes(List<FilmLike> likes);
+
+    // Фильмы по убыванию количества лайков, при равенстве — по возрастанию id
+    List<Film> getPopular(int count);
+
+    int count();
+
+    // Общее число лайков по всем фильмам
+    long countLikes();
 }
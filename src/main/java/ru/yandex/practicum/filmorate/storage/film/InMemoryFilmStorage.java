@@ -1,41 +1,269 @@
 package ru.yandex.practicum.filmorate.storage.film;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.storage.journal.FilmJournal;
+import ru.yandex.practicum.filmorate.util.StripedLocks;
 
 import java.util.*;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.function.LongSupplier;
 
 @Component
+@ConditionalOnProperty(name = "filmorate.storage", havingValue = "memory", matchIfMissing = true)
 public class InMemoryFilmStorage implements FilmStorage {
 
-    private final Map<Integer, Film> films = new HashMap<>();
+    private final Map<Integer, Film> films = new ConcurrentHashMap<>();
 
-    private int currentId = 1;
+    private final AtomicInteger currentId = new AtomicInteger(1);
+
+    // Изменения существующего фильма идут под блокировкой его полосы, а не в compute карты:
+    // запись в журнал под монитором ячейки закрепляла бы виртуальный поток на несущем
+    private final StripedLocks entries = new StripedLocks();
+
+    private final PopularityIndex popularity = new PopularityIndex();
+
+    // Счётчик ведётся при изменениях, чтобы метрика не обходила все фильмы
+    private final AtomicLong likesCount = new AtomicLong();
+
+    // Журнал на диске; null, если сохранение выключено. Записи добавляются под той же блокировкой,
+    // что и изменение в памяти, поэтому порядок в журнале совпадает с порядком изменений.
+    // Новый или заменённый фильм становится виден только после записи PUT, поэтому они идут под
+    // publication журнала: снимок не начнётся, пока записанный фильм не появится в карте
+    private volatile FilmJournal journal;
+
+    public void attachJournal(FilmJournal journal) {
+        this.journal = journal;
+    }
 
     @Override
     public Film add(Film film) {
-        film.setId(currentId++);
-        films.put(film.getId(), film);
+        awaitDurable(insert(film));
         return film;
     }
 
     @Override
-    public Film update(Film film) {
-        if (!films.containsKey(film.getId())) {
-            throw new NoSuchElementException("Фильм с id " + film.getId() + " не найден.");
+    public List<Film> addAll(List<Film> films) {
+        // одно ожидание на всю пачку: записи журнала фиксируются по порядку
+        long ticket = 0;
+        for (Film film : films) {
+            ticket = insert(film);
         }
-        films.put(film.getId(), film);
+        awaitDurable(ticket);
+        return films;
+    }
+
+    @Override
+    public Film update(Film film) {
+        awaitDurable(published(() -> {
+            Lock entry = entries.of(film.getId());
+            entry.lock();
+            try {
+                Film old = films.get(film.getId());
+                if (old == null) {
+                    throw new NoSuchElementException("Фильм с id " + film.getId() + " не найден.");
+                }
+                popularity.put(film.getId(), film.getLikes().size());
+                likesCount.addAndGet(film.getLikes().size() - old.getLikes().size());
+                long ticket = journalPut(film);
+                films.put(film.getId(), film);
+                return ticket;
+            } finally {
+                entry.unlock();
+            }
+        }));
         return film;
     }
 
+    // Проход по id, как у getPage, поэтому порядок — по возрастанию id. Это не срез на один момент:
+    // каждый фильм берётся в последней опубликованной версии на момент чтения его ячейки, и изменения,
+    // идущие параллельно с обходом, могут попасть в результат частично (позднее без более раннего).
+    // Целостный срез потребовал бы останавливать запись на время обхода всей коллекции
     @Override
     public List<Film> getAll() {
-        return new ArrayList<>(films.values());
+        return getPage(0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Film> getPage(int afterId, int limit) {
+        // id выдаются подряд и не удаляются, поэтому страница — это прямой проход по диапазону id
+        List<Film> result = new ArrayList<>(Math.min(limit, films.size()));
+        int lastId = currentId.get();
+        for (int id = Math.max(afterId, 0) + 1; id < lastId && result.size() < limit; id++) {
+            Film film = films.get(id);
+            if (film != null) {
+                result.add(film);
+            }
+        }
+        return result;
     }
 
     @Override
     public Optional<Film> getById(int id) {
         return Optional.ofNullable(films.get(id));
     }
+
+    @Override
+    public List<Film> getByIds(int[] ids) {
+        List<Film> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            Film film = films.get(id);
+            if (film != null) {
+                result.add(film);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public int[] existingIds(int[] ids) {
+        return Arrays.stream(ids).filter(films::containsKey).distinct().toArray();
+    }
+
+    @Override
+    public boolean addLike(int filmId, int userId) {
+        long[] ticket = new long[1];
+        boolean changed = changeLike(filmId, userId, true, ticket);
+        awaitDurable(ticket[0]);
+        return changed;
+    }
+
+    @Override
+    public boolean removeLike(int filmId, int userId) {
+        long[] ticket = new long[1];
+        boolean changed = changeLike(filmId, userId, false, ticket);
+        awaitDurable(ticket[0]);
+        return changed;
+    }
+
+    @Override
+    public boolean[] addLikes(List<FilmLike> likes) {
+        boolean[] added = new boolean[likes.size()];
+        long[] ticket = new long[1];
+        for (int i = 0; i < likes.size(); i++) {
+            FilmLike like = likes.get(i);
+            added[i] = changeLike(like.filmId(), like.userId(), true, ticket);
+        }
+        awaitDurable(ticket[0]);
+        return added;
+    }
+
+    @Override
+    public List<Film> getPopular(int count) {
+        List<Film> result = new ArrayList<>();
+        for (int filmId : popularity.top(count)) {
+            Film film = films.get(filmId);
+            if (film != null) {
+                result.add(film);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public int count() {
+        return films.size();
+    }
+
+    @Override
+    public long countLikes() {
+        return likesCount.get();
+    }
+
+    // Восстановление из журнала: фильм с уже назначенным id, без записи в журнал.
+    // Индекс популярности и счётчик лайков пересчитываются один раз в finishRestore
+    public void restore(Film film) {
+        films.put(film.getId(), film);
+        currentId.accumulateAndGet(film.getId() + 1, Math::max);
+    }
+
+    public void restoreLike(int filmId, int userId, boolean liked) {
+        Film film = films.get(filmId);
+        if (film != null) {
+            if (liked) {
+                film.getLikes().add(userId);
+            } else {
+                film.getLikes().remove(userId);
+            }
+        }
+    }
+
+    public void finishRestore() {
+        long likes = 0;
+        for (Film film : films.values()) {
+            popularity.put(film.getId(), film.getLikes().size());
+            likes += film.getLikes().size();
+        }
+        likesCount.set(likes);
+    }
+
+    private long insert(Film film) {
+        film.setId(currentId.getAndIncrement());
+        return published(() -> {
+            // в журнал раньше публикации: до неё фильм с новым id никто не может изменить
+            long ticket = journalPut(film);
+            films.put(film.getId(), film);
+            popularity.put(film.getId(), film.getLikes().size());
+            likesCount.addAndGet(film.getLikes().size());
+            return ticket;
+        });
+    }
+
+    // Блокировка записи фильма не даёт лайку потеряться при параллельном update.
+    // Лайк меняет уже видимый фильм до записи в журнал, поэтому publication здесь не нужна
+    private boolean changeLike(int filmId, int userId, boolean add, long[] ticket) {
+        Lock entry = entries.of(filmId);
+        entry.lock();
+        try {
+            Film film = films.get(filmId);
+            if (film == null) {
+                throw new NoSuchElementException("Фильм с id " + filmId + " не найден.");
+            }
+            boolean changed = add ? film.getLikes().add(userId) : film.getLikes().remove(userId);
+            if (changed) {
+                popularity.put(filmId, film.getLikes().size());
+                likesCount.addAndGet(add ? 1 : -1);
+                FilmJournal journal = this.journal;
+                if (journal != null) {
+                    ticket[0] = add ? journal.likeAdded(filmId, userId) : journal.likeRemoved(filmId, userId);
+                }
+            }
+            return changed;
+        } finally {
+            entry.unlock();
+        }
+    }
+
+    // Запись в журнал и публикация под общей блокировкой границы сегментов; возвращает номер записи
+    private long published(LongSupplier change) {
+        FilmJournal journal = this.journal;
+        if (journal == null) {
+            return change.getAsLong();
+        }
+        Lock publication = journal.publication();
+        publication.lock();
+        try {
+            return change.getAsLong();
+        } finally {
+            publication.unlock();
+        }
+    }
+
+    private long journalPut(Film film) {
+        FilmJournal journal = this.journal;
+        return journal != null ? journal.put(film) : 0;
+    }
+
+    private void awaitDurable(long ticket) {
+        FilmJournal journal = this.journal;
+        if (journal != null && ticket > 0) {
+            journal.await(ticket);
+        }
+    }
 }
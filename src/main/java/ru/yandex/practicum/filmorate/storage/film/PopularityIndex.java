@@ -0,0 +1,99 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.IntPredicate;
+
+// Рейтинг фильмов по лайкам, обновляемый инкрементально. Ключ упаковывает пару
+// (лайки по убыванию, id по возрастанию) в один long, поэтому первые N элементов — это ответ на popular?count=N
+public class PopularityIndex {
+
+    private final ConcurrentSkipListSet<Long> ranking = new ConcurrentSkipListSet<>();
+
+    private final Map<Integer, Integer> counts = new ConcurrentHashMap<>();
+
+    public void put(int filmId, int likes) {
+        counts.compute(filmId, (id, old) -> {
+            // Сначала добавляем новый ключ, потом удаляем старый: читатель может увидеть фильм
+            // дважды (дубликат отбрасывается в top), но никогда не потеряет его
+            ranking.add(key(likes, id));
+            if (old != null && old != likes) {
+                ranking.remove(key(old, id));
+            }
+            return likes;
+        });
+    }
+
+    public void remove(int filmId) {
+        counts.computeIfPresent(filmId, (id, old) -> {
+            ranking.remove(key(old, id));
+            return null;
+        });
+    }
+
+    public int getLikes(int filmId) {
+        return counts.getOrDefault(filmId, 0);
+    }
+
+    public int size() {
+        return counts.size();
+    }
+
+    public List<Integer> top(int count) {
+        long[] keys = topKeys(count);
+        List<Integer> result = new ArrayList<>(keys.length);
+        for (long key : keys) {
+            result.add(filmId(key));
+        }
+        return result;
+    }
+
+    // Первые count ключей рейтинга без повторов фильмов; ключи разных индексов сравниваются
+    // как числа, поэтому отсортированные ответы нескольких индексов можно слить в один
+    public long[] topKeys(int count) {
+        long[] result = new long[Math.max(Math.min(count, counts.size()), 0)];
+        Set<Integer> seen = new HashSet<>();
+        int size = 0;
+        for (Long key : ranking) {
+            if (size >= result.length) {
+                break;
+            }
+            if (seen.add(filmId(key))) {
+                result[size++] = key;
+            }
+        }
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    // Первые count фильмов рейтинга, для которых filter вернул true; обход останавливается,
+    // как только они набраны
+    public int[] top(int count, IntPredicate filter) {
+        int[] result = new int[Math.max(Math.min(count, counts.size()), 0)];
+        Set<Integer> seen = new HashSet<>();
+        int size = 0;
+        for (Long key : ranking) {
+            if (size >= result.length) {
+                break;
+            }
+            int filmId = filmId(key);
+            if (seen.add(filmId) && filter.test(filmId)) {
+                result[size++] = filmId;
+            }
+        }
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    private static long key(int likes, int filmId) {
+        return ((long) (Integer.MAX_VALUE - likes) << 32) | (filmId & 0xFFFFFFFFL);
+    }
+
+    public static int filmId(long key) {
+        return (int) key;
+    }
+}
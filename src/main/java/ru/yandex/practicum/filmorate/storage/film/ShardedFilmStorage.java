@@ -0,0 +1,232 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.storage.Shards;
+
+import java.util.*;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+// Фильмы в памяти, разделённые по id на независимые шарды: у каждого своя карта, свой рейтинг
+// популярности и свой счётчик лайков, поэтому записи в разные шарды не делят ни одной структуры.
+// id выдаются глобально подряд, фильм живёт в шарде id % shards (см. Shards). Чтения по всем шардам идут
+// параллельно в общем ForkJoinPool: getAll собирает шарды в общий массив по id, getPopular берёт
+// у каждого шарда его первые count и сливает отсортированные ответы. Журнал на диск не поддерживается.
+@Component
+@ConditionalOnProperty(name = "filmorate.storage", havingValue = "sharded")
+public class ShardedFilmStorage implements FilmStorage {
+
+    private static final class Shard {
+        final Map<Integer, Film> films = new ConcurrentHashMap<>();
+        final PopularityIndex popularity = new PopularityIndex();
+        final AtomicLong likes = new AtomicLong();
+    }
+
+    private final Shard[] shards;
+
+    private final AtomicInteger currentId = new AtomicInteger(1);
+
+    @Autowired
+    public ShardedFilmStorage(@Value("${filmorate.storage.shards:0}") int shards) {
+        int count = Shards.count(shards);
+        this.shards = new Shard[count];
+        for (int i = 0; i < count; i++) {
+            this.shards[i] = new Shard();
+        }
+    }
+
+    @Override
+    public Film add(Film film) {
+        film.setId(currentId.getAndIncrement());
+        insert(film);
+        return film;
+    }
+
+    @Override
+    public List<Film> addAll(List<Film> films) {
+        // id назначаются по порядку списка, вставка идёт параллельно по шардам
+        for (Film film : films) {
+            film.setId(currentId.getAndIncrement());
+        }
+        Shards.forEach(shards.length, films.size(), i -> films.get(i).getId(), i -> insert(films.get(i)));
+        return films;
+    }
+
+    @Override
+    public Film update(Film film) {
+        Shard shard = shard(film.getId());
+        Film updated = shard.films.computeIfPresent(film.getId(), (id, old) -> {
+            shard.popularity.put(id, film.getLikes().size());
+            shard.likes.addAndGet(film.getLikes().size() - old.getLikes().size());
+            return film;
+        });
+        if (updated == null) {
+            throw new NoSuchElementException("Фильм с id " + film.getId() + " не найден.");
+        }
+        return film;
+    }
+
+    @Override
+    public List<Film> getAll() {
+        // каждый шард раскладывает свои фильмы по ячейкам id: ячейки разных шардов не пересекаются
+        Film[] byId = new Film[currentId.get()];
+        IntStream.range(0, shards.length).parallel().forEach(index -> {
+            for (Film film : shards[index].films.values()) {
+                if (film.getId() < byId.length) {
+                    byId[film.getId()] = film;
+                }
+            }
+        });
+        List<Film> result = new ArrayList<>(count());
+        for (Film film : byId) {
+            if (film != null) {
+                result.add(film);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Film> getPage(int afterId, int limit) {
+        // id выдаются подряд и не удаляются: страница — прямой проход по диапазону id, каждый в своём шарде
+        List<Film> result = new ArrayList<>(Math.min(limit, count()));
+        int lastId = currentId.get();
+        for (int id = Math.max(afterId, 0) + 1; id < lastId && result.size() < limit; id++) {
+            Film film = shard(id).films.get(id);
+            if (film != null) {
+                result.add(film);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Optional<Film> getById(int id) {
+        return Optional.ofNullable(shard(id).films.get(id));
+    }
+
+    @Override
+    public List<Film> getByIds(int[] ids) {
+        List<Film> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            Film film = shard(id).films.get(id);
+            if (film != null) {
+                result.add(film);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public int[] existingIds(int[] ids) {
+        return Arrays.stream(ids).filter(id -> shard(id).films.containsKey(id)).distinct().toArray();
+    }
+
+    @Override
+    public boolean addLike(int filmId, int userId) {
+        return changeLike(filmId, userId, true);
+    }
+
+    @Override
+    public boolean removeLike(int filmId, int userId) {
+        return changeLike(filmId, userId, false);
+    }
+
+    @Override
+    public boolean[] addLikes(List<FilmLike> likes) {
+        boolean[] added = new boolean[likes.size()];
+        // каждый элемент результата пишет ровно одна задача — та, что обрабатывает шард фильма
+        Shards.forEach(shards.length, likes.size(), i -> likes.get(i).filmId(), i -> {
+            FilmLike like = likes.get(i);
+            added[i] = changeLike(like.filmId(), like.userId(), true);
+        });
+        return added;
+    }
+
+    @Override
+    public List<Film> getPopular(int count) {
+        if (count <= 0) {
+            return new ArrayList<>();
+        }
+        long[][] tops = IntStream.range(0, shards.length).parallel()
+                .mapToObj(index -> shards[index].popularity.topKeys(count))
+                .toArray(long[][]::new);
+        // k-way слияние: в очереди по одному текущему ключу от каждого шарда, меньший ключ — выше в рейтинге
+        int[] positions = new int[tops.length];
+        PriorityQueue<Integer> heads = new PriorityQueue<>(Math.max(tops.length, 1),
+                Comparator.comparingLong(index -> tops[index][positions[index]]));
+        for (int index = 0; index < tops.length; index++) {
+            if (tops[index].length > 0) {
+                heads.add(index);
+            }
+        }
+        List<Film> result = new ArrayList<>(Math.min(count, count()));
+        while (result.size() < count && !heads.isEmpty()) {
+            int index = heads.poll();
+            int filmId = PopularityIndex.filmId(tops[index][positions[index]]);
+            Film film = shards[index].films.get(filmId);
+            if (film != null) {
+                result.add(film);
+            }
+            if (++positions[index] < tops[index].length) {
+                heads.add(index);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public int count() {
+        int count = 0;
+        for (Shard shard : shards) {
+            count += shard.films.size();
+        }
+        return count;
+    }
+
+    @Override
+    public long countLikes() {
+        long likes = 0;
+        for (Shard shard : shards) {
+            likes += shard.likes.get();
+        }
+        return likes;
+    }
+
+    private void insert(Film film) {
+        Shard shard = shard(film.getId());
+        shard.films.put(film.getId(), film);
+        shard.popularity.put(film.getId(), film.getLikes().size());
+        shard.likes.addAndGet(film.getLikes().size());
+    }
+
+    // computeIfPresent держит блокировку ячейки, поэтому лайк не теряется при параллельном update
+    private boolean changeLike(int filmId, int userId, boolean add) {
+        Shard shard = shard(filmId);
+        boolean[] changed = new boolean[1];
+        Film film = shard.films.computeIfPresent(filmId, (id, f) -> {
+            changed[0] = add ? f.getLikes().add(userId) : f.getLikes().remove(userId);
+            if (changed[0]) {
+                shard.popularity.put(id, f.getLikes().size());
+                shard.likes.addAndGet(add ? 1 : -1);
+            }
+            return f;
+        });
+        if (film == null) {
+            throw new NoSuchElementException("Фильм с id " + filmId + " не найден.");
+        }
+        return changed[0];
+    }
+
+    private Shard shard(int id) {
+        return shards[Shards.index(id, shards.length)];
+    }
+}
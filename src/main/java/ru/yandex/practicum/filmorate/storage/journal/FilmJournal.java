@@ -0,0 +1,161 @@
+package ru.yandex.practicum.filmorate.storage.journal;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.util.IntSet;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Журнал и снимки InMemoryFilmStorage. Запись PUT хранит фильм целиком вместе с лайками,
+// поэтому снимок — это просто последовательность PUT, а восстановление — их проигрывание.
+// PUT_V2 добавляет рейтинг и жанры (id и название, чтобы восстановление не зависело от справочника);
+// записи PUT из журналов прежнего формата читаются как фильмы без них.
+public final class FilmJournal implements Closeable {
+
+    private static final byte PUT = 1;
+    private static final byte LIKE_ADDED = 2;
+    private static final byte LIKE_REMOVED = 3;
+    private static final byte PUT_V2 = 4;
+
+    private static final String SNAPSHOT = "snapshot.bin";
+
+    private final Path dir;
+
+    private final Journal journal;
+
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+
+    private FilmJournal(Path dir, Journal journal) {
+        this.dir = dir;
+        this.journal = journal;
+    }
+
+    // Загружает последний снимок, доигрывает хвост журнала и открывает журнал для новых записей
+    public static FilmJournal open(Path dir, boolean fsync, InMemoryFilmStorage storage) throws IOException {
+        long first = Snapshot.read(dir.resolve(SNAPSHOT), record -> restore(storage, record)).orElse(0);
+        Journal.replay(dir, first, record -> restore(storage, record));
+        storage.finishRestore();
+        return new FilmJournal(dir, new Journal(dir, fsync));
+    }
+
+    public long put(Film film) {
+        return journal.append(encode(film));
+    }
+
+    public long likeAdded(int filmId, int userId) {
+        return journal.append(Records.pair(LIKE_ADDED, filmId, userId));
+    }
+
+    public long likeRemoved(int filmId, int userId) {
+        return journal.append(Records.pair(LIKE_REMOVED, filmId, userId));
+    }
+
+    public void await(long seq) {
+        journal.await(seq);
+    }
+
+    // Держится хранилищем от записи в журнал до публикации изменения (см. Journal.publication)
+    public Lock publication() {
+        return journal.publication();
+    }
+
+    // Новые записи уходят в свежий сегмент, снимок пишется параллельно с ними; всё, что изменится
+    // во время обхода, попадёт в этот сегмент и будет доиграно поверх снимка. Записи старых сегментов
+    // к началу обхода уже видны в хранилище: rotate ждёт изменения, которые записаны и не опубликованы
+    public void snapshot(InMemoryFilmStorage storage) throws IOException {
+        snapshotLock.lock();
+        try {
+            long first = journal.rotate();
+            try (Snapshot snapshot = Snapshot.create(dir.resolve(SNAPSHOT), first)) {
+                for (Film film : storage.getAll()) {
+                    snapshot.write(encode(film));
+                }
+                snapshot.commit();
+            }
+            journal.deleteSegmentsBefore(first);
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        journal.close();
+    }
+
+    private static ByteBuffer encode(Film film) {
+        byte[] name = Records.utf8(film.getName());
+        byte[] description = Records.utf8(film.getDescription());
+        int[] likes = film.getLikes().toArray();
+        byte[] mpaName = film.getMpa() != null ? Records.utf8(film.getMpa().name()) : null;
+        List<Genre> genres = film.getGenres();
+        byte[][] genreNames = new byte[genres.size()][];
+        int genresSize = Integer.BYTES;
+        for (int i = 0; i < genres.size(); i++) {
+            genreNames[i] = Records.utf8(genres.get(i).name());
+            genresSize += Integer.BYTES + Records.sizeOf(genreNames[i]);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(1 + Integer.BYTES + Records.sizeOf(name) + Records.sizeOf(description)
+                + Long.BYTES + Integer.BYTES + Records.sizeOf(likes)
+                + Integer.BYTES + Records.sizeOf(mpaName) + genresSize);
+        buffer.put(PUT_V2);
+        buffer.putInt(film.getId());
+        Records.putString(buffer, name);
+        Records.putString(buffer, description);
+        Records.putDate(buffer, film.getReleaseDate());
+        buffer.putInt(film.getDuration());
+        Records.putInts(buffer, likes);
+        // рейтинг с id 0 — рейтинга нет
+        buffer.putInt(film.getMpa() != null ? film.getMpa().id() : 0);
+        Records.putString(buffer, mpaName);
+        buffer.putInt(genres.size());
+        for (int i = 0; i < genres.size(); i++) {
+            buffer.putInt(genres.get(i).id());
+            Records.putString(buffer, genreNames[i]);
+        }
+        return buffer.flip();
+    }
+
+    private static Film decode(ByteBuffer record, boolean withReferences) {
+        Film film = Film.builder()
+                .id(record.getInt())
+                .name(Records.getString(record))
+                .description(Records.getString(record))
+                .releaseDate(Records.getDate(record))
+                .duration(record.getInt())
+                .likes(IntSet.of(Records.getInts(record)))
+                .build();
+        if (withReferences) {
+            int mpaId = record.getInt();
+            String mpaName = Records.getString(record);
+            film.setMpa(mpaId != 0 ? new Mpa(mpaId, mpaName) : null);
+            int count = record.getInt();
+            List<Genre> genres = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                genres.add(new Genre(record.getInt(), Records.getString(record)));
+            }
+            film.setGenres(genres);
+        }
+        return film;
+    }
+
+    private static void restore(InMemoryFilmStorage storage, ByteBuffer record) {
+        byte type = record.get();
+        switch (type) {
+            case PUT -> storage.restore(decode(record, false));
+            case PUT_V2 -> storage.restore(decode(record, true));
+            case LIKE_ADDED -> storage.restoreLike(record.getInt(), record.getInt(), true);
+            case LIKE_REMOVED -> storage.restoreLike(record.getInt(), record.getInt(), false);
+            default -> throw new IllegalStateException("Неизвестный тип записи журнала фильмов: " + type);
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package ru.yandex.practicum.filmorate.storage.journal;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+// Журнал записей в сегментах journal-<номер>.log. Запись: длина, CRC32C и тело.
+// Групповая фиксация: писатели только копируют запись в буфер, отдельный поток сбрасывает
+// накопленное одной записью в файл и одним force, после чего будит всех, кто ждёт своей записи.
+@Slf4j
+public final class Journal implements Closeable {
+
+    static final int HEADER_SIZE = 8;
+
+    // Запись больше этого размера при чтении считается повреждённой
+    static final int MAX_RECORD_SIZE = 256 << 20;
+
+    private static final long MAP_CHUNK = 512L << 20;
+
+    private final Path dir;
+
+    private final boolean fsync;
+
+    // Блокировка буфера: берут писатели, держат её недолго
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition pendingNotEmpty = lock.newCondition();
+
+    private final Condition durable = lock.newCondition();
+
+    // Блокировка файла: поток записи и rotate, всегда берётся раньше lock
+    private final ReentrantLock ioLock = new ReentrantLock();
+
+    // Граница сегментов: хранилище держит общую блокировку от append до публикации изменения в памяти,
+    // rotate переключает буфер под исключительной. Поэтому снимок, начатый после rotate, видит всё,
+    // что попало в предыдущие сегменты
+    private final ReentrantReadWriteLock boundary = new ReentrantReadWriteLock();
+
+    private final CRC32C crc = new CRC32C();
+
+    private ByteBuffer pending = ByteBuffer.allocate(1 << 20);
+
+    private ByteBuffer writing = ByteBuffer.allocate(1 << 20);
+
+    private long appendedSeq;
+
+    private long durableSeq;
+
+    private long segment;
+
+    private FileChannel channel;
+
+    private IOException failure;
+
+    private volatile boolean closed;
+
+    public Journal(Path dir, boolean fsync) {
+        this.dir = dir;
+        this.fsync = fsync;
+        try {
+            Files.createDirectories(dir);
+            List<Long> segments = segments(dir);
+            // новые записи всегда идут в новый сегмент: хвост старого мог оборваться при сбое
+            segment = segments.isEmpty() ? 1 : segments.get(segments.size() - 1) + 1;
+            channel = open(segment);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Thread.ofPlatform().name("filmorate-journal-" + dir.getFileName()).daemon().start(this::writeLoop);
+    }
+
+    // Добавляет запись в очередь на запись; возвращает номер, который передаётся в await
+    public long append(ByteBuffer record) {
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Журнал закрыт");
+            }
+            int length = record.remaining();
+            if (pending.remaining() < HEADER_SIZE + length) {
+                pending = grow(pending, HEADER_SIZE + length);
+            }
+            crc.reset();
+            crc.update(record.duplicate());
+            pending.putInt(length);
+            pending.putInt((int) crc.getValue());
+            pending.put(record);
+            pendingNotEmpty.signal();
+            return ++appendedSeq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Ждёт, пока запись с номером seq и все предыдущие окажутся на диске
+    public void await(long seq) {
+        lock.lock();
+        try {
+            while (durableSeq < seq) {
+                if (failure != null) {
+                    throw new UncheckedIOException("Ошибка записи журнала", failure);
+                }
+                durable.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Общая блокировка границы сегментов, берётся раньше блокировок хранилища и не держится в await
+    public Lock publication() {
+        return boundary.readLock();
+    }
+
+    // Закрывает текущий сегмент и начинает новый; возвращает номер нового сегмента.
+    // Все записи, добавленные до вызова, оказываются в предыдущих сегментах. Под lock только
+    // забирается буфер: запись и force идут без неё, писатели тем временем копят записи для нового сегмента
+    public long rotate() throws IOException {
+        ioLock.lock();
+        try {
+            long seq;
+            boundary.writeLock().lock();
+            try {
+                seq = takePending();
+            } finally {
+                boundary.writeLock().unlock();
+            }
+            write(writing, seq);
+            channel.close();
+            segment++;
+            channel = open(segment);
+            return segment;
+        } finally {
+            ioLock.unlock();
+        }
+    }
+
+    // Сегменты до указанного уже покрыты снимком
+    public void deleteSegmentsBefore(long first) throws IOException {
+        for (long number : segments(dir)) {
+            if (number < first) {
+                Files.deleteIfExists(segmentPath(dir, number));
+            }
+        }
+    }
+
+    // Проигрывает записи всех сегментов начиная с first по порядку
+    public static void replay(Path dir, long first, Consumer<ByteBuffer> handler) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        for (long number : segments(dir)) {
+            if (number >= first) {
+                Path file = segmentPath(dir, number);
+                long end = read(file, 0, handler);
+                if (end < Files.size(file)) {
+                    log.warn("Сегмент {} обрывается на позиции {}, остаток пропущен", file, end);
+                }
+            }
+        }
+    }
+
+    // Читает записи файла с позиции from через отображение в память; возвращает позицию
+    // после последней целой записи — на оборванной или повреждённой записи чтение останавливается
+    static long read(Path file, long from, Consumer<ByteBuffer> handler) throws IOException {
+        CRC32C checksum = new CRC32C();
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = in.size();
+            long position = from;
+            while (position < size) {
+                MappedByteBuffer map = in.map(FileChannel.MapMode.READ_ONLY, position, Math.min(size - position, MAP_CHUNK));
+                while (map.remaining() >= HEADER_SIZE) {
+                    int start = map.position();
+                    int length = map.getInt();
+                    int expected = map.getInt();
+                    if (length <= 0 || length > MAX_RECORD_SIZE) {
+                        return position + start;
+                    }
+                    if (map.remaining() < length) {
+                        map.position(start);
+                        break;
+                    }
+                    ByteBuffer body = map.slice(map.position(), length);
+                    checksum.reset();
+                    checksum.update(body.duplicate());
+                    if ((int) checksum.getValue() != expected) {
+                        return position + start;
+                    }
+                    handler.accept(body);
+                    map.position(map.position() + length);
+                }
+                if (map.position() == 0) {
+                    return position;
+                }
+                position += map.position();
+            }
+            return position;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        ioLock.lock();
+        try {
+            lock.lock();
+            try {
+                closed = true;
+                pendingNotEmpty.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            // остаток пишется без lock, как и в потоке записи
+            long seq = takePending();
+            write(writing, seq);
+            channel.close();
+        } finally {
+            ioLock.unlock();
+        }
+    }
+
+    private void writeLoop() {
+        while (true) {
+            // ждём данных без ioLock, иначе rotate и close не дождались бы простаивающего потока
+            lock.lock();
+            try {
+                while (pending.position() == 0 && !closed) {
+                    pendingNotEmpty.awaitUninterruptibly();
+                }
+                if (closed) {
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+            ioLock.lock();
+            try {
+                // rotate мог успеть сбросить буфер сам, тогда writing пуст и запись ничего не делает
+                long seq = takePending();
+                write(writing, seq);
+            } finally {
+                ioLock.unlock();
+            }
+        }
+    }
+
+    // Вызывается под ioLock: меняет буферы местами, накопленное оказывается в writing.
+    // Возвращает номер последней записи в нём
+    private long takePending() {
+        lock.lock();
+        try {
+            ByteBuffer full = pending;
+            pending = writing;
+            writing = full;
+            return appendedSeq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Вызывается под ioLock; буфер после записи очищается
+    private void write(ByteBuffer buffer, long seq) {
+        if (buffer.position() == 0) {
+            return;
+        }
+        IOException error = null;
+        try {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (fsync) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            log.error("Не удалось записать журнал {}", dir, e);
+            error = e;
+        } finally {
+            buffer.clear();
+        }
+        lock.lock();
+        try {
+            if (error != null) {
+                failure = error;
+            } else {
+                durableSeq = Math.max(durableSeq, seq);
+            }
+            durable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private FileChannel open(long number) throws IOException {
+        return FileChannel.open(segmentPath(dir, number),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private static ByteBuffer grow(ByteBuffer buffer, int needed) {
+        int capacity = buffer.capacity();
+        while (capacity - buffer.position() < needed) {
+            capacity *= 2;
+        }
+        ByteBuffer grown = ByteBuffer.allocate(capacity);
+        buffer.flip();
+        grown.put(buffer);
+        return grown;
+    }
+
+    private static Path segmentPath(Path dir, long number) {
+        return dir.resolve(String.format("journal-%016d.log", number));
+    }
+
+    private static List<Long> segments(Path dir) throws IOException {
+        List<Long> numbers = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith("journal-") && name.endsWith(".log"))
+                    .forEach(name -> numbers.add(Long.parseLong(name.substring(8, name.length() - 4))));
+        }
+        numbers.sort(null);
+        return numbers;
+    }
+}
@@ -0,0 +1,77 @@
+package ru.yandex.practicum.filmorate.storage.journal;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+// Кодирование полей записей журнала и снимков
+final class Records {
+
+    private static final long NO_DATE = Long.MIN_VALUE;
+
+    private Records() {
+    }
+
+    static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    static int sizeOf(byte[] utf8) {
+        return Integer.BYTES + (utf8 == null ? 0 : utf8.length);
+    }
+
+    // null кодируется длиной -1
+    static void putString(ByteBuffer buffer, byte[] utf8) {
+        if (utf8 == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(utf8.length);
+            buffer.put(utf8);
+        }
+    }
+
+    static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] utf8 = new byte[length];
+        buffer.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    static void putDate(ByteBuffer buffer, LocalDate date) {
+        buffer.putLong(date == null ? NO_DATE : date.toEpochDay());
+    }
+
+    static LocalDate getDate(ByteBuffer buffer) {
+        long epochDay = buffer.getLong();
+        return epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay);
+    }
+
+    static int sizeOf(int[] values) {
+        return Integer.BYTES * (1 + values.length);
+    }
+
+    static void putInts(ByteBuffer buffer, int[] values) {
+        buffer.putInt(values.length);
+        buffer.asIntBuffer().put(values);
+        buffer.position(buffer.position() + Integer.BYTES * values.length);
+    }
+
+    static int[] getInts(ByteBuffer buffer) {
+        int[] values = new int[buffer.getInt()];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + Integer.BYTES * values.length);
+        return values;
+    }
+
+    // Запись-связь: тип и два id (лайк или дружба)
+    static ByteBuffer pair(byte type, int first, int second) {
+        return ByteBuffer.allocate(1 + 2 * Integer.BYTES)
+                .put(type)
+                .putInt(first)
+                .putInt(second)
+                .flip();
+    }
+}
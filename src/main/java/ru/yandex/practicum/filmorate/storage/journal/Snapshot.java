@@ -0,0 +1,118 @@
+package ru.yandex.practicum.filmorate.storage.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.OptionalLong;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+// Снимок хранилища: заголовок (сигнатура, версия, первый сегмент журнала после снимка)
+// и записи в том же формате, что и в журнале. Пишется через отображённые в память окна файла
+// во временный файл, который затем атомарно заменяет предыдущий снимок.
+final class Snapshot implements Closeable {
+
+    private static final int MAGIC = 0x464D5350;
+
+    private static final int VERSION = 1;
+
+    private static final int FILE_HEADER_SIZE = 16;
+
+    private static final long WINDOW = 64L << 20;
+
+    private final Path target;
+
+    private final Path temp;
+
+    private final FileChannel channel;
+
+    private final CRC32C crc = new CRC32C();
+
+    private MappedByteBuffer window;
+
+    private long windowStart;
+
+    private Snapshot(Path target, long firstSegment) throws IOException {
+        this.target = target;
+        this.temp = target.resolveSibling(target.getFileName() + ".tmp");
+        this.channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ensure(FILE_HEADER_SIZE);
+        window.putInt(MAGIC);
+        window.putInt(VERSION);
+        window.putLong(firstSegment);
+    }
+
+    static Snapshot create(Path target, long firstSegment) throws IOException {
+        return new Snapshot(target, firstSegment);
+    }
+
+    void write(ByteBuffer record) throws IOException {
+        int length = record.remaining();
+        ensure(Journal.HEADER_SIZE + length);
+        crc.reset();
+        crc.update(record.duplicate());
+        window.putInt(length);
+        window.putInt((int) crc.getValue());
+        window.put(record);
+    }
+
+    // Дописывает снимок на диск и подменяет им предыдущий
+    void commit() throws IOException {
+        long end = windowStart + window.position();
+        window.force();
+        window = null;
+        channel.truncate(end);
+        channel.force(true);
+        channel.close();
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel.isOpen()) {
+            channel.close();
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // Читает снимок, передавая записи обработчику; возвращает первый сегмент журнала для доигрывания
+    static OptionalLong read(Path file, Consumer<ByteBuffer> handler) throws IOException {
+        if (!Files.exists(file)) {
+            return OptionalLong.empty();
+        }
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            in.read(header, 0);
+        }
+        header.flip();
+        if (header.remaining() < FILE_HEADER_SIZE || header.getInt() != MAGIC || header.getInt() != VERSION) {
+            throw new IOException("Файл " + file + " не является снимком хранилища");
+        }
+        long firstSegment = header.getLong();
+        long end = Journal.read(file, FILE_HEADER_SIZE, handler);
+        if (end < Files.size(file)) {
+            throw new IOException("Снимок " + file + " повреждён на позиции " + end);
+        }
+        return OptionalLong.of(firstSegment);
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (window != null && window.remaining() >= bytes) {
+            return;
+        }
+        long position = 0;
+        if (window != null) {
+            position = windowStart + window.position();
+            window.force();
+        }
+        window = channel.map(FileChannel.MapMode.READ_WRITE, position, Math.max(WINDOW, bytes));
+        windowStart = position;
+    }
+}
@@ -0,0 +1,126 @@
+package ru.yandex.practicum.filmorate.storage.journal;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.PriorityOrdered;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.film.ColumnarFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.ShardedFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Подключает журналы к in-memory хранилищам. Восстановление идёт при создании бина хранилища,
+// то есть раньше, чем его получат сервисы, которые читают данные при старте.
+// PriorityOrdered — чтобы получить само хранилище, а не прокси с метриками. Такой бин создаётся
+// раньше внедрения через конструктор, поэтому настройки читаются из Environment.
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "filmorate.journal.enabled", havingValue = "true")
+public class StorageJournals implements BeanPostProcessor, PriorityOrdered, EnvironmentAware, DisposableBean {
+
+    private Path dir;
+
+    private boolean fsync;
+
+    private Duration snapshotInterval;
+
+    private final ScheduledExecutorService scheduler =
+            Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("filmorate-snapshot").daemon().factory());
+
+    private final List<Snapshotter> snapshotters = new CopyOnWriteArrayList<>();
+
+    private final List<Closeable> journals = new CopyOnWriteArrayList<>();
+
+    @FunctionalInterface
+    private interface Snapshotter {
+        void snapshot() throws IOException;
+    }
+
+    @Override
+    public void setEnvironment(Environment environment) {
+        dir = Path.of(environment.getProperty("filmorate.journal.dir", "data/journal"));
+        fsync = environment.getProperty("filmorate.journal.fsync", Boolean.class, true);
+        snapshotInterval = environment.getProperty("filmorate.journal.snapshot-interval", Duration.class,
+                Duration.ofMinutes(10));
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        try {
+            if (bean instanceof InMemoryFilmStorage storage) {
+                long start = System.nanoTime();
+                FilmJournal journal = FilmJournal.open(dir.resolve("films"), fsync, storage);
+                log.info("Фильмы восстановлены из {} за {} мс: {} фильмов, {} лайков", dir.resolve("films"),
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), storage.count(), storage.countLikes());
+                storage.attachJournal(journal);
+                register(journal, () -> journal.snapshot(storage));
+            } else if (bean instanceof ColumnarFilmStorage) {
+                log.warn("Журнал не поддерживается для filmorate.storage=columnar: фильмы не сохраняются на диск");
+            } else if (bean instanceof ShardedFilmStorage) {
+                log.warn("Журнал не поддерживается для filmorate.storage=sharded: данные не сохраняются на диск");
+            } else if (bean instanceof InMemoryUserStorage storage) {
+                long start = System.nanoTime();
+                UserJournal journal = UserJournal.open(dir.resolve("users"), fsync, storage);
+                log.info("Пользователи восстановлены из {} за {} мс: {} пользователей, {} связей дружбы",
+                        dir.resolve("users"), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                        storage.count(), storage.countFriendships());
+                storage.attachJournal(journal);
+                register(journal, () -> journal.snapshot(storage));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось восстановить хранилище из журнала " + dir, e);
+        }
+        return bean;
+    }
+
+    @Override
+    public int getOrder() {
+        return 0;
+    }
+
+    // При остановке снимаем финальный снимок, чтобы следующий старт не доигрывал длинный журнал
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+        for (Snapshotter snapshotter : snapshotters) {
+            snapshot(snapshotter);
+        }
+        for (Closeable journal : journals) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                log.error("Не удалось закрыть журнал", e);
+            }
+        }
+    }
+
+    private void register(Closeable journal, Snapshotter snapshotter) {
+        journals.add(journal);
+        snapshotters.add(snapshotter);
+        long period = snapshotInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(() -> snapshot(snapshotter), period, period, TimeUnit.MILLISECONDS);
+    }
+
+    private void snapshot(Snapshotter snapshotter) {
+        try {
+            snapshotter.snapshot();
+        } catch (IOException | RuntimeException e) {
+            log.error("Не удалось записать снимок хранилища в {}", dir, e);
+        }
+    }
+}
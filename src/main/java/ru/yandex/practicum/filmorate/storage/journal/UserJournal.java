@@ -0,0 +1,116 @@
+package ru.yandex.practicum.filmorate.storage.journal;
+
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.util.IntSet;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Журнал и снимки InMemoryUserStorage, устроен так же, как FilmJournal
+public final class UserJournal implements Closeable {
+
+    private static final byte PUT = 1;
+    private static final byte FRIEND_ADDED = 2;
+    private static final byte FRIEND_REMOVED = 3;
+
+    private static final String SNAPSHOT = "snapshot.bin";
+
+    private final Path dir;
+
+    private final Journal journal;
+
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+
+    private UserJournal(Path dir, Journal journal) {
+        this.dir = dir;
+        this.journal = journal;
+    }
+
+    public static UserJournal open(Path dir, boolean fsync, InMemoryUserStorage storage) throws IOException {
+        long first = Snapshot.read(dir.resolve(SNAPSHOT), record -> restore(storage, record)).orElse(0);
+        Journal.replay(dir, first, record -> restore(storage, record));
+        storage.finishRestore();
+        return new UserJournal(dir, new Journal(dir, fsync));
+    }
+
+    public long put(User user) {
+        return journal.append(encode(user));
+    }
+
+    public long friendAdded(int userId, int friendId) {
+        return journal.append(Records.pair(FRIEND_ADDED, userId, friendId));
+    }
+
+    public long friendRemoved(int userId, int friendId) {
+        return journal.append(Records.pair(FRIEND_REMOVED, userId, friendId));
+    }
+
+    public void await(long seq) {
+        journal.await(seq);
+    }
+
+    // Держится хранилищем от записи в журнал до публикации изменения (см. Journal.publication)
+    public Lock publication() {
+        return journal.publication();
+    }
+
+    public void snapshot(InMemoryUserStorage storage) throws IOException {
+        snapshotLock.lock();
+        try {
+            long first = journal.rotate();
+            try (Snapshot snapshot = Snapshot.create(dir.resolve(SNAPSHOT), first)) {
+                for (User user : storage.getAll()) {
+                    snapshot.write(encode(user));
+                }
+                snapshot.commit();
+            }
+            journal.deleteSegmentsBefore(first);
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        journal.close();
+    }
+
+    private static ByteBuffer encode(User user) {
+        byte[] email = Records.utf8(user.getEmail());
+        byte[] login = Records.utf8(user.getLogin());
+        byte[] name = Records.utf8(user.getName());
+        int[] friends = user.getFriends().toArray();
+        ByteBuffer buffer = ByteBuffer.allocate(1 + Integer.BYTES + Records.sizeOf(email) + Records.sizeOf(login)
+                + Records.sizeOf(name) + Long.BYTES + Records.sizeOf(friends));
+        buffer.put(PUT);
+        buffer.putInt(user.getId());
+        Records.putString(buffer, email);
+        Records.putString(buffer, login);
+        Records.putString(buffer, name);
+        Records.putDate(buffer, user.getBirthday());
+        Records.putInts(buffer, friends);
+        return buffer.flip();
+    }
+
+    private static void restore(InMemoryUserStorage storage, ByteBuffer record) {
+        byte type = record.get();
+        switch (type) {
+            case PUT -> storage.restore(User.builder()
+                    .id(record.getInt())
+                    .email(Records.getString(record))
+                    .login(Records.getString(record))
+                    .name(Records.getString(record))
+                    .birthday(Records.getDate(record))
+                    .friends(IntSet.of(Records.getInts(record)))
+                    .build());
+            case FRIEND_ADDED -> storage.restoreFriend(record.getInt(), record.getInt(), true);
+            case FRIEND_REMOVED -> storage.restoreFriend(record.getInt(), record.getInt(), false);
+            default -> throw new IllegalStateException("Неизвестный тип записи журнала пользователей: " + type);
+        }
+    }
+}
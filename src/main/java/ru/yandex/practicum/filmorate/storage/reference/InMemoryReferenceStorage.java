@@ -0,0 +1,87 @@
+package ru.yandex.practicum.filmorate.storage.reference;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.ToIntFunction;
+
+// Неизменяемые справочники в массивах по id: поиск без хеширования и блокировок.
+// Для хранилищ в памяти значения встроены и совпадают с data.sql
+@Component
+@ConditionalOnExpression("'${filmorate.storage:memory}' != 'db'")
+public class InMemoryReferenceStorage implements ReferenceStorage {
+
+    private static final List<Genre> DEFAULT_GENRES = List.of(
+            new Genre(1, "Комедия"),
+            new Genre(2, "Драма"),
+            new Genre(3, "Мультфильм"),
+            new Genre(4, "Триллер"),
+            new Genre(5, "Документальный"),
+            new Genre(6, "Боевик"));
+
+    private static final List<Mpa> DEFAULT_MPA = List.of(
+            new Mpa(1, "G"),
+            new Mpa(2, "PG"),
+            new Mpa(3, "PG-13"),
+            new Mpa(4, "R"),
+            new Mpa(5, "NC-17"));
+
+    private final List<Genre> genres;
+
+    private final Genre[] genresById;
+
+    private final List<Mpa> mpaRatings;
+
+    private final Mpa[] mpaById;
+
+    public InMemoryReferenceStorage() {
+        this(DEFAULT_GENRES, DEFAULT_MPA);
+    }
+
+    protected InMemoryReferenceStorage(List<Genre> genres, List<Mpa> mpaRatings) {
+        this.genres = sorted(genres, Genre::id);
+        this.mpaRatings = sorted(mpaRatings, Mpa::id);
+        genresById = byId(this.genres, Genre::id, new Genre[maxId(this.genres, Genre::id) + 1]);
+        mpaById = byId(this.mpaRatings, Mpa::id, new Mpa[maxId(this.mpaRatings, Mpa::id) + 1]);
+    }
+
+    @Override
+    public List<Genre> getGenres() {
+        return genres;
+    }
+
+    @Override
+    public Optional<Genre> getGenre(int id) {
+        return Optional.ofNullable(id > 0 && id < genresById.length ? genresById[id] : null);
+    }
+
+    @Override
+    public List<Mpa> getMpaRatings() {
+        return mpaRatings;
+    }
+
+    @Override
+    public Optional<Mpa> getMpa(int id) {
+        return Optional.ofNullable(id > 0 && id < mpaById.length ? mpaById[id] : null);
+    }
+
+    private static <T> List<T> sorted(List<T> values, ToIntFunction<T> idOf) {
+        return values.stream().sorted(Comparator.comparingInt(idOf)).toList();
+    }
+
+    private static <T> int maxId(List<T> values, ToIntFunction<T> idOf) {
+        return values.isEmpty() ? 0 : idOf.applyAsInt(values.get(values.size() - 1));
+    }
+
+    private static <T> T[] byId(List<T> values, ToIntFunction<T> idOf, T[] table) {
+        for (T value : values) {
+            table[idOf.applyAsInt(value)] = value;
+        }
+        return table;
+    }
+}
@@ -0,0 +1,23 @@
+package ru.yandex.practicum.filmorate.storage.reference;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+
+// Справочники из таблиц genre и mpa_rating (заполняются data.sql): читаются один раз при старте,
+// дальше все запросы, в том числе разбор строк films, обходятся без обращения к базе
+@Component
+@ConditionalOnProperty(name = "filmorate.storage", havingValue = "db")
+public class ReferenceDbStorage extends InMemoryReferenceStorage {
+
+    @Autowired
+    public ReferenceDbStorage(JdbcTemplate jdbcTemplate) {
+        super(jdbcTemplate.query("SELECT genre_id, name FROM genre",
+                        (rs, rowNum) -> new Genre(rs.getInt("genre_id"), rs.getString("name"))),
+                jdbcTemplate.query("SELECT rating_id, name FROM mpa_rating",
+                        (rs, rowNum) -> new Mpa(rs.getInt("rating_id"), rs.getString("name"))));
+    }
+}
@@ -0,0 +1,21 @@
+package ru.yandex.practicum.filmorate.storage.reference;
+
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+
+import java.util.List;
+import java.util.Optional;
+
+// Справочники жанров и рейтингов MPA: загружаются один раз при старте и дальше не меняются
+public interface ReferenceStorage {
+
+    // По возрастанию id
+    List<Genre> getGenres();
+
+    Optional<Genre> getGenre(int id);
+
+    // По возрастанию id
+    List<Mpa> getMpaRatings();
+
+    Optional<Mpa> getMpa(int id);
+}
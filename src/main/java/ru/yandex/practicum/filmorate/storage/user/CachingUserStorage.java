@@ -0,0 +1,141 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.EntityCache;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+// Кэш getById перед UserDbStorage. Дружба хранится по направлениям, поэтому addFriend
+// меняет только запись userId; её и сбрасываем после фиксации в БД.
+@Primary
+@Component
+@ConditionalOnExpression("'${filmorate.storage:memory}' == 'db' and ${filmorate.cache.enabled:true}")
+public class CachingUserStorage implements UserStorage {
+
+    private final UserStorage delegate;
+
+    private final EntityCache<User> cache;
+
+    public CachingUserStorage(UserDbStorage delegate,
+                              MeterRegistry registry,
+                              @Value("${filmorate.cache.users.max-weight:100000}") long maxWeight,
+                              @Value("${filmorate.cache.negative-ttl:1m}") Duration negativeTtl) {
+        this.delegate = delegate;
+        this.cache = new EntityCache<>("users", maxWeight, negativeTtl, User::getId,
+                user -> user.getFriends().size(), registry);
+    }
+
+    @Override
+    public User add(User user) {
+        User added = delegate.add(user);
+        // мог быть закэширован промах по этому id
+        cache.invalidate(added.getId());
+        return added;
+    }
+
+    @Override
+    public User update(User user) {
+        try {
+            return delegate.update(user);
+        } finally {
+            cache.invalidate(user.getId());
+        }
+    }
+
+    @Override
+    public List<User> addAll(List<User> users) {
+        List<User> added = delegate.addAll(users);
+        added.forEach(user -> cache.invalidate(user.getId()));
+        return added;
+    }
+
+    @Override
+    public List<User> getAll() {
+        return delegate.getAll();
+    }
+
+    @Override
+    public List<User> getPage(int afterId, int limit) {
+        return delegate.getPage(afterId, limit);
+    }
+
+    @Override
+    public Optional<User> getById(int id) {
+        return cache.get(id, delegate::getById);
+    }
+
+    @Override
+    public List<User> getByIds(int[] ids) {
+        return cache.getAll(ids, delegate::getByIds);
+    }
+
+    // Запрос только по ключам дешевле загрузки промахов кэша, поэтому идёт мимо кэша
+    @Override
+    public int[] existingIds(int[] ids) {
+        return delegate.existingIds(ids);
+    }
+
+    // Ключи кэша — id, а email и логин меняются при update; такие поиски идут мимо кэша
+    @Override
+    public Optional<User> getByEmail(String email) {
+        return delegate.getByEmail(email);
+    }
+
+    @Override
+    public Optional<User> getByLogin(String login) {
+        return delegate.getByLogin(login);
+    }
+
+    @Override
+    public Keys existingKeys(Collection<String> emails, Collection<String> logins) {
+        return delegate.existingKeys(emails, logins);
+    }
+
+    @Override
+    public boolean addFriend(int userId, int friendId) {
+        boolean added = delegate.addFriend(userId, friendId);
+        if (added) {
+            cache.invalidate(userId);
+        }
+        return added;
+    }
+
+    @Override
+    public boolean removeFriend(int userId, int friendId) {
+        boolean removed = delegate.removeFriend(userId, friendId);
+        if (removed) {
+            cache.invalidate(userId);
+        }
+        return removed;
+    }
+
+    @Override
+    public boolean[] addFriends(List<Friendship> friendships) {
+        boolean[] added = delegate.addFriends(friendships);
+        for (int i = 0; i < added.length; i++) {
+            if (added[i]) {
+                cache.invalidate(friendships.get(i).userId());
+            }
+        }
+        return added;
+    }
+
+    @Override
+    public int count() {
+        return delegate.count();
+    }
+
+    @Override
+    public long countFriendships() {
+        return delegate.countFriendships();
+    }
+}
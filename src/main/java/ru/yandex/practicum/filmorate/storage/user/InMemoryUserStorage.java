@@ -1,41 +1,287 @@
 package ru.yandex.practicum.filmorate.storage.user;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Friendship;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.journal.UserJournal;
+import ru.yandex.practicum.filmorate.util.StripedLocks;
 
 import java.util.*;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.function.LongSupplier;
 
 @Component
+// columnar меняет только раскладку фильмов, пользователи остаются в этом хранилище
+@ConditionalOnExpression("'${filmorate.storage:memory}' matches 'memory|columnar'")
 public class InMemoryUserStorage implements UserStorage {
 
-    private final Map<Integer, User> users = new HashMap<>();
+    private final Map<Integer, User> users = new ConcurrentHashMap<>();
 
-    private int currentId = 1;
+    private final AtomicInteger currentId = new AtomicInteger(1);
+
+    // Изменения существующего пользователя — под блокировкой его полосы (см. InMemoryFilmStorage)
+    private final StripedLocks entries = new StripedLocks();
+
+    private final UserKeys keys = new UserKeys();
+
+    // Счётчик ведётся при изменениях, чтобы метрика не обходила всех пользователей
+    private final AtomicLong friendshipsCount = new AtomicLong();
+
+    // Журнал на диске; null, если сохранение выключено (см. InMemoryFilmStorage)
+    private volatile UserJournal journal;
+
+    public void attachJournal(UserJournal journal) {
+        this.journal = journal;
+    }
 
     @Override
     public User add(User user) {
-        user.setId(currentId++);
-        users.put(user.getId(), user);
+        awaitDurable(insert(user));
         return user;
     }
 
     @Override
-    public User update(User user) {
-        if (!users.containsKey(user.getId())) {
-            throw new NoSuchElementException("Пользователь с id " + user.getId() + " не найден.");
+    public List<User> addAll(List<User> users) {
+        // сначала занимаем ключи всего пакета: при конфликте ни один пользователь не сохраняется
+        keys.reserveNew(users, currentId::getAndIncrement);
+        long ticket = 0;
+        for (User user : users) {
+            ticket = publish(user);
         }
-        users.put(user.getId(), user);
+        awaitDurable(ticket);
+        return users;
+    }
+
+    @Override
+    public User update(User user) {
+        awaitDurable(published(() -> {
+            Lock entry = entries.of(user.getId());
+            entry.lock();
+            try {
+                User old = users.get(user.getId());
+                if (old == null) {
+                    throw new NoSuchElementException("Пользователь с id " + user.getId() + " не найден.");
+                }
+                // перекладка ключей под блокировкой записи пользователя: его обновления идут по одному
+                keys.reserve(user, old);
+                keys.release(old, user);
+                friendshipsCount.addAndGet(user.getFriends().size() - old.getFriends().size());
+                long ticket = journalPut(user);
+                users.put(user.getId(), user);
+                return ticket;
+            } finally {
+                entry.unlock();
+            }
+        }));
         return user;
     }
 
+    // Проход по id, как у getPage, поэтому порядок — по возрастанию id. Это не срез на один момент:
+    // каждый пользователь берётся в последней опубликованной версии на момент чтения его ячейки, и изменения,
+    // идущие параллельно с обходом, могут попасть в результат частично (позднее без более раннего).
+    // Целостный срез потребовал бы останавливать запись на время обхода всей коллекции
     @Override
     public List<User> getAll() {
-        return new ArrayList<>(users.values());
+        return getPage(0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<User> getPage(int afterId, int limit) {
+        // id выдаются подряд и не удаляются, поэтому страница — это прямой проход по диапазону id
+        List<User> result = new ArrayList<>(Math.min(limit, users.size()));
+        int lastId = currentId.get();
+        for (int id = Math.max(afterId, 0) + 1; id < lastId && result.size() < limit; id++) {
+            User user = users.get(id);
+            if (user != null) {
+                result.add(user);
+            }
+        }
+        return result;
     }
 
     @Override
     public Optional<User> getById(int id) {
         return Optional.ofNullable(users.get(id));
     }
+
+    @Override
+    public List<User> getByIds(int[] ids) {
+        List<User> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            User user = users.get(id);
+            if (user != null) {
+                result.add(user);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public int[] existingIds(int[] ids) {
+        return Arrays.stream(ids).filter(users::containsKey).distinct().toArray();
+    }
+
+    @Override
+    public Optional<User> getByEmail(String email) {
+        return find(keys.idByEmail(email)).filter(user -> email.equals(user.getEmail()));
+    }
+
+    @Override
+    public Optional<User> getByLogin(String login) {
+        return find(keys.idByLogin(login)).filter(user -> login.equals(user.getLogin()));
+    }
+
+    @Override
+    public Keys existingKeys(Collection<String> emails, Collection<String> logins) {
+        Set<String> takenEmails = new HashSet<>();
+        for (String email : emails) {
+            if (getByEmail(email).isPresent()) {
+                takenEmails.add(email);
+            }
+        }
+        Set<String> takenLogins = new HashSet<>();
+        for (String login : logins) {
+            if (getByLogin(login).isPresent()) {
+                takenLogins.add(login);
+            }
+        }
+        return new Keys(takenEmails, takenLogins);
+    }
+
+    @Override
+    public boolean addFriend(int userId, int friendId) {
+        long[] ticket = new long[1];
+        boolean changed = changeFriend(userId, friendId, true, ticket);
+        awaitDurable(ticket[0]);
+        return changed;
+    }
+
+    @Override
+    public boolean removeFriend(int userId, int friendId) {
+        long[] ticket = new long[1];
+        boolean changed = changeFriend(userId, friendId, false, ticket);
+        awaitDurable(ticket[0]);
+        return changed;
+    }
+
+    @Override
+    public boolean[] addFriends(List<Friendship> friendships) {
+        boolean[] added = new boolean[friendships.size()];
+        long[] ticket = new long[1];
+        for (int i = 0; i < friendships.size(); i++) {
+            Friendship friendship = friendships.get(i);
+            added[i] = changeFriend(friendship.userId(), friendship.friendId(), true, ticket);
+        }
+        awaitDurable(ticket[0]);
+        return added;
+    }
+
+    @Override
+    public int count() {
+        return users.size();
+    }
+
+    @Override
+    public long countFriendships() {
+        return friendshipsCount.get();
+    }
+
+    // Восстановление из журнала: пользователь с уже назначенным id, без записи в журнал
+    public void restore(User user) {
+        users.put(user.getId(), user);
+        currentId.accumulateAndGet(user.getId() + 1, Math::max);
+    }
+
+    public void restoreFriend(int userId, int friendId, boolean added) {
+        User user = users.get(userId);
+        if (user != null) {
+            if (added) {
+                user.getFriends().add(friendId);
+            } else {
+                user.getFriends().remove(friendId);
+            }
+        }
+    }
+
+    public void finishRestore() {
+        long friendships = 0;
+        for (User user : users.values()) {
+            friendships += user.getFriends().size();
+        }
+        friendshipsCount.set(friendships);
+        keys.rebuild(users.values());
+    }
+
+    private long insert(User user) {
+        keys.reserveNew(List.of(user), currentId::getAndIncrement);
+        return publish(user);
+    }
+
+    private long publish(User user) {
+        return published(() -> {
+            long ticket = journalPut(user);
+            users.put(user.getId(), user);
+            friendshipsCount.addAndGet(user.getFriends().size());
+            return ticket;
+        });
+    }
+
+    private Optional<User> find(Integer id) {
+        return id != null ? getById(id) : Optional.empty();
+    }
+
+    // Дружба меняет уже видимого пользователя до записи в журнал, поэтому publication здесь не нужна
+    private boolean changeFriend(int userId, int friendId, boolean add, long[] ticket) {
+        Lock entry = entries.of(userId);
+        entry.lock();
+        try {
+            User user = users.get(userId);
+            if (user == null) {
+                throw new NoSuchElementException("Пользователь с id " + userId + " не найден.");
+            }
+            boolean changed = add ? user.getFriends().add(friendId) : user.getFriends().remove(friendId);
+            if (changed) {
+                friendshipsCount.addAndGet(add ? 1 : -1);
+                UserJournal journal = this.journal;
+                if (journal != null) {
+                    ticket[0] = add ? journal.friendAdded(userId, friendId) : journal.friendRemoved(userId, friendId);
+                }
+            }
+            return changed;
+        } finally {
+            entry.unlock();
+        }
+    }
+
+    // Запись в журнал и публикация под общей блокировкой границы сегментов (см. InMemoryFilmStorage)
+    private long published(LongSupplier change) {
+        UserJournal journal = this.journal;
+        if (journal == null) {
+            return change.getAsLong();
+        }
+        Lock publication = journal.publication();
+        publication.lock();
+        try {
+            return change.getAsLong();
+        } finally {
+            publication.unlock();
+        }
+    }
+
+    private long journalPut(User user) {
+        UserJournal journal = this.journal;
+        return journal != null ? journal.put(user) : 0;
+    }
+
+    private void awaitDurable(long ticket) {
+        UserJournal journal = this.journal;
+        if (journal != null && ticket > 0) {
+            journal.await(ticket);
+        }
+    }
 }
@@ -0,0 +1,225 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.Shards;
+
+import java.util.*;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+// Пользователи в памяти, разделённые по id на шарды так же, как в ShardedFilmStorage. Уникальность
+// email и логина проверяется по всем пользователям сразу, поэтому их индексы общие для всех шардов.
+// Журнал на диск не поддерживается
+@Component
+@ConditionalOnProperty(name = "filmorate.storage", havingValue = "sharded")
+public class ShardedUserStorage implements UserStorage {
+
+    private static final class Shard {
+        final Map<Integer, User> users = new ConcurrentHashMap<>();
+        final AtomicLong friendships = new AtomicLong();
+    }
+
+    private final Shard[] shards;
+
+    private final AtomicInteger currentId = new AtomicInteger(1);
+
+    private final UserKeys keys = new UserKeys();
+
+    @Autowired
+    public ShardedUserStorage(@Value("${filmorate.storage.shards:0}") int shards) {
+        int count = Shards.count(shards);
+        this.shards = new Shard[count];
+        for (int i = 0; i < count; i++) {
+            this.shards[i] = new Shard();
+        }
+    }
+
+    @Override
+    public User add(User user) {
+        keys.reserveNew(List.of(user), currentId::getAndIncrement);
+        insert(user);
+        return user;
+    }
+
+    @Override
+    public List<User> addAll(List<User> users) {
+        // сначала занимаем ключи всего пакета: при конфликте ни один пользователь не сохраняется
+        keys.reserveNew(users, currentId::getAndIncrement);
+        Shards.forEach(shards.length, users.size(), i -> users.get(i).getId(), i -> insert(users.get(i)));
+        return users;
+    }
+
+    @Override
+    public User update(User user) {
+        Shard shard = shard(user.getId());
+        User updated = shard.users.computeIfPresent(user.getId(), (id, old) -> {
+            keys.reserve(user, old);
+            keys.release(old, user);
+            shard.friendships.addAndGet(user.getFriends().size() - old.getFriends().size());
+            return user;
+        });
+        if (updated == null) {
+            throw new NoSuchElementException("Пользователь с id " + user.getId() + " не найден.");
+        }
+        return user;
+    }
+
+    @Override
+    public List<User> getAll() {
+        // каждый шард раскладывает своих пользователей по ячейкам id: ячейки разных шардов не пересекаются
+        User[] byId = new User[currentId.get()];
+        IntStream.range(0, shards.length).parallel().forEach(index -> {
+            for (User user : shards[index].users.values()) {
+                if (user.getId() < byId.length) {
+                    byId[user.getId()] = user;
+                }
+            }
+        });
+        List<User> result = new ArrayList<>(count());
+        for (User user : byId) {
+            if (user != null) {
+                result.add(user);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<User> getPage(int afterId, int limit) {
+        List<User> result = new ArrayList<>(Math.min(limit, count()));
+        int lastId = currentId.get();
+        for (int id = Math.max(afterId, 0) + 1; id < lastId && result.size() < limit; id++) {
+            User user = shard(id).users.get(id);
+            if (user != null) {
+                result.add(user);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Optional<User> getById(int id) {
+        return Optional.ofNullable(shard(id).users.get(id));
+    }
+
+    @Override
+    public List<User> getByIds(int[] ids) {
+        List<User> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            User user = shard(id).users.get(id);
+            if (user != null) {
+                result.add(user);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public int[] existingIds(int[] ids) {
+        return Arrays.stream(ids).filter(id -> shard(id).users.containsKey(id)).distinct().toArray();
+    }
+
+    @Override
+    public Optional<User> getByEmail(String email) {
+        return find(keys.idByEmail(email)).filter(user -> email.equals(user.getEmail()));
+    }
+
+    @Override
+    public Optional<User> getByLogin(String login) {
+        return find(keys.idByLogin(login)).filter(user -> login.equals(user.getLogin()));
+    }
+
+    @Override
+    public Keys existingKeys(Collection<String> emails, Collection<String> logins) {
+        Set<String> takenEmails = new HashSet<>();
+        for (String email : emails) {
+            if (getByEmail(email).isPresent()) {
+                takenEmails.add(email);
+            }
+        }
+        Set<String> takenLogins = new HashSet<>();
+        for (String login : logins) {
+            if (getByLogin(login).isPresent()) {
+                takenLogins.add(login);
+            }
+        }
+        return new Keys(takenEmails, takenLogins);
+    }
+
+    @Override
+    public boolean addFriend(int userId, int friendId) {
+        return changeFriend(userId, friendId, true);
+    }
+
+    @Override
+    public boolean removeFriend(int userId, int friendId) {
+        return changeFriend(userId, friendId, false);
+    }
+
+    @Override
+    public boolean[] addFriends(List<Friendship> friendships) {
+        boolean[] added = new boolean[friendships.size()];
+        // каждый элемент результата пишет ровно одна задача — та, что обрабатывает шард пользователя
+        Shards.forEach(shards.length, friendships.size(), i -> friendships.get(i).userId(), i -> {
+            Friendship friendship = friendships.get(i);
+            added[i] = changeFriend(friendship.userId(), friendship.friendId(), true);
+        });
+        return added;
+    }
+
+    @Override
+    public int count() {
+        int count = 0;
+        for (Shard shard : shards) {
+            count += shard.users.size();
+        }
+        return count;
+    }
+
+    @Override
+    public long countFriendships() {
+        long friendships = 0;
+        for (Shard shard : shards) {
+            friendships += shard.friendships.get();
+        }
+        return friendships;
+    }
+
+    private void insert(User user) {
+        Shard shard = shard(user.getId());
+        shard.users.put(user.getId(), user);
+        shard.friendships.addAndGet(user.getFriends().size());
+    }
+
+    private Optional<User> find(Integer id) {
+        return id != null ? getById(id) : Optional.empty();
+    }
+
+    private boolean changeFriend(int userId, int friendId, boolean add) {
+        Shard shard = shard(userId);
+        boolean[] changed = new boolean[1];
+        User user = shard.users.computeIfPresent(userId, (id, u) -> {
+            changed[0] = add ? u.getFriends().add(friendId) : u.getFriends().remove(friendId);
+            if (changed[0]) {
+                shard.friendships.addAndGet(add ? 1 : -1);
+            }
+            return u;
+        });
+        if (user == null) {
+            throw new NoSuchElementException("Пользователь с id " + userId + " не найден.");
+        }
+        return changed[0];
+    }
+
+    private Shard shard(int id) {
+        return shards[Shards.index(id, shards.length)];
+    }
+}
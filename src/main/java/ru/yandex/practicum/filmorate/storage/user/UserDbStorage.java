@@ -0,0 +1,327 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.exception.ConflictException;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.util.IntSet;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.NoSuchElementException;
+
+@Component
+@ConditionalOnProperty(name = "filmorate.storage", havingValue = "db")
+@RequiredArgsConstructor
+public class UserDbStorage implements UserStorage {
+
+    private static final String SELECT_USERS = "SELECT user_id, email, login, name, birthday FROM users";
+
+    private static final String INSERT_USER =
+            "INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, ?)";
+
+    private static final String ADD_FRIEND =
+            "INSERT INTO friendship (user_id, friend_id) SELECT ?, ? WHERE NOT EXISTS "
+                    + "(SELECT 1 FROM friendship WHERE user_id = ? AND friend_id = ?)";
+
+    private static final String INSERT_FRIEND =
+            "INSERT INTO friendship (user_id, friend_id) SELECT ?, user_id FROM users WHERE user_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Override
+    @Transactional
+    public User add(User user) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        try {
+            jdbcTemplate.update(connection -> {
+                PreparedStatement ps = connection.prepareStatement(INSERT_USER, new String[]{"user_id"});
+                setUserParameters(ps, user);
+                return ps;
+            }, keyHolder);
+        } catch (DuplicateKeyException e) {
+            throw conflict(user);
+        }
+        user.setId(Objects.requireNonNull(keyHolder.getKey()).intValue());
+        insertFriends(friendshipsOf(List.of(user)));
+        return user;
+    }
+
+    @Override
+    @Transactional
+    public List<User> addAll(List<User> users) {
+        if (users.isEmpty()) {
+            return users;
+        }
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        try {
+            jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT_USER, new String[]{"user_id"}),
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            setUserParameters(ps, users.get(i));
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return users.size();
+                        }
+                    }, keyHolder);
+        } catch (DuplicateKeyException e) {
+            throw new ConflictException("Email или логин одного из пользователей пакета уже заняты.");
+        }
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < users.size(); i++) {
+            users.get(i).setId(((Number) keys.get(i).values().iterator().next()).intValue());
+        }
+        insertFriends(friendshipsOf(users));
+        return users;
+    }
+
+    @Override
+    @Transactional
+    public User update(User user) {
+        int updated;
+        try {
+            updated = jdbcTemplate.update(
+                    "UPDATE users SET email = ?, login = ?, name = ?, birthday = ? WHERE user_id = ?",
+                    user.getEmail(), user.getLogin(), user.getName(), Date.valueOf(user.getBirthday()), user.getId());
+        } catch (DuplicateKeyException e) {
+            throw conflict(user);
+        }
+        if (updated == 0) {
+            throw new NoSuchElementException("Пользователь с id " + user.getId() + " не найден.");
+        }
+        jdbcTemplate.update("DELETE FROM friendship WHERE user_id = ?", user.getId());
+        insertFriends(friendshipsOf(List.of(user)));
+        return user;
+    }
+
+    @Override
+    public List<User> getAll() {
+        List<User> users = jdbcTemplate.query(SELECT_USERS + " ORDER BY user_id", UserDbStorage::mapUser);
+        Map<Integer, IntSet> friends = new HashMap<>();
+        jdbcTemplate.query("SELECT user_id, friend_id FROM friendship", rs -> {
+            friends.computeIfAbsent(rs.getInt("user_id"), id -> new IntSet()).add(rs.getInt("friend_id"));
+        });
+        for (User user : users) {
+            user.setFriends(friends.get(user.getId()));
+        }
+        return users;
+    }
+
+    @Override
+    public List<User> getPage(int afterId, int limit) {
+        List<User> users = jdbcTemplate.query(SELECT_USERS + " WHERE user_id > ? ORDER BY user_id LIMIT ?",
+                UserDbStorage::mapUser, afterId, limit);
+        loadFriends(users);
+        return users;
+    }
+
+    @Override
+    public Optional<User> getById(int id) {
+        return findOne("user_id", id);
+    }
+
+    // Один запрос IN по различным id и один на их друзей, затем раскладка в порядке ids
+    @Override
+    public List<User> getByIds(int[] ids) {
+        if (ids.length == 0) {
+            return new ArrayList<>();
+        }
+        List<User> users = namedJdbcTemplate.query(SELECT_USERS + " WHERE user_id IN (:ids)",
+                Map.of("ids", Arrays.stream(ids).distinct().boxed().toList()), UserDbStorage::mapUser);
+        loadFriends(users);
+        Map<Integer, User> byId = new HashMap<>();
+        for (User user : users) {
+            byId.put(user.getId(), user);
+        }
+        List<User> result = new ArrayList<>(users.size());
+        for (int id : ids) {
+            User user = byId.get(id);
+            if (user != null) {
+                result.add(user);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public int[] existingIds(int[] ids) {
+        if (ids.length == 0) {
+            return ids;
+        }
+        return namedJdbcTemplate.queryForList("SELECT user_id FROM users WHERE user_id IN (:ids)",
+                        Map.of("ids", Arrays.stream(ids).distinct().boxed().toList()), Integer.class)
+                .stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    // email и login объявлены UNIQUE в schema.sql, поиск идёт по их индексам
+    @Override
+    public Optional<User> getByEmail(String email) {
+        return findOne("email", email);
+    }
+
+    @Override
+    public Optional<User> getByLogin(String login) {
+        return findOne("login", login);
+    }
+
+    // По одному запросу IN на каждый индекс вместо findOne на каждый ключ
+    @Override
+    public Keys existingKeys(Collection<String> emails, Collection<String> logins) {
+        return new Keys(existingValues("email", emails), existingValues("login", logins));
+    }
+
+    @Override
+    public boolean addFriend(int userId, int friendId) {
+        try {
+            return jdbcTemplate.update(ADD_FRIEND, userId, friendId, userId, friendId) > 0;
+        } catch (DuplicateKeyException e) {
+            return false;
+        } catch (DataIntegrityViolationException e) {
+            throw new NoSuchElementException("Пользователь с id " + userId + " не найден.");
+        }
+    }
+
+    @Override
+    public boolean removeFriend(int userId, int friendId) {
+        return jdbcTemplate.update("DELETE FROM friendship WHERE user_id = ? AND friend_id = ?",
+                userId, friendId) > 0;
+    }
+
+    @Override
+    @Transactional
+    public boolean[] addFriends(List<Friendship> friendships) {
+        boolean[] added = new boolean[friendships.size()];
+        int[] counts = jdbcTemplate.batchUpdate(ADD_FRIEND, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Friendship friendship = friendships.get(i);
+                ps.setInt(1, friendship.userId());
+                ps.setInt(2, friendship.friendId());
+                ps.setInt(3, friendship.userId());
+                ps.setInt(4, friendship.friendId());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return friendships.size();
+            }
+        });
+        for (int i = 0; i < counts.length; i++) {
+            added[i] = counts[i] > 0;
+        }
+        return added;
+    }
+
+    @Override
+    public int count() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Integer.class);
+    }
+
+    @Override
+    public long countFriendships() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM friendship", Long.class);
+    }
+
+    private Set<String> existingValues(String column, Collection<String> values) {
+        if (values.isEmpty()) {
+            return new HashSet<>();
+        }
+        return new HashSet<>(namedJdbcTemplate.queryForList(
+                "SELECT " + column + " FROM users WHERE " + column + " IN (:values)",
+                Map.of("values", values), String.class));
+    }
+
+    private Optional<User> findOne(String column, Object value) {
+        List<User> users = jdbcTemplate.query(SELECT_USERS + " WHERE " + column + " = ?",
+                UserDbStorage::mapUser, value);
+        if (users.isEmpty()) {
+            return Optional.empty();
+        }
+        loadFriends(users);
+        return Optional.of(users.get(0));
+    }
+
+    // Какое из уникальных полей нарушено, по исключению не определить без разбора текста ошибки БД
+    private static ConflictException conflict(User user) {
+        return new ConflictException("Пользователь с email " + user.getEmail() + " или логином "
+                + user.getLogin() + " уже существует.");
+    }
+
+    // Друзья для набора пользователей одним запросом вместо запроса на каждого
+    private void loadFriends(List<User> users) {
+        if (users.isEmpty()) {
+            return;
+        }
+        Map<Integer, User> byId = new HashMap<>();
+        for (User user : users) {
+            byId.put(user.getId(), user);
+        }
+        namedJdbcTemplate.query("SELECT user_id, friend_id FROM friendship WHERE user_id IN (:ids)",
+                Map.of("ids", byId.keySet()),
+                rs -> {
+                    byId.get(rs.getInt("user_id")).getFriends().add(rs.getInt("friend_id"));
+                });
+    }
+
+    private void insertFriends(List<Friendship> friendships) {
+        if (friendships.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_FRIEND, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setInt(1, friendships.get(i).userId());
+                ps.setInt(2, friendships.get(i).friendId());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return friendships.size();
+            }
+        });
+    }
+
+    private static List<Friendship> friendshipsOf(List<User> users) {
+        List<Friendship> friendships = new ArrayList<>();
+        for (User user : users) {
+            for (int friendId : user.getFriends().toArray()) {
+                friendships.add(new Friendship(user.getId(), friendId));
+            }
+        }
+        return friendships;
+    }
+
+    private static void setUserParameters(PreparedStatement ps, User user) throws SQLException {
+        ps.setString(1, user.getEmail());
+        ps.setString(2, user.getLogin());
+        ps.setString(3, user.getName());
+        ps.setDate(4, Date.valueOf(user.getBirthday()));
+    }
+
+    private static User mapUser(ResultSet rs, int rowNum) throws SQLException {
+        return User.builder()
+                .id(rs.getInt("user_id"))
+                .email(rs.getString("email"))
+                .login(rs.getString("login"))
+                .name(rs.getString("name"))
+                .birthday(rs.getDate("birthday").toLocalDate())
+                .build();
+    }
+}
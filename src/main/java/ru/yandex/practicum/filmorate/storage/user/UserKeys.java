@@ -0,0 +1,90 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import ru.yandex.practicum.filmorate.exception.ConflictException;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntSupplier;
+
+// Уникальные индексы email -> id и login -> id для хранилищ в памяти. Ключ занимается через putIfAbsent
+// до публикации пользователя, старый ключ освобождается после: в переходный момент индекс может указывать
+// на пользователя, у которого поле уже другое, поэтому поиск по id из индекса должен сверять значение поля
+class UserKeys {
+
+    private static final int PENDING = 0;
+
+    private final Map<String, Integer> idsByEmail = new ConcurrentHashMap<>();
+
+    private final Map<String, Integer> idsByLogin = new ConcurrentHashMap<>();
+
+    Integer idByEmail(String email) {
+        return idsByEmail.get(email);
+    }
+
+    Integer idByLogin(String login) {
+        return idsByLogin.get(login);
+    }
+
+    // Занимает email и логин user за его id; old — прежняя версия записи или null для нового.
+    // Неизменившиеся ключи уже принадлежат этому id и не проверяются
+    void reserve(User user, User old) {
+        boolean emailChanged = old == null || !old.getEmail().equals(user.getEmail());
+        boolean loginChanged = old == null || !old.getLogin().equals(user.getLogin());
+        if (emailChanged && idsByEmail.putIfAbsent(user.getEmail(), user.getId()) != null) {
+            throw new ConflictException("Пользователь с email " + user.getEmail() + " уже существует.");
+        }
+        if (loginChanged && idsByLogin.putIfAbsent(user.getLogin(), user.getId()) != null) {
+            if (emailChanged) {
+                idsByEmail.remove(user.getEmail(), user.getId());
+            }
+            throw new ConflictException("Пользователь с логином " + user.getLogin() + " уже существует.");
+        }
+    }
+
+    // Занимает ключи пакета новых пользователей и только после этого выдаёт им id из nextId: при конфликте
+    // не занят ни один ключ и не израсходован ни один id. Пока id не выдан, ключи указывают на PENDING,
+    // а пользователя с таким id нет, поэтому поиск по ним ещё ничего не находит
+    void reserveNew(List<User> users, IntSupplier nextId) {
+        users.forEach(user -> user.setId(PENDING));
+        int reserved = 0;
+        try {
+            for (User user : users) {
+                reserve(user, null);
+                reserved++;
+            }
+        } catch (ConflictException e) {
+            for (User user : users.subList(0, reserved)) {
+                release(user, null);
+            }
+            throw e;
+        }
+        for (User user : users) {
+            user.setId(nextId.getAsInt());
+            idsByEmail.replace(user.getEmail(), PENDING, user.getId());
+            idsByLogin.replace(user.getLogin(), PENDING, user.getId());
+        }
+    }
+
+    // Освобождает ключи user, которых нет у current (новой версии записи; null — освободить все)
+    void release(User user, User current) {
+        if (current == null || !user.getEmail().equals(current.getEmail())) {
+            idsByEmail.remove(user.getEmail(), user.getId());
+        }
+        if (current == null || !user.getLogin().equals(current.getLogin())) {
+            idsByLogin.remove(user.getLogin(), user.getId());
+        }
+    }
+
+    // Журнал хранит только итоговые версии записей, поэтому индексы строятся после воспроизведения
+    void rebuild(Collection<User> users) {
+        idsByEmail.clear();
+        idsByLogin.clear();
+        for (User user : users) {
+            idsByEmail.put(user.getEmail(), user.getId());
+            idsByLogin.put(user.getLogin(), user.getId());
+        }
+    }
+}
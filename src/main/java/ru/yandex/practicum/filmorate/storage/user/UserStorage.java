@@ -1,17 +1,57 @@
 package ru.yandex.practicum.filmorate.storage.user;
 
+import ru.yandex.practicum.filmorate.model.Friendship;
 import ru.yandex.practicum.filmorate.model.User;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 public interface UserStorage {
 
+    // Занятые email и логины из запрошенных
+    record Keys(Set<String> emails, Set<String> logins) {
+    }
+
     User add(User user);
 
     User update(User user);
 
+    // Пакетное добавление; пользователи получают id в порядке следования в списке
+    List<User> addAll(List<User> users);
+
     List<User> getAll();
 
+    // Keyset-пагинация: до limit пользователей с id > afterId по возрастанию id
+    List<User> getPage(int afterId, int limit);
+
     Optional<User> getById(int id);
+
+    // Пользователи с указанными id в порядке ids (см. FilmStorage.getByIds)
+    List<User> getByIds(int[] ids);
+
+    // Какие из ids есть в хранилище (см. FilmStorage.existingIds)
+    int[] existingIds(int[] ids);
+
+    // Поиск по уникальным полям (точное совпадение)
+    Optional<User> getByEmail(String email);
+
+    Optional<User> getByLogin(String login);
+
+    // Какие из emails и logins уже заняты — проверка уникальности пакета без загрузки пользователей
+    Keys existingKeys(Collection<String> emails, Collection<String> logins);
+
+    // Добавляет friendId в друзья userId (одно направление связи)
+    boolean addFriend(int userId, int friendId);
+
+    boolean removeFriend(int userId, int friendId);
+
+    // Пакетное добавление связей (каждая в одном направлении) между существующими пользователями
+    boolean[] addFriends(List<Friendship> friendships);
+
+    int count();
+
+    // Общее число связей дружбы (каждое направление считается отдельно)
+    long countFriendships();
 }
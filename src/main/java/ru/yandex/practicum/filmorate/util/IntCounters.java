@@ -0,0 +1,60 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Счётчики по неотрицательному ключу (id) без упаковки: страницы AtomicIntegerArray по 4096 ключей.
+// Чтение — два обращения к массивам вместо поиска в хеш-таблице; при росте копируется только
+// каталог страниц, сами страницы общие, поэтому одновременные изменения не теряются.
+public final class IntCounters {
+
+    private static final int PAGE_BITS = 12;
+
+    private static final int PAGE_MASK = (1 << PAGE_BITS) - 1;
+
+    private volatile AtomicIntegerArray[] pages = new AtomicIntegerArray[0];
+
+    // Рост каталога; ReentrantLock, а не synchronized, чтобы ожидание не закрепляло виртуальный поток
+    private final ReentrantLock growth = new ReentrantLock();
+
+    public int get(int key) {
+        AtomicIntegerArray[] directory = pages;
+        int page = key >>> PAGE_BITS;
+        if (page >= directory.length || directory[page] == null) {
+            return 0;
+        }
+        return directory[page].get(key & PAGE_MASK);
+    }
+
+    public void set(int key, int value) {
+        page(key).set(key & PAGE_MASK, value);
+    }
+
+    // Возвращает новое значение
+    public int add(int key, int delta) {
+        return page(key).addAndGet(key & PAGE_MASK, delta);
+    }
+
+    private AtomicIntegerArray page(int key) {
+        int page = key >>> PAGE_BITS;
+        AtomicIntegerArray[] directory = pages;
+        if (page < directory.length && directory[page] != null) {
+            return directory[page];
+        }
+        growth.lock();
+        try {
+            directory = pages;
+            if (page >= directory.length) {
+                directory = Arrays.copyOf(directory, Math.max(page + 1, directory.length * 2));
+            }
+            if (directory[page] == null) {
+                directory[page] = new AtomicIntegerArray(1 << PAGE_BITS);
+            }
+            pages = directory;
+            return directory[page];
+        } finally {
+            growth.unlock();
+        }
+    }
+}
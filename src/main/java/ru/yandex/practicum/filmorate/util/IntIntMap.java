@@ -0,0 +1,188 @@
+package ru.yandex.practicum.filmorate.util;
+
+// Отображение int -> int без упаковки: открытая адресация с линейным пробированием, как в IntSet.
+// Не потокобезопасно — синхронизацию обеспечивает владелец.
+public final class IntIntMap {
+
+    private static final int MIN_CAPACITY = 4;
+
+    // 0 обозначает свободную ячейку, поэтому ключ 0 хранится отдельно
+    private int[] keys = new int[0];
+    private int[] values = new int[0];
+
+    private boolean containsZeroKey;
+    private int zeroValue;
+
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    public boolean containsKey(int key) {
+        if (key == 0) {
+            return containsZeroKey;
+        }
+        return find(key) >= 0;
+    }
+
+    public int get(int key, int defaultValue) {
+        if (key == 0) {
+            return containsZeroKey ? zeroValue : defaultValue;
+        }
+        int pos = find(key);
+        return pos >= 0 ? values[pos] : defaultValue;
+    }
+
+    public void put(int key, int value) {
+        if (key == 0) {
+            if (!containsZeroKey) {
+                containsZeroKey = true;
+                size++;
+            }
+            zeroValue = value;
+            return;
+        }
+        int pos = find(key);
+        if (pos >= 0) {
+            values[pos] = value;
+            return;
+        }
+        if ((size + 1) * 4L > keys.length * 3L) {
+            rehash(Math.max(MIN_CAPACITY, keys.length * 2));
+        }
+        pos = freeSlot(key);
+        keys[pos] = key;
+        values[pos] = value;
+        size++;
+    }
+
+    // Прибавляет delta к значению (отсутствующий ключ считается нулём) и возвращает новое значение
+    public int addTo(int key, int delta) {
+        int value = get(key, 0) + delta;
+        put(key, value);
+        return value;
+    }
+
+    public boolean remove(int key) {
+        if (key == 0) {
+            if (!containsZeroKey) {
+                return false;
+            }
+            containsZeroKey = false;
+            size--;
+            return true;
+        }
+        int pos = find(key);
+        if (pos < 0) {
+            return false;
+        }
+        shiftKeys(pos, keys.length - 1);
+        size--;
+        return true;
+    }
+
+    public void forEach(Entry action) {
+        if (containsZeroKey) {
+            action.accept(0, zeroValue);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) {
+                action.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    // Ключ с минимальным значением; при пустой карте возвращает 0
+    public int minValueKey() {
+        int bestKey = 0;
+        int bestValue = Integer.MAX_VALUE;
+        if (containsZeroKey) {
+            bestValue = zeroValue;
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0 && values[i] < bestValue) {
+                bestKey = keys[i];
+                bestValue = values[i];
+            }
+        }
+        return bestKey;
+    }
+
+    private int find(int key) {
+        if (keys.length == 0) {
+            return -1;
+        }
+        int mask = keys.length - 1;
+        int pos = hash(key) & mask;
+        while (keys[pos] != 0) {
+            if (keys[pos] == key) {
+                return pos;
+            }
+            pos = (pos + 1) & mask;
+        }
+        return -1;
+    }
+
+    private int freeSlot(int key) {
+        int mask = keys.length - 1;
+        int pos = hash(key) & mask;
+        while (keys[pos] != 0) {
+            pos = (pos + 1) & mask;
+        }
+        return pos;
+    }
+
+    private void shiftKeys(int pos, int mask) {
+        int last;
+        while (true) {
+            last = pos;
+            pos = (pos + 1) & mask;
+            int current;
+            while (true) {
+                current = keys[pos];
+                if (current == 0) {
+                    keys[last] = 0;
+                    return;
+                }
+                int slot = hash(current) & mask;
+                if (last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos) {
+                    break;
+                }
+                pos = (pos + 1) & mask;
+            }
+            keys[last] = current;
+            values[last] = values[pos];
+        }
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[capacity];
+        values = new int[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int pos = freeSlot(oldKeys[i]);
+                keys[pos] = oldKeys[i];
+                values[pos] = oldValues[i];
+            }
+        }
+    }
+
+    private static int hash(int key) {
+        return key ^ (key >>> 16);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        forEach((key, value) -> sb.append(sb.length() > 1 ? ", " : "").append(key).append('=').append(value));
+        return sb.append('}').toString();
+    }
+
+    @FunctionalInterface
+    public interface Entry {
+        void accept(int key, int value);
+    }
+}
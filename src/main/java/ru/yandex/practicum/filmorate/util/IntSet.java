@@ -0,0 +1,291 @@
+package ru.yandex.practicum.filmorate.util;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.IntConsumer;
+
+// Потокобезопасное множество int без упаковки в Integer: открытая адресация с линейным пробированием.
+// Занимает ~5-8 байт на элемент против ~50 у HashSet<Integer>. В JSON сериализуется как массив чисел.
+public final class IntSet {
+
+    private static final int[] EMPTY = new int[0];
+
+    private static final int MIN_CAPACITY = 4;
+
+    private final StampedLock lock = new StampedLock();
+
+    // 0 обозначает свободную ячейку, поэтому сам 0 хранится отдельным флагом
+    private int[] keys = EMPTY;
+
+    private boolean containsZero;
+
+    private int size;
+
+    public IntSet() {
+    }
+
+    @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+    public static IntSet of(int... values) {
+        IntSet set = new IntSet();
+        if (values != null && values.length > 0) {
+            // Таблица сразу нужного размера: массив из toArray идёт в порядке ячеек, и вставка
+            // такой последовательности в растущую таблицу даёт длинные цепочки линейного пробирования
+            int capacity = MIN_CAPACITY;
+            while (capacity * 3L < values.length * 4L) {
+                capacity <<= 1;
+            }
+            set.keys = new int[capacity];
+            for (int value : values) {
+                set.addUnlocked(value);
+            }
+        }
+        return set;
+    }
+
+    public boolean add(int value) {
+        long stamp = lock.writeLock();
+        try {
+            return addUnlocked(value);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public boolean remove(int value) {
+        long stamp = lock.writeLock();
+        try {
+            return removeUnlocked(value);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public boolean contains(int value) {
+        long stamp = lock.tryOptimisticRead();
+        boolean result = containsUnlocked(value);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                result = containsUnlocked(value);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        long stamp = lock.tryOptimisticRead();
+        int result = size;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                result = size;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return result;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    // Снимок элементов; порядок совпадает с порядком обхода HashSet<Integer> для небольших id
+    @JsonValue
+    public int[] toArray() {
+        long stamp = lock.readLock();
+        try {
+            int[] result = new int[size];
+            int index = 0;
+            if (containsZero) {
+                result[index++] = 0;
+            }
+            for (int key : keys) {
+                if (key != 0) {
+                    result[index++] = key;
+                }
+            }
+            return result;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Пересечение: обходим снимок меньшего множества и проверяем элементы в большем.
+    // Для хеш-множеств это O(min(|a|, |b|)) и не требует сортировки или построения битмапов
+    public int[] intersect(IntSet other) {
+        IntSet smaller = size() <= other.size() ? this : other;
+        IntSet larger = smaller == this ? other : this;
+        int[] candidates = smaller.toArray();
+        int count = 0;
+        for (int value : candidates) {
+            if (larger.contains(value)) {
+                candidates[count++] = value;
+            }
+        }
+        return Arrays.copyOf(candidates, count);
+    }
+
+    public void forEach(IntConsumer action) {
+        for (int value : toArray()) {
+            action.accept(value);
+        }
+    }
+
+    private boolean addUnlocked(int value) {
+        if (value == 0) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+        if ((size + 1) * 4L > keys.length * 3L) {
+            rehash(Math.max(MIN_CAPACITY, keys.length * 2));
+        }
+        int mask = keys.length - 1;
+        int pos = hash(value) & mask;
+        while (keys[pos] != 0) {
+            if (keys[pos] == value) {
+                return false;
+            }
+            pos = (pos + 1) & mask;
+        }
+        keys[pos] = value;
+        size++;
+        return true;
+    }
+
+    private boolean removeUnlocked(int value) {
+        if (value == 0) {
+            if (!containsZero) {
+                return false;
+            }
+            containsZero = false;
+            size--;
+            return true;
+        }
+        if (keys.length == 0) {
+            return false;
+        }
+        int mask = keys.length - 1;
+        int pos = hash(value) & mask;
+        while (keys[pos] != value) {
+            if (keys[pos] == 0) {
+                return false;
+            }
+            pos = (pos + 1) & mask;
+        }
+        shiftKeys(pos, mask);
+        size--;
+        return true;
+    }
+
+    // Удаление без "надгробий": сдвигаем следующие элементы цепочки на освободившееся место
+    private void shiftKeys(int pos, int mask) {
+        int last;
+        while (true) {
+            last = pos;
+            pos = (pos + 1) & mask;
+            int current;
+            while (true) {
+                current = keys[pos];
+                if (current == 0) {
+                    keys[last] = 0;
+                    return;
+                }
+                int slot = hash(current) & mask;
+                if (last <= pos ? last >= slot || slot > pos : last >= slot && slot > pos) {
+                    break;
+                }
+                pos = (pos + 1) & mask;
+            }
+            keys[last] = current;
+        }
+    }
+
+    private boolean containsUnlocked(int value) {
+        if (value == 0) {
+            return containsZero;
+        }
+        int[] table = keys;
+        if (table.length == 0) {
+            return false;
+        }
+        int mask = table.length - 1;
+        int pos = hash(value) & mask;
+        // ограничение по длине таблицы защищает оптимистичное чтение от зацикливания
+        for (int i = 0; i < table.length; i++) {
+            int key = table[pos];
+            if (key == value) {
+                return true;
+            }
+            if (key == 0) {
+                return false;
+            }
+            pos = (pos + 1) & mask;
+        }
+        return false;
+    }
+
+    private void rehash(int capacity) {
+        int[] old = keys;
+        int[] table = new int[capacity];
+        int mask = capacity - 1;
+        for (int key : old) {
+            if (key != 0) {
+                int pos = hash(key) & mask;
+                while (table[pos] != 0) {
+                    pos = (pos + 1) & mask;
+                }
+                table[pos] = key;
+            }
+        }
+        keys = table;
+    }
+
+    // Та же функция разброса, что и у HashMap: последовательные id попадают в соседние ячейки
+    private static int hash(int value) {
+        return value ^ (value >>> 16);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof IntSet other)) {
+            return false;
+        }
+        int[] values = toArray();
+        if (values.length != other.size()) {
+            return false;
+        }
+        for (int value : values) {
+            if (!other.contains(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 0;
+        for (int value : toArray()) {
+            result += value;
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+}
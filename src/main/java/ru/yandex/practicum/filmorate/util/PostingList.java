@@ -0,0 +1,273 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Отсортированный по возрастанию список int для обратного индекса: 4 байта на элемент и пересечение
+// слиянием без хеширования. Элементы лежат блоками до BLOCK штук, блоки — по возрастанию. Новые id больше
+// всех прежних, поэтому add почти всегда дописывает в конец последнего блока; вставка в середину и удаление
+// копируют один блок (при переполнении делят его пополам) и каталог блоков, а не весь список.
+// Читатели берут неизменяемый снимок без блокировки: элементы блока до его длины в снимке больше
+// никогда не меняются, дописывать на месте можно только за длиной последнего блока.
+public final class PostingList {
+
+    private static final int BLOCK_BITS = 7;
+
+    private static final int BLOCK = 1 << BLOCK_BITS;
+
+    private static final int OFFSET_MASK = BLOCK - 1;
+
+    private static final int LINEAR_STEPS = 8;
+
+    // Позиция элемента в снимке — номер блока << BLOCK_BITS | смещение в блоке; позиции идут по возрастанию,
+    // но не подряд. Обход: for (p = 0; p < view.end(); p = view.next(p)). Длина последнего блока — tail,
+    // остальных — lengths: его ячейку в lengths запишут, только когда блок перестанет быть последним
+    public record View(int[][] blocks, int[] lengths, int count, int tail, int size) {
+
+        public int end() {
+            return count << BLOCK_BITS;
+        }
+
+        public int get(int position) {
+            return blocks[position >>> BLOCK_BITS][position & OFFSET_MASK];
+        }
+
+        public int next(int position) {
+            int block = position >>> BLOCK_BITS;
+            return (position & OFFSET_MASK) + 1 < length(block) ? position + 1 : (block + 1) << BLOCK_BITS;
+        }
+
+        // Первая позиция from и дальше с элементом >= value, end(), если такой нет. Соседние списки частых
+        // терминов плотные, поэтому сначала несколько шагов подряд, а дальше галопом по блокам
+        public int seek(int from, int value) {
+            int block = from >>> BLOCK_BITS;
+            if (block >= count) {
+                return end();
+            }
+            int offset = from & OFFSET_MASK;
+            int[] ids = blocks[block];
+            int length = length(block);
+            int linearEnd = Math.min(length, offset + LINEAR_STEPS);
+            while (offset < linearEnd) {
+                if (ids[offset] >= value) {
+                    return block << BLOCK_BITS | offset;
+                }
+                offset++;
+            }
+            if (offset < length && ids[length - 1] >= value) {
+                return block << BLOCK_BITS | insertionPoint(ids, offset, length, value);
+            }
+            // первый следующий блок, последний элемент которого >= value
+            int low = block;
+            int step = 1;
+            int high = block + 1;
+            while (high < count && last(high) < value) {
+                low = high;
+                step <<= 1;
+                high = block + step;
+            }
+            high = Math.min(high, count);
+            while (low + 1 < high) {
+                int middle = (low + high) >>> 1;
+                if (last(middle) < value) {
+                    low = middle;
+                } else {
+                    high = middle;
+                }
+            }
+            if (high >= count) {
+                return end();
+            }
+            return high << BLOCK_BITS | insertionPoint(blocks[high], 0, length(high), value);
+        }
+
+        private int length(int block) {
+            return block == count - 1 ? tail : lengths[block];
+        }
+
+        private int last(int block) {
+            return blocks[block][length(block) - 1];
+        }
+    }
+
+    private static final View EMPTY = new View(new int[0][], new int[0], 0, 0, 0);
+
+    private volatile View view = EMPTY;
+
+    private final ReentrantLock writes = new ReentrantLock();
+
+    public View view() {
+        return view;
+    }
+
+    public int size() {
+        return view.size();
+    }
+
+    public boolean add(int value) {
+        writes.lock();
+        try {
+            return insert(value);
+        } finally {
+            writes.unlock();
+        }
+    }
+
+    public boolean remove(int value) {
+        writes.lock();
+        try {
+            return delete(value);
+        } finally {
+            writes.unlock();
+        }
+    }
+
+    private boolean insert(int value) {
+        View current = view;
+        int count = current.count();
+        if (count == 0 || current.last(count - 1) < value) {
+            append(current, value);
+            return true;
+        }
+        int block = blockFor(current, value);
+        int[] ids = current.blocks()[block];
+        int length = current.length(block);
+        int position = Arrays.binarySearch(ids, 0, length, value);
+        if (position >= 0) {
+            return false;
+        }
+        position = -position - 1;
+        if (length < BLOCK) {
+            int[] copy = new int[BLOCK];
+            System.arraycopy(ids, 0, copy, 0, position);
+            copy[position] = value;
+            System.arraycopy(ids, position, copy, position + 1, length - position);
+            view = replace(current, block, copy, length + 1, current.size() + 1);
+            return true;
+        }
+        // блок полон: делим пополам, новый элемент попадает в свою половину
+        int[] merged = new int[BLOCK + 1];
+        System.arraycopy(ids, 0, merged, 0, position);
+        merged[position] = value;
+        System.arraycopy(ids, position, merged, position + 1, length - position);
+        int half = merged.length / 2;
+        int[] left = Arrays.copyOf(merged, BLOCK);
+        int[] right = Arrays.copyOfRange(merged, half, half + BLOCK);
+        view = split(current, block, left, half, right, merged.length - half);
+        return true;
+    }
+
+    private boolean delete(int value) {
+        View current = view;
+        if (current.count() == 0 || current.last(current.count() - 1) < value) {
+            return false;
+        }
+        int block = blockFor(current, value);
+        int[] ids = current.blocks()[block];
+        int length = current.length(block);
+        int position = Arrays.binarySearch(ids, 0, length, value);
+        if (position < 0) {
+            return false;
+        }
+        if (length == 1) {
+            view = dropBlock(current, block);
+            return true;
+        }
+        // копия, а не сдвиг на месте: прежние снимки видят блок неизменным
+        int[] copy = new int[BLOCK];
+        System.arraycopy(ids, 0, copy, 0, position);
+        System.arraycopy(ids, position + 1, copy, position, length - position - 1);
+        view = replace(current, block, copy, length - 1, current.size() - 1);
+        return true;
+    }
+
+    // Дописывание за длиной последнего блока не видно прежним снимкам; каталог растёт с запасом
+    private void append(View current, int value) {
+        int count = current.count();
+        if (count > 0 && current.tail() < BLOCK) {
+            current.blocks()[count - 1][current.tail()] = value;
+            view = new View(current.blocks(), current.lengths(), count, current.tail() + 1, current.size() + 1);
+            return;
+        }
+        int[][] blocks = current.blocks();
+        int[] lengths = current.lengths();
+        if (count == blocks.length) {
+            int capacity = Math.max(4, count + (count >> 1));
+            blocks = Arrays.copyOf(blocks, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+        }
+        if (count > 0) {
+            lengths[count - 1] = current.tail();
+        }
+        int[] block = new int[BLOCK];
+        block[0] = value;
+        blocks[count] = block;
+        view = new View(blocks, lengths, count + 1, 1, current.size() + 1);
+    }
+
+    // Первый блок, последний элемент которого >= value; такой есть, value не больше последнего элемента
+    private static int blockFor(View current, int value) {
+        int low = 0;
+        int high = current.count() - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (current.last(middle) < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static View replace(View current, int block, int[] ids, int length, int size) {
+        int count = current.count();
+        int[][] blocks = current.blocks().clone();
+        int[] lengths = current.lengths().clone();
+        blocks[block] = ids;
+        if (block == count - 1) {
+            return new View(blocks, lengths, count, length, size);
+        }
+        lengths[block] = length;
+        return new View(blocks, lengths, count, current.tail(), size);
+    }
+
+    private static View split(View current, int block, int[] left, int leftLength, int[] right,
+                              int rightLength) {
+        int count = current.count();
+        int capacity = Math.max(current.blocks().length, count + 1);
+        int[][] blocks = new int[capacity][];
+        int[] lengths = new int[capacity];
+        System.arraycopy(current.blocks(), 0, blocks, 0, block);
+        System.arraycopy(current.lengths(), 0, lengths, 0, block);
+        System.arraycopy(current.blocks(), block + 1, blocks, block + 2, count - block - 1);
+        System.arraycopy(current.lengths(), block + 1, lengths, block + 2, count - block - 1);
+        blocks[block] = left;
+        lengths[block] = leftLength;
+        blocks[block + 1] = right;
+        lengths[block + 1] = rightLength;
+        // длина последнего блока берётся из tail, а не из lengths
+        int tail = block == count - 1 ? rightLength : current.tail();
+        return new View(blocks, lengths, count + 1, tail, current.size() + 1);
+    }
+
+    private static View dropBlock(View current, int block) {
+        int count = current.count();
+        if (count == 1) {
+            return EMPTY;
+        }
+        int[][] blocks = new int[current.blocks().length][];
+        int[] lengths = new int[current.blocks().length];
+        System.arraycopy(current.blocks(), 0, blocks, 0, block);
+        System.arraycopy(current.lengths(), 0, lengths, 0, block);
+        System.arraycopy(current.blocks(), block + 1, blocks, block, count - block - 1);
+        System.arraycopy(current.lengths(), block + 1, lengths, block, count - block - 1);
+        int tail = block == count - 1 ? current.lengths()[count - 2] : current.tail();
+        return new View(blocks, lengths, count - 1, tail, current.size() - 1);
+    }
+
+    private static int insertionPoint(int[] ids, int from, int to, int value) {
+        int found = Arrays.binarySearch(ids, from, to, value);
+        return found >= 0 ? found : -found - 1;
+    }
+}
@@ -0,0 +1,98 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+// Ограниченная очередь многих писателей и одного читателя без блокировок. Писатель занимает номер
+// CAS-ом хвоста и публикует элемент release-записью в ячейку; читатель забирает элементы по порядку
+// номеров и останавливается на ячейке, номер которой занят, но ещё не опубликован. Ячейки пакета
+// освобождаются для писателей только после его обработки, поэтому голова — это и число обработанных
+public final class RingBuffer<T> {
+
+    private final AtomicReferenceArray<T> slots;
+
+    // время публикации каждой ячейки (System.nanoTime) для замера задержки читателя
+    private final long[] publishedAt;
+
+    private final int mask;
+
+    private final AtomicLong tail = new AtomicLong();
+
+    // пишет только читатель
+    private volatile long head;
+
+    public RingBuffer(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Ёмкость должна быть степенью двойки: " + capacity);
+        }
+        slots = new AtomicReferenceArray<>(capacity);
+        publishedAt = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    // Номер элемента или -1, если очередь заполнена
+    public long offer(T element) {
+        while (true) {
+            long sequence = tail.get();
+            if (sequence - head > mask) {
+                return -1;
+            }
+            if (tail.compareAndSet(sequence, sequence + 1)) {
+                int index = (int) sequence & mask;
+                publishedAt[index] = System.nanoTime();
+                slots.setRelease(index, element);
+                return sequence;
+            }
+        }
+    }
+
+    // Передаёт consumer до max опубликованных элементов подряд и возвращает их число
+    public int drain(Consumer<T> consumer, int max) {
+        long first = head;
+        int count = 0;
+        try {
+            while (count < max) {
+                int index = (int) (first + count) & mask;
+                T element = slots.getAcquire(index);
+                if (element == null) {
+                    break;
+                }
+                slots.setPlain(index, null);
+                count++;
+                consumer.accept(element);
+            }
+        } finally {
+            head = first + count;
+        }
+        return count;
+    }
+
+    // Возраст самого старого необработанного элемента, 0 для пустой очереди
+    public long oldestAgeNanos() {
+        long first = head;
+        if (tail.get() == first) {
+            return 0;
+        }
+        long publishedNanos = publishedAt[(int) first & mask];
+        return publishedNanos == 0 ? 0 : Math.max(System.nanoTime() - publishedNanos, 0);
+    }
+
+    // Элементы, занятые писателями и ещё не обработанные читателем
+    public int size() {
+        return (int) (tail.get() - head);
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    // Номер следующего элемента: всё, что опубликовано до вызова, имеет меньший номер
+    public long published() {
+        return tail.get();
+    }
+
+    public long consumed() {
+        return head;
+    }
+}
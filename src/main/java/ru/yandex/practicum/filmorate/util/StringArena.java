@@ -0,0 +1,106 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Строки в UTF-8 вне кучи: блоки direct-памяти, в которые записи только дописываются. Ссылка на строку —
+// long (номер блока + 1, смещение), 0 обозначает null. Записанные байты больше не меняются, поэтому
+// get читает без блокировки. Место отпущенных строк не переиспользуется, а только учитывается в wastedBytes:
+// владелец переписывает живые строки в новую арену, когда потерянного становится слишком много
+public final class StringArena {
+
+    private static final int CHUNK_SIZE = 16 << 20;
+
+    private volatile ByteBuffer[] chunks = new ByteBuffer[0];
+
+    private final ReentrantLock writes = new ReentrantLock();
+
+    // позиция записи в последнем блоке; меняется только под блокировкой writes
+    private int position;
+
+    private volatile long allocatedBytes;
+
+    private volatile long usedBytes;
+
+    private final AtomicLong wastedBytes = new AtomicLong();
+
+    public long put(String value) {
+        if (value == null) {
+            return 0;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int needed = Integer.BYTES + bytes.length;
+        writes.lock();
+        try {
+            return append(bytes, needed);
+        } finally {
+            writes.unlock();
+        }
+    }
+
+    private long append(byte[] bytes, int needed) {
+        ByteBuffer[] current = chunks;
+        if (current.length == 0 || current[current.length - 1].capacity() - position < needed) {
+            // строка длиннее блока получает собственный блок
+            ByteBuffer chunk = ByteBuffer.allocateDirect(Math.max(CHUNK_SIZE, needed));
+            current = Arrays.copyOf(current, current.length + 1);
+            current[current.length - 1] = chunk;
+            chunks = current;
+            position = 0;
+            allocatedBytes += chunk.capacity();
+        }
+        ByteBuffer chunk = current[current.length - 1];
+        int offset = position;
+        chunk.putInt(offset, bytes.length);
+        chunk.put(offset + Integer.BYTES, bytes);
+        position += needed;
+        usedBytes += needed;
+        return ((long) current.length << 32) | offset;
+    }
+
+    // Ссылка на value взамен ref: та же ref, если строка не изменилась, иначе новая запись,
+    // а прежняя отпускается
+    public long replace(long ref, String value) {
+        if (ref != 0 && value != null && value.equals(get(ref))) {
+            return ref;
+        }
+        release(ref);
+        return put(value);
+    }
+
+    // На строку больше нет ссылок
+    public void release(long ref) {
+        if (ref != 0) {
+            wastedBytes.addAndGet(Integer.BYTES + chunks[(int) (ref >>> 32) - 1].getInt((int) ref));
+        }
+    }
+
+    public String get(long ref) {
+        if (ref == 0) {
+            return null;
+        }
+        ByteBuffer chunk = chunks[(int) (ref >>> 32) - 1];
+        int offset = (int) ref;
+        byte[] bytes = new byte[chunk.getInt(offset)];
+        chunk.get(offset + Integer.BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Зарезервировано direct-памяти
+    public long allocatedBytes() {
+        return allocatedBytes;
+    }
+
+    // Записано байт, включая версии строк, на которые уже нет ссылок
+    public long usedBytes() {
+        return usedBytes;
+    }
+
+    // Байт отпущенных строк
+    public long wastedBytes() {
+        return wastedBytes.get();
+    }
+}
@@ -0,0 +1,24 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Блокировки записей по id: 1024 полосы ReentrantLock. Замена compute у ConcurrentHashMap там, где под
+// блокировкой записи что-то ждёт (например, очередь журнала): ожидание монитора ячейки держит
+// несущий поток виртуального, ожидание ReentrantLock — нет.
+public final class StripedLocks {
+
+    private static final int STRIPES = 1024;
+
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+    public StripedLocks() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    public Lock of(int id) {
+        return locks[id & (STRIPES - 1)];
+    }
+}
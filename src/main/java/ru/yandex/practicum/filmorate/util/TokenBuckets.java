@@ -0,0 +1,94 @@
+package ru.yandex.practicum.filmorate.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// Token bucket на каждый ключ без блокировок. Состояние корзины — одно число: момент, когда она снова
+// станет полной (GCRA). Запрос берёт токен, если этот момент не дальше burst - 1 интервалов от текущего
+// времени, и сдвигает его на интервал одним CAS. Полная корзина ничем не отличается от новой, поэтому
+// при переполнении таблицы такие корзины удаляются без потери состояния. Если места нет и после этого,
+// новые ключи делят одну общую корзину: память ограничена, а перебор ключей не обходит лимит.
+public final class TokenBuckets {
+
+    private final long intervalNanos;
+
+    // Насколько момент заполнения может опережать текущее время: burst - 1 интервалов
+    private final long toleranceNanos;
+
+    private final int maxBuckets;
+
+    private final LongSupplier clock;
+
+    private final Map<Long, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    private final AtomicLong overflow;
+
+    // Обход таблицы не чаще, чем корзина успевает заполниться: иначе при таблице из активных корзин
+    // каждый новый ключ обходил бы её целиком
+    private final AtomicLong nextSweep;
+
+    public TokenBuckets(double tokensPerSecond, int burst, int maxBuckets) {
+        this(tokensPerSecond, burst, maxBuckets, System::nanoTime);
+    }
+
+    public TokenBuckets(double tokensPerSecond, int burst, int maxBuckets, LongSupplier clock) {
+        if (tokensPerSecond <= 0 || burst <= 0 || maxBuckets <= 0) {
+            throw new IllegalArgumentException("Скорость, размер корзины и число корзин должны быть положительными");
+        }
+        this.intervalNanos = Math.max((long) (TimeUnit.SECONDS.toNanos(1) / tokensPerSecond), 1);
+        this.toleranceNanos = intervalNanos * (burst - 1);
+        this.maxBuckets = maxBuckets;
+        this.clock = clock;
+        long now = clock.getAsLong();
+        this.overflow = new AtomicLong(now);
+        this.nextSweep = new AtomicLong(now);
+    }
+
+    // 0, если токен взят, иначе сколько наносекунд ждать следующего
+    public long tryAcquire(long key) {
+        long now = clock.getAsLong();
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = create(key, now);
+        }
+        while (true) {
+            long full = bucket.get();
+            long wait = full - toleranceNanos - now;
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(full, Math.max(full, now) + intervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    private AtomicLong create(long key, long now) {
+        if (buckets.size() >= maxBuckets) {
+            sweep(now);
+            if (buckets.size() >= maxBuckets) {
+                return overflow;
+            }
+        }
+        // новая корзина полная; вставка и обход не синхронизированы, таблица может ненадолго
+        // превысить maxBuckets на число одновременно создающих потоков
+        return buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+    }
+
+    // Удаляет заполнившиеся корзины. Поток, успевший взять ссылку на удаляемую корзину, спишет токен
+    // уже с неё: лимит ключа превысится не больше чем на токен, и только у ключа с полной корзиной
+    private void sweep(long now) {
+        long scheduled = nextSweep.get();
+        if (now - scheduled < 0 || !nextSweep.compareAndSet(scheduled, now + toleranceNanos + intervalNanos)) {
+            return;
+        }
+        buckets.values().removeIf(bucket -> bucket.get() - now <= 0);
+    }
+}
@@ -1,5 +1,5 @@
 CREATE TABLE IF NOT EXISTS users (
-    user_id INT PRIMARY KEY GENERATED ALWAYS AS IDENTITY,
+    user_id INT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
     email VARCHAR(255) NOT NULL UNIQUE,
     login VARCHAR(50) NOT NULL UNIQUE,
     name VARCHAR(255),
@@ -19,7 +19,7 @@ CREATE TABLE IF NOT EXISTS mpa_rating (
     );
 
 CREATE TABLE IF NOT EXISTS films (
-    film_id INT PRIMARY KEY GENERATED ALWAYS AS IDENTITY,
+    film_id INT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
     name VARCHAR(255) NOT NULL,
     description TEXT,
     release_date DATE NOT NULL,
@@ -0,0 +1,121 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+import ru.yandex.practicum.filmorate.controller.AdmissionControl;
+import ru.yandex.practicum.filmorate.controller.FilmController;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+import ru.yandex.practicum.filmorate.util.TokenBuckets;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Стоимость допуска изменений на пути запроса: корзины пользователей отдельно и вместе с лимитом
+// одновременных запросов, как их вызывает Spring MVC до и после обработчика лайка.
+// hot — все потоки бьют в корзину одного пользователя (спор за CAS), spread — пользователи случайные.
+// Лимиты заданы так, чтобы запросы проходили: замеряется путь допуска, а не отказа
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AdmissionOverheadBenchmark {
+
+    @Param({"100000"})
+    private int users;
+
+    // db — проверка существования пользователя запросом к H2 через пул соединений, как в режиме
+    // filmorate.storage=db
+    @Param({"memory", "db"})
+    private String storage;
+
+    private HikariDataSource database;
+
+    private TokenBuckets buckets;
+
+    private AdmissionControl admission;
+
+    private HandlerMethod likeHandler;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        buckets = new TokenBuckets(1e9, 1_000_000, users * 2);
+        UserStorage userStorage;
+        if ("db".equals(storage)) {
+            // база живёт, пока пул держит соединения, и исчезает при его закрытии
+            database = new HikariDataSource();
+            database.setJdbcUrl("jdbc:h2:mem:admission" + System.nanoTime());
+            new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(database);
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+            userStorage = new UserDbStorage(jdbcTemplate, new NamedParameterJdbcTemplate(jdbcTemplate));
+        } else {
+            userStorage = new InMemoryUserStorage();
+        }
+        Datasets.fillUsers(userStorage, users);
+        admission = new AdmissionControl(new SimpleMeterRegistry(), userStorage, true, 1e9, 1_000_000, 1e9,
+                1_000_000, users * 2, 1_000_000);
+        likeHandler = new HandlerMethod(new Object(), FilmController.class.getMethod("addLike", int.class, int.class));
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (database != null) {
+            database.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        final SplittableRandom random = new SplittableRandom();
+        final MockHttpServletRequest request = new MockHttpServletRequest("PUT", "/films/1/like/1");
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        final Map<String, String> variables = new HashMap<>(Map.of("id", "1", "userId", "1"));
+
+        @Setup
+        public void setUp() {
+            request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, variables);
+        }
+    }
+
+    @Benchmark
+    public long bucketHot() {
+        return buckets.tryAcquire(1);
+    }
+
+    @Benchmark
+    public long bucketSpread(ThreadState state) {
+        return buckets.tryAcquire(1 + state.random.nextInt(users));
+    }
+
+    @Benchmark
+    public boolean admissionHot(ThreadState state) {
+        state.variables.put("userId", "1");
+        return admit(state);
+    }
+
+    @Benchmark
+    public boolean admissionSpread(ThreadState state) {
+        state.variables.put("userId", Integer.toString(1 + state.random.nextInt(users)));
+        return admit(state);
+    }
+
+    private boolean admit(ThreadState state) {
+        boolean admitted = admission.preHandle(state.request, state.response, likeHandler);
+        admission.afterCompletion(state.request, state.response, likeHandler, null);
+        return admitted;
+    }
+}
@@ -0,0 +1,25 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// Прогоняет выбранные бенчмарки при каждом числе потоков из -Djmh.threads (по умолчанию 1, 4 и 16).
+// Остальные аргументы передаются JMH как есть, например: StorageBenchmark -p films=1000
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        for (String threads : System.getProperty("jmh.threads", "1,4,16").split(",")) {
+            Options options = new OptionsBuilder()
+                    .parent(commandLine)
+                    .threads(Integer.parseInt(threads.trim()))
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
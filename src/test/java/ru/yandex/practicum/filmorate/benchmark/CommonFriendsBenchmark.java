@@ -0,0 +1,67 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.util.IntSet;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// Сравнение пересечения друзей: прежний stream по HashSet<Integer> против IntSet.intersect
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommonFriendsBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    private int userFriends;
+
+    // Размер списка друзей второго пользователя относительно первого: равные и сильно различающиеся
+    @Param({"1", "100"})
+    private int skew;
+
+    private Set<Integer> boxedUser;
+    private Set<Integer> boxedOther;
+    private IntSet user;
+    private IntSet other;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        int universe = 1_000_000;
+        boxedUser = new HashSet<>();
+        boxedOther = new HashSet<>();
+        while (boxedUser.size() < userFriends) {
+            boxedUser.add(1 + random.nextInt(universe));
+        }
+        // Примерно половина друзей первого пользователя общие
+        for (Integer id : boxedUser) {
+            if (random.nextBoolean()) {
+                boxedOther.add(id);
+            }
+        }
+        while (boxedOther.size() < userFriends * skew) {
+            boxedOther.add(1 + random.nextInt(universe));
+        }
+        user = IntSet.of(boxedUser.stream().mapToInt(Integer::intValue).toArray());
+        other = IntSet.of(boxedOther.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    @Benchmark
+    public List<Integer> streamOverHashSet() {
+        return boxedUser.stream()
+                .filter(boxedOther::contains)
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public int[] intSetIntersect() {
+        return user.intersect(other);
+    }
+}
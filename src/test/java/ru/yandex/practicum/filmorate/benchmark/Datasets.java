@@ -0,0 +1,84 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// Наполнение хранилищ для бенчмарков: id сущностей идут подряд от 1
+final class Datasets {
+
+    static final long SEED = 42;
+
+    private Datasets() {
+    }
+
+    // 30 лет выпуска, 6 жанров справочника, у каждого третьего фильма второй жанр
+    static Film film(int index) {
+        List<Genre> genres = new ArrayList<>();
+        genres.add(new Genre(1 + index % 6, null));
+        if (index % 3 == 0) {
+            genres.add(new Genre(1 + (index / 3 + 1) % 6, null));
+        }
+        return Film.builder()
+                .name("Film " + index)
+                .description("Description of film " + index)
+                .releaseDate(LocalDate.of(1990 + index % 30, 1 + index % 12, 1 + index % 28))
+                .duration(60 + index % 120)
+                .mpa(new Mpa(1 + index % 5, null))
+                .genres(genres)
+                .build();
+    }
+
+    static User user(int index) {
+        return User.builder()
+                .email("user" + index + "@example.com")
+                .login("user" + index)
+                .name("User " + index)
+                .birthday(LocalDate.of(1970 + index % 40, 1 + index % 12, 1 + index % 28))
+                .build();
+    }
+
+    static void fillUsers(UserStorage storage, int users) {
+        for (int i = 0; i < users; i++) {
+            storage.add(user(i));
+        }
+    }
+
+    static void fillFilms(FilmStorage storage, int films) {
+        for (int i = 0; i < films; i++) {
+            storage.add(film(i));
+        }
+    }
+
+    // Каждый лайк — случайный пользователь и фильм, выбранный по заданному распределению
+    static void fillLikes(FilmStorage storage, int films, int users, long likes, Distribution distribution) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        Distribution.Sampler filmSampler = distribution.sampler(films);
+        for (long i = 0; i < likes; i++) {
+            storage.addLike(filmSampler.next(random), 1 + random.nextInt(users));
+        }
+    }
+
+    // Взаимная дружба, как её создаёт UserService.addFriend
+    static void fillFriends(UserStorage storage, int users, int friendsPerUser, Distribution distribution) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        Distribution.Sampler friendSampler = distribution.sampler(users);
+        long edges = (long) users * friendsPerUser / 2;
+        for (long i = 0; i < edges; i++) {
+            int userId = 1 + random.nextInt(users);
+            int friendId = friendSampler.next(random);
+            if (userId != friendId) {
+                storage.addFriend(userId, friendId);
+                storage.addFriend(friendId, userId);
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+// Распределение выбора сущности (фильма для лайка, друга для дружбы) в наборах данных бенчмарков
+public enum Distribution {
+    UNIFORM,
+    // Закон Ципфа с s = 1: небольшое число популярных фильмов и пользователей собирает большую часть связей
+    ZIPF;
+
+    public Sampler sampler(int size) {
+        return this == UNIFORM ? random -> 1 + random.nextInt(size) : new ZipfSampler(size, 1.0);
+    }
+
+    @FunctionalInterface
+    public interface Sampler {
+        // Возвращает id от 1 до size
+        int next(SplittableRandom random);
+    }
+
+    private static final class ZipfSampler implements Sampler {
+
+        private final double[] cdf;
+
+        private ZipfSampler(int size, double exponent) {
+            cdf = new double[size];
+            double sum = 0;
+            for (int rank = 1; rank <= size; rank++) {
+                sum += 1.0 / Math.pow(rank, exponent);
+                cdf[rank - 1] = sum;
+            }
+            for (int i = 0; i < size; i++) {
+                cdf[i] /= sum;
+            }
+        }
+
+        @Override
+        public int next(SplittableRandom random) {
+            int index = Arrays.binarySearch(cdf, random.nextDouble());
+            return (index >= 0 ? index : -index - 1) + 1;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.film.ColumnarFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+
+// Сравнение InMemoryFilmStorage и ColumnarFilmStorage по памяти и сборке мусора: каталог из films фильмов
+// с likes лайками, затем занятая куча после полной сборки, длительность этой сборки (она растёт с числом
+// живых объектов) и сборки за seconds секунд смешанной нагрузки (чтения по id, лайки, популярные).
+// mvn -Pfootprint test-compile exec:exec -Dfootprint.args="--films=2000000 --seconds=20"
+public final class FilmFootprintRunner {
+
+    // результат чтений, чтобы JIT не выбросил их как неиспользуемые
+    private static volatile long sink;
+
+    private FilmFootprintRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        int films = Integer.parseInt(options.getOrDefault("films", "1000000"));
+        long likes = Long.parseLong(options.getOrDefault("likes", String.valueOf(films * 2L)));
+        int seconds = Integer.parseInt(options.getOrDefault("seconds", "10"));
+
+        System.out.printf("films=%d likes=%d seconds=%d maxHeap=%d MB%n", films, likes, seconds,
+                Runtime.getRuntime().maxMemory() >> 20);
+        System.out.printf("%-10s %10s %10s %10s %12s %12s %10s %10s%n", "storage", "load s", "heap MB",
+                "off-heap MB", "full gc ms", "ops/s", "gc count", "gc ms");
+        measure("memory", InMemoryFilmStorage::new, films, likes, seconds);
+        measure("columnar", ColumnarFilmStorage::new, films, likes, seconds);
+    }
+
+    private static void measure(String name, Supplier<FilmStorage> factory, int films, long likes, int seconds) {
+        long baseline = usedHeapAfterGc();
+        long start = System.nanoTime();
+        FilmStorage storage = factory.get();
+        Datasets.fillFilms(storage, films);
+        Datasets.fillLikes(storage, films, films, likes, Distribution.ZIPF);
+        double loadSeconds = (System.nanoTime() - start) / 1e9;
+
+        long gcStart = System.nanoTime();
+        long heap = usedHeapAfterGc() - baseline;
+        long fullGcMillis = (System.nanoTime() - gcStart) / 1_000_000;
+        long offHeap = storage instanceof ColumnarFilmStorage columnar ? columnar.offHeapBytes() : 0;
+
+        long[] gcBefore = gcTotals();
+        long ops = workload(storage, films, seconds);
+        long[] gcAfter = gcTotals();
+
+        System.out.printf("%-10s %10.1f %10d %10d %12d %12.0f %10d %10d%n", name, loadSeconds, heap >> 20,
+                offHeap >> 20, fullGcMillis, (double) ops / seconds, gcAfter[0] - gcBefore[0],
+                gcAfter[1] - gcBefore[1]);
+    }
+
+    // 80% чтений фильма, 19% лайков, 1% топ-10 популярных
+    private static long workload(FilmStorage storage, int films, int seconds) {
+        SplittableRandom random = new SplittableRandom(Datasets.SEED);
+        Distribution.Sampler sampler = Distribution.ZIPF.sampler(films);
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        long ops = 0;
+        long checksum = 0;
+        while ((ops & 1023) != 0 || System.nanoTime() < deadline) {
+            int dice = random.nextInt(100);
+            if (dice < 80) {
+                checksum += storage.getById(sampler.next(random)).map(Film::getDuration).orElse(0);
+            } else if (dice < 99) {
+                storage.addLike(sampler.next(random), 1 + random.nextInt(films));
+            } else {
+                checksum += storage.getPopular(10).size();
+            }
+            ops++;
+        }
+        sink = checksum;
+        return ops;
+    }
+
+    private static long usedHeapAfterGc() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    // Суммарные число сборок и время в сборщиках по всем пулам
+    private static long[] gcTotals() {
+        long count = 0;
+        long millis = 0;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(bean.getCollectionCount(), 0);
+            millis += Math.max(bean.getCollectionTime(), 0);
+        }
+        return new long[]{count, millis};
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                int eq = arg.indexOf('=');
+                options.put(arg.substring(2, eq), arg.substring(eq + 1));
+            }
+        }
+        return options;
+    }
+}
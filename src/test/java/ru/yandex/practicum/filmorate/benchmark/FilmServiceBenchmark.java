@@ -0,0 +1,109 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.event.MutationEvents;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.FilmRecommendationService;
+import ru.yandex.practicum.filmorate.service.FilmSearchService;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.FilteredPopularityService;
+import ru.yandex.practicum.filmorate.service.ReferenceService;
+import ru.yandex.practicum.filmorate.service.TrendingService;
+import ru.yandex.practicum.filmorate.storage.VersionTracker;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.reference.InMemoryReferenceStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FilmServiceBenchmark {
+
+    @Param({"1000", "100000"})
+    private int films;
+
+    @Param({"10000"})
+    private int users;
+
+    @Param({"20"})
+    private int likesPerFilm;
+
+    @Param({"UNIFORM", "ZIPF"})
+    private Distribution distribution;
+
+    // direct — индексы обновляются в потоке запроса, async — через конвейер событий
+    @Param({"direct", "async"})
+    private String events;
+
+    private MutationEvents mutationEvents;
+
+    private FilmService filmService;
+    private Distribution.Sampler filmSampler;
+
+    @Setup
+    public void setUp() {
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        Datasets.fillUsers(userStorage, users);
+        Datasets.fillFilms(filmStorage, films);
+        Datasets.fillLikes(filmStorage, films, users, (long) films * likesPerFilm, distribution);
+        FilmRecommendationService recommendations = new FilmRecommendationService(filmStorage);
+        recommendations.loadExistingLikes();
+        TrendingService trending = new TrendingService(filmStorage);
+        FilmSearchService search = new FilmSearchService(filmStorage);
+        FilteredPopularityService filteredPopularity = new FilteredPopularityService(filmStorage);
+        filteredPopularity.indexExistingFilms();
+        mutationEvents = "async".equals(events)
+                ? new MutationEvents(List.of(recommendations, trending, search, filteredPopularity),
+                        new SimpleMeterRegistry(), true, 65536, 256, MutationEvents.Backpressure.BLOCK,
+                        MutationEvents.Consistency.EVENTUAL)
+                : MutationEvents.direct(recommendations, trending, search, filteredPopularity);
+        filmService = new FilmService(filmStorage, userStorage, trending, search, filteredPopularity,
+                new ReferenceService(new InMemoryReferenceStorage()), mutationEvents, new VersionTracker());
+        filmSampler = distribution.sampler(films);
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        mutationEvents.destroy();
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadRandom {
+        final SplittableRandom random = new SplittableRandom();
+    }
+
+    @Benchmark
+    public List<Film> getPopularFilms() {
+        return filmService.getPopularFilms(10);
+    }
+
+    // Один жанр: первые 10 ключей рейтинга жанра
+    @Benchmark
+    public List<Film> getPopularByGenre() {
+        return filmService.getPopularFilms(10, 3, null);
+    }
+
+    // Жанр и год: обход меньшего из рейтингов (года) с проверкой жанра
+    @Benchmark
+    public List<Film> getPopularByGenreAndYear() {
+        return filmService.getPopularFilms(10, 3, 2005);
+    }
+
+    // Пара добавление/удаление держит число лайков в наборе данных постоянным
+    @Benchmark
+    public void addAndRemoveLike(ThreadRandom state) {
+        int filmId = filmSampler.next(state.random);
+        int userId = 1 + state.random.nextInt(users);
+        filmService.addLike(filmId, userId);
+        filmService.removeLike(filmId, userId);
+    }
+}
@@ -0,0 +1,60 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.journal.FilmJournal;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Время старта с диска: likes лайков либо в снимке, либо только в журнале (снимка ещё не было)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class JournalRecoveryBenchmark {
+
+    @Param({"10000000"})
+    private long likes;
+
+    @Param({"snapshot", "journal"})
+    private String source;
+
+    private Path dir;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("filmorate-journal");
+        InMemoryFilmStorage storage = new InMemoryFilmStorage();
+        FilmJournal journal = FilmJournal.open(dir, false, storage);
+        storage.attachJournal(journal);
+        Datasets.fillFilms(storage, 10_000);
+        Datasets.fillLikes(storage, 10_000, 1_000_000, likes, Distribution.ZIPF);
+        if ("snapshot".equals(source)) {
+            journal.snapshot(storage);
+        }
+        journal.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public InMemoryFilmStorage recover() throws IOException {
+        InMemoryFilmStorage storage = new InMemoryFilmStorage();
+        FilmJournal.open(dir, false, storage).close();
+        return storage;
+    }
+}
@@ -0,0 +1,68 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import ru.yandex.practicum.filmorate.metrics.StorageMetricsAspect;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Стоимость таймеров StorageMetricsAspect (filmorate.metrics.storage.enabled=true): одно и то же хранилище напрямую и через прокси с аспектом
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricsOverheadBenchmark {
+
+    @Param({"10000"})
+    private int films;
+
+    private FilmStorage plain;
+
+    private FilmStorage instrumented;
+
+    @Setup
+    public void setUp() {
+        InMemoryFilmStorage storage = new InMemoryFilmStorage();
+        Datasets.fillFilms(storage, films);
+        plain = storage;
+
+        AspectJProxyFactory factory = new AspectJProxyFactory(storage);
+        factory.addAspect(new StorageMetricsAspect(new SimpleMeterRegistry(), Duration.ofMillis(200)));
+        instrumented = factory.getProxy();
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadRandom {
+        final SplittableRandom random = new SplittableRandom();
+    }
+
+    @Benchmark
+    public Optional<Film> getByIdPlain(ThreadRandom state) {
+        return plain.getById(1 + state.random.nextInt(films));
+    }
+
+    @Benchmark
+    public Optional<Film> getByIdInstrumented(ThreadRandom state) {
+        return instrumented.getById(1 + state.random.nextInt(films));
+    }
+
+    @Benchmark
+    public List<Film> getPopularPlain() {
+        return plain.getPopular(10);
+    }
+
+    @Benchmark
+    public List<Film> getPopularInstrumented() {
+        return instrumented.getPopular(10);
+    }
+}
@@ -0,0 +1,95 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.FilmSearchService;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Поиск и автодополнение по каталогу из films фильмов. Слова составлены из русских слогов
+// и выбираются по Ципфу: редкое слово встречается в десятках фильмов, частое — в сотнях тысяч
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class SearchBenchmark {
+
+    private static final String[] SYLLABLES = {
+            "ка", "ро", "ми", "на", "ле", "то", "сё", "ва", "ди", "му", "за", "бо", "ре", "жи", "лу", "ны"};
+
+    private static final int VOCABULARY = 50_000;
+
+    @Param({"100000", "1000000"})
+    private int films;
+
+    private FilmSearchService search;
+
+    private String[] words;
+
+    private String commonPair;
+
+    private String rarePair;
+
+    @Setup
+    public void setUp() {
+        words = new String[VOCABULARY + 1];
+        for (int i = 1; i <= VOCABULARY; i++) {
+            StringBuilder word = new StringBuilder();
+            for (int rest = i; rest > 0; rest /= SYLLABLES.length) {
+                word.append(SYLLABLES[rest % SYLLABLES.length]);
+            }
+            words[i] = word.toString();
+        }
+        SplittableRandom random = new SplittableRandom(42);
+        Distribution.Sampler sampler = Distribution.ZIPF.sampler(VOCABULARY);
+        InMemoryFilmStorage storage = new InMemoryFilmStorage();
+        for (int i = 0; i < films; i++) {
+            storage.add(Film.builder()
+                    .name(text(sampler, random, 3))
+                    .description(text(sampler, random, 12))
+                    .releaseDate(LocalDate.of(2000, 1, 1))
+                    .duration(90)
+                    .build());
+        }
+        search = new FilmSearchService(storage);
+        search.indexExistingFilms();
+        // лайки по Ципфу: поправка на лайки ослабляет отсечение кандидатов по верхней границе оценки
+        Distribution.Sampler filmSampler = Distribution.ZIPF.sampler(films);
+        for (int i = 0; i < films * 5; i++) {
+            search.onLikeAdded(filmSampler.next(random));
+        }
+        commonPair = words[1] + " " + words[2];
+        rarePair = words[1] + " " + words[5_000];
+    }
+
+    private String text(Distribution.Sampler sampler, SplittableRandom random, int length) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            text.append(i > 0 ? " " : "").append(words[sampler.next(random)]);
+        }
+        return text.toString();
+    }
+
+    // Два самых частых слова: кандидатов сотни тысяч
+    @Benchmark
+    public List<Film> searchCommon() {
+        return search.search(commonPair, 10);
+    }
+
+    // Частое слово с редким: кандидатов даёт редкое
+    @Benchmark
+    public List<Film> searchRare() {
+        return search.search(rarePair, 10);
+    }
+
+    @Benchmark
+    public List<String> suggest() {
+        return search.suggest("кар", 10);
+    }
+}
@@ -0,0 +1,75 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.film.ColumnarFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.ShardedFilmStorage;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StorageBenchmark {
+
+    @Param({"1000", "100000"})
+    private int films;
+
+    @Param({"memory", "columnar", "sharded"})
+    private String layout;
+
+    private FilmStorage storage;
+
+    @Setup
+    public void setUp() {
+        storage = switch (layout) {
+            case "columnar" -> new ColumnarFilmStorage();
+            // по шарду на ядро, как при filmorate.storage.shards=0
+            case "sharded" -> new ShardedFilmStorage(0);
+            default -> new InMemoryFilmStorage();
+        };
+        Datasets.fillFilms(storage, films);
+        Datasets.fillLikes(storage, films, films, films * 2L, Distribution.ZIPF);
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadRandom {
+        final SplittableRandom random = new SplittableRandom();
+    }
+
+    // Хранилище растёт во время замера: это нормально для оценки стоимости вставки
+    @Benchmark
+    public Film add(ThreadRandom state) {
+        return storage.add(Datasets.film(state.random.nextInt(films)));
+    }
+
+    @Benchmark
+    public Optional<Film> getById(ThreadRandom state) {
+        return storage.getById(1 + state.random.nextInt(films));
+    }
+
+    @Benchmark
+    public List<Film> getAll() {
+        return storage.getAll();
+    }
+
+    // Лайки случайных пользователей равномерно по каталогу: с ростом числа потоков видно, упираются ли
+    // записи в общую структуру (рейтинг популярности)
+    @Benchmark
+    public boolean addLike(ThreadRandom state) {
+        return storage.addLike(1 + state.random.nextInt(films), 1 + state.random.nextInt(1_000_000));
+    }
+
+    @Benchmark
+    public List<Film> getPopular() {
+        return storage.getPopular(10);
+    }
+}
@@ -0,0 +1,63 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.event.MutationEvents;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmRecommendationService;
+import ru.yandex.practicum.filmorate.service.FriendRecommendationService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.VersionTracker;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserServiceBenchmark {
+
+    @Param({"10000"})
+    private int users;
+
+    @Param({"10", "100"})
+    private int friendsPerUser;
+
+    @Param({"UNIFORM", "ZIPF"})
+    private Distribution distribution;
+
+    private UserService userService;
+    private Distribution.Sampler userSampler;
+
+    @Setup
+    public void setUp() {
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        Datasets.fillUsers(userStorage, users);
+        Datasets.fillFriends(userStorage, users, friendsPerUser, distribution);
+        FriendRecommendationService recommendations = new FriendRecommendationService(userStorage);
+        userService = new UserService(userStorage, recommendations,
+                new FilmRecommendationService(new InMemoryFilmStorage()), MutationEvents.direct(recommendations),
+                new VersionTracker());
+        userSampler = distribution.sampler(users);
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadRandom {
+        final SplittableRandom random = new SplittableRandom();
+    }
+
+    @Benchmark
+    public List<User> getFriends(ThreadRandom state) {
+        return userService.getFriends(userSampler.next(state.random));
+    }
+
+    @Benchmark
+    public List<User> getCommonFriends(ThreadRandom state) {
+        return userService.getCommonFriends(userSampler.next(state.random), userSampler.next(state.random));
+    }
+}
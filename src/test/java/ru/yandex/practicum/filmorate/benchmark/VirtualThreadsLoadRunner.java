@@ -0,0 +1,201 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+// Нагрузочный прогон по HTTP: приложение поднимается на платформенных и на виртуальных потоках,
+// замкнутый цикл из concurrency клиентов гоняет смесь запросов, печатаются пропускная способность и p99.
+// mvn -Ploadtest test-compile exec:exec -Dload.args="--concurrency=2000 --seconds=20 --storage=db"
+public final class VirtualThreadsLoadRunner {
+
+    private static final String NEW_FILM = "{\"name\":\"Load film\",\"description\":\"Created by load test\","
+            + "\"releaseDate\":\"2000-01-01\",\"duration\":90}";
+
+    private enum Mix {
+        // 90% чтений: популярные фильмы, друзья, общие друзья, страница фильмов
+        READ_HEAVY(90),
+        // 20% чтений, остальное — лайки, дружба и новые фильмы
+        WRITE_HEAVY(20);
+
+        private final int readPercent;
+
+        Mix(int readPercent) {
+            this.readPercent = readPercent;
+        }
+    }
+
+    private record Result(long requests, long errors, double seconds, long p50Nanos, long p99Nanos) {
+    }
+
+    private VirtualThreadsLoadRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "1000"));
+        int seconds = Integer.parseInt(options.getOrDefault("seconds", "10"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "3"));
+        int films = Integer.parseInt(options.getOrDefault("films", "1000"));
+        int users = Integer.parseInt(options.getOrDefault("users", "1000"));
+        String storage = options.getOrDefault("storage", "memory");
+
+        System.out.printf("storage=%s concurrency=%d seconds=%d films=%d users=%d%n",
+                storage, concurrency, seconds, films, users);
+        System.out.printf("%-12s %-9s %12s %10s %10s %8s%n", "mix", "threads", "req/s", "p50 ms", "p99 ms", "errors");
+        for (Mix mix : Mix.values()) {
+            for (boolean virtual : new boolean[]{false, true}) {
+                try (ConfigurableApplicationContext context = start(storage, virtual)) {
+                    Datasets.fillUsers(context.getBean(UserStorage.class), users);
+                    Datasets.fillFilms(context.getBean(FilmStorage.class), films);
+                    Datasets.fillFriends(context.getBean(UserStorage.class), users, 20, Distribution.ZIPF);
+                    Datasets.fillLikes(context.getBean(FilmStorage.class), films, users, films * 10L,
+                            Distribution.ZIPF);
+                    String base = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+                    run(base, mix, concurrency, warmup, films, users);
+                    Result result = run(base, mix, concurrency, seconds, films, users);
+                    System.out.printf("%-12s %-9s %12.0f %10.2f %10.2f %8d%n", mix, virtual ? "virtual" : "platform",
+                            result.requests() / result.seconds(), result.p50Nanos() / 1e6, result.p99Nanos() / 1e6,
+                            result.errors());
+                }
+            }
+        }
+    }
+
+    // Настройки передаются аргументами командной строки: они приоритетнее application.properties
+    private static ConfigurableApplicationContext start(String storage, boolean virtual) {
+        List<String> args = new ArrayList<>(List.of("--server.port=0",
+                "--spring.threads.virtual.enabled=" + virtual,
+                "--logging.level.root=WARN",
+                "--filmorate.metrics.slow-threshold=1m",
+                // прогон сравнивает модели потоков, а не отказы допуска изменений
+                "--filmorate.ratelimit.enabled=false"));
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(FilmorateApplication.class);
+        if ("db".equals(storage)) {
+            // своя база на каждый прогон: H2 c DB_CLOSE_DELAY=-1 переживает закрытие контекста
+            builder.profiles("db");
+            args.add("--spring.datasource.url=jdbc:h2:mem:load" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        }
+        return builder.run(args.toArray(String[]::new));
+    }
+
+    private static Result run(String base, Mix mix, int concurrency, int seconds, int films, int users)
+            throws Exception {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        List<Future<long[]>> workers = new ArrayList<>(concurrency);
+        LongAdder errors = new LongAdder();
+        long start = System.nanoTime();
+        // Клиенты сами на виртуальных потоках, чтобы генератор нагрузки не упирался в свои потоки
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                workers.add(executor.submit(() -> {
+                    long[] latencies = new long[1024];
+                    int size = 0;
+                    long failed = 0;
+                    while (System.nanoTime() < deadline) {
+                        HttpRequest request = nextRequest(base, mix, films, users);
+                        long begin = System.nanoTime();
+                        try {
+                            int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                            if (status >= 400) {
+                                failed++;
+                            }
+                        } catch (Exception e) {
+                            failed++;
+                        }
+                        if (size == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, size * 2);
+                        }
+                        latencies[size++] = System.nanoTime() - begin;
+                    }
+                    errors.add(failed);
+                    return Arrays.copyOf(latencies, size);
+                }));
+            }
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        long[][] parts = new long[workers.size()][];
+        int total = 0;
+        for (int i = 0; i < parts.length; i++) {
+            parts[i] = workers.get(i).get();
+            total += parts[i].length;
+        }
+        long[] all = new long[total];
+        int offset = 0;
+        for (long[] part : parts) {
+            System.arraycopy(part, 0, all, offset, part.length);
+            offset += part.length;
+        }
+        Arrays.sort(all);
+        return new Result(total, errors.sum(), elapsed, percentile(all, 0.50), percentile(all, 0.99));
+    }
+
+    private static HttpRequest nextRequest(String base, Mix mix, int films, int users) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int filmId = 1 + random.nextInt(films);
+        int userId = 1 + random.nextInt(users);
+        int otherId = 1 + random.nextInt(users);
+        if (random.nextInt(100) < mix.readPercent) {
+            return switch (random.nextInt(4)) {
+                case 0 -> get(base + "/films/popular?count=10");
+                case 1 -> get(base + "/users/" + userId + "/friends");
+                case 2 -> get(base + "/users/" + userId + "/friends/common/" + otherId);
+                default -> get(base + "/films?afterId=" + filmId + "&limit=20");
+            };
+        }
+        return switch (random.nextInt(4)) {
+            case 0 -> send(base + "/films/" + filmId + "/like/" + userId, "PUT");
+            case 1 -> send(base + "/films/" + filmId + "/like/" + userId, "DELETE");
+            case 2 -> send(base + "/users/" + userId + "/friends/" + otherId, "PUT");
+            default -> HttpRequest.newBuilder(URI.create(base + "/films"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(NEW_FILM))
+                    .build();
+        };
+    }
+
+    private static HttpRequest get(String uri) {
+        return HttpRequest.newBuilder(URI.create(uri)).GET().build();
+    }
+
+    private static HttpRequest send(String uri, String method) {
+        return HttpRequest.newBuilder(URI.create(uri)).method(method, HttpRequest.BodyPublishers.noBody()).build();
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(quantile * sorted.length) - 1)];
+    }
+
+    // Аргументы вида --key=value
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                int eq = arg.indexOf('=');
+                options.put(arg.substring(2, eq), arg.substring(eq + 1));
+            }
+        }
+        return options;
+    }
+}
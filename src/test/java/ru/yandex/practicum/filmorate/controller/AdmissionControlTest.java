@@ -0,0 +1,117 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+import ru.yandex.practicum.filmorate.exception.TooManyRequestsException;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {"filmorate.ratelimit.likes.rate=0.01", "filmorate.ratelimit.likes.burst=2"})
+@AutoConfigureMockMvc
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class AdmissionControlTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    private void post(String uri, String body) throws Exception {
+        mvc.perform(MockMvcRequestBuilders.post(uri)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("Лайки сверх лимита пользователя получают 429 с Retry-After, другие пользователи не затронуты")
+    void shouldLimitLikesPerUser() throws Exception {
+        post("/films", "{\"name\":\"Фильм\",\"releaseDate\":\"2000-01-01\",\"duration\":90}");
+        post("/users", "{\"email\":\"a@mail.ru\",\"login\":\"a\",\"birthday\":\"2000-01-01\"}");
+        post("/users", "{\"email\":\"b@mail.ru\",\"login\":\"b\",\"birthday\":\"2000-01-01\"}");
+
+        mvc.perform(put("/films/1/like/1")).andExpect(status().isOk());
+        mvc.perform(delete("/films/1/like/1")).andExpect(status().isOk());
+        MvcResult rejected = mvc.perform(put("/films/1/like/1"))
+                .andExpect(status().isTooManyRequests())
+                .andReturn();
+        assertTrue(Long.parseLong(rejected.getResponse().getHeader(HttpHeaders.RETRY_AFTER)) >= 1);
+
+        mvc.perform(put("/films/1/like/2")).andExpect(status().isOk());
+        // дружба — другой класс запросов со своими корзинами
+        mvc.perform(put("/users/1/friends/2")).andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("Сверх лимита одновременных изменений запрос отклоняется сразу, место освобождается по завершении")
+    void shouldShedConcurrentMutations() throws Exception {
+        AdmissionControl admission = new AdmissionControl(new SimpleMeterRegistry(), new InMemoryUserStorage(), true,
+                10, 10, 10, 10, 100, 1);
+        HandlerMethod handler = new HandlerMethod(this, getClass().getDeclaredMethod("shouldShedConcurrentMutations"));
+        MockHttpServletRequest first = new MockHttpServletRequest("POST", "/films");
+        MockHttpServletRequest second = new MockHttpServletRequest("POST", "/films");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertTrue(admission.preHandle(first, response, handler));
+        assertTrue(admission.preHandle(new MockHttpServletRequest("GET", "/films"), response, handler),
+                "Чтения лимит не занимают");
+        TooManyRequestsException e = assertThrows(TooManyRequestsException.class,
+                () -> admission.preHandle(second, response, handler));
+        assertEquals(1, e.getRetryAfterSeconds());
+
+        admission.afterCompletion(first, response, handler, null);
+        assertTrue(admission.preHandle(second, response, handler));
+    }
+
+    private static MockHttpServletRequest like(int userId) {
+        MockHttpServletRequest request = new MockHttpServletRequest("PUT", "/films/1/like/" + userId);
+        request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE,
+                Map.of("id", "1", "userId", Integer.toString(userId)));
+        return request;
+    }
+
+    @Test
+    @DisplayName("Отказ по лимиту пользователя возвращает место, корзины заводятся только для существующих")
+    void shouldReleasePermitOnRateLimitAndSkipUnknownUsers() throws Exception {
+        InMemoryUserStorage users = new InMemoryUserStorage();
+        users.add(User.builder().email("a@mail.ru").login("a").birthday(LocalDate.of(2000, 1, 1)).build());
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AdmissionControl admission = new AdmissionControl(registry, users, true, 0.01, 1, 10, 10, 100, 1);
+        HandlerMethod handler = new HandlerMethod(new Object(),
+                FilmController.class.getMethod("addLike", int.class, int.class));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        MockHttpServletRequest first = like(1);
+        assertTrue(admission.preHandle(first, response, handler));
+        admission.afterCompletion(first, response, handler, null);
+        assertThrows(TooManyRequestsException.class, () -> admission.preHandle(like(1), response, handler));
+
+        // единственное место не потеряно отказом по лимиту, а несуществующий пользователь не ограничен
+        for (int i = 0; i < 3; i++) {
+            MockHttpServletRequest unknown = like(99);
+            assertTrue(admission.preHandle(unknown, response, handler));
+            admission.afterCompletion(unknown, response, handler, null);
+        }
+        assertEquals(1, registry.get("filmorate.admission.buckets").tag("endpoint", "likes").gauge().value());
+    }
+}
@@ -0,0 +1,111 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class ConditionalGetTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    private void post(String uri, String body) throws Exception {
+        mvc.perform(MockMvcRequestBuilders.post(uri)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk());
+    }
+
+    private String etag(String uri) throws Exception {
+        String etag = mvc.perform(get(uri))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+        return etag;
+    }
+
+    private int statusWith(String uri, String etag) throws Exception {
+        return mvc.perform(get(uri).header(HttpHeaders.IF_NONE_MATCH, etag)).andReturn().getResponse().getStatus();
+    }
+
+    @Test
+    @DisplayName("Популярные фильмы: 304 до изменения лайков и 200 после")
+    void shouldReturnNotModifiedUntilLikeChanges() throws Exception {
+        post("/films", "{\"name\":\"Фильм\",\"releaseDate\":\"2000-01-01\",\"duration\":90}");
+        post("/users", "{\"email\":\"a@mail.ru\",\"login\":\"a\",\"birthday\":\"2000-01-01\"}");
+
+        String etag = etag("/films/popular");
+        assertEquals(304, statusWith("/films/popular", etag));
+        assertEquals(304, statusWith("/films", etag("/films")));
+
+        mvc.perform(put("/films/1/like/1")).andExpect(status().isOk());
+        assertEquals(200, statusWith("/films/popular", etag));
+        assertNotEquals(etag, etag("/films/popular"));
+        assertEquals(404, statusWith("/films/popular?genreId=99", etag("/films/popular?genreId=1")));
+    }
+
+    @Test
+    @DisplayName("Некорректные проекция или размер страницы — 400 даже при совпавшем ETag")
+    void shouldValidateParametersBeforeEtag() throws Exception {
+        String films = etag("/films");
+        assertEquals(400, statusWith("/films?view=compact", films));
+        assertEquals(400, statusWith("/films?fields=id,rating", films));
+        assertEquals(400, statusWith("/films?limit=0", films));
+
+        String users = etag("/users");
+        assertEquals(400, statusWith("/users?view=compact", users));
+        assertEquals(400, statusWith("/users?limit=-1", users));
+        assertEquals(304, statusWith("/users?view=summary", users));
+    }
+
+    @Test
+    @DisplayName("Справочники: готовый ответ с ETag по содержимому, 304 по нему и 404 для неизвестного id")
+    void shouldServeReferenceDataWithContentTag() throws Exception {
+        String body = mvc.perform(get("/genres"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        assertTrue(body.startsWith("[{\"id\":1,\"name\":\"Комедия\"}"), body);
+        String etag = etag("/mpa");
+        assertEquals(etag, etag("/genres/1"), "Справочники не меняются до перезапуска, версия у них общая");
+        assertEquals(304, statusWith("/mpa/3", etag));
+        assertEquals(404, statusWith("/mpa/99", etag));
+
+        // создание фильма не меняет справочники
+        post("/films", "{\"name\":\"Фильм\",\"releaseDate\":\"2000-01-01\",\"duration\":90,"
+                + "\"mpa\":{\"id\":2},\"genres\":[{\"id\":3},{\"id\":1},{\"id\":3}]}");
+        assertEquals(304, statusWith("/genres", etag));
+    }
+
+    @Test
+    @DisplayName("Друзья: версия меняется у друзей изменившегося пользователя, но не у остальных")
+    void shouldTrackFriendsVersionPerUser() throws Exception {
+        for (int i = 1; i <= 4; i++) {
+            post("/users", "{\"email\":\"u" + i + "@mail.ru\",\"login\":\"u" + i + "\",\"birthday\":\"2000-01-01\"}");
+        }
+        mvc.perform(put("/users/1/friends/2")).andExpect(status().isOk());
+        String first = etag("/users/1/friends");
+        String fourth = etag("/users/4/friends");
+
+        // у пользователя 2 появился новый друг — его объект в списке друзей пользователя 1 изменился
+        mvc.perform(put("/users/2/friends/3")).andExpect(status().isOk());
+        assertEquals(200, statusWith("/users/1/friends", first));
+        assertEquals(304, statusWith("/users/4/friends", fourth));
+    }
+}
@@ -0,0 +1,81 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NdjsonStreamsTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private record Item(int id) {
+    }
+
+    // Поток в память, считающий сбросы: каждый сброс — отдельная запись в сокет
+    private static class CountingOutput extends ByteArrayOutputStream {
+        int flushes;
+
+        @Override
+        public void flush() {
+            flushes++;
+        }
+    }
+
+    private final List<Integer> requestedAfterIds = new ArrayList<>();
+
+    private CountingOutput stream(int total) throws IOException {
+        List<Item> items = IntStream.rangeClosed(1, total).mapToObj(Item::new).toList();
+        CountingOutput out = new CountingOutput();
+        NdjsonStreams.stream(mapper, (afterId, limit) -> {
+            requestedAfterIds.add(afterId);
+            return items.subList(Math.min(afterId, total), Math.min(afterId + limit, total));
+        }, Item::id).getBody().writeTo(out);
+        return out;
+    }
+
+    private static List<String> lines(CountingOutput out) {
+        String body = out.toString(StandardCharsets.UTF_8);
+        assertTrue(body.endsWith("\n"), "Последняя строка завершается переводом строки");
+        return body.isEmpty() || body.equals("\n") ? List.of() : List.of(body.split("\n"));
+    }
+
+    @Test
+    @DisplayName("Несколько страниц выводятся по объекту в строке, сброс — раз за страницу")
+    void shouldStreamSeveralPages() throws IOException {
+        int total = 2 * NdjsonStreams.PAGE_SIZE + 7;
+        CountingOutput out = stream(total);
+
+        List<String> lines = lines(out);
+        assertEquals(total, lines.size());
+        assertEquals("{\"id\":1}", lines.get(0));
+        assertEquals("{\"id\":" + total + "}", lines.get(total - 1));
+        assertEquals(List.of(0, NdjsonStreams.PAGE_SIZE, 2 * NdjsonStreams.PAGE_SIZE), requestedAfterIds);
+        assertTrue(out.flushes <= requestedAfterIds.size() + 1, "Сбросов: " + out.flushes);
+    }
+
+    @Test
+    @DisplayName("Последняя полная страница дочитывается пустой страницей без лишних строк")
+    void shouldStopAfterExactlyFullPage() throws IOException {
+        int total = 2 * NdjsonStreams.PAGE_SIZE;
+        List<String> lines = lines(stream(total));
+
+        assertEquals(total, lines.size());
+        assertEquals("{\"id\":" + total + "}", lines.get(total - 1));
+        assertEquals(List.of(0, NdjsonStreams.PAGE_SIZE, total), requestedAfterIds);
+    }
+
+    @Test
+    @DisplayName("Пустая коллекция — пустой поток")
+    void shouldStreamEmptyCollection() throws IOException {
+        assertEquals(List.of(), lines(stream(0)));
+    }
+}
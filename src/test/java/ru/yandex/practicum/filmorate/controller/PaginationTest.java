@@ -0,0 +1,103 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class PaginationTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private void post(String uri, String body) throws Exception {
+        mvc.perform(MockMvcRequestBuilders.post(uri)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk());
+    }
+
+    private void addFilmsAndUsers(int count) throws Exception {
+        for (int i = 1; i <= count; i++) {
+            post("/films", "{\"name\":\"Фильм " + i + "\",\"releaseDate\":\"2000-01-01\",\"duration\":90}");
+            post("/users", "{\"email\":\"u" + i + "@mail.ru\",\"login\":\"u" + i + "\",\"birthday\":\"2000-01-01\"}");
+        }
+    }
+
+    private List<Integer> ids(String uri) throws Exception {
+        String body = mvc.perform(get(uri))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        List<Integer> ids = new ArrayList<>();
+        objectMapper.readTree(body).forEach(node -> ids.add(node.get("id").asInt()));
+        return ids;
+    }
+
+    @Test
+    @DisplayName("Страницы идут по возрастанию id после afterId, последняя может быть неполной")
+    void shouldPageFilmsAndUsers() throws Exception {
+        addFilmsAndUsers(5);
+
+        for (String uri : List.of("/films", "/users")) {
+            assertEquals(List.of(1, 2), ids(uri + "?limit=2"), uri);
+            assertEquals(List.of(3, 4), ids(uri + "?afterId=2&limit=2"), uri);
+            assertEquals(List.of(5), ids(uri + "?afterId=4&limit=2"), uri);
+            assertEquals(List.of(), ids(uri + "?afterId=5&limit=2"), uri);
+            assertEquals(List.of(1, 2, 3, 4, 5), ids(uri), uri + " без limit — вся коллекция");
+        }
+    }
+
+    @Test
+    @DisplayName("Неположительный limit — 400")
+    void shouldRejectNonPositiveLimit() throws Exception {
+        for (String uri : List.of("/films", "/users")) {
+            mvc.perform(get(uri + "?limit=0")).andExpect(status().isBadRequest());
+            mvc.perform(get(uri + "?afterId=1&limit=-1")).andExpect(status().isBadRequest());
+        }
+    }
+
+    @Test
+    @DisplayName("/stream отдаёт всю коллекцию в NDJSON по возрастанию id")
+    void shouldStreamNdjson() throws Exception {
+        addFilmsAndUsers(3);
+
+        for (String uri : List.of("/films/stream", "/users/stream")) {
+            var async = mvc.perform(get(uri))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            String body = mvc.perform(asyncDispatch(async))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+            assertTrue(async.getResponse().getContentType().startsWith(NdjsonStreams.MEDIA_TYPE), uri);
+            List<Integer> ids = new ArrayList<>();
+            for (String line : body.split("\n")) {
+                JsonNode node = objectMapper.readTree(line);
+                ids.add(node.get("id").asInt());
+            }
+            assertEquals(List.of(1, 2, 3), ids, uri);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class ProjectionTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private FilmService filmService;
+
+    @Autowired
+    private UserService userService;
+
+    private void post(String uri, String body) throws Exception {
+        mvc.perform(MockMvcRequestBuilders.post(uri)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk());
+    }
+
+    private String body(String uri) throws Exception {
+        return mvc.perform(get(uri))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @DisplayName("Полный вид совпадает с обычной сериализацией модели")
+    void shouldMatchModelSerializationInFullView() throws Exception {
+        post("/films", "{\"name\":\"Фильм\",\"releaseDate\":\"2000-01-01\",\"duration\":90,"
+                + "\"mpa\":{\"id\":4},\"genres\":[{\"id\":4},{\"id\":2}]}");
+        post("/users", "{\"email\":\"a@mail.ru\",\"login\":\"a\",\"birthday\":\"1990-05-17\"}");
+        post("/users", "{\"email\":\"b@mail.ru\",\"login\":\"b\",\"birthday\":\"1990-05-17\"}");
+        mvc.perform(put("/films/1/like/1")).andExpect(status().isOk());
+        mvc.perform(put("/films/1/like/2")).andExpect(status().isOk());
+        mvc.perform(put("/users/1/friends/2")).andExpect(status().isOk());
+
+        String films = objectMapper.writeValueAsString(filmService.getAllFilms());
+        assertEquals(films, body("/films"));
+        assertEquals(films, body("/films?view=full"));
+        assertEquals(objectMapper.writeValueAsString(userService.getAllUsers()), body("/users?view=full"));
+        assertEquals(objectMapper.writeValueAsString(filmService.getPopularFilms(10)), body("/films/popular"));
+    }
+
+    @Test
+    @DisplayName("summary отдаёт число лайков вместо множества, fields — только выбранные поля")
+    void shouldProjectFilms() throws Exception {
+        post("/films", "{\"name\":\"Фильм\",\"releaseDate\":\"2000-01-01\",\"duration\":90}");
+        post("/users", "{\"email\":\"a@mail.ru\",\"login\":\"a\",\"birthday\":\"2000-01-01\"}");
+        mvc.perform(put("/films/1/like/1")).andExpect(status().isOk());
+
+        assertEquals("[{\"id\":1,\"name\":\"Фильм\",\"description\":null,\"releaseDate\":\"2000-01-01\","
+                + "\"duration\":90,\"likesCount\":1,\"mpa\":null,\"genres\":[]}]", body("/films?view=summary"));
+        assertEquals("[{\"likesCount\":1,\"id\":1}]", body("/films/popular?fields=likesCount,id,id"));
+        assertEquals("[{\"id\":1,\"friendsCount\":0}]", body("/users?fields=id,friendsCount"));
+        mvc.perform(get("/films?fields=id,rating")).andExpect(status().isBadRequest());
+        mvc.perform(get("/films/popular?view=compact")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Готовый ответ популярных переиспользуется до изменения лайков")
+    void shouldCachePopularUntilChange() throws Exception {
+        post("/films", "{\"name\":\"Первый\",\"releaseDate\":\"2000-01-01\",\"duration\":90}");
+        post("/films", "{\"name\":\"Второй\",\"releaseDate\":\"2000-01-01\",\"duration\":90}");
+        post("/users", "{\"email\":\"a@mail.ru\",\"login\":\"a\",\"birthday\":\"2000-01-01\"}");
+
+        String before = body("/films/popular?fields=id");
+        assertEquals("[{\"id\":1},{\"id\":2}]", before);
+        assertEquals(before, body("/films/popular?fields=id"));
+        assertEquals("[{\"id\":1}]", body("/films/popular?count=1&fields=id"));
+
+        mvc.perform(put("/films/2/like/1")).andExpect(status().isOk());
+        assertEquals("[{\"id\":2},{\"id\":1}]", body("/films/popular?fields=id"));
+    }
+}
@@ -0,0 +1,99 @@
+package ru.yandex.practicum.filmorate.event;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.event.MutationEvents.Backpressure;
+import ru.yandex.practicum.filmorate.event.MutationEvents.Consistency;
+import ru.yandex.practicum.filmorate.exception.BackpressureException;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MutationEventsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private MutationEvents events;
+
+    private MutationEvents start(MutationListener listener, int capacity, Backpressure backpressure,
+                                 Consistency consistency) {
+        events = new MutationEvents(List.of(listener), registry, true, capacity, 16, backpressure, consistency);
+        return events;
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (events != null) {
+            events.destroy();
+        }
+    }
+
+    @Test
+    @DisplayName("read-your-writes: чтение после публикации видит все события, в порядке публикации")
+    void shouldDeliverInOrderBeforeRead() {
+        List<MutationEvent> received = new CopyOnWriteArrayList<>();
+        start(received::add, 8, Backpressure.BLOCK, Consistency.READ_YOUR_WRITES);
+
+        for (int i = 0; i < 100; i++) {
+            events.publish(new MutationEvent.LikeAdded(i, 1));
+        }
+        events.awaitReadable();
+
+        assertEquals(100, received.size(), "Очередь меньше числа событий: писатель ждал места");
+        for (int i = 0; i < 100; i++) {
+            assertEquals(new MutationEvent.LikeAdded(i, 1), received.get(i));
+        }
+        assertEquals(100, registry.get("filmorate.events.published").counter().count());
+        assertEquals(0, registry.get("filmorate.events.queue.depth").gauge().value());
+    }
+
+    @Test
+    @DisplayName("reject: при полной очереди новое изменение отклоняется до записи")
+    void shouldRejectWhenQueueIsFull() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch consuming = new CountDownLatch(1);
+        start(event -> {
+            consuming.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, 2, Backpressure.REJECT, Consistency.EVENTUAL);
+
+        events.publish(new MutationEvent.LikeAdded(1, 1));
+        assertTrue(consuming.await(10, TimeUnit.SECONDS));
+        // читатель занят первым событием, пакет из него ещё не освободил ячейку
+        events.publish(new MutationEvent.LikeAdded(2, 1));
+        assertThrows(BackpressureException.class, events::admit);
+        assertTrue(registry.get("filmorate.events.consumer.lag").gauge().value() >= 0);
+
+        assertEquals(1, registry.get("filmorate.events.rejected").counter().count());
+        release.countDown();
+    }
+
+    @Test
+    @DisplayName("Ошибка подписчика не останавливает конвейер")
+    void shouldSurviveListenerFailure() {
+        List<MutationEvent> received = new CopyOnWriteArrayList<>();
+        start(event -> {
+            if (event instanceof MutationEvent.LikeRemoved) {
+                throw new IllegalStateException("Сбой подписчика");
+            }
+            received.add(event);
+        }, 8, Backpressure.BLOCK, Consistency.READ_YOUR_WRITES);
+
+        events.publish(new MutationEvent.LikeRemoved(1, 1));
+        events.publish(new MutationEvent.LikeAdded(1, 1));
+        events.awaitReadable();
+
+        assertEquals(List.of(new MutationEvent.LikeAdded(1, 1)), received);
+        assertEquals(1, registry.get("filmorate.events.failures").counter().count());
+    }
+}
@@ -0,0 +1,72 @@
+package ru.yandex.practicum.filmorate.event;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MutationOrderTest {
+
+    private final MutationOrder order = new MutationOrder();
+
+    // Держит блокировку, пока не отпустят release; возвращает поток, уже вошедший под неё
+    private Thread hold(CountDownLatch release, Consumer<Runnable> lock) throws InterruptedException {
+        CountDownLatch entered = new CountDownLatch(1);
+        Thread thread = Thread.ofPlatform().start(() -> lock.accept(() -> {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        assertTrue(entered.await(10, TimeUnit.SECONDS));
+        return thread;
+    }
+
+    // Успевает ли второе изменение пройти, пока первое держит блокировку
+    private boolean passes(Consumer<Runnable> lock) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        Thread.ofPlatform().start(() -> lock.accept(done::countDown));
+        return done.await(200, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    @DisplayName("Лайки разных пользователей одного фильма не ждут друг друга")
+    void shouldNotSerializeLikesOfDifferentUsers() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        Thread first = hold(release, change -> order.like(1, 1, change));
+
+        assertTrue(passes(change -> order.like(1, 2, change)));
+        release.countDown();
+        first.join();
+    }
+
+    @Test
+    @DisplayName("Лайк той же пары и замена фильма ждут лайка, который ещё не опубликован")
+    void shouldSerializeSamePairAndWholeFilm() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        Thread first = hold(release, change -> order.like(1, 1, change));
+
+        assertFalse(passes(change -> order.like(1, 1, change)));
+        assertFalse(passes(change -> order.film(1, change)));
+        release.countDown();
+        first.join();
+    }
+
+    @Test
+    @DisplayName("Дружба ждёт изменений каждого из двух пользователей")
+    void shouldLockBothFriends() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        Thread first = hold(release, change -> order.users(new int[]{2}, change));
+
+        assertTrue(passes(change -> order.users(new int[]{1, 3}, change)));
+        assertFalse(passes(change -> order.users(new int[]{1, 2}, change)));
+        release.countDown();
+        first.join();
+    }
+}
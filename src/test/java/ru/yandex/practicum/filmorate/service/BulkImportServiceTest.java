@@ -0,0 +1,167 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.event.MutationEvent;
+import ru.yandex.practicum.filmorate.event.MutationEvents;
+import ru.yandex.practicum.filmorate.model.BatchItemResult;
+import ru.yandex.practicum.filmorate.model.BatchItemResult.Status;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.VersionTracker;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.reference.InMemoryReferenceStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkImportServiceTest {
+
+    private final ValidatorFactory validatorFactory = Validation.buildDefaultValidatorFactory();
+
+    private final List<MutationEvent> published = Collections.synchronizedList(new ArrayList<>());
+
+    private InMemoryFilmStorage filmStorage;
+    private InMemoryUserStorage userStorage;
+    private BulkImportService service;
+
+    @BeforeEach
+    void setUp() {
+        filmStorage = new InMemoryFilmStorage();
+        userStorage = new InMemoryUserStorage();
+        service = service(userStorage);
+    }
+
+    @AfterEach
+    void tearDown() {
+        validatorFactory.close();
+    }
+
+    private BulkImportService service(InMemoryUserStorage users) {
+        return new BulkImportService(filmStorage, users, new ReferenceService(new InMemoryReferenceStorage()),
+                validatorFactory.getValidator(), MutationEvents.direct(published::add), new VersionTracker());
+    }
+
+    private static User user(String login) {
+        return User.builder()
+                .email(login + "@mail.ru")
+                .login(login)
+                .birthday(LocalDate.of(1990, 1, 1))
+                .build();
+    }
+
+    private static Film film(String name) {
+        return Film.builder()
+                .name(name)
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(90)
+                .build();
+    }
+
+    private static List<Status> statuses(List<BatchItemResult> results) {
+        return results.stream().map(BatchItemResult::status).toList();
+    }
+
+    @Test
+    @DisplayName("Ошибочные фильмы получают свой статус, остальные сохраняются")
+    void shouldAddValidFilms() {
+        Film unknownMpa = film("Без рейтинга");
+        unknownMpa.setMpa(new Mpa(99, null));
+
+        List<BatchItemResult> results = service.addFilms(Arrays.asList(film("Первый"), film(""), null,
+                unknownMpa, film("Второй")));
+
+        assertEquals(List.of(Status.CREATED, Status.INVALID, Status.INVALID, Status.NOT_FOUND, Status.CREATED),
+                statuses(results));
+        assertEquals(List.of(0, 1, 2, 3, 4), results.stream().map(BatchItemResult::index).toList());
+        assertEquals(2, filmStorage.count());
+        assertEquals("Второй", filmStorage.getById(results.get(4).id()).orElseThrow().getName());
+        assertEquals(2, published.stream().filter(MutationEvent.FilmAdded.class::isInstance).count());
+    }
+
+    @Test
+    @DisplayName("Пользователи: невалидные, дубли внутри пакета и занятые email или логин — по элементам")
+    void shouldReportUserConflictsPerItem() {
+        userStorage.add(user("taken"));
+        User takenEmail = user("other");
+        takenEmail.setEmail("taken@mail.ru");
+        User duplicateLogin = user("fresh");
+        duplicateLogin.setEmail("fresh2@mail.ru");
+        User invalid = user("bad");
+        invalid.setEmail("не email");
+
+        List<BatchItemResult> results = service.addUsers(Arrays.asList(user("fresh"), duplicateLogin,
+                takenEmail, user("taken"), invalid, null, user("second")));
+
+        assertEquals(List.of(Status.CREATED, Status.CONFLICT, Status.CONFLICT, Status.CONFLICT, Status.INVALID,
+                Status.INVALID, Status.CREATED), statuses(results));
+        assertEquals(3, userStorage.count());
+        assertTrue(userStorage.getByEmail("fresh2@mail.ru").isEmpty());
+        assertEquals(results.get(6).id(), userStorage.getByLogin("second").orElseThrow().getId());
+        assertEquals(2, published.stream().filter(MutationEvent.UserAdded.class::isInstance).count());
+        MutationEvent.UserAdded added = (MutationEvent.UserAdded) published.get(0);
+        assertNotSame(added.user().getFriends(), added.friends(), "В событии снимок друзей, а не живое множество");
+    }
+
+    @Test
+    @DisplayName("Если ключ заняли уже после проверки, пользователи добавляются по одному")
+    void shouldFallBackToSingleInsertsOnRace() {
+        // хранилище не видит занятых ключей при проверке пакета — как если бы их заняли параллельно
+        InMemoryUserStorage racing = new InMemoryUserStorage() {
+            @Override
+            public Keys existingKeys(Collection<String> emails, Collection<String> logins) {
+                return new Keys(Set.of(), Set.of());
+            }
+        };
+        racing.add(user("taken"));
+
+        List<BatchItemResult> results = service(racing).addUsers(List.of(user("first"), user("taken"),
+                user("third")));
+
+        assertEquals(List.of(Status.CREATED, Status.CONFLICT, Status.CREATED), statuses(results));
+        assertEquals(3, racing.count());
+        assertEquals(results.get(2).id(), racing.getByLogin("third").orElseThrow().getId());
+        assertEquals(3, results.get(2).id(), "Отклонённый пакет не расходует id");
+    }
+
+    @Test
+    @DisplayName("Лайки: отсутствующие фильм или пользователь — NOT_FOUND, повтор — UNCHANGED")
+    void shouldAddLikesPerItem() {
+        int filmId = filmStorage.add(film("Фильм")).getId();
+        int userId = userStorage.add(user("user")).getId();
+
+        List<BatchItemResult> results = service.addLikes(Arrays.asList(new FilmLike(filmId, userId),
+                new FilmLike(99, userId), new FilmLike(filmId, 99), null, new FilmLike(filmId, userId)));
+
+        assertEquals(List.of(Status.ADDED, Status.NOT_FOUND, Status.NOT_FOUND, Status.INVALID, Status.UNCHANGED),
+                statuses(results));
+        assertTrue(filmStorage.getById(filmId).orElseThrow().getLikes().contains(userId));
+        assertEquals(1, filmStorage.countLikes());
+    }
+
+    @Test
+    @DisplayName("Дружба записывается в обе стороны, повтор и отсутствующий пользователь — по элементам")
+    void shouldAddFriendshipsPerItem() {
+        int first = userStorage.add(user("first")).getId();
+        int second = userStorage.add(user("second")).getId();
+
+        List<BatchItemResult> results = service.addFriends(Arrays.asList(new Friendship(first, second),
+                new Friendship(second, first), new Friendship(first, 99), new Friendship(99, first), null));
+
+        assertEquals(List.of(Status.ADDED, Status.UNCHANGED, Status.NOT_FOUND, Status.NOT_FOUND, Status.INVALID),
+                statuses(results));
+        assertTrue(userStorage.getById(first).orElseThrow().getFriends().contains(second));
+        assertTrue(userStorage.getById(second).orElseThrow().getFriends().contains(first));
+        assertEquals(2, userStorage.countFriendships());
+    }
+}
@@ -0,0 +1,108 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FilmRecommendationServiceTest {
+
+    private InMemoryFilmStorage storage;
+    private FilmRecommendationService recommendations;
+
+    @BeforeEach
+    void setUp() {
+        storage = new InMemoryFilmStorage();
+        recommendations = new FilmRecommendationService(storage);
+        for (int i = 0; i < 200; i++) {
+            storage.add(Film.builder()
+                    .name("Film " + i)
+                    .releaseDate(LocalDate.of(2000, 1, 1))
+                    .duration(90)
+                    .build());
+        }
+    }
+
+    private void like(int filmId, int userId) {
+        if (storage.addLike(filmId, userId)) {
+            recommendations.onLikeAdded(filmId, userId);
+        }
+    }
+
+    private List<Integer> recommendedIds(int userId) {
+        return recommendations.getRecommendations(userId, 10).stream()
+                .map(Film::getId)
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    @DisplayName("Рекомендуются фильмы, которые лайкают вместе с фильмами пользователя")
+    void shouldRecommendCoLikedFilms() {
+        // пользователи 1 и 2 лайкают фильмы 1 и 2, пользователь 3 — фильмы 1 и 3
+        like(1, 1);
+        like(2, 1);
+        like(1, 2);
+        like(2, 2);
+        like(1, 3);
+        like(3, 3);
+        // пользователь 10 лайкнул только фильм 1
+        like(1, 10);
+
+        assertEquals(List.of(2, 3), recommendedIds(10));
+        assertTrue(recommendedIds(999).isEmpty(), "Без лайков рекомендаций нет");
+    }
+
+    @Test
+    @DisplayName("Снятый лайк перестаёт влиять на рекомендации")
+    void shouldForgetRemovedLikes() {
+        like(1, 1);
+        like(2, 1);
+        like(1, 10);
+        assertEquals(List.of(2), recommendedIds(10));
+
+        storage.removeLike(2, 1);
+        recommendations.onLikeRemoved(2, 1);
+
+        assertTrue(recommendedIds(10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Число соседей фильма ограничено")
+    void shouldBoundNeighbours() {
+        // один пользователь лайкает все фильмы: у каждого фильма 199 потенциальных соседей
+        for (int filmId = 1; filmId <= 200; filmId++) {
+            like(filmId, 1);
+        }
+        like(1, 2);
+
+        List<Film> result = recommendations.getRecommendations(2, 1_000);
+        assertEquals(FilmRecommendationService.MAX_NEIGHBOURS, result.size());
+    }
+
+    @Test
+    @DisplayName("Частая новая пара вытесняет редкие из заполненного списка соседей и учитывается у обоих фильмов")
+    void shouldAdmitFrequentPairIntoFullNeighbours() {
+        // у фильма 1 ровно MAX_NEIGHBOURS соседей, у каждого по два совместных лайка
+        for (int userId = 1; userId <= 2; userId++) {
+            for (int filmId = 1; filmId <= FilmRecommendationService.MAX_NEIGHBOURS + 1; filmId++) {
+                like(filmId, userId);
+            }
+        }
+        for (int userId = 3; userId <= 5; userId++) {
+            like(1, userId);
+            like(100, userId);
+        }
+        like(1, 10);
+        like(100, 20);
+
+        assertEquals(100, recommendedIds(10).get(0));
+        assertEquals(1, recommendedIds(20).get(0));
+    }
+}
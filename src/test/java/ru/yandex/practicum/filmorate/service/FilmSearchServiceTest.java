@@ -0,0 +1,97 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FilmSearchServiceTest {
+
+    private InMemoryFilmStorage storage;
+    private FilmSearchService search;
+
+    @BeforeEach
+    void setUp() {
+        storage = new InMemoryFilmStorage();
+        search = new FilmSearchService(storage);
+    }
+
+    private Film add(String name, String description) {
+        Film film = storage.add(Film.builder()
+                .name(name)
+                .description(description)
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(90)
+                .build());
+        search.onFilmSaved(film);
+        return film;
+    }
+
+    private List<Integer> searchIds(String query) {
+        return search.search(query, 10).stream().map(Film::getId).toList();
+    }
+
+    @Test
+    @DisplayName("Кириллица ищется без учёта регистра и различия ё/е")
+    void shouldNormalizeCyrillic() {
+        add("Ёлки", "Новогодняя комедия");
+        add("Зелёная миля", "Драма по роману Стивена Кинга");
+
+        assertEquals(List.of(1), searchIds("ЕЛКИ"));
+        assertEquals(List.of(2), searchIds("зеленая, МИЛЯ!"));
+        assertEquals(List.of(), searchIds("зелёная комедия"), "Нужны все слова запроса");
+        assertEquals(List.of("елки", "зеленая", "миля"), FilmSearchService.tokenize("Ёлки, зелёная миля... ёлки"));
+    }
+
+    @Test
+    @DisplayName("Совпадение в названии выше, чем в описании; при равенстве выше фильм с лайками")
+    void shouldRankByFieldAndLikes() {
+        add("Фильм о море", "Тихая история");
+        add("Тихий океан", "Фильм о море и кораблях");
+        add("Тихий дон", "Экранизация");
+        Film liked = add("Тихий омут", "Экранизация");
+
+        assertEquals(List.of(1, 2), searchIds("море"));
+        storage.addLike(liked.getId(), 1);
+        search.onLikeAdded(liked.getId());
+        assertEquals(List.of(4, 2, 3), searchIds("тихий"));
+    }
+
+    @Test
+    @DisplayName("Обновление фильма убирает его старые слова из индекса")
+    void shouldReindexUpdatedFilm() {
+        Film film = add("Старое название", "Описание");
+        Film updated = Film.builder()
+                .id(film.getId())
+                .name("Новое название")
+                .description("Описание")
+                .releaseDate(film.getReleaseDate())
+                .duration(film.getDuration())
+                .build();
+        storage.update(updated);
+        search.onFilmSaved(updated);
+
+        assertEquals(List.of(), searchIds("старое"));
+        assertEquals(List.of(1), searchIds("новое название"));
+        assertEquals(3, search.termCount(), "Слово, которого больше нет ни у одного фильма, ушло из словаря");
+        assertEquals(List.of(), search.suggest("стар", 10));
+    }
+
+    @Test
+    @DisplayName("Автодополнение возвращает слова с префиксом, частые в названиях — первыми")
+    void shouldSuggestByPrefix() {
+        add("Матрица", "Фантастика");
+        add("Матрица: перезагрузка", "Продолжение");
+        add("Мастер и Маргарита", "Экранизация романа, матрос");
+
+        assertEquals(List.of("матрица", "маргарита", "мастер", "матрос"), search.suggest("Ма", 10));
+        assertEquals(List.of("матрица"), search.suggest("мат", 1));
+        assertEquals(List.of(), search.suggest(" ", 10));
+    }
+}
@@ -0,0 +1,124 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.event.MutationEvents;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.VersionTracker;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.reference.InMemoryReferenceStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FilteredPopularityServiceTest {
+
+    private FilmService filmService;
+
+    @BeforeEach
+    void setUp() {
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        FilteredPopularityService filtered = new FilteredPopularityService(filmStorage);
+        filmService = new FilmService(filmStorage, userStorage, new TrendingService(filmStorage),
+                new FilmSearchService(filmStorage), filtered,
+                new ReferenceService(new InMemoryReferenceStorage()), MutationEvents.direct(filtered),
+                new VersionTracker());
+        for (int i = 1; i <= 3; i++) {
+            userStorage.add(User.builder()
+                    .email("user" + i + "@mail.ru")
+                    .login("user" + i)
+                    .birthday(LocalDate.of(1990, 1, 1))
+                    .build());
+        }
+    }
+
+    private Film addFilm(int year, int... genreIds) {
+        Film film = Film.builder()
+                .name("Film")
+                .releaseDate(LocalDate.of(year, 6, 1))
+                .duration(90)
+                .genres(Arrays.stream(genreIds).mapToObj(id -> new Genre(id, null)).toList())
+                .build();
+        return filmService.addFilm(film);
+    }
+
+    private List<Integer> popularIds(Integer genreId, Integer year) {
+        return filmService.getPopularFilms(10, genreId, year).stream().map(Film::getId).toList();
+    }
+
+    @Test
+    @DisplayName("Рейтинг и жанры из запроса заменяются значениями справочника, неизвестный id — 404")
+    void shouldResolveReferences() {
+        Film film = Film.builder()
+                .name("Film")
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(90)
+                .mpa(new Mpa(3, null))
+                .genres(List.of(new Genre(4, null), new Genre(1, "Что угодно"), new Genre(4, null)))
+                .build();
+        Film created = filmService.addFilm(film);
+        assertEquals(new Mpa(3, "PG-13"), created.getMpa());
+        assertEquals(List.of(new Genre(1, "Комедия"), new Genre(4, "Триллер")), created.getGenres());
+
+        Film unknown = Film.builder().name("Film").releaseDate(LocalDate.of(2000, 1, 1)).duration(90)
+                .genres(List.of(new Genre(99, null))).build();
+        assertThrows(NoSuchElementException.class, () -> filmService.addFilm(unknown));
+        assertThrows(NoSuchElementException.class, () -> filmService.getPopularFilms(10, 99, null));
+    }
+
+    @Test
+    @DisplayName("Фильтр по жанру, году и обоим сразу сохраняет порядок по лайкам")
+    void shouldFilterByGenreAndYear() {
+        addFilm(2000, 1, 2);
+        addFilm(2000, 2);
+        addFilm(2001, 1);
+        addFilm(2001, 3);
+        filmService.addLike(3, 1);
+        filmService.addLike(3, 2);
+        filmService.addLike(2, 1);
+
+        assertEquals(List.of(3, 1), popularIds(1, null));
+        assertEquals(List.of(2, 1), popularIds(2, null));
+        assertEquals(List.of(3, 4), popularIds(null, 2001));
+        assertEquals(List.of(1), popularIds(1, 2000));
+        assertEquals(List.of(), popularIds(3, 2000));
+        assertEquals(List.of(), popularIds(5, null));
+        assertEquals(List.of(), popularIds(null, 1999));
+        assertEquals(List.of(3), filmService.getPopularFilms(1, 1, null).stream().map(Film::getId).toList());
+
+        filmService.removeLike(3, 1);
+        filmService.removeLike(3, 2);
+        assertEquals(List.of(1, 3), popularIds(1, null));
+    }
+
+    @Test
+    @DisplayName("Обновление переносит фильм между жанрами и годами")
+    void shouldMoveFilmOnUpdate() {
+        Film film = addFilm(2000, 1);
+        filmService.addLike(film.getId(), 1);
+
+        Film updated = Film.builder()
+                .id(film.getId())
+                .name("Film")
+                .releaseDate(LocalDate.of(2005, 1, 1))
+                .duration(90)
+                .genres(List.of(new Genre(6, null)))
+                .likes(film.getLikes())
+                .build();
+        filmService.updateFilm(updated);
+
+        assertEquals(List.of(), popularIds(1, null));
+        assertEquals(List.of(), popularIds(null, 2000));
+        assertEquals(List.of(1), popularIds(6, 2005));
+    }
+}
@@ -0,0 +1,118 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.event.MutationEvents;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.VersionTracker;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FriendRecommendationServiceTest {
+
+    private InMemoryUserStorage storage;
+    private FriendRecommendationService recommendations;
+    private UserService userService;
+
+    @BeforeEach
+    void setUp() {
+        storage = new InMemoryUserStorage();
+        recommendations = new FriendRecommendationService(storage);
+        userService = new UserService(storage, recommendations,
+                new FilmRecommendationService(new InMemoryFilmStorage()), MutationEvents.direct(recommendations),
+                new VersionTracker());
+    }
+
+    private void createUsers(int count) {
+        for (int i = 0; i < count; i++) {
+            userService.createUser(User.builder()
+                    .email("user" + i + "@example.com")
+                    .login("user" + i)
+                    .birthday(LocalDate.of(1990, 1, 1))
+                    .build());
+        }
+    }
+
+    private List<Integer> recommendedIds(int userId, int count) {
+        return recommendations.getRecommendations(userId, count).stream()
+                .map(User::getId)
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    @DisplayName("Друзья друзей ранжируются по числу общих друзей")
+    void shouldRankByMutualFriends() {
+        createUsers(6);
+        userService.addFriend(1, 2);
+        userService.addFriend(1, 3);
+        userService.addFriend(2, 4);
+        userService.addFriend(3, 4);
+        userService.addFriend(2, 5);
+
+        assertEquals(List.of(4, 5), recommendedIds(1, 10));
+        assertEquals(List.of(4), recommendedIds(1, 1));
+    }
+
+    @Test
+    @DisplayName("Кеш рекомендаций сбрасывается при изменении дружбы")
+    void shouldInvalidateOnFriendshipChange() {
+        createUsers(5);
+        userService.addFriend(1, 2);
+        userService.addFriend(2, 3);
+        assertEquals(List.of(3), recommendedIds(1, 10));
+
+        // новое ребро у друга меняет рекомендации пользователя
+        userService.addFriend(2, 4);
+        assertEquals(List.of(3, 4), recommendedIds(1, 10));
+
+        userService.addFriend(1, 3);
+        assertEquals(List.of(4), recommendedIds(1, 10));
+
+        userService.removeFriend(1, 2);
+        assertEquals(List.of(2), recommendedIds(1, 10));
+    }
+
+    @Test
+    @DisplayName("Параллельный подсчёт для пользователя с большим числом друзей совпадает с наивным")
+    void shouldMatchNaiveCountForHighDegreeUser() {
+        int users = 3_000;
+        createUsers(users);
+        Random random = new Random(1);
+        for (int friendId = 2; friendId <= 1_500; friendId++) {
+            userService.addFriend(1, friendId);
+        }
+        for (int i = 0; i < 20_000; i++) {
+            int a = 2 + random.nextInt(users - 1);
+            int b = 2 + random.nextInt(users - 1);
+            if (a != b) {
+                userService.addFriend(a, b);
+            }
+        }
+
+        Set<Integer> friends = Arrays.stream(storage.getById(1).orElseThrow().getFriends().toArray())
+                .boxed().collect(Collectors.toSet());
+        Map<Integer, Integer> counts = new HashMap<>();
+        for (int friendId : friends) {
+            for (int candidate : storage.getById(friendId).orElseThrow().getFriends().toArray()) {
+                if (candidate != 1 && !friends.contains(candidate)) {
+                    counts.merge(candidate, 1, Integer::sum);
+                }
+            }
+        }
+        List<Integer> expected = counts.entrySet().stream()
+                .sorted(Map.Entry.<Integer, Integer>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(50)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+
+        assertEquals(expected, recommendedIds(1, 50));
+    }
+}
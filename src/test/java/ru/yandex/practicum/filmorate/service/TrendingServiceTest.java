@@ -0,0 +1,120 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.TrendingService.Window;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrendingServiceTest {
+
+    // Часы, которые тест переводит вручную
+    private static final class ManualClock extends Clock {
+
+        private Instant now = Instant.parse("2024-05-01T12:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+    private final ManualClock clock = new ManualClock();
+
+    private TrendingService trending;
+
+    @BeforeEach
+    void setUp() {
+        InMemoryFilmStorage storage = new InMemoryFilmStorage();
+        trending = new TrendingService(storage, clock);
+        for (int i = 0; i < 5; i++) {
+            storage.add(Film.builder()
+                    .name("Film " + i)
+                    .releaseDate(LocalDate.of(2000, 1, 1))
+                    .duration(90)
+                    .build());
+        }
+    }
+
+    private List<Integer> trendingIds(Window window) {
+        return trending.getTrending(window, 10).stream().map(Film::getId).toList();
+    }
+
+    @Test
+    @DisplayName("Лайки уходят из окна часа, суток и недели по мере старения")
+    void shouldExpireLikesFromWindows() {
+        trending.onLikeAdded(1, 1);
+        trending.onLikeAdded(1, 2);
+        clock.advance(Duration.ofMinutes(30));
+        trending.onLikeAdded(2, 1);
+
+        assertEquals(List.of(1, 2), trendingIds(Window.HOUR));
+
+        clock.advance(Duration.ofMinutes(40));
+        assertEquals(List.of(2), trendingIds(Window.HOUR), "Лайки фильма 1 старше часа");
+        assertEquals(List.of(1, 2), trendingIds(Window.DAY));
+
+        clock.advance(Duration.ofDays(2));
+        assertEquals(List.of(), trendingIds(Window.DAY));
+        assertEquals(List.of(1, 2), trendingIds(Window.WEEK));
+
+        clock.advance(Duration.ofDays(6));
+        assertEquals(List.of(), trendingIds(Window.WEEK));
+    }
+
+    @Test
+    @DisplayName("Снятый лайк вычитается из окон, в которые он попал")
+    void shouldSubtractRemovedLike() {
+        trending.onLikeAdded(1, 1);
+        trending.onLikeAdded(2, 1);
+        trending.onLikeAdded(2, 2);
+        clock.advance(Duration.ofHours(3));
+        trending.onLikeAdded(1, 2);
+        trending.onLikeAdded(1, 3);
+
+        assertEquals(List.of(1, 2), trendingIds(Window.DAY));
+        trending.onLikeRemoved(1, 2);
+        trending.onLikeRemoved(1, 3);
+        assertEquals(List.of(2, 1), trendingIds(Window.DAY));
+        assertEquals(List.of(), trendingIds(Window.HOUR));
+
+        // лайк старше недели уже забыт, его снятие ничего не меняет
+        clock.advance(Duration.ofDays(8));
+        trending.onLikeRemoved(2, 1);
+        trending.onLikeAdded(2, 3);
+        assertEquals(List.of(2), trendingIds(Window.HOUR));
+    }
+
+    @Test
+    @DisplayName("Неизвестное окно отклоняется")
+    void shouldRejectUnknownWindow() {
+        assertEquals(Window.WEEK, Window.parse("7d"));
+        assertThrows(ValidationException.class, () -> Window.parse("1y"));
+    }
+}
@@ -0,0 +1,210 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.CachingFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.reference.ReferenceDbStorage;
+import ru.yandex.practicum.filmorate.storage.user.CachingUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@JdbcTest(properties = {"filmorate.storage=db", "spring.sql.init.mode=always"})
+@Import({FilmDbStorage.class, UserDbStorage.class, ReferenceDbStorage.class})
+class CachingStorageTest {
+
+    @Autowired
+    private FilmDbStorage filmDbStorage;
+
+    @Autowired
+    private UserDbStorage userDbStorage;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private MeterRegistry registry;
+
+    private CachingFilmStorage filmStorage;
+
+    private CachingUserStorage userStorage;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        filmStorage = new CachingFilmStorage(filmDbStorage, registry, 1000, Duration.ofMinutes(1));
+        userStorage = new CachingUserStorage(userDbStorage, registry, 1000, Duration.ofMinutes(1));
+    }
+
+    private Film createFilm(String name) {
+        return Film.builder()
+                .name(name)
+                .description("Description")
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(100)
+                .build();
+    }
+
+    private User createUser(String login) {
+        return User.builder()
+                .email(login + "@example.com")
+                .login(login)
+                .name(login)
+                .birthday(LocalDate.of(1990, 1, 1))
+                .build();
+    }
+
+    private double gets(String cache, String result) {
+        return registry.get("cache.gets").tag("cache", cache).tag("result", result).functionCounter().count();
+    }
+
+    @Test
+    @DisplayName("Повторное чтение берётся из кэша, лайк сбрасывает запись")
+    void shouldCacheFilmAndInvalidateOnLike() {
+        User user = userStorage.add(createUser("cached"));
+        Film film = filmStorage.add(createFilm("Cached"));
+
+        assertSame(filmStorage.getById(film.getId()).orElseThrow(), filmStorage.getById(film.getId()).orElseThrow());
+        assertEquals(1, gets("films", "hit"));
+        assertEquals(1, gets("films", "miss"));
+
+        assertTrue(filmStorage.addLike(film.getId(), user.getId()));
+        assertTrue(filmStorage.getById(film.getId()).orElseThrow().getLikes().contains(user.getId()));
+        assertTrue(filmStorage.removeLike(film.getId(), user.getId()));
+        assertTrue(filmStorage.getById(film.getId()).orElseThrow().getLikes().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Дружба и обновление пользователя сбрасывают его запись в кэше")
+    void shouldInvalidateUserOnFriendAndUpdate() {
+        User alice = userStorage.add(createUser("alice"));
+        User bob = userStorage.add(createUser("bob"));
+        userStorage.getById(alice.getId());
+
+        assertTrue(userStorage.addFriend(alice.getId(), bob.getId()));
+        assertTrue(userStorage.getById(alice.getId()).orElseThrow().getFriends().contains(bob.getId()));
+
+        User renamed = createUser("alice");
+        renamed.setId(alice.getId());
+        renamed.setName("Алиса");
+        userStorage.update(renamed);
+        assertEquals("Алиса", userStorage.getById(alice.getId()).orElseThrow().getName());
+    }
+
+    @Test
+    @DisplayName("Промах кэшируется и сбрасывается, когда сущность с этим id появляется")
+    void shouldCacheMissingIdUntilAdded() {
+        int nextId = filmStorage.add(createFilm("Before")).getId() + 1;
+
+        assertTrue(filmStorage.getById(nextId).isEmpty());
+        assertTrue(filmStorage.getById(nextId).isEmpty());
+        assertEquals(1, gets("films", "hit"), "Повторный промах отвечается из кэша");
+
+        Film added = filmStorage.add(createFilm("After"));
+        assertEquals(nextId, added.getId());
+        assertEquals("After", filmStorage.getById(nextId).orElseThrow().getName());
+    }
+
+    @Test
+    @DisplayName("getByIds берёт попадания из кэша, промахи читает одним запросом и кэширует")
+    void shouldCacheBatchLookups() {
+        Film first = filmStorage.add(createFilm("First"));
+        Film second = filmStorage.add(createFilm("Second"));
+        int missing = second.getId() + 1;
+        filmStorage.getById(first.getId());
+
+        List<Film> films = filmStorage.getByIds(new int[]{second.getId(), missing, first.getId()});
+        assertEquals(List.of(second.getId(), first.getId()), films.stream().map(Film::getId).toList());
+        assertEquals(1, gets("films", "hit"));
+
+        assertSame(films.get(0), filmStorage.getById(second.getId()).orElseThrow(), "Промах пакета закэширован");
+        assertTrue(filmStorage.getById(missing).isEmpty());
+        assertEquals(3, gets("films", "hit"), "Отсутствующий id тоже закэширован");
+
+        filmStorage.addLike(second.getId(), userStorage.add(createUser("fan")).getId());
+        assertEquals(1, filmStorage.getByIds(new int[]{second.getId()}).get(0).getLikes().size());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DisplayName("После успешного обновления не читается устаревшая версия при конкурентных чтениях")
+    void shouldNotServeStaleFilmAfterUpdate() {
+        Film film = filmStorage.add(createFilm("Version 0"));
+        AtomicBoolean running = new AtomicBoolean(true);
+        // читатели всё время перезагружают запись, чтобы загрузка старой версии пересекалась с update
+        CompletableFuture<?> readers = CompletableFuture.allOf(
+                CompletableFuture.runAsync(() -> {
+                    while (running.get()) {
+                        filmStorage.getById(film.getId());
+                    }
+                }),
+                CompletableFuture.runAsync(() -> {
+                    while (running.get()) {
+                        filmStorage.getById(film.getId());
+                    }
+                }));
+        try {
+            for (int version = 1; version <= 200; version++) {
+                Film update = createFilm("Version " + version);
+                update.setId(film.getId());
+                filmStorage.update(update);
+                assertEquals("Version " + version, filmStorage.getById(film.getId()).orElseThrow().getName());
+            }
+        } finally {
+            running.set(false);
+            readers.join();
+            // тест идёт без откатываемой транзакции, фильм удаляется вручную
+            jdbcTemplate.update("DELETE FROM films WHERE film_id = ?", film.getId());
+        }
+    }
+
+    @Test
+    @DisplayName("Пакетная загрузка кэшируется, даже если во время чтения изменился другой id")
+    void shouldCacheBatchDespiteUnrelatedInvalidation() {
+        EntityCache<Film> cache = new EntityCache<>("test", 1000, Duration.ofMinutes(1), Film::getId,
+                film -> 0, registry);
+        Film film = createFilm("Batch");
+        film.setId(1);
+
+        cache.getAll(new int[]{1}, ids -> {
+            cache.invalidate(2);
+            return List.of(film);
+        });
+        assertEquals(List.of(film), cache.getAll(new int[]{1}, ids -> fail("Запись должна быть в кэше")));
+    }
+
+    @Test
+    @DisplayName("Значение, прочитанное до изменения своего id, не остаётся в кэше")
+    void shouldNotCacheLoadRacingWithInvalidate() {
+        EntityCache<Film> cache = new EntityCache<>("test", 1000, Duration.ofMinutes(1), Film::getId,
+                film -> 0, registry);
+        Film stale = createFilm("Stale");
+        stale.setId(1);
+        Film fresh = createFilm("Fresh");
+        fresh.setId(1);
+
+        cache.get(1, id -> {
+            cache.invalidate(1);
+            return Optional.of(stale);
+        });
+        assertEquals("Fresh", cache.get(1, id -> Optional.of(fresh)).orElseThrow().getName());
+    }
+}
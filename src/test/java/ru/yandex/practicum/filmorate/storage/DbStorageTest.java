@@ -0,0 +1,217 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import ru.yandex.practicum.filmorate.exception.ConflictException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.reference.ReferenceDbStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@JdbcTest(properties = {"filmorate.storage=db", "spring.sql.init.mode=always"})
+@Import({FilmDbStorage.class, UserDbStorage.class, ReferenceDbStorage.class})
+class DbStorageTest {
+
+    @Autowired
+    private FilmDbStorage filmStorage;
+
+    @Autowired
+    private UserDbStorage userStorage;
+
+    @Autowired
+    private ReferenceDbStorage referenceStorage;
+
+    private Film createFilm(String name) {
+        return Film.builder()
+                .name(name)
+                .description("Description")
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(100)
+                .build();
+    }
+
+    private User createUser(String login) {
+        return User.builder()
+                .email(login + "@example.com")
+                .login(login)
+                .name(login)
+                .birthday(LocalDate.of(1990, 1, 1))
+                .build();
+    }
+
+    @Test
+    @DisplayName("Фильм сохраняется и читается вместе с лайками")
+    void shouldStoreFilmWithLikes() {
+        User user = userStorage.add(createUser("alice"));
+        Film film = filmStorage.add(createFilm("Film"));
+
+        assertTrue(filmStorage.addLike(film.getId(), user.getId()));
+        assertFalse(filmStorage.addLike(film.getId(), user.getId()), "Повторный лайк не должен добавляться");
+
+        Film loaded = filmStorage.getById(film.getId()).orElseThrow();
+        assertEquals("Film", loaded.getName());
+        assertTrue(loaded.getLikes().contains(user.getId()));
+        assertTrue(filmStorage.getById(-1).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Популярные фильмы считаются агрегатом по film_likes")
+    void shouldOrderPopularByLikes() {
+        User first = userStorage.add(createUser("first"));
+        User second = userStorage.add(createUser("second"));
+        Film noLikes = filmStorage.add(createFilm("No likes"));
+        Film oneLike = filmStorage.add(createFilm("One like"));
+        Film twoLikes = filmStorage.add(createFilm("Two likes"));
+        filmStorage.addLike(oneLike.getId(), first.getId());
+        filmStorage.addLike(twoLikes.getId(), first.getId());
+        filmStorage.addLike(twoLikes.getId(), second.getId());
+
+        List<Integer> popular = filmStorage.getPopular(10).stream().map(Film::getId).collect(Collectors.toList());
+
+        assertEquals(List.of(twoLikes.getId(), oneLike.getId(), noLikes.getId()), popular);
+        assertEquals(2, filmStorage.getPopular(1).get(0).getLikes().size());
+    }
+
+    @Test
+    @DisplayName("Друзья пользователя загружаются одним запросом в getAll")
+    void shouldStoreFriends() {
+        User alice = userStorage.add(createUser("alice"));
+        User bob = userStorage.add(createUser("bob"));
+
+        assertTrue(userStorage.addFriend(alice.getId(), bob.getId()));
+        assertTrue(userStorage.getById(alice.getId()).orElseThrow().getFriends().contains(bob.getId()));
+        assertTrue(userStorage.getById(bob.getId()).orElseThrow().getFriends().isEmpty());
+
+        User fromAll = userStorage.getAll().stream()
+                .filter(u -> u.getId() == alice.getId())
+                .findFirst()
+                .orElseThrow();
+        assertEquals(1, fromAll.getFriends().size());
+
+        assertTrue(userStorage.removeFriend(alice.getId(), bob.getId()));
+        assertFalse(userStorage.removeFriend(alice.getId(), bob.getId()));
+    }
+
+    @Test
+    @DisplayName("Пакетная вставка выдаёт id по порядку и добавляет лайки одним batch")
+    void shouldAddInBatches() {
+        List<User> users = userStorage.addAll(List.of(createUser("u1"), createUser("u2")));
+        List<Film> films = filmStorage.addAll(List.of(createFilm("A"), createFilm("B")));
+        assertTrue(films.get(0).getId() < films.get(1).getId());
+
+        boolean[] added = filmStorage.addLikes(List.of(
+                new FilmLike(films.get(0).getId(), users.get(0).getId()),
+                new FilmLike(films.get(0).getId(), users.get(0).getId()),
+                new FilmLike(films.get(1).getId(), users.get(1).getId())));
+
+        assertArrayEquals(new boolean[]{true, false, true}, added);
+        assertEquals(1, filmStorage.getById(films.get(0).getId()).orElseThrow().getLikes().size());
+    }
+
+    @Test
+    @DisplayName("Поиск по email и логину; занятый ключ даёт ConflictException")
+    void shouldFindByUniqueKeysAndRejectDuplicates() {
+        User alice = userStorage.add(createUser("alice"));
+        User bob = userStorage.add(createUser("bob"));
+
+        assertEquals(alice.getId(), userStorage.getByLogin("alice").orElseThrow().getId());
+        assertEquals(bob.getId(), userStorage.getByEmail("bob@example.com").orElseThrow().getId());
+        assertTrue(userStorage.getByLogin("carol").isEmpty());
+
+        assertThrows(ConflictException.class, () -> userStorage.add(createUser("alice")));
+        User renamed = createUser("alice");
+        renamed.setId(bob.getId());
+        assertThrows(ConflictException.class, () -> userStorage.update(renamed));
+    }
+
+    @Test
+    @DisplayName("getByIds отдаёт сущности в порядке запроса и пропускает несуществующие id")
+    void shouldGetByIdsInRequestOrder() {
+        User alice = userStorage.add(createUser("alice"));
+        User bob = userStorage.add(createUser("bob"));
+        userStorage.addFriend(bob.getId(), alice.getId());
+        Film first = filmStorage.add(createFilm("First"));
+        Film second = filmStorage.add(createFilm("Second"));
+        filmStorage.addLike(second.getId(), alice.getId());
+
+        List<User> users = userStorage.getByIds(new int[]{bob.getId(), 100_000, alice.getId()});
+        assertEquals(List.of(bob.getId(), alice.getId()), users.stream().map(User::getId).toList());
+        assertTrue(users.get(0).getFriends().contains(alice.getId()), "Друзья загружаются вместе с пакетом");
+
+        List<Film> films = filmStorage.getByIds(new int[]{second.getId(), first.getId(), second.getId()});
+        assertEquals(List.of(second.getId(), first.getId(), second.getId()),
+                films.stream().map(Film::getId).toList());
+        assertTrue(films.get(0).getLikes().contains(alice.getId()));
+        assertTrue(filmStorage.getByIds(new int[0]).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Рейтинг и жанры сохраняются, заменяются при обновлении и читаются с названиями из справочника")
+    void shouldStoreMpaAndGenres() {
+        assertEquals(6, referenceStorage.getGenres().size(), "Справочники заполняются из data.sql");
+        assertEquals("PG-13", referenceStorage.getMpa(3).orElseThrow().name());
+
+        Film film = createFilm("Film");
+        film.setMpa(new Mpa(3, null));
+        film.setGenres(List.of(new Genre(1, null), new Genre(4, null)));
+        filmStorage.add(film);
+        filmStorage.add(createFilm("Other"));
+
+        Film loaded = filmStorage.getById(film.getId()).orElseThrow();
+        assertEquals(new Mpa(3, "PG-13"), loaded.getMpa());
+        assertEquals(List.of(new Genre(1, "Комедия"), new Genre(4, "Триллер")), loaded.getGenres());
+        assertEquals(loaded, filmStorage.getAll().get(0));
+
+        film.setMpa(null);
+        film.setGenres(List.of(new Genre(2, null)));
+        filmStorage.update(film);
+        List<Film> films = filmStorage.getByIds(new int[]{film.getId()});
+        assertNull(films.get(0).getMpa());
+        assertEquals(List.of(new Genre(2, "Драма")), films.get(0).getGenres());
+    }
+
+    @Test
+    @DisplayName("Страницы идут по возрастанию id строго после afterId (контракт getPage, как в PageContractTest)")
+    void shouldPageByKeyset() {
+        List<Integer> filmIds = filmStorage.addAll(List.of(createFilm("a"), createFilm("b"), createFilm("c"),
+                createFilm("d"))).stream().map(Film::getId).toList();
+        List<Integer> userIds = userStorage.addAll(List.of(createUser("a"), createUser("b"), createUser("c")))
+                .stream().map(User::getId).toList();
+        int beforeFilms = filmIds.get(0) - 1;
+        int beforeUsers = userIds.get(0) - 1;
+
+        assertEquals(filmIds.subList(0, 2), filmStorage.getPage(beforeFilms, 2).stream().map(Film::getId).toList());
+        assertEquals(filmIds.subList(2, 4), filmStorage.getPage(filmIds.get(1), 2).stream().map(Film::getId).toList());
+        assertEquals(List.of(), filmStorage.getPage(filmIds.get(3), 2));
+        assertEquals(userIds.subList(1, 3), userStorage.getPage(userIds.get(0), 10).stream().map(User::getId)
+                .toList(), "Неполная последняя страница");
+        assertEquals(userIds.subList(0, 1), userStorage.getPage(beforeUsers, 1).stream().map(User::getId).toList());
+    }
+
+    @Test
+    @DisplayName("Занятые email и логины пакета находятся запросами IN")
+    void shouldFindExistingKeys() {
+        userStorage.add(createUser("alice"));
+
+        UserStorage.Keys taken = userStorage.existingKeys(List.of("alice@example.com", "bob@example.com"),
+                List.of("bob", "alice"));
+        assertEquals(Set.of("alice@example.com"), taken.emails());
+        assertEquals(Set.of("alice"), taken.logins());
+        assertEquals(new UserStorage.Keys(Set.of(), Set.of()), userStorage.existingKeys(List.of(), List.of()));
+    }
+}
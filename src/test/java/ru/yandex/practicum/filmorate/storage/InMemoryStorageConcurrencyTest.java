@@ -0,0 +1,185 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.ConflictException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryStorageConcurrencyTest {
+
+    private static final int THREADS = 64;
+    private static final int OPS_PER_THREAD = 500;
+
+    // email и логин уникальны, поэтому каждый пользователь получает свои
+    private final AtomicInteger userSequence = new AtomicInteger();
+
+    private Film createFilm() {
+        return Film.builder()
+                .name("Film")
+                .description("Description")
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(100)
+                .build();
+    }
+
+    private User createUser() {
+        return createUser("user" + userSequence.incrementAndGet());
+    }
+
+    private User createUser(String login) {
+        return User.builder()
+                .email(login + "@example.com")
+                .login(login)
+                .birthday(LocalDate.of(1990, 1, 1))
+                .build();
+    }
+
+    // Запускает task(threadIndex) одновременно во всех потоках
+    private void runConcurrently(ThreadTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                int threadIndex = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run(threadIndex);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Параллельное добавление фильмов не теряет записи и не дублирует id")
+    void shouldAssignUniqueFilmIdsUnderContention() throws Exception {
+        InMemoryFilmStorage storage = new InMemoryFilmStorage();
+
+        runConcurrently(t -> {
+            for (int i = 0; i < OPS_PER_THREAD; i++) {
+                storage.add(createFilm());
+            }
+        });
+
+        List<Film> films = storage.getAll();
+        Set<Integer> ids = films.stream().map(Film::getId).collect(Collectors.toSet());
+        assertEquals(THREADS * OPS_PER_THREAD, films.size(), "Все фильмы должны быть сохранены");
+        assertEquals(THREADS * OPS_PER_THREAD, ids.size(), "id фильмов не должны повторяться");
+    }
+
+    @Test
+    @DisplayName("Параллельное добавление пользователей не теряет записи и не дублирует id")
+    void shouldAssignUniqueUserIdsUnderContention() throws Exception {
+        InMemoryUserStorage storage = new InMemoryUserStorage();
+
+        runConcurrently(t -> {
+            for (int i = 0; i < OPS_PER_THREAD; i++) {
+                storage.add(createUser());
+            }
+        });
+
+        List<User> users = storage.getAll();
+        Set<Integer> ids = users.stream().map(User::getId).collect(Collectors.toSet());
+        assertEquals(THREADS * OPS_PER_THREAD, users.size(), "Все пользователи должны быть сохранены");
+        assertEquals(THREADS * OPS_PER_THREAD, ids.size(), "id пользователей не должны повторяться");
+    }
+
+    @Test
+    @DisplayName("Параллельные лайки одного фильма не теряются")
+    void shouldNotLoseLikesUnderContention() throws Exception {
+        InMemoryFilmStorage storage = new InMemoryFilmStorage();
+        int filmId = storage.add(createFilm()).getId();
+
+        runConcurrently(t -> {
+            for (int i = 0; i < OPS_PER_THREAD; i++) {
+                storage.addLike(filmId, t * OPS_PER_THREAD + i);
+                // повторный лайк того же пользователя не должен учитываться
+                storage.addLike(filmId, t * OPS_PER_THREAD + i);
+            }
+        });
+
+        assertEquals(THREADS * OPS_PER_THREAD, storage.getById(filmId).orElseThrow().getLikes().size(),
+                "Количество лайков должно совпадать с числом уникальных пользователей");
+    }
+
+    @Test
+    @DisplayName("Параллельное добавление друзей не теряет связи")
+    void shouldNotLoseFriendsUnderContention() throws Exception {
+        InMemoryUserStorage storage = new InMemoryUserStorage();
+        int userId = storage.add(createUser()).getId();
+
+        runConcurrently(t -> {
+            for (int i = 0; i < OPS_PER_THREAD; i++) {
+                storage.addFriend(userId, t * OPS_PER_THREAD + i);
+            }
+        });
+
+        assertEquals(THREADS * OPS_PER_THREAD, storage.getById(userId).orElseThrow().getFriends().size(),
+                "Количество друзей должно совпадать с числом добавлений");
+    }
+
+    @Test
+    @DisplayName("Из параллельных попыток занять один логин или email успешна ровно одна")
+    void shouldAcceptSingleOwnerOfUniqueKeys() throws Exception {
+        InMemoryUserStorage storage = new InMemoryUserStorage();
+        int owner = storage.add(createUser("owner")).getId();
+
+        runConcurrently(t -> {
+            for (int i = 0; i < OPS_PER_THREAD; i++) {
+                // половина потоков создаёт пользователей, половина переименовывает существующего
+                User user = createUser("key" + i);
+                try {
+                    if (t % 2 == 0) {
+                        storage.add(user);
+                    } else {
+                        user.setId(owner);
+                        storage.update(user);
+                    }
+                } catch (ConflictException e) {
+                    // ключ уже занят другим пользователем
+                }
+            }
+        });
+
+        User renamed = storage.getById(owner).orElseThrow();
+        assertEquals(renamed, storage.getByLogin(renamed.getLogin()).orElseThrow());
+        assertEquals(renamed, storage.getByEmail(renamed.getEmail()).orElseThrow());
+        for (int i = 0; i < OPS_PER_THREAD; i++) {
+            String login = "key" + i;
+            User user = storage.getByLogin(login).orElse(null);
+            if (user != null) {
+                assertEquals(login + "@example.com", user.getEmail());
+                assertEquals(user, storage.getByEmail(user.getEmail()).orElseThrow());
+            }
+        }
+        long created = storage.getAll().stream().filter(u -> u.getId() != owner).count();
+        assertTrue(created <= OPS_PER_THREAD, "Каждый логин достаётся не более чем одному пользователю");
+        assertTrue(storage.getByLogin("owner").isEmpty() || renamed.getLogin().equals("owner"),
+                "Старый логин освобождается после переименования");
+    }
+
+    @FunctionalInterface
+    private interface ThreadTask {
+        void run(int threadIndex) throws Exception;
+    }
+}
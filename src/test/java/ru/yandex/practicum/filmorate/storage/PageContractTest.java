@@ -0,0 +1,104 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.ColumnarFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.ShardedFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.ShardedUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.ToIntFunction;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Контракт getPage для хранилищ в памяти (БД — в DbStorageTest): по возрастанию id строго после afterId,
+// не больше limit, обход страницами даёт ту же последовательность, что и getAll
+class PageContractTest {
+
+    private static final int COUNT = 1000;
+
+    private static Film createFilm(int i) {
+        return Film.builder()
+                .name("Film " + i)
+                .description("Description")
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(100)
+                .build();
+    }
+
+    private static User createUser(int i) {
+        return User.builder()
+                .email("user" + i + "@example.com")
+                .login("user" + i)
+                .birthday(LocalDate.of(1990, 1, 1))
+                .build();
+    }
+
+    private static List<Integer> range(int from, int to) {
+        return IntStream.rangeClosed(from, to).boxed().toList();
+    }
+
+    private static <T> List<Integer> ids(List<T> items, ToIntFunction<T> idOf) {
+        return items.stream().map(idOf::applyAsInt).toList();
+    }
+
+    private static <T> void assertPages(String name, BiFunction<Integer, Integer, List<T>> getPage,
+                                        List<T> all, ToIntFunction<T> idOf) {
+        assertEquals(range(1, COUNT), ids(all, idOf), name + ": getAll по возрастанию id");
+        assertEquals(range(1, 3), ids(getPage.apply(0, 3), idOf), name);
+        assertEquals(range(501, 510), ids(getPage.apply(500, 10), idOf), name);
+        assertEquals(range(COUNT - 1, COUNT), ids(getPage.apply(COUNT - 2, 10), idOf), name + ": неполная последняя");
+        assertEquals(List.of(), getPage.apply(COUNT, 10), name + ": после последнего id");
+        assertEquals(range(1, 2), ids(getPage.apply(-5, 2), idOf), name + ": отрицательный afterId");
+
+        // обход страницами, последняя страница ровно полная
+        List<Integer> walked = new ArrayList<>();
+        int afterId = 0;
+        List<T> page;
+        do {
+            page = getPage.apply(afterId, 250);
+            walked.addAll(ids(page, idOf));
+            if (!page.isEmpty()) {
+                afterId = idOf.applyAsInt(page.get(page.size() - 1));
+            }
+        } while (page.size() == 250);
+        assertEquals(range(1, COUNT), walked, name);
+    }
+
+    private static void assertFilmPages(String name, FilmStorage storage) {
+        for (int i = 0; i < COUNT; i++) {
+            storage.add(createFilm(i));
+        }
+        assertPages(name, storage::getPage, storage.getAll(), Film::getId);
+    }
+
+    private static void assertUserPages(String name, UserStorage storage) {
+        storage.addAll(IntStream.range(0, COUNT).mapToObj(PageContractTest::createUser).toList());
+        assertPages(name, storage::getPage, storage.getAll(), User::getId);
+    }
+
+    @Test
+    @DisplayName("Страницы фильмов одинаковы во всех хранилищах в памяти")
+    void shouldPageFilms() {
+        assertFilmPages("memory", new InMemoryFilmStorage());
+        assertFilmPages("columnar", new ColumnarFilmStorage());
+        assertFilmPages("sharded", new ShardedFilmStorage(4));
+    }
+
+    @Test
+    @DisplayName("Страницы пользователей одинаковы во всех хранилищах в памяти")
+    void shouldPageUsers() {
+        assertUserPages("memory", new InMemoryUserStorage());
+        assertUserPages("sharded", new ShardedUserStorage(4));
+    }
+}
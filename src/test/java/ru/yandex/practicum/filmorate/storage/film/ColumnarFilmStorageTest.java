@@ -0,0 +1,122 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.util.IntSet;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarFilmStorageTest {
+
+    private final ColumnarFilmStorage storage = new ColumnarFilmStorage();
+
+    private Film createFilm(String name, String description) {
+        return Film.builder()
+                .name(name)
+                .description(description)
+                .releaseDate(LocalDate.of(1895, 12, 28))
+                .duration(50)
+                .build();
+    }
+
+    private List<Integer> popularIds(int count) {
+        return storage.getPopular(count).stream().map(Film::getId).toList();
+    }
+
+    @Test
+    @DisplayName("Фильм собирается из столбцов с теми же полями, что были сохранены")
+    void shouldRoundTripFilm() {
+        Film film = createFilm("Прибытие поезда", null);
+        film.setLikes(IntSet.of(7, 9));
+        film.setMpa(new Mpa(1, "G"));
+        film.setGenres(List.of(new Genre(2, "Драма"), new Genre(5, "Документальный")));
+        storage.add(film);
+        Film other = createFilm("Политый поливальщик", "Ёмкое описание ✓");
+        other.setGenres(List.of(new Genre(1, "Комедия"), new Genre(2, "Драма")));
+        storage.add(other);
+
+        Film loaded = storage.getById(film.getId()).orElseThrow();
+        assertEquals(film, loaded);
+        film.getLikes().add(8);
+        assertFalse(loaded.getLikes().contains(8), "Хранилище держит свою копию множества из запроса");
+        assertEquals("Ёмкое описание ✓", storage.getById(2).orElseThrow().getDescription());
+        assertEquals(other, storage.getById(2).orElseThrow(), "Жанры из словаря идут по возрастанию id");
+        assertNull(storage.getById(2).orElseThrow().getMpa());
+        assertTrue(storage.getById(3).isEmpty());
+        assertTrue(storage.getById(0).isEmpty());
+        assertEquals(2, storage.countLikes());
+        assertTrue(storage.offHeapBytes() > 0);
+    }
+
+    @Test
+    @DisplayName("Популярные: сначала фильмы с лайками по убыванию, затем остальные по id")
+    void shouldOrderPopularAndFillWithUnliked() {
+        for (int i = 0; i < 5; i++) {
+            storage.add(createFilm("Film " + i, "Description"));
+        }
+        assertTrue(storage.addLike(4, 1));
+        assertFalse(storage.addLike(4, 1), "Повторный лайк не учитывается");
+        storage.addLike(4, 2);
+        storage.addLike(2, 1);
+
+        assertEquals(List.of(4, 2, 1, 3, 5), popularIds(10));
+        assertEquals(List.of(4, 2, 1), popularIds(3));
+
+        storage.removeLike(4, 1);
+        storage.removeLike(4, 2);
+        assertEquals(List.of(2, 1, 3), popularIds(3));
+        assertEquals(1, storage.countLikes());
+    }
+
+    @Test
+    @DisplayName("Обновление заменяет поля и лайки, неизвестный id отклоняется")
+    void shouldUpdateExistingFilmOnly() {
+        Film film = storage.add(createFilm("Old", "Old description"));
+        storage.addLike(film.getId(), 1);
+
+        Film updated = createFilm("New", "New description");
+        updated.setId(film.getId());
+        updated.setLikes(IntSet.of(2, 3));
+        storage.update(updated);
+
+        Film loaded = storage.getById(film.getId()).orElseThrow();
+        assertEquals("New", loaded.getName());
+        assertEquals(IntSet.of(2, 3), loaded.getLikes());
+        assertEquals(2, storage.countLikes());
+
+        Film missing = createFilm("Missing", null);
+        missing.setId(100_000);
+        assertThrows(NoSuchElementException.class, () -> storage.update(missing));
+        assertThrows(NoSuchElementException.class, () -> storage.addLike(100_000, 1));
+    }
+
+    @Test
+    @DisplayName("Неизменённые строки не переписываются, отпущенные версии собираются в новую арену")
+    void shouldReuseUnchangedStringsAndCompactWaste() {
+        ColumnarFilmStorage compacting = new ColumnarFilmStorage(1024);
+        Film kept = compacting.add(createFilm("Kept", "Kept description"));
+        Film film = compacting.add(createFilm("Name", "Description"));
+
+        Film same = createFilm("Name", "Description");
+        same.setId(film.getId());
+        compacting.update(same);
+        assertEquals(0, compacting.offHeapWastedBytes());
+
+        for (int version = 0; version < 100; version++) {
+            Film renamed = createFilm("Name", "Description " + version);
+            renamed.setId(film.getId());
+            compacting.update(renamed);
+        }
+        assertTrue(compacting.offHeapWastedBytes() < 1024, "Арена пересобрана, потерянное не копится");
+        assertEquals("Description 99", compacting.getById(film.getId()).orElseThrow().getDescription());
+        assertEquals("Name", compacting.getById(film.getId()).orElseThrow().getName());
+        assertEquals("Kept description", compacting.getById(kept.getId()).orElseThrow().getDescription());
+    }
+}
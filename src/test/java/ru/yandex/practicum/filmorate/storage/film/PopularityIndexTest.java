@@ -0,0 +1,98 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PopularityIndexTest {
+
+    private InMemoryFilmStorage createStorage(int films) {
+        InMemoryFilmStorage storage = new InMemoryFilmStorage();
+        for (int i = 0; i < films; i++) {
+            storage.add(Film.builder()
+                    .name("Film " + i)
+                    .releaseDate(LocalDate.of(2000, 1, 1))
+                    .duration(90)
+                    .build());
+        }
+        return storage;
+    }
+
+    // Порядок, который давала полная сортировка getAll() до появления индекса
+    private List<Integer> sortedIds(InMemoryFilmStorage storage, int count) {
+        return storage.getAll().stream()
+                .sorted(Comparator.comparingInt((Film f) -> f.getLikes().size()).reversed()
+                        .thenComparingInt(Film::getId))
+                .limit(count)
+                .map(Film::getId)
+                .collect(Collectors.toList());
+    }
+
+    private List<Integer> popularIds(InMemoryFilmStorage storage, int count) {
+        return storage.getPopular(count).stream().map(Film::getId).collect(Collectors.toList());
+    }
+
+    @Test
+    @DisplayName("Индекс популярности совпадает с полной сортировкой")
+    void shouldMatchFullSort() {
+        InMemoryFilmStorage storage = createStorage(200);
+        Random random = new Random(42);
+        for (int i = 0; i < 5_000; i++) {
+            int filmId = 1 + random.nextInt(200);
+            int userId = random.nextInt(100);
+            if (random.nextInt(4) == 0) {
+                storage.removeLike(filmId, userId);
+            } else {
+                storage.addLike(filmId, userId);
+            }
+        }
+
+        assertEquals(sortedIds(storage, 10), popularIds(storage, 10));
+        assertEquals(sortedIds(storage, 200), popularIds(storage, 500));
+    }
+
+    @Test
+    @DisplayName("Индекс популярности остаётся согласованным при параллельных лайках")
+    void shouldStayConsistentUnderConcurrentLikes() throws Exception {
+        InMemoryFilmStorage storage = createStorage(50);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 16; t++) {
+                int seed = t;
+                futures.add(executor.submit(() -> {
+                    Random random = new Random(seed);
+                    for (int i = 0; i < 10_000; i++) {
+                        int filmId = 1 + random.nextInt(50);
+                        int userId = random.nextInt(500);
+                        if (random.nextBoolean()) {
+                            storage.addLike(filmId, userId);
+                        } else {
+                            storage.removeLike(filmId, userId);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(sortedIds(storage, 50), popularIds(storage, 50));
+    }
+}
@@ -0,0 +1,75 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedFilmStorageTest {
+
+    private static Film createFilm(int index) {
+        return Film.builder()
+                .name("Film " + index)
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(90)
+                .build();
+    }
+
+    private static List<Integer> ids(List<Film> films) {
+        return films.stream().map(Film::getId).toList();
+    }
+
+    @Test
+    @DisplayName("Слияние рейтингов шардов совпадает с рейтингом одного хранилища")
+    void shouldMergePopularLikeSingleStorage() {
+        ShardedFilmStorage sharded = new ShardedFilmStorage(7);
+        InMemoryFilmStorage single = new InMemoryFilmStorage();
+        List<Film> batch = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            batch.add(createFilm(i));
+            single.add(createFilm(i));
+        }
+        sharded.addAll(batch);
+
+        Random random = new Random(42);
+        List<FilmLike> likes = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            // небольшое число пользователей даёт много фильмов с равным числом лайков
+            likes.add(new FilmLike(1 + random.nextInt(1000), 1 + random.nextInt(20)));
+        }
+        assertArrayEquals(single.addLikes(likes), sharded.addLikes(likes));
+        sharded.removeLike(likes.get(0).filmId(), likes.get(0).userId());
+        single.removeLike(likes.get(0).filmId(), likes.get(0).userId());
+
+        for (int count : new int[]{1, 10, 250, 1000, 2000}) {
+            assertEquals(ids(single.getPopular(count)), ids(sharded.getPopular(count)), "count=" + count);
+        }
+        assertEquals(single.countLikes(), sharded.countLikes());
+    }
+
+    @Test
+    @DisplayName("Общие выборки идут по возрастанию id, id выдаются подряд во всех шардах")
+    void shouldKeepGlobalIdOrder() {
+        ShardedFilmStorage storage = new ShardedFilmStorage(4);
+        for (int i = 0; i < 10; i++) {
+            storage.add(createFilm(i));
+        }
+        assertEquals(List.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10), ids(storage.getAll()));
+        assertEquals(List.of(4, 5, 6), ids(storage.getPage(3, 3)));
+        assertEquals(10, storage.count());
+
+        Film missing = createFilm(0);
+        missing.setId(11);
+        assertThrows(NoSuchElementException.class, () -> storage.update(missing));
+        assertThrows(NoSuchElementException.class, () -> storage.addLike(-1, 1));
+        assertTrue(storage.getById(0).isEmpty());
+    }
+}
@@ -0,0 +1,196 @@
+package ru.yandex.practicum.filmorate.storage.journal;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.util.IntSet;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournalRecoveryTest {
+
+    @TempDir
+    Path dir;
+
+    private static Film film(String name) {
+        return Film.builder()
+                .name(name)
+                .description("Описание «" + name + "»")
+                .releaseDate(LocalDate.of(2001, 2, 3))
+                .duration(100)
+                .build();
+    }
+
+    private static User user(int index) {
+        return User.builder()
+                .email("user" + index + "@mail.ru")
+                .login("user" + index)
+                .birthday(LocalDate.of(1990, 1, 1))
+                .build();
+    }
+
+    private InMemoryFilmStorage openFilms(FilmJournal[] journal) throws IOException {
+        InMemoryFilmStorage storage = new InMemoryFilmStorage();
+        journal[0] = FilmJournal.open(dir.resolve("films"), false, storage);
+        storage.attachJournal(journal[0]);
+        return storage;
+    }
+
+    @Test
+    @DisplayName("Фильмы и лайки восстанавливаются из снимка и хвоста журнала")
+    void shouldRecoverFilmsFromSnapshotAndJournal() throws IOException {
+        FilmJournal[] journal = new FilmJournal[1];
+        InMemoryFilmStorage storage = openFilms(journal);
+        storage.add(film("Первый"));
+        storage.add(film("Второй"));
+        storage.addLike(1, 10);
+        storage.addLike(1, 11);
+        journal[0].snapshot(storage);
+
+        // изменения после снимка остаются только в журнале
+        storage.addLike(2, 10);
+        storage.removeLike(1, 11);
+        Film updated = film("Первый, обновлённый");
+        updated.setId(1);
+        updated.setLikes(IntSet.of(10, 12));
+        updated.setMpa(new Mpa(3, "PG-13"));
+        updated.setGenres(List.of(new Genre(1, "Комедия"), new Genre(2, "Драма")));
+        storage.update(updated);
+        storage.add(film("Третий"));
+        journal[0].close();
+
+        InMemoryFilmStorage restored = openFilms(journal);
+        assertEquals(storage.getAll(), restored.getAll());
+        assertEquals(new Mpa(3, "PG-13"), restored.getById(1).orElseThrow().getMpa());
+        assertEquals(List.of(1, 2, 3), restored.getPopular(3).stream().map(Film::getId).toList());
+        assertEquals(3, restored.countLikes());
+        assertEquals(4, restored.add(film("Четвёртый")).getId(), "Нумерация продолжается после восстановления");
+        journal[0].close();
+    }
+
+    @Test
+    @DisplayName("Снимок, начатый между записью фильма в журнал и его публикацией, не теряет фильм")
+    void shouldNotLoseInsertRacingWithSnapshot() throws Exception {
+        FilmJournal[] journal = new FilmJournal[1];
+        InMemoryFilmStorage storage = openFilms(journal);
+        storage.add(film("Первый"));
+        CountDownLatch appended = new CountDownLatch(1);
+        CountDownLatch resume = new CountDownLatch(1);
+        // второй getId при вставке — уже после записи PUT в журнал, перед публикацией в карте
+        Film paused = new Film() {
+            private int calls;
+
+            @Override
+            public int getId() {
+                if (++calls == 2) {
+                    appended.countDown();
+                    await(resume);
+                }
+                return super.getId();
+            }
+        };
+        paused.setName("Второй");
+        paused.setReleaseDate(LocalDate.of(2001, 2, 3));
+        paused.setDuration(100);
+
+        Thread writer = Thread.ofPlatform().start(() -> storage.add(paused));
+        await(appended);
+        Thread snapshot = Thread.ofPlatform().start(() -> {
+            try {
+                journal[0].snapshot(storage);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        // снимок либо ждёт публикации, либо (без барьера) успевает пройти без второго фильма
+        while (snapshot.getState() != Thread.State.WAITING && snapshot.getState() != Thread.State.TERMINATED) {
+            Thread.onSpinWait();
+        }
+        resume.countDown();
+        writer.join();
+        snapshot.join();
+        storage.addLike(2, 10);
+        journal[0].close();
+
+        InMemoryFilmStorage restored = openFilms(journal);
+        assertEquals(List.of("Первый", "Второй"), restored.getAll().stream()
+                .sorted(Comparator.comparingInt(Film::getId)).map(Film::getName).toList());
+        assertEquals(1, restored.countLikes());
+        journal[0].close();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Test
+    @DisplayName("Пользователи и дружба восстанавливаются из журнала")
+    void shouldRecoverUsers() throws IOException {
+        InMemoryUserStorage storage = new InMemoryUserStorage();
+        UserJournal journal = UserJournal.open(dir.resolve("users"), false, storage);
+        storage.attachJournal(journal);
+        storage.addAll(List.of(user(1), user(2), user(3)));
+        storage.addFriend(1, 2);
+        storage.addFriend(2, 1);
+        storage.addFriend(1, 3);
+        storage.removeFriend(1, 3);
+        journal.close();
+
+        InMemoryUserStorage restored = new InMemoryUserStorage();
+        UserJournal.open(dir.resolve("users"), false, restored).close();
+        assertEquals(storage.getAll(), restored.getAll());
+        assertEquals(2, restored.countFriendships());
+    }
+
+    @Test
+    @DisplayName("Оборванная при сбое запись в конце журнала пропускается")
+    void shouldIgnoreTornTail() throws IOException {
+        FilmJournal[] journal = new FilmJournal[1];
+        InMemoryFilmStorage storage = openFilms(journal);
+        storage.add(film("Первый"));
+        storage.addLike(1, 10);
+        journal[0].close();
+
+        Path segment;
+        try (Stream<Path> files = Files.list(dir.resolve("films"))) {
+            segment = files.filter(path -> path.getFileName().toString().startsWith("journal-"))
+                    .max(Path::compareTo)
+                    .orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.APPEND)) {
+            // заголовок записи на 100 байт, за которым только 3 байта тела
+            channel.write(ByteBuffer.allocate(11).putInt(100).putInt(0).put(new byte[3]).flip());
+        }
+
+        InMemoryFilmStorage restored = openFilms(journal);
+        assertEquals(storage.getAll(), restored.getAll());
+        restored.addLike(1, 11);
+        journal[0].close();
+
+        assertEquals(2, openFilms(journal).countLikes(), "Записи после оборванного хвоста не теряются");
+        journal[0].close();
+    }
+}
@@ -0,0 +1,66 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.ConflictException;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryUserStorageTest {
+
+    private final InMemoryUserStorage storage = new InMemoryUserStorage();
+
+    private User createUser(String email, String login) {
+        return User.builder()
+                .email(email)
+                .login(login)
+                .birthday(LocalDate.of(1990, 1, 1))
+                .build();
+    }
+
+    @Test
+    @DisplayName("Смена email и логина перекладывает ключи, занятый ключ отклоняется без изменений")
+    void shouldRekeyOnUpdateAndRejectTakenKeys() {
+        User alice = storage.add(createUser("alice@example.com", "alice"));
+        storage.add(createUser("bob@example.com", "bob"));
+
+        User renamed = createUser("alice@mail.ru", "alisa");
+        renamed.setId(alice.getId());
+        storage.update(renamed);
+        assertTrue(storage.getByEmail("alice@example.com").isEmpty());
+        assertTrue(storage.getByLogin("alice").isEmpty());
+        assertEquals(alice.getId(), storage.getByLogin("alisa").orElseThrow().getId());
+
+        User stealing = createUser("alice@mail.ru", "bob");
+        stealing.setId(alice.getId());
+        assertThrows(ConflictException.class, () -> storage.update(stealing));
+        assertEquals("alisa", storage.getById(alice.getId()).orElseThrow().getLogin());
+        assertEquals(alice.getId(), storage.getByEmail("alice@mail.ru").orElseThrow().getId(),
+                "Собственный email при неудачной смене логина остаётся за пользователем");
+
+        assertThrows(ConflictException.class, () -> storage.add(createUser("new@example.com", "alisa")));
+        assertTrue(storage.getByEmail("new@example.com").isEmpty(), "Email неудачной вставки освобождается");
+        storage.add(createUser("alice@example.com", "alice"));
+    }
+
+    @Test
+    @DisplayName("Пакет с конфликтующим пользователем не сохраняется целиком")
+    void shouldRejectWholeBatchOnConflict() {
+        storage.add(createUser("taken@example.com", "taken"));
+
+        assertThrows(ConflictException.class, () -> storage.addAll(List.of(
+                createUser("first@example.com", "first"),
+                createUser("second@example.com", "taken"))));
+        assertEquals(1, storage.count());
+        assertTrue(storage.getByLogin("first").isEmpty());
+
+        storage.addAll(List.of(createUser("first@example.com", "first")));
+        assertEquals("first", storage.getByEmail("first@example.com").orElseThrow().getLogin());
+        assertEquals(2, storage.getByEmail("first@example.com").orElseThrow().getId(),
+                "Отклонённый пакет не расходует id");
+    }
+}
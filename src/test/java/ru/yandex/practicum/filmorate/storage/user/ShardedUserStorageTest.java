@@ -0,0 +1,76 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.ConflictException;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedUserStorageTest {
+
+    private final ShardedUserStorage storage = new ShardedUserStorage(4);
+
+    private User createUser(String email, String login) {
+        return User.builder()
+                .email(email)
+                .login(login)
+                .birthday(LocalDate.of(1990, 1, 1))
+                .build();
+    }
+
+    @Test
+    @DisplayName("Email и логин уникальны между шардами, пакет с конфликтом не сохраняется")
+    void shouldCheckUniqueKeysAcrossShards() {
+        storage.add(createUser("alice@example.com", "alice"));
+        // следующий пользователь попадает в другой шард, но ключи общие
+        assertThrows(ConflictException.class, () -> storage.add(createUser("alice@example.com", "alisa")));
+
+        List<User> batch = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            batch.add(createUser("user" + i + "@example.com", "user" + i));
+        }
+        batch.add(createUser("bob@example.com", "alice"));
+        assertThrows(ConflictException.class, () -> storage.addAll(batch));
+        assertEquals(1, storage.count());
+        assertTrue(storage.getByLogin("user0").isEmpty(), "Ключи отклонённого пакета освобождены");
+
+        batch.remove(batch.size() - 1);
+        storage.addAll(batch);
+        assertEquals(301, storage.count());
+        assertEquals("user299", storage.getByEmail("user299@example.com").orElseThrow().getLogin());
+        assertEquals(ids(storage.getPage(0, 301)), ids(storage.getAll()));
+    }
+
+    @Test
+    @DisplayName("Пакет дружб раскладывается по шардам, результат сохраняет порядок запроса")
+    void shouldAddFriendshipsInParallel() {
+        for (int i = 0; i < 100; i++) {
+            storage.add(createUser("user" + i + "@example.com", "user" + i));
+        }
+        List<Friendship> friendships = new ArrayList<>();
+        for (int i = 1; i <= 100; i++) {
+            for (int j = 1; j <= 5; j++) {
+                friendships.add(new Friendship(i, 1 + (i + j) % 100));
+            }
+        }
+        friendships.add(new Friendship(1, 3));
+
+        boolean[] added = storage.addFriends(friendships);
+        for (int i = 0; i < friendships.size() - 1; i++) {
+            assertTrue(added[i]);
+        }
+        assertFalse(added[friendships.size() - 1], "Повтор связи не добавляется");
+        assertEquals(500, storage.countFriendships());
+        assertTrue(storage.getById(1).orElseThrow().getFriends().contains(3));
+    }
+
+    private static List<Integer> ids(List<User> users) {
+        return users.stream().map(User::getId).toList();
+    }
+}
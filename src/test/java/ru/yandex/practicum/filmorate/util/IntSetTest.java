@@ -0,0 +1,61 @@
+package ru.yandex.practicum.filmorate.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntSetTest {
+
+    @Test
+    @DisplayName("IntSet ведёт себя так же, как HashSet<Integer>")
+    void shouldBehaveLikeHashSet() {
+        IntSet set = new IntSet();
+        Set<Integer> expected = new HashSet<>();
+        Random random = new Random(7);
+
+        for (int i = 0; i < 100_000; i++) {
+            int value = random.nextInt(2_000) - 10;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(value), set.remove(value));
+            } else {
+                assertEquals(expected.add(value), set.add(value));
+            }
+            assertEquals(expected.size(), set.size());
+        }
+
+        for (int value = -10; value < 2_000; value++) {
+            assertEquals(expected.contains(value), set.contains(value), "Расхождение для " + value);
+        }
+        assertEquals(expected, Arrays.stream(set.toArray()).boxed().collect(Collectors.toSet()));
+    }
+
+    @Test
+    @DisplayName("Лайки фильма сериализуются в JSON как массив чисел")
+    void shouldKeepJsonShape() throws Exception {
+        ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+        Film film = Film.builder()
+                .id(1)
+                .name("Film")
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(90)
+                .likes(IntSet.of(3, 1, 2))
+                .build();
+
+        String json = mapper.writeValueAsString(film);
+        assertTrue(json.contains("\"likes\":[1,2,3]"), json);
+
+        Film restored = mapper.readValue(json, Film.class);
+        assertEquals(film.getLikes(), restored.getLikes());
+        assertEquals(0, mapper.readValue("{\"name\":\"f\",\"likes\":null}", Film.class).getLikes().size());
+    }
+}
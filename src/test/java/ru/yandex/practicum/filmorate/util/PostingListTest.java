@@ -0,0 +1,111 @@
+package ru.yandex.practicum.filmorate.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PostingListTest {
+
+    private static int[] toArray(PostingList.View view) {
+        int[] values = new int[view.size()];
+        int i = 0;
+        for (int p = 0; p < view.end(); p = view.next(p)) {
+            values[i++] = view.get(p);
+        }
+        assertEquals(values.length, i);
+        return values;
+    }
+
+    @Test
+    @DisplayName("PostingList хранит элементы упорядоченно, как TreeSet<Integer>")
+    void shouldBehaveLikeTreeSet() {
+        PostingList list = new PostingList();
+        TreeSet<Integer> expected = new TreeSet<>();
+        Random random = new Random(7);
+
+        for (int i = 0; i < 20_000; i++) {
+            // в основном растущие id, как у новых фильмов, иногда вставка и удаление в середине
+            int value = random.nextInt(4) == 0 ? random.nextInt(i + 1) : i;
+            if (random.nextInt(5) == 0) {
+                assertEquals(expected.remove(value), list.remove(value));
+            } else {
+                assertEquals(expected.add(value), list.add(value));
+            }
+        }
+
+        PostingList.View view = list.view();
+        assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), toArray(view));
+        for (int i = 0; i < 1000; i++) {
+            int value = random.nextInt(21_000);
+            int position = view.seek(0, value);
+            Integer ceiling = expected.ceiling(value);
+            if (ceiling == null) {
+                assertEquals(view.end(), position);
+            } else {
+                assertEquals(ceiling, view.get(position));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Вставки в середину и удаления по всему списку сохраняют порядок между блоками")
+    void shouldSplitAndDropBlocks() {
+        PostingList list = new PostingList();
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int value = 0; value < 2000; value += 2) {
+            list.add(value);
+            expected.add(value);
+        }
+        // нечётные в середину переполняют блоки, затем удаляем целые диапазоны
+        for (int value = 1001; value >= 1; value -= 2) {
+            assertTrue(list.add(value));
+            expected.add(value);
+        }
+        for (int value = 0; value < 1500; value++) {
+            assertEquals(expected.remove(value), list.remove(value));
+        }
+        list.add(5000);
+        expected.add(5000);
+
+        PostingList.View view = list.view();
+        assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), toArray(view));
+        assertEquals(1700, view.get(view.seek(0, 1700)));
+        assertEquals(5000, view.get(view.seek(0, 1999)));
+    }
+
+    @Test
+    @DisplayName("seek находит первую позицию с элементом не меньше искомого")
+    void shouldSeek() {
+        PostingList list = new PostingList();
+        for (int value = 0; value < 1000; value += 10) {
+            list.add(value);
+        }
+        PostingList.View view = list.view();
+
+        assertEquals(0, view.seek(0, -5));
+        assertEquals(5, view.seek(0, 50));
+        assertEquals(6, view.seek(2, 51));
+        assertEquals(99, view.seek(40, 990));
+        assertEquals(view.end(), view.seek(0, 991), "Элемента нет — позиция за концом");
+    }
+
+    @Test
+    @DisplayName("Снимок не меняется после последующих изменений")
+    void shouldKeepViewStable() {
+        PostingList list = new PostingList();
+        list.add(1);
+        list.add(3);
+        PostingList.View before = list.view();
+
+        list.add(2);
+        list.add(4);
+        list.remove(1);
+
+        assertArrayEquals(new int[]{1, 3}, toArray(before));
+        assertEquals(3, list.size());
+    }
+}
@@ -0,0 +1,71 @@
+package ru.yandex.practicum.filmorate.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RingBufferTest {
+
+    @Test
+    @DisplayName("Заполненная очередь отклоняет запись, пока читатель не освободит место")
+    void shouldRejectWhenFull() {
+        RingBuffer<Integer> ring = new RingBuffer<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertEquals(i, ring.offer(i));
+        }
+        assertEquals(-1, ring.offer(4));
+
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(3, ring.drain(drained::add, 3));
+        assertEquals(List.of(0, 1, 2), drained);
+        assertEquals(4, ring.offer(4));
+        assertEquals(2, ring.drain(drained::add, 10));
+        assertEquals(List.of(0, 1, 2, 3, 4), drained);
+        assertEquals(0, ring.size());
+        assertThrows(IllegalArgumentException.class, () -> new RingBuffer<>(6));
+    }
+
+    @Test
+    @DisplayName("Элементы многих писателей доходят до читателя ровно один раз и по порядку каждого писателя")
+    void shouldDeliverFromManyProducers() throws Exception {
+        int producers = 8;
+        int perProducer = 20_000;
+        RingBuffer<long[]> ring = new RingBuffer<>(256);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int p = 0; p < producers; p++) {
+                int producer = p;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perProducer; i++) {
+                        while (ring.offer(new long[]{producer, i}) < 0) {
+                            Thread.onSpinWait();
+                        }
+                    }
+                }));
+            }
+            int[] next = new int[producers];
+            int received = 0;
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (received < producers * perProducer && System.nanoTime() < deadline) {
+                received += ring.drain(element -> {
+                    int producer = (int) element[0];
+                    assertEquals(next[producer], element[1], "Порядок одного писателя сохраняется");
+                    next[producer]++;
+                }, 64);
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+            assertEquals(producers * perProducer, received);
+            assertEquals(0, ring.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
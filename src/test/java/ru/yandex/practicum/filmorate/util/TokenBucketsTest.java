@@ -0,0 +1,92 @@
+package ru.yandex.practicum.filmorate.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketsTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    // Время задаёт тест
+    private final AtomicLong now = new AtomicLong(1_000 * SECOND);
+
+    @Test
+    @DisplayName("Сначала burst запросов подряд, затем по одному на интервал; ожидание — до следующего токена")
+    void shouldAllowBurstThenRate() {
+        TokenBuckets buckets = new TokenBuckets(2, 3, 100, now::get);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, buckets.tryAcquire(1));
+        }
+        assertEquals(SECOND / 2, buckets.tryAcquire(1));
+        assertEquals(0, buckets.tryAcquire(2), "У другого ключа своя корзина");
+
+        now.addAndGet(SECOND / 4);
+        assertEquals(SECOND / 4, buckets.tryAcquire(1));
+        now.addAndGet(SECOND / 4);
+        assertEquals(0, buckets.tryAcquire(1));
+        assertTrue(buckets.tryAcquire(1) > 0);
+
+        // за долгий простой корзина заполняется только до burst
+        now.addAndGet(60 * SECOND);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, buckets.tryAcquire(1));
+        }
+        assertTrue(buckets.tryAcquire(1) > 0);
+    }
+
+    @Test
+    @DisplayName("Заполнившиеся корзины вытесняются, при таблице из активных новые ключи делят общую корзину")
+    void shouldBoundMemory() {
+        TokenBuckets buckets = new TokenBuckets(1, 2, 2, now::get);
+        buckets.tryAcquire(1);
+        buckets.tryAcquire(2);
+        assertEquals(2, buckets.size());
+
+        // ключи 1 и 2 ещё не заполнились: ключи 3 и 4 попадают в общую корзину на двоих
+        assertEquals(0, buckets.tryAcquire(3));
+        assertEquals(0, buckets.tryAcquire(4));
+        assertTrue(buckets.tryAcquire(5) > 0);
+        assertEquals(2, buckets.size());
+
+        now.addAndGet(2 * SECOND);
+        assertEquals(0, buckets.tryAcquire(3));
+        assertEquals(1, buckets.size(), "Корзины 1 и 2 заполнились и вытеснены, место занял ключ 3");
+    }
+
+    @Test
+    @DisplayName("Одновременные запросы к одной корзине выдают ровно burst токенов")
+    void shouldNotOverGrantUnderContention() throws Exception {
+        int burst = 1_000;
+        TokenBuckets buckets = new TokenBuckets(1, burst, 10, now::get);
+        int threads = 8;
+        AtomicInteger granted = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < burst; i++) {
+                    if (buckets.tryAcquire(7) == 0) {
+                        granted.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        assertEquals(burst, granted.get());
+    }
+}